@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.beans;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.function.Supplier;
+
+import org.apache.pivot.serialization.SerializationException;
+
+/**
+ * Interface implemented by the classes that {@link BXMLCompiler} generates
+ * from BXML documents. A builder creates the same object hierarchy as
+ * {@link BXMLSerializer} does when it reads the document, without parsing
+ * it; {@link BXMLSerializer#readObject(URL, org.apache.pivot.util.Resources)}
+ * uses the builder of a document when there is one on the class path. <p>
+ * Builders are meant to be generated, not written by hand.
+ */
+public interface BXMLBuilder {
+    /**
+     * The serializer operations a builder relies on, for the parts of a
+     * document that cannot be resolved when it is compiled.
+     */
+    public interface Context {
+        /**
+         * Creates an object for an instance element.
+         *
+         * @param <T> The type of the object.
+         * @param type The class of the object.
+         * @param constructor Creates the object, or {@code null} if the class
+         * has no public no-argument constructor.
+         * @return The new object.
+         * @throws SerializationException if the object could not be created.
+         */
+        <T> T newInstance(Class<T> type, Supplier<? extends T> constructor) throws SerializationException;
+
+        /**
+         * Adds a value to the namespace.
+         *
+         * @param id The ID of the value.
+         * @param value The value.
+         * @throws SerializationException if the ID is already in use.
+         */
+        void putID(String id, Object value) throws SerializationException;
+
+        /**
+         * Sets the {@link IDProperty} of a value whose type is only known at
+         * run time (if it has one).
+         *
+         * @param value The value.
+         * @param id Its ID.
+         */
+        void setIDProperty(Object value, String id);
+
+        /**
+         * @param name The path of a namespace value (an attribute value
+         * starting with {@code $}, without the prefix).
+         * @return The value.
+         * @throws SerializationException if the value is not defined.
+         */
+        Object resolve(String name) throws SerializationException;
+
+        /**
+         * @param key The key of a resource (an attribute value starting with
+         * {@code %}, without the prefix).
+         * @return The resource, or the key itself if there is no such resource.
+         */
+        Object getResource(String key);
+
+        /**
+         * @param path A path relative to the location of the document (an
+         * attribute value starting with {@code @}, without the prefix).
+         * @return The resolved URL.
+         * @throws SerializationException if the path is not a valid URL.
+         */
+        URL getURL(String path) throws SerializationException;
+
+        /**
+         * Reads an include.
+         *
+         * @param src The {@code src} attribute.
+         * @param resources The {@code resources} attribute, or {@code null}.
+         * @param mimeType The {@code mimeType} attribute, or {@code null}.
+         * @param inline The {@code inline} attribute.
+         * @return The included object.
+         * @throws IOException if the include could not be read.
+         * @throws SerializationException if the include could not be deserialized.
+         */
+        Object include(String src, String resources, String mimeType, boolean inline)
+            throws IOException, SerializationException;
+
+        /**
+         * @param id The {@code id} attribute of a reference.
+         * @return The referenced value.
+         * @throws SerializationException if there is no such value.
+         */
+        Object getReference(String id) throws SerializationException;
+
+        /**
+         * Gets a property of an object whose type is only known at run time.
+         *
+         * @param object The object.
+         * @param name The property name.
+         * @return The property value.
+         */
+        Object getProperty(Object object, String name);
+
+        /**
+         * Sets a property of an object whose type is only known at run time.
+         *
+         * @param object The object (a bean or a dictionary).
+         * @param name The property name.
+         * @param value The property value.
+         */
+        void setProperty(Object object, String name, Object value);
+
+        /**
+         * Sets an attached property that could not be resolved at compile time.
+         *
+         * @param object The object.
+         * @param propertyClass The class defining the property.
+         * @param name The property name.
+         * @param value The property value.
+         * @throws SerializationException if there is no such property.
+         */
+        void setStaticProperty(Object object, Class<?> propertyClass, String name, Object value)
+            throws SerializationException;
+
+        /**
+         * Adds a value to the current value of a default property, if that
+         * is a sequence that supports it.
+         *
+         * @param sequence The current value of the default property.
+         * @param value The value to add.
+         * @return {@code true} if the value was added; {@code false} if it
+         * should be set as the property value instead.
+         */
+        boolean add(Object sequence, Object value);
+
+        /**
+         * Adds a child element's value to the value of its parent when the
+         * parent's type is only known at run time.
+         *
+         * @param parent The parent value.
+         * @param value The child value.
+         * @throws SerializationException if the parent has no default
+         * property and is not a sequence.
+         */
+        void addToParent(Object parent, Object value) throws SerializationException;
+    }
+
+    /**
+     * Creates the object hierarchy of the document.
+     *
+     * @param context The serializer operations to use.
+     * @return The root object.
+     * @throws IOException if an include could not be read.
+     * @throws SerializationException if the document could not be deserialized.
+     */
+    Object build(Context context) throws IOException, SerializationException;
+}
@@ -0,0 +1,1246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.beans;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Properties;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.Dictionary;
+import org.apache.pivot.collections.HashMap;
+import org.apache.pivot.collections.HashSet;
+import org.apache.pivot.collections.Sequence;
+import org.apache.pivot.serialization.SerializationException;
+import org.apache.pivot.util.ListenerList;
+import org.apache.pivot.util.Utils;
+
+/**
+ * Generates Java source for {@link BXMLBuilder} classes from BXML documents,
+ * as a build step. A builder creates the same objects as
+ * {@link BXMLSerializer} does from the document, and sets the same
+ * properties in the same order, but with the element classes, setters and
+ * attached property methods, default properties and literal attribute
+ * values resolved when the document is compiled, so that loading it at run
+ * time requires neither parsing nor reflection. Values that can only be
+ * known at run time (resources, namespace references, includes) are
+ * resolved through the serializer. <p> The builder of the resource
+ * {@code com/example/main_window.bxml} is the class
+ * {@code com.example.main_window_bxml}; the compiler also writes the
+ * {@link BXMLSerializer#BUILDER_INDEX} resource, which the serializer uses to
+ * find builders. <p> Documents that use scripts (script elements, listener
+ * elements or attributes) or namespace bindings are not compiled, and are
+ * still read at run time. <p> Usage:
+ * {@code BXMLCompiler <source directory> <output directory>}. The element
+ * classes must be on the class path. The generated sources (and the index)
+ * are written to the output directory, in their package directories.
+ */
+public final class BXMLCompiler {
+    /**
+     * The suffix added to the name of a document to form the name of its
+     * builder class.
+     */
+    public static final String BUILDER_SUFFIX = "_" + BXMLSerializer.BXML_EXTENSION;
+
+    private enum Type {
+        INSTANCE, READ_ONLY_PROPERTY, WRITABLE_PROPERTY, INCLUDE, DEFINE, REFERENCE
+    }
+
+    /**
+     * An element of the document being compiled.
+     */
+    private static final class Element {
+        final Element parent;
+        final Type type;
+        final String name;
+        final Class<?> propertyClass;
+
+        // The (static) type of the element's value, or null if it is only
+        // known at run time
+        final Class<?> valueClass;
+
+        // For read-only properties, the getter (null for a public field)
+        Method getter = null;
+
+        String id = null;
+        final HashMap<String, String> properties = new HashMap<>();
+        final ArrayList<Attribute> attributes = new ArrayList<>();
+
+        // The child elements and (non-whitespace) text, in document order
+        final ArrayList<Object> children = new ArrayList<>();
+
+        Element(final Element parent, final Type type, final String name, final Class<?> propertyClass,
+            final Class<?> valueClass) {
+            this.parent = parent;
+            this.type = type;
+            this.name = name;
+            this.propertyClass = propertyClass;
+            this.valueClass = valueClass;
+        }
+    }
+
+    /**
+     * An attribute to apply to the value of an element.
+     */
+    private static final class Attribute {
+        final String name;
+        final Class<?> propertyClass;
+        final String value;
+
+        Attribute(final String name, final Class<?> propertyClass, final String value) {
+            this.name = name;
+            this.propertyClass = propertyClass;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A value in the generated code: a Java expression and its static type.
+     */
+    private static final class Value {
+        final String expression;
+
+        // The static type (null if it is only known at run time, or for null)
+        final Class<?> type;
+
+        // The value of a string literal, or null
+        final String literal;
+
+        Value(final String expression, final Class<?> type, final String literal) {
+            this.expression = expression;
+            this.type = type;
+            this.literal = literal;
+        }
+
+        boolean isNull() {
+            return expression.equals("null");
+        }
+    }
+
+    private static final Value NULL_VALUE = new Value("null", null, null);
+
+    private static final String CONTEXT_TYPE = BXMLBuilder.Context.class.getCanonicalName();
+    private static final String THROWS_CLAUSE = "throws " + IOException.class.getName() + ", "
+        + SerializationException.class.getName();
+
+    private final ClassLoader classLoader;
+    private final XMLInputFactory xmlInputFactory;
+
+    private XMLStreamReader xmlStreamReader = null;
+    private Element element = null;
+    private Element root = null;
+    private HashSet<String> ids = null;
+
+    private StringBuilder methods = null;
+    private int nextMethod = 0;
+
+    /**
+     * Creates a compiler that loads the element classes with the context
+     * class loader.
+     */
+    public BXMLCompiler() {
+        this(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * Creates a compiler.
+     *
+     * @param classLoader The class loader for the element classes.
+     */
+    public BXMLCompiler(final ClassLoader classLoader) {
+        Utils.checkNull(classLoader, "classLoader");
+
+        this.classLoader = classLoader;
+
+        // Read the documents the way the serializer does
+        xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty("javax.xml.stream.isCoalescing", Boolean.TRUE);
+    }
+
+    /**
+     * Returns the name of the builder class of a document.
+     *
+     * @param resourceName The class path resource name of the document (for
+     * example {@code com/example/main_window.bxml}).
+     * @return The fully qualified name of the builder class.
+     */
+    public static String getBuilderClassName(final String resourceName) {
+        Utils.checkNullOrEmpty(resourceName, "resourceName");
+
+        int i = resourceName.lastIndexOf('/');
+        String packageName = (i == -1) ? "" : resourceName.substring(0, i).replace('/', '.');
+        String fileName = resourceName.substring(i + 1);
+
+        int j = fileName.lastIndexOf('.');
+        if (j != -1) {
+            fileName = fileName.substring(0, j);
+        }
+
+        StringBuilder className = new StringBuilder();
+        for (int k = 0, n = fileName.length(); k < n; k++) {
+            char c = fileName.charAt(k);
+            className.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+
+        if (className.length() == 0 || !Character.isJavaIdentifierStart(className.charAt(0))) {
+            className.insert(0, '_');
+        }
+
+        className.append(BUILDER_SUFFIX);
+
+        return (packageName.length() == 0) ? className.toString() : packageName + "." + className;
+    }
+
+    /**
+     * Compiles a document.
+     *
+     * @param resourceName The class path resource name of the document.
+     * @param inputStream The document.
+     * @return The source of the builder class.
+     * @throws IOException if the document could not be read.
+     * @throws SerializationException if the document could not be compiled;
+     * either because it is not valid, or because it uses features that are
+     * only available at run time.
+     */
+    public String compile(final String resourceName, final InputStream inputStream)
+        throws IOException, SerializationException {
+        Utils.checkNullOrEmpty(resourceName, "resourceName");
+        Utils.checkNull(inputStream, "inputStream");
+
+        element = null;
+        root = null;
+        ids = new HashSet<>();
+
+        try {
+            try {
+                xmlStreamReader = xmlInputFactory.createXMLStreamReader(inputStream);
+
+                while (xmlStreamReader.hasNext()) {
+                    switch (xmlStreamReader.next()) {
+                        case XMLStreamConstants.CHARACTERS:
+                            processCharacters();
+                            break;
+
+                        case XMLStreamConstants.START_ELEMENT:
+                            processStartElement();
+                            break;
+
+                        case XMLStreamConstants.END_ELEMENT:
+                            if (element.parent == null) {
+                                root = element;
+                            }
+
+                            element = element.parent;
+                            break;
+
+                        default:
+                            break;
+                    }
+                }
+            } catch (XMLStreamException exception) {
+                throw new SerializationException(exception);
+            }
+        } catch (SerializationException exception) {
+            if (xmlStreamReader != null && xmlStreamReader.getLocation() != null) {
+                throw new SerializationException("Line " + xmlStreamReader.getLocation().getLineNumber()
+                    + ": " + exception.getMessage(), exception.getCause());
+            }
+
+            throw exception;
+        } finally {
+            xmlStreamReader = null;
+        }
+
+        if (root == null) {
+            throw new SerializationException("The document is empty.");
+        }
+
+        return generate(resourceName);
+    }
+
+    private Class<?> loadClass(final String className) throws SerializationException {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError exception) {
+            throw new SerializationException("Class " + className + " was not found.", exception);
+        }
+    }
+
+    private void processCharacters() throws SerializationException {
+        if (!xmlStreamReader.isWhiteSpace()) {
+            String text = xmlStreamReader.getText();
+
+            switch (element.type) {
+                case INSTANCE:
+                    if (Sequence.class.isAssignableFrom(element.valueClass)) {
+                        try {
+                            element.valueClass.getMethod("add", String.class);
+                        } catch (NoSuchMethodException exception) {
+                            throw new SerializationException("Text content cannot be added to "
+                                + element.valueClass.getName() + ": \"" + text + "\"");
+                        }
+
+                        element.children.add(text);
+                    }
+                    break;
+
+                case WRITABLE_PROPERTY:
+                    element.children.add(text);
+                    break;
+
+                default:
+                    throw new SerializationException("Unexpected characters in " + element.type + " element.");
+            }
+        }
+    }
+
+    private void processStartElement() throws SerializationException {
+        String namespaceURI = xmlStreamReader.getNamespaceURI();
+        String prefix = xmlStreamReader.getPrefix();
+        String localName = xmlStreamReader.getLocalName();
+
+        if (prefix != null && prefix.length() == 0) {
+            prefix = null;
+        }
+
+        Type type;
+        String name;
+        Class<?> propertyClass = null;
+        Class<?> valueClass = null;
+        Method getter = null;
+
+        if (prefix != null && prefix.equals(BXMLSerializer.BXML_PREFIX)) {
+            if (element == null) {
+                throw new SerializationException("Invalid root element.");
+            }
+
+            if (localName.equals(BXMLSerializer.INCLUDE_TAG)) {
+                type = Type.INCLUDE;
+            } else if (localName.equals(BXMLSerializer.DEFINE_TAG)) {
+                type = Type.DEFINE;
+            } else if (localName.equals(BXMLSerializer.REFERENCE_TAG)) {
+                type = Type.REFERENCE;
+            } else if (localName.equals(BXMLSerializer.SCRIPT_TAG)) {
+                throw new SerializationException("Scripts are not supported.");
+            } else {
+                throw new SerializationException("Invalid element.");
+            }
+
+            name = "<" + prefix + ":" + localName + ">";
+        } else if (Character.isUpperCase(localName.charAt(0))) {
+            int i = localName.indexOf('.');
+            if (i != -1 && Character.isLowerCase(localName.charAt(i + 1))) {
+                // An attached property
+                type = Type.WRITABLE_PROPERTY;
+                name = localName.substring(i + 1);
+                propertyClass = loadClass(namespaceURI + "." + localName.substring(0, i));
+                checkAccessible(propertyClass);
+            } else {
+                if (namespaceURI == null) {
+                    throw new SerializationException("No XML namespace specified for " + localName + " tag.");
+                }
+
+                type = Type.INSTANCE;
+                name = "<" + ((prefix == null) ? "" : prefix + ":") + localName + ">";
+                valueClass = loadClass(namespaceURI + "." + localName.replace('.', '$'));
+                checkAccessible(valueClass);
+            }
+        } else {
+            // A property of the parent's value
+            if (prefix != null) {
+                throw new SerializationException("Property elements cannot have a namespace prefix.");
+            }
+
+            if (element == null) {
+                throw new SerializationException("Invalid root element.");
+            }
+
+            Class<?> parentClass = element.valueClass;
+            if (parentClass == null
+                || (element.type != Type.INSTANCE && element.type != Type.READ_ONLY_PROPERTY)) {
+                throw new SerializationException("The type of element " + element.name
+                    + " is not known when the document is compiled.");
+            }
+
+            name = localName;
+
+            if (Dictionary.class.isAssignableFrom(parentClass)) {
+                type = Type.WRITABLE_PROPERTY;
+            } else if (BeanAdapter.isReadOnly(parentClass, localName)) {
+                Class<?> propertyType = BeanAdapter.getType(parentClass, localName);
+                if (propertyType == null) {
+                    throw new SerializationException("\"" + localName
+                        + "\" is not a valid property of element " + element.name + ".");
+                }
+
+                if (ListenerList.class.isAssignableFrom(propertyType)) {
+                    throw new SerializationException("Listener list elements are not supported.");
+                }
+
+                type = Type.READ_ONLY_PROPERTY;
+                getter = BeanAdapter.getGetterMethod(parentClass, localName);
+                if (getter != null && propertyType != Object.class && isAccessible(propertyType)) {
+                    valueClass = propertyType;
+                }
+            } else {
+                type = Type.WRITABLE_PROPERTY;
+            }
+        }
+
+        Element parent = element;
+        element = new Element(parent, type, name, propertyClass, valueClass);
+        element.getter = getter;
+
+        if (parent != null) {
+            parent.children.add(element);
+        }
+
+        processAttributes();
+
+        if (type == Type.INCLUDE && !element.properties.containsKey(BXMLSerializer.INCLUDE_SRC_ATTRIBUTE)) {
+            throw new SerializationException(BXMLSerializer.INCLUDE_SRC_ATTRIBUTE + " attribute is required for "
+                + BXMLSerializer.BXML_PREFIX + ":" + BXMLSerializer.INCLUDE_TAG + " tag.");
+        }
+
+        if (type == Type.REFERENCE && !element.properties.containsKey(BXMLSerializer.REFERENCE_ID_ATTRIBUTE)) {
+            throw new SerializationException(BXMLSerializer.REFERENCE_ID_ATTRIBUTE + " attribute is required for "
+                + BXMLSerializer.BXML_PREFIX + ":" + BXMLSerializer.REFERENCE_TAG + " tag.");
+        }
+
+        if ((parent == null || parent.type == Type.INCLUDE || parent.type == Type.REFERENCE)
+            && type != Type.INSTANCE && type != Type.INCLUDE && type != Type.REFERENCE) {
+            throw new SerializationException("The type of element "
+                + ((parent == null) ? name : parent.name) + " is not known when the document is compiled.");
+        }
+    }
+
+    private void processAttributes() throws SerializationException {
+        for (int i = 0, n = xmlStreamReader.getAttributeCount(); i < n; i++) {
+            String prefix = xmlStreamReader.getAttributePrefix(i);
+            String localName = xmlStreamReader.getAttributeLocalName(i);
+            String value = xmlStreamReader.getAttributeValue(i);
+
+            if (prefix != null && prefix.equals(BXMLSerializer.BXML_PREFIX)) {
+                if (!localName.equals(BXMLSerializer.ID_ATTRIBUTE)) {
+                    throw new SerializationException(BXMLSerializer.BXML_PREFIX + ":" + localName
+                        + " is not a valid attribute.");
+                }
+
+                if (value.length() == 0 || value.contains(".")) {
+                    throw new SerializationException("\"" + value + "\" is not a valid ID value.");
+                }
+
+                if (ids.contains(value)) {
+                    throw new SerializationException("ID " + value + " is already in use.");
+                }
+
+                if (element.type != Type.INSTANCE && element.type != Type.INCLUDE) {
+                    throw new SerializationException("An ID cannot be assigned to this element.");
+                }
+
+                ids.add(value);
+                element.id = value;
+            } else if ((element.type == Type.INCLUDE
+                && (localName.equals(BXMLSerializer.INCLUDE_SRC_ATTRIBUTE)
+                    || localName.equals(BXMLSerializer.INCLUDE_RESOURCES_ATTRIBUTE)
+                    || localName.equals(BXMLSerializer.INCLUDE_MIME_TYPE_ATTRIBUTE)
+                    || localName.equals(BXMLSerializer.INCLUDE_INLINE_ATTRIBUTE)))
+                || (element.type == Type.REFERENCE && localName.equals(BXMLSerializer.REFERENCE_ID_ATTRIBUTE))) {
+                element.properties.put(localName, value);
+            } else {
+                String name;
+                Class<?> propertyClass = null;
+
+                if (Character.isUpperCase(localName.charAt(0))) {
+                    // An attached property or a listener
+                    int j = localName.indexOf('.');
+                    if (j == -1) {
+                        throw new SerializationException("\"" + localName + "\" is not a valid attribute.");
+                    }
+
+                    name = localName.substring(j + 1);
+
+                    String namespaceURI = xmlStreamReader.getAttributeNamespace(i);
+                    if (Utils.isNullOrEmpty(namespaceURI)) {
+                        namespaceURI = xmlStreamReader.getNamespaceURI("");
+                    }
+
+                    propertyClass = loadClass(namespaceURI + "." + localName.substring(0, j));
+
+                    if (propertyClass.isInterface()) {
+                        throw new SerializationException("Listener attributes are not supported.");
+                    }
+
+                    checkAccessible(propertyClass);
+                } else {
+                    name = localName;
+                }
+
+                if (value.startsWith(BXMLSerializer.NAMESPACE_BINDING_PREFIX)
+                    && value.endsWith(BXMLSerializer.NAMESPACE_BINDING_SUFFIX)) {
+                    throw new SerializationException("Namespace bindings are not supported.");
+                }
+
+                element.attributes.add(new Attribute(name, propertyClass, value));
+            }
+        }
+    }
+
+    private static boolean isAccessible(final Class<?> type) {
+        if (type.isArray()) {
+            return isAccessible(type.getComponentType());
+        }
+
+        if (type.isPrimitive()) {
+            return true;
+        }
+
+        for (Class<?> c = type; c != null; c = c.getDeclaringClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+
+        return (type.getCanonicalName() != null);
+    }
+
+    private static void checkAccessible(final Class<?> type) throws SerializationException {
+        if (!isAccessible(type)) {
+            throw new SerializationException(type.getName() + " is not a public class.");
+        }
+    }
+
+    private String generate(final String resourceName) throws SerializationException {
+        String className = getBuilderClassName(resourceName);
+        int i = className.lastIndexOf('.');
+        String packageName = (i == -1) ? null : className.substring(0, i);
+        String simpleName = className.substring(i + 1);
+
+        methods = new StringBuilder();
+        nextMethod = 0;
+
+        String rootMethod = generateMethod(root);
+
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated by ").append(BXMLCompiler.class.getName()).append(" from ")
+            .append(resourceName).append(".\n");
+        source.append("// Do not edit.\n");
+
+        if (packageName != null) {
+            source.append("package ").append(packageName).append(";\n");
+        }
+
+        source.append("\n");
+        source.append("/**\n");
+        source.append(" * Builds the objects of {@code ").append(resourceName.substring(resourceName.lastIndexOf('/') + 1))
+            .append("}.\n");
+        source.append(" */\n");
+        source.append("public final class ").append(simpleName).append(" implements ")
+            .append(BXMLBuilder.class.getName()).append(" {\n");
+        source.append("    @Override\n");
+        source.append("    public Object build(final ").append(CONTEXT_TYPE).append(" context)\n");
+        source.append("        ").append(THROWS_CLAUSE).append(" {\n");
+        source.append("        return ").append(rootMethod).append("(context);\n");
+        source.append("    }\n");
+        source.append(methods);
+        source.append("}\n");
+
+        methods = null;
+
+        return source.toString();
+    }
+
+    /**
+     * A method body being generated, with its local variables.
+     */
+    private static final class Body {
+        final StringBuilder code = new StringBuilder();
+        int nextVariable = 0;
+
+        String newVariable() {
+            return "v" + (nextVariable++);
+        }
+
+        void add(final String statement) {
+            code.append("        ").append(statement).append("\n");
+        }
+    }
+
+    /**
+     * Generates the method that creates the value of an instance, include or
+     * reference element, along with its children.
+     */
+    private String generateMethod(final Element instance) throws SerializationException {
+        String methodName = "create" + (nextMethod++);
+        Class<?> type = instance.valueClass;
+        Body body = new Body();
+
+        String typeName;
+        if (instance.type == Type.INSTANCE) {
+            typeName = type.getCanonicalName();
+            body.add(typeName + " value = context.newInstance(" + typeName + ".class, "
+                + getConstructorReference(type) + ");");
+        } else {
+            typeName = "Object";
+        }
+
+        // Attribute values are resolved when the element starts, and applied
+        // when it ends
+        ArrayList<Value> values = resolveAttributes(instance, body);
+
+        if (instance.type == Type.INCLUDE) {
+            String resources = instance.properties.get(BXMLSerializer.INCLUDE_RESOURCES_ATTRIBUTE);
+            String mimeType = instance.properties.get(BXMLSerializer.INCLUDE_MIME_TYPE_ATTRIBUTE);
+            String inline = instance.properties.get(BXMLSerializer.INCLUDE_INLINE_ATTRIBUTE);
+
+            body.add("Object value = context.include("
+                + toLiteral(instance.properties.get(BXMLSerializer.INCLUDE_SRC_ATTRIBUTE)) + ", "
+                + ((resources == null) ? "null" : toLiteral(resources)) + ", "
+                + ((mimeType == null) ? "null" : toLiteral(mimeType)) + ", "
+                + Boolean.parseBoolean(inline) + ");");
+        } else if (instance.type == Type.REFERENCE) {
+            body.add("Object value = context.getReference("
+                + toLiteral(instance.properties.get(BXMLSerializer.REFERENCE_ID_ATTRIBUTE)) + ");");
+        }
+
+        if (instance.id != null) {
+            body.add("context.putID(" + toLiteral(instance.id) + ", value);");
+
+            if (type == null) {
+                body.add("context.setIDProperty(value, " + toLiteral(instance.id) + ");");
+            } else {
+                IDProperty idProperty = type.getAnnotation(IDProperty.class);
+                if (idProperty != null) {
+                    generateSetProperty(body, "value", type, idProperty.value(),
+                        new Value(toLiteral(instance.id), String.class, instance.id));
+                }
+            }
+        }
+
+        generateChildren(body, instance, "value", type);
+        generateApplyAttributes(body, instance, "value", type, values);
+
+        body.add("return value;");
+
+        methods.append("\n");
+        methods.append("    @SuppressWarnings({\"cast\", \"rawtypes\", \"unchecked\"})\n");
+        methods.append("    private static ").append(typeName).append(" ").append(methodName)
+            .append("(final ").append(CONTEXT_TYPE).append(" context)\n");
+        methods.append("        ").append(THROWS_CLAUSE).append(" {\n");
+        methods.append(body.code);
+        methods.append("    }\n");
+
+        return methodName;
+    }
+
+    private static String getConstructorReference(final Class<?> type) {
+        if (Modifier.isAbstract(type.getModifiers()) || type.isInterface()
+            || (type.isMemberClass() && !Modifier.isStatic(type.getModifiers()))) {
+            return "null";
+        }
+
+        try {
+            Constructor<?> constructor = type.getConstructor();
+            return Modifier.isPublic(constructor.getModifiers()) ? type.getCanonicalName() + "::new" : "null";
+        } catch (NoSuchMethodException exception) {
+            return "null";
+        }
+    }
+
+    private ArrayList<Value> resolveAttributes(final Element owner, final Body body) throws SerializationException {
+        ArrayList<Value> values = new ArrayList<>();
+
+        for (Attribute attribute : owner.attributes) {
+            values.add(resolveValue(attribute.value, body));
+        }
+
+        return values;
+    }
+
+    private static Value resolveValue(final String value, final Body body) throws SerializationException {
+        if (value.length() == 0) {
+            return new Value(toLiteral(value), String.class, value);
+        }
+
+        char prefix = value.charAt(0);
+        String argument = value.substring(1);
+
+        switch (prefix) {
+            case BXMLSerializer.URL_PREFIX:
+                if (argument.length() == 0) {
+                    throw new SerializationException("Invalid URL resolution argument.");
+                }
+
+                if (argument.charAt(0) != BXMLSerializer.URL_PREFIX) {
+                    String variable = body.newVariable();
+                    body.add(URL.class.getName() + " " + variable + " = context.getURL(" + toLiteral(argument) + ");");
+                    return new Value(variable, URL.class, null);
+                }
+                break;
+
+            case BXMLSerializer.RESOURCE_KEY_PREFIX:
+                if (argument.length() == 0) {
+                    throw new SerializationException("Invalid resource resolution argument.");
+                }
+
+                if (argument.charAt(0) != BXMLSerializer.RESOURCE_KEY_PREFIX) {
+                    String variable = body.newVariable();
+                    body.add("Object " + variable + " = context.getResource(" + toLiteral(argument) + ");");
+                    return new Value(variable, null, null);
+                }
+                break;
+
+            case BXMLSerializer.OBJECT_REFERENCE_PREFIX:
+                if (argument.length() == 0) {
+                    throw new SerializationException("Invalid object resolution argument.");
+                }
+
+                if (argument.equals(BXMLSerializer.BXML_PREFIX + ":" + null)) {
+                    return NULL_VALUE;
+                }
+
+                if (argument.charAt(0) != BXMLSerializer.OBJECT_REFERENCE_PREFIX) {
+                    String variable = body.newVariable();
+                    body.add("Object " + variable + " = context.resolve(" + toLiteral(argument) + ");");
+                    return new Value(variable, null, null);
+                }
+                break;
+
+            default:
+                return new Value(toLiteral(value), String.class, value);
+        }
+
+        // An escaped prefix
+        return new Value(toLiteral(argument), String.class, argument);
+    }
+
+    private void generateChildren(final Body body, final Element parent, final String parentExpression,
+        final Class<?> parentClass) throws SerializationException {
+        for (Object child : parent.children) {
+            if (child instanceof String) {
+                // Text added to a sequence
+                body.add(parentExpression + ".add(" + toLiteral((String) child) + ");");
+            } else {
+                Element childElement = (Element) child;
+
+                switch (childElement.type) {
+                    case INSTANCE:
+                    case INCLUDE:
+                    case REFERENCE:
+                        Value childValue = generateCreate(body, childElement);
+                        if (parent.type != Type.DEFINE) {
+                            generateAddToParent(body, parentExpression, parentClass, childValue);
+                        }
+                        break;
+
+                    case READ_ONLY_PROPERTY:
+                        generateReadOnlyProperty(body, childElement, parentExpression);
+                        break;
+
+                    case WRITABLE_PROPERTY:
+                        generateWritableProperty(body, childElement, parentExpression, parentClass);
+                        break;
+
+                    case DEFINE:
+                        for (Object definition : childElement.children) {
+                            if (!(definition instanceof Element)) {
+                                throw new SerializationException("Unexpected characters in DEFINE element.");
+                            }
+
+                            Element definitionElement = (Element) definition;
+                            if (definitionElement.type != Type.INSTANCE && definitionElement.type != Type.INCLUDE
+                                && definitionElement.type != Type.REFERENCE) {
+                                throw new SerializationException("Only objects can be defined.");
+                            }
+                        }
+
+                        generateChildren(body, childElement, null, null);
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
+    private Value generateCreate(final Body body, final Element childElement) throws SerializationException {
+        String methodName = generateMethod(childElement);
+        String variable = body.newVariable();
+
+        Class<?> type = childElement.valueClass;
+        body.add(((type == null) ? "Object" : type.getCanonicalName()) + " " + variable + " = "
+            + methodName + "(context);");
+
+        return new Value(variable, type, null);
+    }
+
+    private void generateReadOnlyProperty(final Body body, final Element property, final String parentExpression)
+        throws SerializationException {
+        Class<?> type = property.valueClass;
+        String variable = body.newVariable();
+
+        if (type == null) {
+            String getterCall = (property.getter == null)
+                ? "context.getProperty(" + parentExpression + ", " + toLiteral(property.name) + ")"
+                : parentExpression + "." + property.getter.getName() + "()";
+            body.add("Object " + variable + " = " + getterCall + ";");
+        } else {
+            body.add(type.getCanonicalName() + " " + variable + " = " + parentExpression + "."
+                + property.getter.getName() + "();");
+        }
+
+        for (Attribute attribute : property.attributes) {
+            if (attribute.propertyClass != null) {
+                throw new SerializationException("Static setters are not supported for read-only properties.");
+            }
+        }
+
+        ArrayList<Value> values = resolveAttributes(property, body);
+        generateChildren(body, property, variable, type);
+        generateApplyAttributes(body, property, variable, type, values);
+    }
+
+    private void generateWritableProperty(final Body body, final Element property, final String parentExpression,
+        final Class<?> parentClass) throws SerializationException {
+        // The property is set to its last child
+        Value value = NULL_VALUE;
+
+        for (Object child : property.children) {
+            if (child instanceof String) {
+                value = new Value(toLiteral((String) child), String.class, (String) child);
+            } else {
+                Element childElement = (Element) child;
+
+                if (childElement.type != Type.INSTANCE && childElement.type != Type.INCLUDE
+                    && childElement.type != Type.REFERENCE) {
+                    throw new SerializationException("Element " + childElement.name
+                        + " cannot be the value of property " + property.name + ".");
+                }
+
+                value = generateCreate(body, childElement);
+            }
+        }
+
+        if (property.propertyClass == null) {
+            generateSetProperty(body, parentExpression, parentClass, property.name, value);
+        } else {
+            generateSetStaticProperty(body, parentExpression, parentClass, property.propertyClass,
+                property.name, value);
+        }
+    }
+
+    private void generateApplyAttributes(final Body body, final Element owner, final String expression,
+        final Class<?> type, final ArrayList<Value> values) throws SerializationException {
+        for (int i = 0, n = owner.attributes.getLength(); i < n; i++) {
+            Attribute attribute = owner.attributes.get(i);
+            Value value = values.get(i);
+
+            if (attribute.propertyClass == null) {
+                generateSetProperty(body, expression, type, attribute.name, value);
+            } else {
+                generateSetStaticProperty(body, expression, type, attribute.propertyClass, attribute.name, value);
+            }
+        }
+    }
+
+    /**
+     * Generates the equivalent of {@link BeanAdapter#put} (or
+     * {@link Dictionary#put} for a dictionary).
+     */
+    private static void generateSetProperty(final Body body, final String expression, final Class<?> type,
+        final String name, final Value value) throws SerializationException {
+        if (type == null) {
+            body.add("context.setProperty(" + expression + ", " + toLiteral(name) + ", " + value.expression + ");");
+            return;
+        }
+
+        if (Dictionary.class.isAssignableFrom(type)) {
+            body.add("((" + Dictionary.class.getName() + "<String, Object>) (" + Dictionary.class.getName()
+                + "<?, ?>) " + expression + ").put(" + toLiteral(name) + ", " + value.expression + ");");
+            return;
+        }
+
+        Method setter = null;
+        String argument = null;
+
+        if (value.type != null) {
+            // The setter for the value's type
+            setter = BeanAdapter.getSetterMethod(type, name, value.type);
+            if (setter != null) {
+                argument = cast(setter.getParameterTypes()[0], value);
+            }
+        }
+
+        if (setter == null && (value.type != null || value.isNull())) {
+            // The setter for the property's type, with the value coerced to it
+            Class<?> propertyType = BeanAdapter.getType(type, name);
+
+            if (propertyType != null) {
+                setter = BeanAdapter.getSetterMethod(type, name, propertyType);
+
+                if (setter != null) {
+                    if (value.isNull()) {
+                        argument = propertyType.isPrimitive() ? null : cast(propertyType, value);
+                    } else if (value.literal != null) {
+                        argument = toCoercedLiteral(value.literal, propertyType, name);
+                    } else if (propertyType.isAssignableFrom(value.type)) {
+                        argument = cast(propertyType, value);
+                    }
+                }
+            }
+
+            if (setter == null && BeanAdapter.getField(type, name) == null) {
+                throw new SerializationException("Property \"" + name + "\" does not exist or is read-only for type "
+                    + type.getName() + ".");
+            }
+        }
+
+        if (setter == null || argument == null) {
+            body.add("context.setProperty(" + expression + ", " + toLiteral(name) + ", " + value.expression + ");");
+        } else {
+            body.add(expression + "." + setter.getName() + "(" + argument + ");");
+        }
+    }
+
+    /**
+     * Generates the equivalent of setting an attached property.
+     */
+    private static void generateSetStaticProperty(final Body body, final String expression, final Class<?> type,
+        final Class<?> propertyClass, final String name, final Value value) throws SerializationException {
+        String propertyName = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        Method setter = null;
+        String argument = null;
+
+        if (type != null && (value.type != null || value.isNull())) {
+            if (value.type != null) {
+                setter = BXMLSerializer.getCachedStaticSetterMethod(propertyClass, propertyName, type, value.type);
+                if (setter != null) {
+                    argument = cast(setter.getParameterTypes()[1], value);
+                }
+            }
+
+            if (setter == null) {
+                Method getter = BXMLSerializer.getCachedStaticGetterMethod(propertyClass, propertyName, type);
+
+                if (getter != null) {
+                    Class<?> propertyType = getter.getReturnType();
+                    setter = BXMLSerializer.getCachedStaticSetterMethod(propertyClass, propertyName, type,
+                        propertyType);
+
+                    if (setter != null) {
+                        if (value.isNull()) {
+                            argument = propertyType.isPrimitive() ? null : cast(propertyType, value);
+                        } else if (value.literal != null) {
+                            argument = toCoercedLiteral(value.literal, propertyType, propertyName);
+                        } else if (propertyType.isAssignableFrom(value.type)) {
+                            argument = cast(propertyType, value);
+                        }
+                    }
+                }
+            }
+
+            if (setter == null) {
+                throw new SerializationException(propertyClass.getName() + "." + propertyName
+                    + " is not valid static property.");
+            }
+        }
+
+        if (setter == null || argument == null || !isAccessible(setter.getParameterTypes()[0])) {
+            body.add("context.setStaticProperty(" + expression + ", " + propertyClass.getCanonicalName()
+                + ".class, " + toLiteral(name) + ", " + value.expression + ");");
+        } else {
+            body.add(propertyClass.getCanonicalName() + "." + setter.getName() + "("
+                + cast(setter.getParameterTypes()[0], new Value(expression, type, null)) + ", " + argument + ");");
+        }
+    }
+
+    /**
+     * Generates the equivalent of adding a child element's value to its
+     * parent: to the parent's default property, or to the parent itself if it
+     * is a sequence.
+     */
+    private static void generateAddToParent(final Body body, final String parentExpression,
+        final Class<?> parentClass, final Value value) throws SerializationException {
+        if (parentClass == null) {
+            body.add("context.addToParent(" + parentExpression + ", " + value.expression + ");");
+            return;
+        }
+
+        DefaultProperty defaultProperty = parentClass.getAnnotation(DefaultProperty.class);
+
+        if (defaultProperty == null) {
+            if (!Sequence.class.isAssignableFrom(parentClass)) {
+                throw new SerializationException(parentClass + " is not a sequence.");
+            }
+
+            body.add("((" + Sequence.class.getName() + "<Object>) (" + Sequence.class.getName() + "<?>) "
+                + parentExpression + ").add(" + value.expression + ");");
+            return;
+        }
+
+        String propertyName = defaultProperty.value();
+        Method getter = BeanAdapter.getGetterMethod(parentClass, propertyName);
+
+        if (getter == null) {
+            body.add("context.addToParent(" + parentExpression + ", " + value.expression + ");");
+            return;
+        }
+
+        // The value is added to the current value of the property if that is
+        // a sequence, and set as the property value otherwise
+        Class<?> propertyType = getter.getReturnType();
+        boolean sequence = !propertyType.isPrimitive()
+            && (!Modifier.isFinal(propertyType.getModifiers()) || Sequence.class.isAssignableFrom(propertyType));
+
+        if (sequence) {
+            body.add("if (!context.add(" + parentExpression + "." + getter.getName() + "(), "
+                + value.expression + ")) {");
+            body.code.append("    ");
+        }
+
+        if (sequence && BeanAdapter.isReadOnly(parentClass, propertyName)) {
+            // Fails (as it does when the document is read) only if the value
+            // cannot be added
+            body.add("context.setProperty(" + parentExpression + ", " + toLiteral(propertyName) + ", "
+                + value.expression + ");");
+        } else {
+            generateSetProperty(body, parentExpression, parentClass, propertyName, value);
+        }
+
+        if (sequence) {
+            body.add("}");
+        }
+    }
+
+    /**
+     * Returns a value as an argument of the given parameter type, cast to it
+     * if necessary so that the same method is called as would be through
+     * reflection; or {@code null} if the type cannot be used in the generated
+     * code.
+     */
+    private static String cast(final Class<?> parameterType, final Value value) {
+        if (!isAccessible(parameterType)) {
+            return null;
+        }
+
+        if (parameterType == value.type || parameterType.isPrimitive()) {
+            return value.expression;
+        }
+
+        return "(" + parameterType.getCanonicalName() + ") " + value.expression;
+    }
+
+    /**
+     * Coerces a literal the way {@link BeanAdapter#coerce} does, and returns
+     * the result as a Java literal; or {@code null} if it cannot be written
+     * as one.
+     */
+    private static String toCoercedLiteral(final String literal, final Class<?> type, final String name)
+        throws SerializationException {
+        Object value;
+        try {
+            value = BeanAdapter.coerce(literal, type, name);
+        } catch (RuntimeException exception) {
+            throw new SerializationException(exception.getMessage(), exception);
+        }
+
+        String expression;
+
+        if (value instanceof String) {
+            expression = toLiteral((String) value);
+        } else if (value instanceof Enum<?>) {
+            Class<?> enumClass = ((Enum<?>) value).getDeclaringClass();
+            expression = isAccessible(enumClass) ? enumClass.getCanonicalName() + "." + ((Enum<?>) value).name()
+                : null;
+        } else if (value instanceof Boolean) {
+            expression = value.toString();
+        } else if (value instanceof Character) {
+            expression = "'" + escape(value.toString(), '\'') + "'";
+        } else if (value instanceof Byte) {
+            expression = "(byte) " + value;
+        } else if (value instanceof Short) {
+            expression = "(short) " + value;
+        } else if (value instanceof Integer) {
+            expression = value.toString();
+        } else if (value instanceof Long) {
+            expression = value + "L";
+        } else if (value instanceof Float) {
+            Float f = (Float) value;
+            expression = f.isNaN() ? "Float.NaN" : f.isInfinite()
+                ? ((f > 0) ? "Float.POSITIVE_INFINITY" : "Float.NEGATIVE_INFINITY") : f + "f";
+        } else if (value instanceof Double) {
+            Double d = (Double) value;
+            expression = d.isNaN() ? "Double.NaN" : d.isInfinite()
+                ? ((d > 0) ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY") : d + "d";
+        } else if (value instanceof BigInteger || value instanceof BigDecimal) {
+            expression = "new " + value.getClass().getName() + "(" + toLiteral(value.toString()) + ")";
+        } else {
+            expression = null;
+        }
+
+        // Negative numbers are parenthesized so that they can be cast
+        if (expression != null && expression.startsWith("-")) {
+            expression = "(" + expression + ")";
+        }
+
+        return expression;
+    }
+
+    private static String toLiteral(final String value) {
+        return "\"" + escape(value, '"') + "\"";
+    }
+
+    private static String escape(final String value, final char quote) {
+        StringBuilder buf = new StringBuilder();
+
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '\\':
+                    buf.append("\\\\");
+                    break;
+
+                case '\n':
+                    buf.append("\\n");
+                    break;
+
+                case '\r':
+                    buf.append("\\r");
+                    break;
+
+                case '\t':
+                    buf.append("\\t");
+                    break;
+
+                default:
+                    if (c == quote) {
+                        buf.append('\\').append(c);
+                    } else if (c < ' ' || c > '~') {
+                        buf.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        buf.append(c);
+                    }
+                    break;
+            }
+        }
+
+        return buf.toString();
+    }
+
+    /**
+     * Compiles the BXML documents in a directory (and its subdirectories).
+     * Documents that cannot be compiled are reported and skipped.
+     *
+     * @param sourceDirectory The directory containing the documents, at the
+     * root of the class path.
+     * @param outputDirectory The directory to write the builder sources and
+     * the builder index to.
+     * @return The number of documents compiled.
+     * @throws IOException if a document could not be read, or a builder
+     * written.
+     */
+    public int compile(final File sourceDirectory, final File outputDirectory) throws IOException {
+        Utils.checkNull(sourceDirectory, "sourceDirectory");
+        Utils.checkNull(outputDirectory, "outputDirectory");
+
+        ArrayList<String> resourceNames = new ArrayList<>(String::compareTo);
+        addResourceNames(sourceDirectory, "", resourceNames);
+
+        Properties index = new Properties();
+
+        for (String resourceName : resourceNames) {
+            String source;
+            try (InputStream inputStream = new BufferedInputStream(
+                new FileInputStream(new File(sourceDirectory, resourceName)))) {
+                source = compile(resourceName, inputStream);
+            } catch (SerializationException exception) {
+                System.err.println("Skipping " + resourceName + ": " + exception.getMessage());
+                continue;
+            }
+
+            String className = getBuilderClassName(resourceName);
+            File sourceFile = new File(outputDirectory, className.replace('.', File.separatorChar) + ".java");
+            sourceFile.getParentFile().mkdirs();
+
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(sourceFile),
+                StandardCharsets.UTF_8)) {
+                writer.write(source);
+            }
+
+            index.setProperty(resourceName, className);
+        }
+
+        File indexFile = new File(outputDirectory, BXMLSerializer.BUILDER_INDEX.replace('/', File.separatorChar));
+        indexFile.getParentFile().mkdirs();
+
+        try (OutputStream outputStream = new FileOutputStream(indexFile)) {
+            index.store(outputStream, "Generated by " + BXMLCompiler.class.getName());
+        }
+
+        return index.size();
+    }
+
+    private static void addResourceNames(final File directory, final String path,
+        final ArrayList<String> resourceNames) {
+        File[] files = directory.listFiles();
+
+        if (files != null) {
+            Arrays.sort(files);
+
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    addResourceNames(file, path + file.getName() + "/", resourceNames);
+                } else if (file.getName().endsWith("." + BXMLSerializer.BXML_EXTENSION)) {
+                    resourceNames.add(path + file.getName());
+                }
+            }
+        }
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: " + BXMLCompiler.class.getName()
+                + " <source directory> <output directory>");
+            System.exit(1);
+        }
+
+        int count = new BXMLCompiler().compile(new File(args[0]), new File(args[1]));
+        System.out.println("Compiled " + count + " BXML documents to " + args[1] + ".");
+    }
+}
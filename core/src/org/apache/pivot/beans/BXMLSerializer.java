@@ -18,10 +18,12 @@ package org.apache.pivot.beans;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
@@ -29,15 +31,28 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Enumeration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.Invocable;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 import javax.script.SimpleBindings;
+import javax.script.SimpleScriptContext;
 import javax.xml.stream.Location;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
@@ -46,9 +61,11 @@ import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.util.StreamReaderDelegate;
 
 import org.apache.pivot.annotations.UnsupportedOperation;
+import org.apache.pivot.collections.ArrayList;
 import org.apache.pivot.collections.Dictionary;
 import org.apache.pivot.collections.HashMap;
 import org.apache.pivot.collections.LinkedList;
+import org.apache.pivot.collections.List;
 import org.apache.pivot.collections.Map;
 import org.apache.pivot.collections.Sequence;
 import org.apache.pivot.collections.adapter.MapAdapter;
@@ -57,6 +74,8 @@ import org.apache.pivot.json.JSONSerializer;
 import org.apache.pivot.serialization.BinarySerializer;
 import org.apache.pivot.serialization.ByteArraySerializer;
 import org.apache.pivot.serialization.CSVSerializer;
+import org.apache.pivot.serialization.CompactSerializer;
+import org.apache.pivot.serialization.FileChannelSerializer;
 import org.apache.pivot.serialization.PropertiesSerializer;
 import org.apache.pivot.serialization.SerializationException;
 import org.apache.pivot.serialization.Serializer;
@@ -129,15 +148,20 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
 
     private class AttributeInvocationHandler implements InvocationHandler {
         private ScriptEngine scriptEngine;
+        private ScriptContext scriptContext;
         private String event;
         private String script;
+        private String name;
 
         private static final String ARGUMENTS_KEY = "arguments";
 
-        public AttributeInvocationHandler(final ScriptEngine scriptEngine, final String event, final String script) {
+        public AttributeInvocationHandler(final ScriptEngine scriptEngine, final ScriptContext scriptContext,
+            final String event, final String script, final String name) {
             this.scriptEngine = scriptEngine;
+            this.scriptContext = scriptContext;
             this.event = event;
             this.script = script;
+            this.name = name;
         }
 
         @Override
@@ -146,13 +170,20 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
 
             String methodName = method.getName();
             if (methodName.equals(event)) {
+                long start = System.nanoTime();
+                boolean timed = scriptStatisticsEnabled;
+
                 try {
-                    Bindings bindings = scriptEngine.getBindings(ScriptContext.ENGINE_SCOPE);
+                    Bindings bindings = getArgumentBindings(scriptEngine, scriptContext);
                     bindings.put(ARGUMENTS_KEY, args);
-                    result = scriptEngine.eval(script);
+                    result = eval(scriptEngine, script, scriptContext);
                     bindings.remove(ARGUMENTS_KEY);
                 } catch (ScriptException exception) {
                     reportException(exception, script);
+                } finally {
+                    if (timed) {
+                        getScriptStatistics(name).record(System.nanoTime() - start);
+                    }
                 }
             }
 
@@ -172,9 +203,11 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
 
     private static class ElementInvocationHandler implements InvocationHandler {
         private ScriptEngine scriptEngine;
+        private String name;
 
-        public ElementInvocationHandler(final ScriptEngine scriptEngine) {
+        public ElementInvocationHandler(final ScriptEngine scriptEngine, final String name) {
             this.scriptEngine = scriptEngine;
+            this.name = name;
         }
 
         private Object invokeMethod(final String methodName, final Object[] args) throws Throwable {
@@ -185,7 +218,16 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
                 throw new SerializationException(exception);
             }
 
-            return invocable.invokeFunction(methodName, args);
+            long start = System.nanoTime();
+            boolean timed = scriptStatisticsEnabled;
+
+            try {
+                return invocable.invokeFunction(methodName, args);
+            } finally {
+                if (timed) {
+                    getScriptStatistics(name + "." + methodName).record(System.nanoTime() - start);
+                }
+            }
         }
 
         @Override
@@ -229,73 +271,256 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
 
     private static class ScriptBindMapping implements NamespaceBinding.BindMapping {
         private ScriptEngine scriptEngine;
+        private ScriptContext scriptContext;
         private String functionName;
+        private String name;
+
+        // Not "arguments", which Nashorn sets itself on every eval
+        private static final String VALUE_KEY = "_bindMappingValue";
 
-        public ScriptBindMapping(final ScriptEngine scriptEngine, final String functionName) {
+        public ScriptBindMapping(final ScriptEngine scriptEngine, final ScriptContext scriptContext,
+            final String functionName, final String name) {
             this.scriptEngine = scriptEngine;
+            this.scriptContext = scriptContext;
             this.functionName = functionName;
+            this.name = name;
         }
 
-        private Object invokeFunction(final String functionName, final Object value) {
-            Invocable invocable;
-            try {
-                invocable = (Invocable) scriptEngine;
-            } catch (ClassCastException exception) {
-                throw new RuntimeException(exception);
+        private boolean isDefined() {
+            Bindings bindings = scriptContext.getBindings(ScriptContext.ENGINE_SCOPE);
+            if (bindings.containsKey(functionName)) {
+                return true;
+            }
+
+            Object nashornGlobal = bindings.get(NASHORN_GLOBAL);
+            if (nashornGlobal instanceof Bindings && ((Bindings) nashornGlobal).containsKey(functionName)) {
+                return true;
             }
 
-            Object result = value;
+            return scriptContext.getBindings(ScriptContext.GLOBAL_SCOPE).containsKey(functionName);
+        }
+
+        @Override
+        public Object evaluate(final Object value) {
+            if (!isDefined()) {
+                throw new RuntimeException("Mapping function \"" + functionName + "\" is not defined.");
+            }
+
+            // Call the function in the document's context, the way attribute
+            // listeners are run, rather than in the shared engine's own one
+            Bindings bindings = scriptContext.getBindings(ScriptContext.ENGINE_SCOPE);
+            long start = System.nanoTime();
+            boolean timed = scriptStatisticsEnabled;
+
             try {
-               result = invocable.invokeFunction(functionName, value);
-            } catch (NoSuchMethodException exception) {
-                throw new RuntimeException(exception);
+                bindings.put(VALUE_KEY, value);
+                return eval(scriptEngine, functionName + "(" + VALUE_KEY + ")", scriptContext);
             } catch (ScriptException exception) {
                 throw new RuntimeException(exception);
+            } finally {
+                bindings.remove(VALUE_KEY);
+
+                if (timed) {
+                    getScriptStatistics(name).record(System.nanoTime() - start);
+                }
             }
-            return result;
+        }
+    }
+
+    /**
+     * The most recently read BXML documents, by URL.
+     */
+    private static final class TemplateCache extends LinkedHashMap<String, BXMLTemplate> {
+        private static final long serialVersionUID = -6406315404547468307L;
+
+        private static final int CAPACITY = 64;
+
+        TemplateCache() {
+            super(16, 0.75f, true);
         }
 
         @Override
-        public Object evaluate(final Object value) {
-            Object result = value;
-            Bindings bindings = scriptEngine.getBindings(ScriptContext.ENGINE_SCOPE);
-            if (bindings.containsKey(functionName)) {
-                result = invokeFunction(functionName, result);
-            } else if (bindings.containsKey(NASHORN_GLOBAL)) {
-                Bindings globalBindings = (Bindings) bindings.get(NASHORN_GLOBAL);
-                if (globalBindings.containsKey(functionName)) {
-                    result = invokeFunction(functionName, result);
-                } else {
-                    bindings = scriptEngine.getBindings(ScriptContext.GLOBAL_SCOPE);
-                    if (bindings.containsKey(functionName)) {
-                        result = invokeFunction(functionName, result);
-                    } else {
-                        throw new RuntimeException("Mapping function \"" + functionName
-                            + "\" is not defined.");
-                    }
+        protected boolean removeEldestEntry(final java.util.Map.Entry<String, BXMLTemplate> eldest) {
+            return (size() > CAPACITY);
+        }
+    }
+
+    /**
+     * The scripts compiled by a shared script engine, by source, least
+     * recently used first.
+     */
+    private static final class ScriptCache extends LinkedHashMap<String, CompiledScript> {
+        private static final long serialVersionUID = 3319475232486745542L;
+
+        private static final int CAPACITY = 256;
+
+        ScriptCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final java.util.Map.Entry<String, CompiledScript> eldest) {
+            return (size() > CAPACITY);
+        }
+    }
+
+    /**
+     * The serializer operations used by compiled builders.
+     */
+    private final class BuilderContext implements BXMLBuilder.Context {
+        @Override
+        public <T> T newInstance(final Class<T> type, final Supplier<? extends T> constructor)
+            throws SerializationException {
+            try {
+                if (constructor == null || NEW_TYPED_OBJECT_OVERRIDDEN.get(BXMLSerializer.this.getClass())) {
+                    return type.cast(newTypedObject(type));
                 }
+
+                return constructor.get();
+            } catch (Throwable exception) {
+                throw new SerializationException("Error creating a new '" + type.getName() + "' object",
+                    exception);
+            }
+        }
+
+        @Override
+        public void putID(final String id, final Object value) throws SerializationException {
+            if (namespace.containsKey(id)) {
+                throw new SerializationException("ID " + id + " is already in use.");
+            }
+
+            namespace.put(id, value);
+        }
+
+        @Override
+        public void setIDProperty(final Object value, final String id) {
+            BXMLSerializer.setIDProperty(value, id);
+        }
+
+        @Override
+        public Object resolve(final String name) throws SerializationException {
+            return BXMLSerializer.this.resolve(name);
+        }
+
+        @Override
+        public Object getResource(final String key) {
+            if (resources != null && JSON.containsKey(resources, key)) {
+                return JSON.get(resources, key);
+            }
+
+            return key;
+        }
+
+        @Override
+        public URL getURL(final String path) throws SerializationException {
+            if (location == null) {
+                throw new IllegalStateException("Base location is undefined.");
+            }
+
+            try {
+                return new URL(location, path);
+            } catch (MalformedURLException exception) {
+                throw new SerializationException(exception);
+            }
+        }
+
+        @Override
+        public Object include(final String src, final String resourcesName, final String mimeType,
+            final boolean inline) throws IOException, SerializationException {
+            return readInclude(src, resourcesName, mimeType, inline);
+        }
+
+        @Override
+        public Object getReference(final String id) throws SerializationException {
+            return BXMLSerializer.this.getReference(id);
+        }
+
+        @Override
+        public Object getProperty(final Object object, final String name) {
+            return new BeanAdapter(object).get(name);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void setProperty(final Object object, final String name, final Object value) {
+            Dictionary<String, Object> dictionary;
+            if (object instanceof Dictionary<?, ?>) {
+                dictionary = (Dictionary<String, Object>) object;
             } else {
-                bindings = scriptEngine.getBindings(ScriptContext.GLOBAL_SCOPE);
-                if (bindings.containsKey(functionName)) {
-                    result = invokeFunction(functionName, result);
-                } else {
-                    throw new RuntimeException("Mapping function \"" + functionName
-                        + "\" is not defined.");
-                }
+                dictionary = new BeanAdapter(object);
             }
 
-            return result;
+            dictionary.put(name, value);
+        }
+
+        @Override
+        public void setStaticProperty(final Object object, final Class<?> propertyClass, final String name,
+            final Object value) throws SerializationException {
+            BXMLSerializer.setStaticProperty(object, propertyClass, name, value);
+        }
+
+        @Override
+        public boolean add(final Object sequence, final Object value) {
+            return addToSequence(sequence, value);
+        }
+
+        @Override
+        public void addToParent(final Object parent, final Object value) throws SerializationException {
+            BXMLSerializer.addToParent(parent, value);
+        }
+    }
+
+    /**
+     * The key of an attached property getter or setter: the property name and
+     * the types of the object and (for a setter) of the value.
+     */
+    private static final class StaticMethodKey {
+        private final String propertyName;
+        private final Class<?> objectType;
+        private final Class<?> valueType;
+
+        StaticMethodKey(final String propertyName, final Class<?> objectType, final Class<?> valueType) {
+            this.propertyName = propertyName;
+            this.objectType = objectType;
+            this.valueType = valueType;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (!(object instanceof StaticMethodKey)) {
+                return false;
+            }
+
+            StaticMethodKey key = (StaticMethodKey) object;
+            return (propertyName.equals(key.propertyName) && objectType == key.objectType
+                && valueType == key.valueType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(propertyName, objectType, valueType);
         }
     }
 
-    private XMLInputFactory xmlInputFactory;
-    private ScriptEngineManager scriptEngineManager;
+    private XMLInputFactory xmlInputFactory = null;
+    // The engine scope of the document's scripts, and the context they are
+    // run in (with the namespace as its global scope)
+    private Bindings scriptBindings = null;
+    private ScriptContext scriptContext = null;
+
+    // The template being recorded or replayed, and whether the next call to
+    // readObject(InputStream) should record one
+    private BXMLTemplate template = null;
+    private boolean recordTemplate = false;
 
     private Bindings bindings = new SimpleBindings();
     private Map<String, Object> namespace = new MapAdapter<String, Object>(bindings);
     private URL location = null;
     private Resources resources = null;
 
+    // The class loader compiled builders are looked up in, while reading a URL
+    private ClassLoader builderClassLoader = null;
+
     private XMLStreamReader xmlStreamReader = null;
     private Element element = null;
 
@@ -308,8 +533,93 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
 
     private static HashMap<String, String> fileExtensions = new HashMap<>();
     private static HashMap<String, Class<? extends Serializer<?>>> mimeTypes = new HashMap<>();
-    private static HashMap<String, ScriptEngine> scriptEngines = new HashMap<>();
-    private static HashMap<String, ScriptEngine> scriptEnginesExts = new HashMap<>();
+    private static final ConcurrentHashMap<String, ScriptEngine> scriptEngines = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, ScriptEngine> scriptEnginesExts = new ConcurrentHashMap<>();
+
+    /**
+     * The script engine managers of the class loaders used so far.
+     */
+    private static final WeakHashMap<ClassLoader, ScriptEngineManager> SCRIPT_ENGINE_MANAGERS =
+        new WeakHashMap<>();
+
+    /**
+     * The scripts compiled by each of the shared script engines that support
+     * compilation.
+     */
+    private static final ConcurrentHashMap<ScriptEngine, ScriptCache> COMPILED_SCRIPTS =
+        new ConcurrentHashMap<>();
+
+    private static final ConcurrentHashMap<String, ScriptStatistics> SCRIPT_STATISTICS =
+        new ConcurrentHashMap<>();
+    private static volatile boolean scriptStatisticsEnabled = false;
+
+    private static final TemplateCache TEMPLATES = new TemplateCache();
+    private static volatile boolean templateCacheEnabled = true;
+
+    private static volatile boolean compiledBuildersEnabled = true;
+
+    /**
+     * The compiled builders of a class loader: the builder class names from
+     * its builder indexes, and the builders found so far by document URL
+     * (documents without a builder are kept as empty values).
+     */
+    private static final class BuilderIndex {
+        private final Properties classNames = new Properties();
+        private final ConcurrentHashMap<String, Optional<BXMLBuilder>> builders =
+            new ConcurrentHashMap<>();
+    }
+
+    /**
+     * The builder indexes of the class loaders used so far.
+     */
+    private static final WeakHashMap<ClassLoader, BuilderIndex> BUILDER_INDEXES = new WeakHashMap<>();
+
+    /**
+     * Attached property getters and setters already looked up, per attaching
+     * class (failed lookups are kept as empty values).
+     */
+    private static final ClassValue<ConcurrentHashMap<StaticMethodKey, Optional<Method>>> STATIC_METHODS =
+        new ClassValue<ConcurrentHashMap<StaticMethodKey, Optional<Method>>>() {
+            @Override
+            protected ConcurrentHashMap<StaticMethodKey, Optional<Method>> computeValue(final Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+
+    /**
+     * Whether each serializer class customizes {@link #newTypedObject}, in
+     * which case compiled builders create their objects through it too.
+     */
+    private static final ClassValue<Boolean> NEW_TYPED_OBJECT_OVERRIDDEN = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            for (Class<?> c = type; c != BXMLSerializer.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("newTypedObject", Class.class);
+                    return Boolean.TRUE;
+                } catch (NoSuchMethodException exception) {
+                    // No-op
+                }
+            }
+
+            return Boolean.FALSE;
+        }
+    };
+
+    /**
+     * The no-argument constructors of the classes instantiated so far.
+     */
+    private static final ClassValue<Optional<Constructor<?>>> CONSTRUCTORS =
+        new ClassValue<Optional<Constructor<?>>>() {
+            @Override
+            protected Optional<Constructor<?>> computeValue(final Class<?> type) {
+                try {
+                    return Optional.of(type.getDeclaredConstructor());
+                } catch (NoSuchMethodException exception) {
+                    return Optional.empty();
+                }
+            }
+        };
 
     public static final char URL_PREFIX = '@';
     public static final char RESOURCE_KEY_PREFIX = '%';
@@ -349,11 +659,19 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
 
     public static final String MIME_TYPE = "application/bxml";
 
+    /**
+     * The class path resource listing the builders generated by
+     * {@link BXMLCompiler}, as a properties file mapping the resource name of
+     * each compiled document to the name of its builder class.
+     */
+    public static final String BUILDER_INDEX = "META-INF/pivot/bxml-builders.properties";
+
     static {
         mimeTypes.put(MIME_TYPE, BXMLSerializer.class);
 
         mimeTypes.put(BinarySerializer.MIME_TYPE, BinarySerializer.class);
         mimeTypes.put(ByteArraySerializer.MIME_TYPE, ByteArraySerializer.class);
+        mimeTypes.put(CompactSerializer.MIME_TYPE, CompactSerializer.class);
         mimeTypes.put(CSVSerializer.MIME_TYPE, CSVSerializer.class);
         mimeTypes.put(JSONSerializer.MIME_TYPE, JSONSerializer.class);
         mimeTypes.put(PropertiesSerializer.MIME_TYPE, PropertiesSerializer.class);
@@ -365,17 +683,87 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
         fileExtensions.put(PropertiesSerializer.PROPERTIES_EXTENSION, PropertiesSerializer.MIME_TYPE);
     }
 
-    private ScriptEngine newEngineByName(final String scriptLanguage) throws SerializationException {
-        ScriptEngine engine = scriptEngineManager.getEngineByName(scriptLanguage);
+    /**
+     * @return The script engine manager of the context class loader, which is
+     * shared by all serializers since looking up the script engine factories
+     * is costly.
+     */
+    private static ScriptEngineManager getScriptEngineManager() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+        synchronized (SCRIPT_ENGINE_MANAGERS) {
+            ScriptEngineManager scriptEngineManager = SCRIPT_ENGINE_MANAGERS.get(classLoader);
+            if (scriptEngineManager == null) {
+                scriptEngineManager = new ScriptEngineManager(classLoader);
+                SCRIPT_ENGINE_MANAGERS.put(classLoader, scriptEngineManager);
+            }
+
+            return scriptEngineManager;
+        }
+    }
+
+    /**
+     * @return The bindings the document's scripts are run with (as their
+     * engine scope).
+     */
+    private Bindings getScriptBindings() {
+        if (scriptBindings == null) {
+            scriptBindings = new SimpleBindings();
+        }
+
+        return scriptBindings;
+    }
+
+    /**
+     * @return The context the document's scripts are run in. It is passed to
+     * the shared script engines with each script, so that they keep no state
+     * of their own from one document to the next.
+     */
+    private ScriptContext getScriptContext() {
+        if (scriptContext == null) {
+            scriptContext = new SimpleScriptContext();
+            scriptContext.setBindings(getScriptBindings(), ScriptContext.ENGINE_SCOPE);
+            scriptContext.setBindings(bindings, ScriptContext.GLOBAL_SCOPE);
+        }
+
+        return scriptContext;
+    }
+
+    private static boolean isJavaScript(final ScriptEngine engine) {
+        return engine.getFactory().getNames().contains("javascript");
+    }
+
+    private XMLInputFactory getXMLInputFactory() {
+        if (xmlInputFactory == null) {
+            xmlInputFactory = XMLInputFactory.newInstance();
+            xmlInputFactory.setProperty("javax.xml.stream.isCoalescing", Boolean.TRUE);
+        }
+
+        return xmlInputFactory;
+    }
+
+    private static ScriptEngine createEngineByName(final String scriptLanguage)
+        throws SerializationException {
+        ScriptEngine engine = getScriptEngineManager().getEngineByName(scriptLanguage);
 
         if (engine == null) {
             throw new SerializationException("Unable to find scripting engine for"
                 + " language \"" + scriptLanguage + "\".");
         }
 
+        return engine;
+    }
+
+    /**
+     * Creates a script engine private to this serializer, whose global scope
+     * is the {@link #namespace}.
+     */
+    private ScriptEngine newEngineByName(final String scriptLanguage) throws SerializationException {
+        ScriptEngine engine = createEngineByName(scriptLanguage);
+
         // NOTE: this might not be right for Rhino engine, but works for Nashorn
         engine.setBindings(bindings, ScriptContext.GLOBAL_SCOPE);
-        if (engine.getFactory().getNames().contains("javascript")) {
+        if (isJavaScript(engine)) {
             try {
                 engine.eval(NASHORN_COMPAT_SCRIPT);
             } catch (ScriptException se) {
@@ -388,17 +776,16 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
     }
 
     /**
-     * Get a script engine instance for the given script language (typically "JavaScript").
-     * <p> Two things happen for a new script engine:  set the global bindings to our
-     * {@link #namespace} so that any existing global definitions get set, and the
-     * {@link #NASHORN_COMPAT_SCRIPT} is run to ensure compatibility with the "Rhino"
-     * script engine (pre-Java-8).
+     * Get the shared script engine instance for the given script language (typically
+     * "JavaScript"). The shared engines are never given a document's bindings: scripts
+     * are run with the {@link #getScriptContext context} of their document.
      * <p> Note: an engine found by this method will also be added to the {@link #scriptEnginesExts}
      * map indexed by all its supported extensions.
      *
      * @param scriptLanguage Any script language name supported by the current JVM.
      * @return Either an existing engine for that name, or a new one found by the
-     * {@link #scriptEngineManager} and then cached (in the {@link #scriptEngines} map).
+     * {@link #getScriptEngineManager script engine manager} and then cached (in
+     * the {@link #scriptEngines} map).
      * @throws SerializationException for problems finding the engine.
      */
     private ScriptEngine getEngineByName(final String scriptLanguage) throws SerializationException {
@@ -408,33 +795,34 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
             return engine;
         }
 
-        engine = newEngineByName(scriptLanguage);
+        engine = createEngineByName(scriptLanguage);
+
+        // Another serializer may have created one in the meantime
+        ScriptEngine existingEngine = scriptEngines.putIfAbsent(languageKey, engine);
+        if (existingEngine != null) {
+            return existingEngine;
+        }
 
-        scriptEngines.put(languageKey, engine);
+        addCompiledScripts(engine);
 
         // Also put this engine into the "extensions" map by the extension(s) it supports
         for (String ext : engine.getFactory().getExtensions()) {
-            String extKey = ext.toLowerCase();
-            if (!scriptEnginesExts.containsKey(extKey)) {
-                scriptEnginesExts.put(extKey, engine);
-            }
+            scriptEnginesExts.putIfAbsent(ext.toLowerCase(), engine);
         }
 
         return engine;
     }
 
     /**
-     * Get a script engine instance for the given (file) extension.
-     * <p> Two things happen for a new script engine:  set the global bindings to our
-     * {@link #namespace} so that any existing global definitions get set, and the
-     * {@link #NASHORN_COMPAT_SCRIPT} is run to ensure compatibility with the "Rhino"
-     * script engine (pre-Java-8).
+     * Get the shared script engine instance for the given (file) extension, which
+     * is used like those returned by {@link #getEngineByName}.
      * <p> Note: an engine found by this method will also be added to the {@link #scriptEngines}
      * map indexed by all its supported language names.
      *
      * @param extension Any script language extension supported by the current JVM.
      * @return Either an existing engine for that extension, or a new one found by the
-     * {@link #scriptEngineManager} and then cached (in the {@link #scriptEnginesExts} map).
+     * {@link #getScriptEngineManager script engine manager} and then cached (in
+     * the {@link #scriptEnginesExts} map).
      * @throws SerializationException for problems finding the engine.
      */
     private ScriptEngine getEngineByExtension(final String extension) throws SerializationException {
@@ -444,44 +832,114 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
             return engine;
         }
 
-        engine = scriptEngineManager.getEngineByExtension(extension);
+        engine = getScriptEngineManager().getEngineByExtension(extension);
 
         if (engine == null) {
             throw new SerializationException("Unable to find scripting engine for"
                 + " extension " + extension + ".");
         }
 
-        // NOTE: this might not be right for Rhino engine, but works for Nashorn
-        engine.setBindings(bindings, ScriptContext.GLOBAL_SCOPE);
-        if (engine.getFactory().getNames().contains("javascript")) {
-            try {
-                engine.eval(NASHORN_COMPAT_SCRIPT);
-            } catch (ScriptException se) {
-                throw new SerializationException("Unable to execute Nashorn compatibility script:",
-                    se);
-            }
+        ScriptEngine existingEngine = scriptEnginesExts.putIfAbsent(extensionKey, engine);
+        if (existingEngine != null) {
+            return existingEngine;
         }
 
-        scriptEnginesExts.put(extensionKey, engine);
+        addCompiledScripts(engine);
 
         // Also put this engine into the "languages" map by the language(s) it supports
         for (String language : engine.getFactory().getNames()) {
-            String languageKey = language.toLowerCase();
-            if (!scriptEngines.containsKey(languageKey)) {
-                scriptEngines.put(languageKey, engine);
-            }
+            scriptEngines.putIfAbsent(language.toLowerCase(), engine);
         }
 
         return engine;
     }
 
+    private static void addCompiledScripts(final ScriptEngine engine) {
+        if (engine instanceof Compilable) {
+            COMPILED_SCRIPTS.putIfAbsent(engine, new ScriptCache());
+        }
+    }
+
+    /**
+     * Runs a script with a script engine, in the given context. Scripts run by
+     * the shared engines are compiled the first time they are run, and the
+     * compiled form reused from then on (by any serializer).
+     *
+     * @param engine The engine to run the script with.
+     * @param script The source of the script.
+     * @param context The context of the document the script belongs to.
+     * @return The result of the script.
+     * @throws ScriptException if the script fails to compile or to run.
+     */
+    private static Object eval(final ScriptEngine engine, final String script,
+        final ScriptContext context) throws ScriptException {
+        ScriptCache scriptCache = COMPILED_SCRIPTS.get(engine);
+        if (scriptCache == null) {
+            return engine.eval(script, context);
+        }
 
+        CompiledScript compiledScript;
+        synchronized (scriptCache) {
+            compiledScript = scriptCache.get(script);
+        }
 
-    public BXMLSerializer() {
-        xmlInputFactory = XMLInputFactory.newInstance();
-        xmlInputFactory.setProperty("javax.xml.stream.isCoalescing", Boolean.TRUE);
+        if (compiledScript == null) {
+            compiledScript = ((Compilable) engine).compile(script);
 
-        scriptEngineManager = new ScriptEngineManager();
+            synchronized (scriptCache) {
+                scriptCache.put(script, compiledScript);
+            }
+        }
+
+        return compiledScript.eval(context);
+    }
+
+    /**
+     * Returns the bindings to set the arguments of a script handler in. With
+     * Nashorn these are those of the global object of the document's scripts,
+     * whose own "arguments" property would otherwise hide them.
+     */
+    private static Bindings getArgumentBindings(final ScriptEngine engine, final ScriptContext context)
+        throws ScriptException {
+        Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+
+        if (isJavaScript(engine)) {
+            // Documents without script elements get their global object here
+            if (!bindings.containsKey(NASHORN_GLOBAL)) {
+                eval(engine, NASHORN_COMPAT_SCRIPT, context);
+            }
+
+            Object nashornGlobal = bindings.get(NASHORN_GLOBAL);
+            if (nashornGlobal instanceof Bindings) {
+                return (Bindings) nashornGlobal;
+            }
+        }
+
+        return bindings;
+    }
+
+    /**
+     * Runs one of the document's scripts in its context, with the
+     * {@link #NASHORN_COMPAT_SCRIPT} first for JavaScript.
+     */
+    private void evalScript(final ScriptEngine engine, final String script) throws ScriptException {
+        ScriptContext context = getScriptContext();
+
+        if (isJavaScript(engine)) {
+            eval(engine, NASHORN_COMPAT_SCRIPT, context);
+        }
+
+        eval(engine, script, context);
+    }
+
+
+
+    /**
+     * Creates a serializer. The XML and script engine factories are only
+     * created when they are first needed, so that reading a cached template
+     * without scripts needs neither.
+     */
+    public BXMLSerializer() {
     }
 
 
@@ -500,13 +958,43 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
     public Object readObject(final InputStream inputStream) throws IOException, SerializationException {
         Utils.checkNull(inputStream, "inputStream");
 
+        boolean record = recordTemplate;
+        recordTemplate = false;
+
+        XMLStreamReader reader;
+        try {
+            reader = getXMLInputFactory().createXMLStreamReader(inputStream);
+        } catch (XMLStreamException exception) {
+            throw new SerializationException(exception);
+        }
+
+        if (!record) {
+            return readObject(reader, null);
+        }
+
+        // Record the document as it is read, and keep it once it has been read
+        // without error
+        BXMLTemplate.Recorder recorder = new BXMLTemplate.Recorder(reader,
+            Thread.currentThread().getContextClassLoader(), getLastModified(location));
+        Object object = readObject(recorder, recorder.getTemplate());
+
+        synchronized (TEMPLATES) {
+            TEMPLATES.put(location.toExternalForm(), recorder.getTemplate());
+        }
+
+        return object;
+    }
+
+    private Object readObject(final XMLStreamReader reader, final BXMLTemplate templateArgument)
+        throws IOException, SerializationException {
         root = null;
         language = null;
+        template = templateArgument;
 
-        // Parse the XML stream
+        // Process the XML events
         try {
             try {
-                xmlStreamReader = xmlInputFactory.createXMLStreamReader(inputStream);
+                xmlStreamReader = reader;
 
                 while (xmlStreamReader.hasNext()) {
                     int event = xmlStreamReader.next();
@@ -538,6 +1026,8 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
         } catch (IOException | SerializationException | RuntimeException exception) {
             logException(exception);
             throw exception;
+        } finally {
+            template = null;
         }
 
         xmlStreamReader = null;
@@ -554,7 +1044,8 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
             } else {
                 String bindFunction = sourcePath.substring(0, i);
                 sourcePath = sourcePath.substring(i + 1);
-                bindMapping = new ScriptBindMapping(getEngineByName(language), bindFunction);
+                bindMapping = new ScriptBindMapping(getEngineByName(language), getScriptContext(),
+                    bindFunction, getScriptName(elementLocal, bindFunction));
             }
 
             String targetPath;
@@ -593,8 +1084,14 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
             }
         }
 
-        namespaceBindingAttributes.clear();
+        namespaceBindingAttributes.clear();
+
+        bindRoot();
+
+        return root;
+    }
 
+    private void bindRoot() {
         // Bind the root to the namespace
         if (root instanceof Bindable) {
             Class<?> type = root.getClass();
@@ -606,8 +1103,6 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
             Bindable bindable = (Bindable) root;
             bindable.initialize(namespace, location, resources);
         }
-
-        return root;
     }
 
     /**
@@ -658,7 +1153,8 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
         if (locationLocal == null) {
             throw new IllegalArgumentException("Could not find resource \"" + resourceName + "\".");
         }
-        return readObject(locationLocal, localize ? new Resources(baseType.getName()) : null);
+        return readObject(locationLocal, localize ? new Resources(baseType.getName()) : null,
+            baseType.getClassLoader());
     }
 
     /**
@@ -689,25 +1185,308 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
      * @throws IOException for any error reading the BXML resource.
      * @throws SerializationException for any other errors encountered deserializing the resource.
      * @see #readObject(InputStream)
+     * @see #setTemplateCacheEnabled(boolean)
      */
     public final Object readObject(final URL locationArgument, final Resources resourcesArgument)
         throws IOException, SerializationException {
+        return readObject(locationArgument, resourcesArgument, null);
+    }
+
+    /**
+     * Deserializes an object hierarchy from a BXML resource, looking for its
+     * compiled builder in the given class loader (that of the class the
+     * resource belongs to, or of the document including it).
+     *
+     * @param classLoader The class loader, or {@code null} for the thread's
+     * context class loader.
+     */
+    private Object readObject(final URL locationArgument, final Resources resourcesArgument,
+        final ClassLoader classLoader) throws IOException, SerializationException {
         Utils.checkNull(locationArgument, "location");
 
         this.location = locationArgument;
         this.resources = resourcesArgument;
+        this.builderClassLoader = (classLoader == null)
+            ? Thread.currentThread().getContextClassLoader() : classLoader;
+
+        BXMLBuilder builder = null;
+        if (compiledBuildersEnabled && builderClassLoader != null) {
+            builder = getBuilder(locationArgument, builderClassLoader);
+        }
+
+        BXMLTemplate cachedTemplate = null;
+        if (builder == null && templateCacheEnabled) {
+            String key = locationArgument.toExternalForm();
+
+            synchronized (TEMPLATES) {
+                cachedTemplate = TEMPLATES.get(key);
+            }
+
+            if (cachedTemplate != null
+                && cachedTemplate.getLastModified() != getLastModified(locationArgument)) {
+                cachedTemplate = null;
+            }
+        }
 
         Object object;
-        try (InputStream inputStream = new BufferedInputStream(locationArgument.openStream())) {
-            object = readObject(inputStream);
+        if (builder != null) {
+            object = build(builder);
+        } else if (cachedTemplate == null) {
+            recordTemplate = templateCacheEnabled;
+
+            try (InputStream inputStream = new BufferedInputStream(locationArgument.openStream())) {
+                object = readObject(inputStream);
+            } finally {
+                recordTemplate = false;
+            }
+        } else {
+            object = readObject(cachedTemplate.replay(), cachedTemplate);
         }
 
         this.location = null;
         this.resources = null;
+        this.builderClassLoader = null;
 
         return object;
     }
 
+    /**
+     * Enables or disables the template cache. While it is enabled (as it is by
+     * default), the XML events of each document read by
+     * {@link #readObject(URL, Resources)} (including BXML includes) are kept,
+     * along with the classes it refers to; reading the same URL again replays
+     * them rather than reading and parsing the document again. The objects
+     * are still created, and the attributes resolved and applied, on each
+     * read. Documents read from files are read again if the file has been
+     * modified since. <p> Note that a cached document is replayed without
+     * calling {@link #readObject(InputStream)}.
+     *
+     * @param enabled Whether to cache the templates of the documents read.
+     */
+    public static void setTemplateCacheEnabled(final boolean enabled) {
+        templateCacheEnabled = enabled;
+
+        if (!enabled) {
+            clearTemplateCache();
+        }
+    }
+
+    /**
+     * @return Whether the template cache is enabled.
+     * @see #setTemplateCacheEnabled(boolean)
+     */
+    public static boolean isTemplateCacheEnabled() {
+        return templateCacheEnabled;
+    }
+
+    /**
+     * Discards the cached templates, so that each document is read again the
+     * next time it is loaded.
+     */
+    public static void clearTemplateCache() {
+        synchronized (TEMPLATES) {
+            TEMPLATES.clear();
+        }
+    }
+
+    /**
+     * Enables or disables the use of compiled builders. While it is enabled
+     * (as it is by default), {@link #readObject(URL, Resources)} creates the
+     * objects of a document with the {@link BXMLBuilder} that
+     * {@link BXMLCompiler} generated for it, if there is one on the class
+     * path, instead of reading the document. Builders are looked up in the
+     * {@link #BUILDER_INDEX} resources of the class path. <p> Since a
+     * builder is not affected by later changes to its document, this should
+     * be disabled while editing documents that have been compiled.
+     *
+     * @param enabled Whether to use compiled builders.
+     */
+    public static void setCompiledBuildersEnabled(final boolean enabled) {
+        compiledBuildersEnabled = enabled;
+    }
+
+    /**
+     * @return Whether compiled builders are used.
+     * @see #setCompiledBuildersEnabled(boolean)
+     */
+    public static boolean isCompiledBuildersEnabled() {
+        return compiledBuildersEnabled;
+    }
+
+    /**
+     * Enables or disables the timing of script handlers: the event listeners
+     * given as scripts (in attributes or listener list elements) and the
+     * namespace binding mapping functions. It is disabled by default.
+     *
+     * @param enabled Whether to time the script handlers.
+     * @see #getScriptStatistics()
+     */
+    public static void setScriptStatisticsEnabled(final boolean enabled) {
+        scriptStatisticsEnabled = enabled;
+    }
+
+    /**
+     * @return Whether the script handlers are timed.
+     * @see #setScriptStatisticsEnabled(boolean)
+     */
+    public static boolean isScriptStatisticsEnabled() {
+        return scriptStatisticsEnabled;
+    }
+
+    /**
+     * @return The statistics of the script handlers run while timing was
+     * enabled, the handlers taking the most time in total first.
+     */
+    public static List<ScriptStatistics> getScriptStatistics() {
+        ArrayList<ScriptStatistics> statistics = new ArrayList<>(
+            (statistics1, statistics2) -> Long.compare(statistics2.getTotalTime(), statistics1.getTotalTime()));
+
+        for (ScriptStatistics scriptStatistics : SCRIPT_STATISTICS.values()) {
+            statistics.add(scriptStatistics);
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Discards the statistics of the script handlers.
+     */
+    public static void resetScriptStatistics() {
+        SCRIPT_STATISTICS.clear();
+    }
+
+    private static ScriptStatistics getScriptStatistics(final String name) {
+        return SCRIPT_STATISTICS.computeIfAbsent(name, ScriptStatistics::new);
+    }
+
+    /**
+     * @return The name the statistics of a script handler created for the
+     * given element are kept under.
+     */
+    private String getScriptName(final Element elementArgument, final String handlerName) {
+        StringBuilder name = new StringBuilder();
+
+        if (location != null) {
+            name.append(location.toExternalForm());
+        }
+
+        if (elementArgument.id != null) {
+            name.append('#').append(elementArgument.id);
+        }
+
+        if (name.length() > 0) {
+            name.append(": ");
+        }
+
+        return name.append(handlerName).toString();
+    }
+
+    private static BXMLBuilder getBuilder(final URL url, final ClassLoader classLoader) {
+        BuilderIndex index = getBuilderIndex(classLoader);
+        if (index.classNames.isEmpty()) {
+            return null;
+        }
+
+        String key = url.toExternalForm();
+        Optional<BXMLBuilder> builder = index.builders.get(key);
+
+        if (builder == null) {
+            builder = Optional.ofNullable(findBuilder(url, classLoader, index.classNames));
+            index.builders.put(key, builder);
+        }
+
+        return builder.orElse(null);
+    }
+
+    private static BXMLBuilder findBuilder(final URL url, final ClassLoader classLoader,
+        final Properties index) {
+        // Find the class path resource the URL refers to, if any
+        String path = url.toExternalForm();
+
+        for (int i = path.indexOf(SLASH_PREFIX); i != -1; i = path.indexOf(SLASH_PREFIX, i + 1)) {
+            String resourceName = path.substring(i + 1);
+            String className = index.getProperty(resourceName);
+
+            if (className != null) {
+                URL resource = classLoader.getResource(resourceName);
+
+                if (resource != null && resource.toExternalForm().equals(path)) {
+                    try {
+                        return (BXMLBuilder) Class.forName(className, true, classLoader)
+                            .getDeclaredConstructor().newInstance();
+                    } catch (ReflectiveOperationException | ClassCastException | LinkageError exception) {
+                        // No-op; the document will be read instead
+                    }
+                }
+
+                break;
+            }
+        }
+
+        return null;
+    }
+
+    private static BuilderIndex getBuilderIndex(final ClassLoader classLoader) {
+        synchronized (BUILDER_INDEXES) {
+            BuilderIndex index = BUILDER_INDEXES.get(classLoader);
+
+            if (index == null) {
+                index = new BuilderIndex();
+
+                try {
+                    Enumeration<URL> resources = classLoader.getResources(BUILDER_INDEX);
+
+                    while (resources.hasMoreElements()) {
+                        try (InputStream inputStream = resources.nextElement().openStream()) {
+                            index.classNames.load(inputStream);
+                        }
+                    }
+                } catch (IOException exception) {
+                    // No-op; the documents will be read instead
+                }
+
+                BUILDER_INDEXES.put(classLoader, index);
+            }
+
+            return index;
+        }
+    }
+
+    private Object build(final BXMLBuilder builder) throws IOException, SerializationException {
+        root = null;
+
+        try {
+            root = builder.build(new BuilderContext());
+        } catch (IOException | SerializationException | RuntimeException exception) {
+            logException(exception);
+            throw exception;
+        }
+
+        bindRoot();
+
+        return root;
+    }
+
+    private static long getLastModified(final URL url) {
+        long lastModified = 0;
+
+        if (url != null && url.getProtocol().equals("file")) {
+            try {
+                lastModified = new File(url.toURI()).lastModified();
+            } catch (URISyntaxException | IllegalArgumentException exception) {
+                // No-op; the modification time is unknown
+            }
+        }
+
+        return lastModified;
+    }
+
+    private Class<?> loadClass(final String className, final ClassLoader classLoader)
+        throws ClassNotFoundException {
+        return (template == null) ? Class.forName(className, true, classLoader)
+            : template.loadClass(className, classLoader);
+    }
+
     private void processProcessingInstruction() throws SerializationException {
         String piTarget = xmlStreamReader.getPITarget();
         String piData = xmlStreamReader.getPIData();
@@ -814,7 +1593,7 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
 
                     String propertyClassName = namespaceURI + "." + localName.substring(0, i);
                     try {
-                        propertyClass = Class.forName(propertyClassName, true, classLoader);
+                        propertyClass = loadClass(propertyClassName, classLoader);
                     } catch (Throwable exception) {
                         throw new SerializationException(exception);
                     }
@@ -831,7 +1610,7 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
                     String className = namespaceURI + "." + localName.replace('.', '$');
 
                     try {
-                        Class<?> type = Class.forName(className, true, classLoader);
+                        Class<?> type = loadClass(className, classLoader);
                         value = newTypedObject(type);
                     } catch (Throwable exception) {
                         throw new SerializationException("Error creating a new '" + className + "' object", exception);
@@ -882,113 +1661,148 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
                     + " attribute is required for " + BXML_PREFIX + ":" + INCLUDE_TAG + " tag.");
             }
 
-            String src = element.properties.get(INCLUDE_SRC_ATTRIBUTE);
-            if (src.charAt(0) == OBJECT_REFERENCE_PREFIX) {
-                src = src.substring(1);
-                if (src.length() > 0) {
-                    if (!JSON.containsKey(namespace, src)) {
-                        throw new SerializationException("Value \"" + src + "\" is not defined.");
-                    }
-                    String variableValue = JSON.get(namespace, src);
-                    src = variableValue;
-                }
-            }
-
-            Resources resourcesLocal = this.resources;
-            if (element.properties.containsKey(INCLUDE_RESOURCES_ATTRIBUTE)) {
-                resourcesLocal = new Resources(resourcesLocal,
-                    element.properties.get(INCLUDE_RESOURCES_ATTRIBUTE));
-            }
-
             String mimeType = null;
             if (element.properties.containsKey(INCLUDE_MIME_TYPE_ATTRIBUTE)) {
                 mimeType = element.properties.get(INCLUDE_MIME_TYPE_ATTRIBUTE);
             }
 
-            if (mimeType == null) {
-                // Get the file extension
-                int i = src.lastIndexOf(".");
-                if (i != -1) {
-                    String extension = src.substring(i + 1);
-                    mimeType = fileExtensions.get(extension);
-                }
-            }
-
-            if (mimeType == null) {
-                throw new SerializationException("Cannot determine MIME type of include \"" + src + "\".");
-            }
-
             boolean inline = false;
             if (element.properties.containsKey(INCLUDE_INLINE_ATTRIBUTE)) {
                 inline = Boolean.parseBoolean(element.properties.get(INCLUDE_INLINE_ATTRIBUTE));
             }
 
-            // Determine an appropriate serializer to use for the include
-            Class<? extends Serializer<?>> serializerClass = mimeTypes.get(mimeType);
-
-            if (serializerClass == null) {
-                throw new SerializationException("No serializer associated with MIME type " + mimeType + ".");
+            element.value = readInclude(element.properties.get(INCLUDE_SRC_ATTRIBUTE),
+                element.properties.get(INCLUDE_RESOURCES_ATTRIBUTE), mimeType, inline);
+        } else if (element.type == Element.Type.REFERENCE) {
+            // Dereference the value
+            if (!element.properties.containsKey(REFERENCE_ID_ATTRIBUTE)) {
+                throw new SerializationException(REFERENCE_ID_ATTRIBUTE
+                    + " attribute is required for " + BXML_PREFIX + ":" + REFERENCE_TAG + " tag.");
             }
 
-            Serializer<?> serializer;
-            try {
-                serializer = newIncludeSerializer(serializerClass);
-            } catch (InstantiationException | IllegalAccessException
-                   | NoSuchMethodException | InvocationTargetException exception) {
-                throw new SerializationException(exception);
-            }
+            element.value = getReference(element.properties.get(REFERENCE_ID_ATTRIBUTE));
+        }
 
-            // Determine location from src attribute
-            URL locationLocal;
-            if (src.charAt(0) == SLASH_PREFIX) {
-                locationLocal = classLoader.getResource(src.substring(1));
-            } else {
-                locationLocal = new URL(this.location, src);
-            }
+        // If the element has an ID, add the value to the namespace
+        if (element.id != null) {
+            namespace.put(element.id, element.value);
+            setIDProperty(element.value, element.id);
+        }
+    }
 
-            // Set optional resolution properties
-            if (serializer instanceof Resolvable) {
-                Resolvable resolvable = (Resolvable) serializer;
-                if (inline) {
-                    resolvable.setNamespace(namespace);
-                }
+    private Object getReference(final String id) throws SerializationException {
+        if (!namespace.containsKey(id)) {
+            throw new SerializationException("A value with ID \"" + id + "\" does not exist.");
+        }
 
-                resolvable.setLocation(locationLocal);
-                resolvable.setResources(resourcesLocal);
-            }
+        return namespace.get(id);
+    }
+
+    private static void setIDProperty(final Object value, final String id) {
+        // If the type has an ID property, use it
+        Class<?> type = value.getClass();
+        IDProperty idProperty = type.getAnnotation(IDProperty.class);
+
+        if (idProperty != null) {
+            BeanAdapter beanAdapter = new BeanAdapter(value);
+            beanAdapter.put(idProperty.value(), id);
+        }
+    }
+
+    private Object readInclude(final String srcArgument, final String resourcesName,
+        final String mimeTypeArgument, final boolean inline) throws IOException, SerializationException {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
 
-            // Read the object
-            try (InputStream inputStream = new BufferedInputStream(locationLocal.openStream())) {
-                element.value = serializer.readObject(inputStream);
+        String src = srcArgument;
+        if (src.charAt(0) == OBJECT_REFERENCE_PREFIX) {
+            src = src.substring(1);
+            if (src.length() > 0) {
+                if (!JSON.containsKey(namespace, src)) {
+                    throw new SerializationException("Value \"" + src + "\" is not defined.");
+                }
+                String variableValue = JSON.get(namespace, src);
+                src = variableValue;
             }
-        } else if (element.type == Element.Type.REFERENCE) {
-            // Dereference the value
-            if (!element.properties.containsKey(REFERENCE_ID_ATTRIBUTE)) {
-                throw new SerializationException(REFERENCE_ID_ATTRIBUTE
-                    + " attribute is required for " + BXML_PREFIX + ":" + REFERENCE_TAG + " tag.");
+        }
+
+        Resources resourcesLocal = this.resources;
+        if (resourcesName != null) {
+            resourcesLocal = new Resources(resourcesLocal, resourcesName);
+        }
+
+        String mimeType = mimeTypeArgument;
+
+        if (mimeType == null) {
+            // Get the file extension
+            int i = src.lastIndexOf(".");
+            if (i != -1) {
+                String extension = src.substring(i + 1);
+                mimeType = fileExtensions.get(extension);
             }
+        }
+
+        if (mimeType == null) {
+            throw new SerializationException("Cannot determine MIME type of include \"" + src + "\".");
+        }
+
+        // Determine an appropriate serializer to use for the include
+        Class<? extends Serializer<?>> serializerClass = mimeTypes.get(mimeType);
+
+        if (serializerClass == null) {
+            throw new SerializationException("No serializer associated with MIME type " + mimeType + ".");
+        }
+
+        Serializer<?> serializer;
+        try {
+            serializer = newIncludeSerializer(serializerClass);
+        } catch (InstantiationException | IllegalAccessException
+               | NoSuchMethodException | InvocationTargetException exception) {
+            throw new SerializationException(exception);
+        }
+
+        // Determine location from src attribute
+        URL locationLocal;
+        if (src.charAt(0) == SLASH_PREFIX) {
+            locationLocal = classLoader.getResource(src.substring(1));
+        } else {
+            locationLocal = new URL(this.location, src);
+        }
 
-            String id = element.properties.get(REFERENCE_ID_ATTRIBUTE);
-            if (!namespace.containsKey(id)) {
-                throw new SerializationException("A value with ID \"" + id + "\" does not exist.");
+        // Set optional resolution properties
+        if (serializer instanceof Resolvable) {
+            Resolvable resolvable = (Resolvable) serializer;
+            if (inline) {
+                resolvable.setNamespace(namespace);
             }
 
-            element.value = namespace.get(id);
+            resolvable.setLocation(locationLocal);
+            resolvable.setResources(resourcesLocal);
         }
 
-        // If the element has an ID, add the value to the namespace
-        if (element.id != null) {
-            namespace.put(element.id, element.value);
+        // Read the object; BXML includes go through the compiled builders and
+        // the template cache, and local files are read directly where the
+        // serializer can
+        if (serializer instanceof BXMLSerializer && (compiledBuildersEnabled || templateCacheEnabled)) {
+            BXMLSerializer bxmlSerializer = (BXMLSerializer) serializer;
+            Object object = bxmlSerializer.readObject(locationLocal, resourcesLocal, builderClassLoader);
 
-            // If the type has an ID property, use it
-            Class<?> type = element.value.getClass();
-            IDProperty idProperty = type.getAnnotation(IDProperty.class);
+            // Leave the include's location and resources set, as they are
+            // when its stream is read
+            bxmlSerializer.setLocation(locationLocal);
+            bxmlSerializer.setResources(resourcesLocal);
 
-            if (idProperty != null) {
-                BeanAdapter beanAdapter = new BeanAdapter(element.value);
-                beanAdapter.put(idProperty.value(), element.id);
+            return object;
+        } else if (serializer instanceof FileChannelSerializer<?> && locationLocal.getProtocol().equals("file")) {
+            try {
+                return ((FileChannelSerializer<?>) serializer).readObject(Paths.get(locationLocal.toURI()));
+            } catch (URISyntaxException | IllegalArgumentException exception) {
+                // Not a valid file URI; read the stream instead
             }
         }
+
+        try (InputStream inputStream = new BufferedInputStream(locationLocal.openStream())) {
+            return serializer.readObject(inputStream);
+        }
     }
 
     private void processAttributes() throws SerializationException {
@@ -1061,7 +1875,7 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
 
                         String propertyClassName = namespaceURI + "." + localName.substring(0, j);
                         try {
-                            propertyClass = Class.forName(propertyClassName, true, classLoader);
+                            propertyClass = loadClass(propertyClassName, classLoader);
                         } catch (Throwable exception) {
                             throw new SerializationException(exception);
                         }
@@ -1128,33 +1942,7 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
                                     if (value.charAt(0) == OBJECT_REFERENCE_PREFIX) {
                                         attribute.value = value;
                                     } else {
-                                        if (value.equals(BXML_PREFIX + ":" + null)) {
-                                            attribute.value = null;
-                                        } else {
-                                            if (JSON.containsKey(namespace, value)) {
-                                                attribute.value = JSON.get(namespace, value);
-                                            } else {
-                                                Object nashornGlobal =
-                                                    scriptEngineManager.getBindings().get(NASHORN_GLOBAL);
-                                                if (nashornGlobal == null) {
-                                                    throw new SerializationException("Value \"" + value
-                                                        + "\" is not defined.");
-                                                } else {
-                                                    if (nashornGlobal instanceof Bindings) {
-                                                        Bindings bindings = (Bindings) nashornGlobal;
-                                                        if (bindings.containsKey(value)) {
-                                                            attribute.value = bindings.get(value);
-                                                        } else {
-                                                            throw new SerializationException("Value \"" + value
-                                                                + "\" is not defined.");
-                                                        }
-                                                    } else {
-                                                        throw new SerializationException("Value \"" + value
-                                                            + "\" is not defined.");
-                                                    }
-                                                }
-                                            }
-                                        }
+                                        attribute.value = resolve(value);
                                     }
                                 } else {
                                     throw new SerializationException("Invalid object resolution argument.");
@@ -1169,6 +1957,26 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
         }
     }
 
+    private Object resolve(final String value) throws SerializationException {
+        if (value.equals(BXML_PREFIX + ":" + null)) {
+            return null;
+        }
+
+        if (JSON.containsKey(namespace, value)) {
+            return JSON.get(namespace, value);
+        }
+
+        Object nashornGlobal = getScriptBindings().get(NASHORN_GLOBAL);
+        if (nashornGlobal instanceof Bindings) {
+            Bindings bindings = (Bindings) nashornGlobal;
+            if (bindings.containsKey(value)) {
+                return bindings.get(value);
+            }
+        }
+
+        throw new SerializationException("Value \"" + value + "\" is not defined.");
+    }
+
     @SuppressWarnings("unchecked")
     private void processEndElement() throws SerializationException {
 
@@ -1220,7 +2028,10 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
 
                             // Create an invocation handler for this listener
                             AttributeInvocationHandler handler = new AttributeInvocationHandler(
-                                getEngineByName(language), attribute.name, (String) attribute.value);
+                                getEngineByName(language), getScriptContext(), attribute.name,
+                                (String) attribute.value,
+                                getScriptName(element, attribute.propertyClass.getSimpleName() + "."
+                                    + attribute.name));
 
                             Object listener = Proxy.newProxyInstance(classLoader,
                                 new Class<?>[] {attribute.propertyClass}, handler);
@@ -1255,35 +2066,7 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
                         // later in the parent's closing tag
                         element.parent.value = element.value;
                     } else if (element.parent.value != null) {
-                        // If the parent element has a default property, use it;
-                        // otherwise, if the parent is a sequence, add the element to it.
-                        Class<?> parentType = element.parent.value.getClass();
-                        DefaultProperty defaultProperty = parentType.getAnnotation(DefaultProperty.class);
-
-                        if (defaultProperty == null) {
-                            if (element.parent.value instanceof Sequence<?>) {
-                                Sequence<Object> sequence = (Sequence<Object>) element.parent.value;
-                                sequence.add(element.value);
-                            } else {
-                                throw new SerializationException(element.parent.value.getClass()
-                                    + " is not a sequence.");
-                            }
-                        } else {
-                            String defaultPropertyName = defaultProperty.value();
-                            BeanAdapter beanAdapter = new BeanAdapter(element.parent.value);
-                            Object defaultPropertyValue = beanAdapter.get(defaultPropertyName);
-
-                            if (defaultPropertyValue instanceof Sequence<?>) {
-                                Sequence<Object> sequence = (Sequence<Object>) defaultPropertyValue;
-                                try {
-                                    sequence.add(element.value);
-                                } catch (UnsupportedOperationException uoe) {
-                                    beanAdapter.put(defaultPropertyName, element.value);
-                                }
-                            } else {
-                                beanAdapter.put(defaultPropertyName, element.value);
-                            }
-                        }
+                        addToParent(element.parent.value, element.value);
                     }
                 }
 
@@ -1358,7 +2141,8 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
                 java.lang.reflect.Type[] genericInterfaces = listenerListClass.getGenericInterfaces();
                 Class<?> listenerClass = (Class<?>) genericInterfaces[0];
 
-                ElementInvocationHandler handler = new ElementInvocationHandler(scriptEngine);
+                ElementInvocationHandler handler = new ElementInvocationHandler(scriptEngine,
+                    getScriptName(element.parent, listenerClass.getSimpleName()));
 
                 Method addMethod;
                 try {
@@ -1406,8 +2190,6 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
                     String extension = src.substring(i + 1);
                     scriptEngine = getEngineByExtension(extension);
 
-                    scriptEngine.setBindings(scriptEngineManager.getBindings(), ScriptContext.ENGINE_SCOPE);
-
                     try {
                         URL scriptLocation;
                         if (src.charAt(0) == SLASH_PREFIX) {
@@ -1419,18 +2201,21 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
                             scriptLocation = new URL(location, src);
                         }
 
-                        BufferedReader scriptReader = null;
+                        // Read the whole script, so its compiled form can be
+                        // shared by every document that includes it
+                        StringBuilder scriptBuilder = new StringBuilder();
+                        try (BufferedReader scriptReader = new BufferedReader(new InputStreamReader(
+                            scriptLocation.openStream()))) {
+                            char[] buffer = new char[4096];
+                            for (int n = scriptReader.read(buffer); n != -1; n = scriptReader.read(buffer)) {
+                                scriptBuilder.append(buffer, 0, n);
+                            }
+                        }
+
                         try {
-                            scriptReader = new BufferedReader(new InputStreamReader(
-                                scriptLocation.openStream()));
-                            scriptEngine.eval(NASHORN_COMPAT_SCRIPT);
-                            scriptEngine.eval(scriptReader);
+                            evalScript(scriptEngine, scriptBuilder.toString());
                         } catch (ScriptException exception) {
                             reportException(exception);
-                        } finally {
-                            if (scriptReader != null) {
-                                scriptReader.close();
-                            }
                         }
                     } catch (IOException exception) {
                         throw new SerializationException(exception);
@@ -1442,11 +2227,8 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
                     script = (String) element.value;
                     scriptEngine = getEngineByName(language);
 
-                    scriptEngine.setBindings(scriptEngineManager.getBindings(), ScriptContext.ENGINE_SCOPE);
-
                     try {
-                        scriptEngine.eval(NASHORN_COMPAT_SCRIPT);
-                        scriptEngine.eval(script);
+                        evalScript(scriptEngine, script);
                     } catch (ScriptException exception) {
                         reportException(exception, script);
                     }
@@ -1469,6 +2251,45 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
         element = element.parent;
     }
 
+    @SuppressWarnings("unchecked")
+    private static void addToParent(final Object parent, final Object value) throws SerializationException {
+        // If the parent element has a default property, use it;
+        // otherwise, if the parent is a sequence, add the element to it.
+        Class<?> parentType = parent.getClass();
+        DefaultProperty defaultProperty = parentType.getAnnotation(DefaultProperty.class);
+
+        if (defaultProperty == null) {
+            if (parent instanceof Sequence<?>) {
+                Sequence<Object> sequence = (Sequence<Object>) parent;
+                sequence.add(value);
+            } else {
+                throw new SerializationException(parent.getClass() + " is not a sequence.");
+            }
+        } else {
+            String defaultPropertyName = defaultProperty.value();
+            BeanAdapter beanAdapter = new BeanAdapter(parent);
+
+            if (!addToSequence(beanAdapter.get(defaultPropertyName), value)) {
+                beanAdapter.put(defaultPropertyName, value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean addToSequence(final Object defaultPropertyValue, final Object value) {
+        if (defaultPropertyValue instanceof Sequence<?>) {
+            Sequence<Object> sequence = (Sequence<Object>) defaultPropertyValue;
+            try {
+                sequence.add(value);
+                return true;
+            } catch (UnsupportedOperationException uoe) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Return the current location of the XML parser. Useful to ascertain the
      * location where an error occurred (if the error was not an
@@ -1481,8 +2302,13 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
     }
 
     private void logException(final Throwable exception) {
-        Location streamReaderlocation = xmlStreamReader.getLocation();
-        String message = "An error occurred at line number " + streamReaderlocation.getLineNumber();
+        String message = "An error occurred";
+
+        // There is no stream reader when a compiled builder is used
+        if (xmlStreamReader != null) {
+            Location streamReaderlocation = xmlStreamReader.getLocation();
+            message += " at line number " + streamReaderlocation.getLineNumber();
+        }
 
         if (location != null) {
             message += " in file " + location.getPath();
@@ -1664,7 +2490,8 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
 
     /**
      * Creates a new typed object as part of the deserialization process. The
-     * base implementation simply calls {@code Class.getDeclaredConstructor().newInstance()}.
+     * base implementation simply calls {@code Class.getDeclaredConstructor().newInstance()}
+     * (looking the constructor up once per class).
      * Subclasses may override this method to provide an alternate instantiation mechanism,
      * such as dependency-injected construction.
      *
@@ -1679,7 +2506,12 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
     protected Object newTypedObject(final Class<?> type)
         throws InstantiationException, IllegalAccessException, NoSuchMethodException,
                InvocationTargetException {
-        return type.getDeclaredConstructor().newInstance();
+        Optional<Constructor<?>> constructor = CONSTRUCTORS.get(type);
+        if (!constructor.isPresent()) {
+            throw new NoSuchMethodException(type.getName() + ".<init>()");
+        }
+
+        return constructor.get().newInstance();
     }
 
     /**
@@ -1733,6 +2565,20 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
         return mimeTypes;
     }
 
+    static Method getCachedStaticGetterMethod(final Class<?> propertyClass, final String propertyName,
+        final Class<?> objectType) {
+        ConcurrentHashMap<StaticMethodKey, Optional<Method>> methods = STATIC_METHODS.get(propertyClass);
+        StaticMethodKey key = new StaticMethodKey(propertyName, objectType, null);
+        Optional<Method> method = methods.get(key);
+
+        if (method == null) {
+            method = Optional.ofNullable(getStaticGetterMethod(propertyClass, propertyName, objectType));
+            methods.put(key, method);
+        }
+
+        return method.orElse(null);
+    }
+
     private static Method getStaticGetterMethod(final Class<?> propertyClass, final String propertyName,
         final Class<?> objectType) {
         Method method = null;
@@ -1761,6 +2607,21 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
         return method;
     }
 
+    static Method getCachedStaticSetterMethod(final Class<?> propertyClass, final String propertyName,
+        final Class<?> objectType, final Class<?> propertyValueType) {
+        ConcurrentHashMap<StaticMethodKey, Optional<Method>> methods = STATIC_METHODS.get(propertyClass);
+        StaticMethodKey key = new StaticMethodKey(propertyName, objectType, propertyValueType);
+        Optional<Method> method = methods.get(key);
+
+        if (method == null) {
+            method = Optional.ofNullable(getStaticSetterMethod(propertyClass, propertyName, objectType,
+                propertyValueType));
+            methods.put(key, method);
+        }
+
+        return method.orElse(null);
+    }
+
     private static Method getStaticSetterMethod(final Class<?> propertyClass, final String propertyName,
         final Class<?> objectType, final Class<?> propertyValueType) {
         Method method = null;
@@ -1811,16 +2672,17 @@ public class BXMLSerializer implements Serializer<Object>, Resolvable {
 
         Method setterMethod = null;
         if (valueToAssign != null) {
-            setterMethod = getStaticSetterMethod(propertyClass, propertyNameUpdated, objectType,
+            setterMethod = getCachedStaticSetterMethod(propertyClass, propertyNameUpdated, objectType,
                 valueToAssign.getClass());
         }
 
         if (setterMethod == null) {
-            Method getterMethod = getStaticGetterMethod(propertyClass, propertyNameUpdated, objectType);
+            Method getterMethod = getCachedStaticGetterMethod(propertyClass, propertyNameUpdated, objectType);
 
             if (getterMethod != null) {
                 Class<?> propertyType = getterMethod.getReturnType();
-                setterMethod = getStaticSetterMethod(propertyClass, propertyNameUpdated, objectType, propertyType);
+                setterMethod = getCachedStaticSetterMethod(propertyClass, propertyNameUpdated, objectType,
+                    propertyType);
 
                 if (valueToAssign instanceof String) {
                     valueToAssign = BeanAdapter.coerce((String) valueToAssign, propertyType, propertyNameUpdated);
@@ -0,0 +1,659 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.beans;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+import org.apache.pivot.collections.ArrayList;
+
+/**
+ * The parsed form of a BXML document: the XML events the serializer acts on,
+ * recorded the first time the document is read so that later reads replay
+ * them instead of reading and parsing the XML again, along with the classes
+ * the document refers to, once they have been resolved. <p> A template is
+ * immutable once recorded (but for the classes resolved so far), so it can
+ * be replayed by any number of serializers at once.
+ *
+ * @see BXMLSerializer#readObject(java.net.URL, org.apache.pivot.util.Resources)
+ */
+final class BXMLTemplate {
+    private static class Event implements Location {
+        public final int type;
+        private final int lineNumber;
+        private final int columnNumber;
+
+        Event(final int type, final Location location) {
+            this.type = type;
+            this.lineNumber = (location == null) ? -1 : location.getLineNumber();
+            this.columnNumber = (location == null) ? -1 : location.getColumnNumber();
+        }
+
+        @Override
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        @Override
+        public int getColumnNumber() {
+            return columnNumber;
+        }
+
+        @Override
+        public int getCharacterOffset() {
+            return -1;
+        }
+
+        @Override
+        public String getPublicId() {
+            return null;
+        }
+
+        @Override
+        public String getSystemId() {
+            return null;
+        }
+    }
+
+    private static final class StartElement extends Event {
+        public final String prefix;
+        public final String localName;
+        public final String namespaceURI;
+
+        public final String[] attributePrefixes;
+        public final String[] attributeLocalNames;
+        public final String[] attributeNamespaces;
+        public final String[] attributeValues;
+
+        public final String[] namespacePrefixes;
+        public final String[] namespaceURIs;
+
+        StartElement(final XMLStreamReader reader) {
+            super(XMLStreamConstants.START_ELEMENT, reader.getLocation());
+
+            prefix = reader.getPrefix();
+            localName = reader.getLocalName();
+            namespaceURI = reader.getNamespaceURI();
+
+            int attributeCount = reader.getAttributeCount();
+            attributePrefixes = new String[attributeCount];
+            attributeLocalNames = new String[attributeCount];
+            attributeNamespaces = new String[attributeCount];
+            attributeValues = new String[attributeCount];
+
+            for (int i = 0; i < attributeCount; i++) {
+                attributePrefixes[i] = reader.getAttributePrefix(i);
+                attributeLocalNames[i] = reader.getAttributeLocalName(i);
+                attributeNamespaces[i] = reader.getAttributeNamespace(i);
+                attributeValues[i] = reader.getAttributeValue(i);
+            }
+
+            int namespaceCount = reader.getNamespaceCount();
+            namespacePrefixes = new String[namespaceCount];
+            namespaceURIs = new String[namespaceCount];
+
+            for (int i = 0; i < namespaceCount; i++) {
+                namespacePrefixes[i] = reader.getNamespacePrefix(i);
+                namespaceURIs[i] = reader.getNamespaceURI(i);
+            }
+        }
+
+        public String getDeclaredNamespaceURI(final String namespacePrefix) {
+            for (int i = 0; i < namespacePrefixes.length; i++) {
+                String declaredPrefix = namespacePrefixes[i];
+
+                if ((declaredPrefix == null) ? namespacePrefix.length() == 0
+                    : declaredPrefix.equals(namespacePrefix)) {
+                    return namespaceURIs[i];
+                }
+            }
+
+            return null;
+        }
+    }
+
+    private static final class EndElement extends Event {
+        public final StartElement startElement;
+
+        EndElement(final StartElement startElement, final Location location) {
+            super(XMLStreamConstants.END_ELEMENT, location);
+
+            this.startElement = startElement;
+        }
+    }
+
+    private static final class Characters extends Event {
+        public final String text;
+
+        Characters(final String text, final Location location) {
+            super(XMLStreamConstants.CHARACTERS, location);
+
+            this.text = text;
+        }
+    }
+
+    private static final class ProcessingInstruction extends Event {
+        public final String target;
+        public final String data;
+
+        ProcessingInstruction(final String target, final String data, final Location location) {
+            super(XMLStreamConstants.PROCESSING_INSTRUCTION, location);
+
+            this.target = target;
+            this.data = data;
+        }
+    }
+
+    /**
+     * A stream reader that records the events read through it into a new
+     * template. Comments, whitespace and other events the serializer ignores
+     * are left out.
+     */
+    static final class Recorder extends StreamReaderDelegate {
+        private final BXMLTemplate template;
+        private final ArrayList<StartElement> openElements = new ArrayList<>();
+
+        Recorder(final XMLStreamReader reader, final ClassLoader classLoader, final long lastModified) {
+            super(reader);
+
+            template = new BXMLTemplate(classLoader, lastModified);
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            int event = super.next();
+            ArrayList<Event> events = template.events;
+
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    StartElement startElement = new StartElement(this);
+                    openElements.add(startElement);
+                    events.add(startElement);
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    events.add(new EndElement(openElements.remove(openElements.getLength() - 1, 1).get(0),
+                        getLocation()));
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    if (!isWhiteSpace()) {
+                        events.add(new Characters(getText(), getLocation()));
+                    }
+                    break;
+
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    events.add(new ProcessingInstruction(getPITarget(), getPIData(), getLocation()));
+                    break;
+
+                case XMLStreamConstants.END_DOCUMENT:
+                    events.add(new Event(event, getLocation()));
+                    break;
+
+                default:
+                    break;
+            }
+
+            return event;
+        }
+
+        /**
+         * @return The template recorded so far (all of it, once the end of
+         * the document has been read).
+         */
+        BXMLTemplate getTemplate() {
+            return template;
+        }
+    }
+
+    /**
+     * A stream reader over the events of the template.
+     */
+    private final class Replay implements XMLStreamReader, NamespaceContext {
+        private int index = -1;
+        private Event event = null;
+        private final ArrayList<StartElement> openElements = new ArrayList<>();
+
+        private StartElement getStartElement() {
+            if (event instanceof StartElement) {
+                return (StartElement) event;
+            }
+
+            if (event instanceof EndElement) {
+                return ((EndElement) event).startElement;
+            }
+
+            throw new IllegalStateException("Not at a start or end element.");
+        }
+
+        private StartElement getAttributes() {
+            if (!(event instanceof StartElement)) {
+                throw new IllegalStateException("Not at a start element.");
+            }
+
+            return (StartElement) event;
+        }
+
+        @Override
+        public Object getProperty(final String name) {
+            return null;
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            // An element's namespaces stay in scope until its end has been read
+            if (event instanceof EndElement) {
+                openElements.remove(openElements.getLength() - 1, 1);
+            }
+
+            event = events.get(++index);
+
+            if (event instanceof StartElement) {
+                openElements.add((StartElement) event);
+            }
+
+            return event.type;
+        }
+
+        @Override
+        public void require(final int type, final String namespaceURI, final String localName)
+            throws XMLStreamException {
+            if (type != getEventType()
+                || (namespaceURI != null && !namespaceURI.equals(getNamespaceURI()))
+                || (localName != null && !localName.equals(getLocalName()))) {
+                throw new XMLStreamException("Required event is not the current event.", getLocation());
+            }
+        }
+
+        @Override
+        public String getElementText() throws XMLStreamException {
+            if (getEventType() != START_ELEMENT) {
+                throw new XMLStreamException("Not at a start element.", getLocation());
+            }
+
+            StringBuilder text = new StringBuilder();
+
+            while (next() != END_ELEMENT) {
+                if (event.type == CHARACTERS) {
+                    text.append(((Characters) event).text);
+                } else if (event.type != PROCESSING_INSTRUCTION) {
+                    throw new XMLStreamException("Element does not contain only text.", getLocation());
+                }
+            }
+
+            return text.toString();
+        }
+
+        @Override
+        public int nextTag() throws XMLStreamException {
+            int type = next();
+
+            while (type == CHARACTERS || type == PROCESSING_INSTRUCTION) {
+                type = next();
+            }
+
+            if (type != START_ELEMENT && type != END_ELEMENT) {
+                throw new XMLStreamException("Expected a start or end element.", getLocation());
+            }
+
+            return type;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return (index < events.getLength() - 1);
+        }
+
+        @Override
+        public void close() {
+            // No-op
+        }
+
+        @Override
+        public String getNamespaceURI(final String prefix) {
+            if (prefix == null) {
+                throw new IllegalArgumentException("prefix is null.");
+            }
+
+            if (prefix.equals(XMLConstants.XML_NS_PREFIX)) {
+                return XMLConstants.XML_NS_URI;
+            }
+
+            if (prefix.equals(XMLConstants.XMLNS_ATTRIBUTE)) {
+                return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+            }
+
+            for (int i = openElements.getLength() - 1; i >= 0; i--) {
+                String namespaceURI = openElements.get(i).getDeclaredNamespaceURI(prefix);
+                if (namespaceURI != null) {
+                    return namespaceURI;
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public String getPrefix(final String namespaceURI) {
+            for (int i = openElements.getLength() - 1; i >= 0; i--) {
+                StartElement startElement = openElements.get(i);
+
+                for (int j = 0; j < startElement.namespaceURIs.length; j++) {
+                    String prefix = startElement.namespacePrefixes[j];
+                    if (startElement.namespaceURIs[j].equals(namespaceURI)
+                        && namespaceURI.equals(getNamespaceURI((prefix == null) ? "" : prefix))) {
+                        return (prefix == null) ? "" : prefix;
+                    }
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public java.util.Iterator<String> getPrefixes(final String namespaceURI) {
+            String prefix = getPrefix(namespaceURI);
+            return (prefix == null) ? java.util.Collections.<String>emptyIterator()
+                : java.util.Collections.singleton(prefix).iterator();
+        }
+
+        @Override
+        public boolean isStartElement() {
+            return (getEventType() == START_ELEMENT);
+        }
+
+        @Override
+        public boolean isEndElement() {
+            return (getEventType() == END_ELEMENT);
+        }
+
+        @Override
+        public boolean isCharacters() {
+            return (getEventType() == CHARACTERS);
+        }
+
+        @Override
+        public boolean isWhiteSpace() {
+            // Whitespace is not recorded
+            return false;
+        }
+
+        @Override
+        public String getAttributeValue(final String namespaceURI, final String localName) {
+            StartElement startElement = getAttributes();
+
+            for (int i = 0; i < startElement.attributeLocalNames.length; i++) {
+                if (startElement.attributeLocalNames[i].equals(localName)
+                    && (namespaceURI == null || namespaceURI.equals(startElement.attributeNamespaces[i]))) {
+                    return startElement.attributeValues[i];
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public int getAttributeCount() {
+            return getAttributes().attributeLocalNames.length;
+        }
+
+        @Override
+        public QName getAttributeName(final int i) {
+            StartElement startElement = getAttributes();
+            String namespaceURI = startElement.attributeNamespaces[i];
+            String prefix = startElement.attributePrefixes[i];
+
+            return new QName((namespaceURI == null) ? XMLConstants.NULL_NS_URI : namespaceURI,
+                startElement.attributeLocalNames[i],
+                (prefix == null) ? XMLConstants.DEFAULT_NS_PREFIX : prefix);
+        }
+
+        @Override
+        public String getAttributeNamespace(final int i) {
+            return getAttributes().attributeNamespaces[i];
+        }
+
+        @Override
+        public String getAttributeLocalName(final int i) {
+            return getAttributes().attributeLocalNames[i];
+        }
+
+        @Override
+        public String getAttributePrefix(final int i) {
+            return getAttributes().attributePrefixes[i];
+        }
+
+        @Override
+        public String getAttributeType(final int i) {
+            return "CDATA";
+        }
+
+        @Override
+        public String getAttributeValue(final int i) {
+            return getAttributes().attributeValues[i];
+        }
+
+        @Override
+        public boolean isAttributeSpecified(final int i) {
+            return true;
+        }
+
+        @Override
+        public int getNamespaceCount() {
+            return getStartElement().namespacePrefixes.length;
+        }
+
+        @Override
+        public String getNamespacePrefix(final int i) {
+            return getStartElement().namespacePrefixes[i];
+        }
+
+        @Override
+        public String getNamespaceURI(final int i) {
+            return getStartElement().namespaceURIs[i];
+        }
+
+        @Override
+        public NamespaceContext getNamespaceContext() {
+            return this;
+        }
+
+        @Override
+        public int getEventType() {
+            return (event == null) ? START_DOCUMENT : event.type;
+        }
+
+        private Characters getCharacters() {
+            if (!(event instanceof Characters)) {
+                throw new IllegalStateException("Not at a text event.");
+            }
+
+            return (Characters) event;
+        }
+
+        @Override
+        public String getText() {
+            return getCharacters().text;
+        }
+
+        @Override
+        public char[] getTextCharacters() {
+            return getCharacters().text.toCharArray();
+        }
+
+        @Override
+        public int getTextCharacters(final int sourceStart, final char[] target, final int targetStart,
+            final int length) throws XMLStreamException {
+            String text = getCharacters().text;
+            int count = Math.max(Math.min(length, text.length() - sourceStart), 0);
+            text.getChars(sourceStart, sourceStart + count, target, targetStart);
+
+            return count;
+        }
+
+        @Override
+        public int getTextStart() {
+            return 0;
+        }
+
+        @Override
+        public int getTextLength() {
+            return getCharacters().text.length();
+        }
+
+        @Override
+        public String getEncoding() {
+            return null;
+        }
+
+        @Override
+        public boolean hasText() {
+            return (getEventType() == CHARACTERS);
+        }
+
+        @Override
+        public Location getLocation() {
+            return (event == null) ? new Event(START_DOCUMENT, null) : event;
+        }
+
+        @Override
+        public QName getName() {
+            StartElement startElement = getStartElement();
+
+            return new QName((startElement.namespaceURI == null) ? XMLConstants.NULL_NS_URI
+                : startElement.namespaceURI, startElement.localName,
+                (startElement.prefix == null) ? XMLConstants.DEFAULT_NS_PREFIX : startElement.prefix);
+        }
+
+        @Override
+        public String getLocalName() {
+            return getStartElement().localName;
+        }
+
+        @Override
+        public boolean hasName() {
+            int type = getEventType();
+            return (type == START_ELEMENT || type == END_ELEMENT);
+        }
+
+        @Override
+        public String getNamespaceURI() {
+            return getStartElement().namespaceURI;
+        }
+
+        @Override
+        public String getPrefix() {
+            return getStartElement().prefix;
+        }
+
+        @Override
+        public String getVersion() {
+            return null;
+        }
+
+        @Override
+        public boolean isStandalone() {
+            return false;
+        }
+
+        @Override
+        public boolean standaloneSet() {
+            return false;
+        }
+
+        @Override
+        public String getCharacterEncodingScheme() {
+            return null;
+        }
+
+        @Override
+        public String getPITarget() {
+            return (event instanceof ProcessingInstruction) ? ((ProcessingInstruction) event).target : null;
+        }
+
+        @Override
+        public String getPIData() {
+            return (event instanceof ProcessingInstruction) ? ((ProcessingInstruction) event).data : null;
+        }
+    }
+
+    private final ArrayList<Event> events = new ArrayList<>();
+    private final long lastModified;
+
+    // Classes resolved by name, for the class loader in effect when the
+    // template was recorded
+    private final ClassLoader classLoader;
+    private final ConcurrentHashMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+    private BXMLTemplate(final ClassLoader classLoader, final long lastModified) {
+        this.classLoader = classLoader;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return The modification time of the document the template was recorded
+     * from, or 0 if it is unknown.
+     */
+    long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return A new stream reader over the template's events.
+     */
+    XMLStreamReader replay() {
+        return new Replay();
+    }
+
+    /**
+     * Returns a class by name, as {@link Class#forName(String, boolean, ClassLoader)}
+     * does, resolving it only once for the class loader the template was
+     * recorded with.
+     *
+     * @param className The fully-qualified name of the class.
+     * @param loader The class loader to use.
+     * @return The class.
+     * @throws ClassNotFoundException if there is no such class.
+     */
+    Class<?> loadClass(final String className, final ClassLoader loader) throws ClassNotFoundException {
+        if (loader != classLoader) {
+            return Class.forName(className, true, loader);
+        }
+
+        Class<?> type = classes.get(className);
+        if (type == null) {
+            type = Class.forName(className, true, loader);
+            classes.put(className, type);
+        }
+
+        return type;
+    }
+}
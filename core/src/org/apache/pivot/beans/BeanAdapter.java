@@ -28,6 +28,8 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.pivot.annotations.UnsupportedOperation;
 import org.apache.pivot.collections.Map;
@@ -54,7 +56,15 @@ public class BeanAdapter implements Map<String, Object> {
      * Property iterator. Returns a property name for each getter method and public,
      * non-final field defined by the bean.
      */
-    private class PropertyIterator implements Iterator<String> {
+    private static class PropertyIterator implements Iterator<String> {
+        /**
+         * The class of the bean.
+         */
+        private final Class<?> beanClass;
+        /**
+         * Whether read-only properties are skipped.
+         */
+        private final boolean ignoreReadOnlyProperties;
         /**
          * The list of methods in the bean object.
          */
@@ -80,7 +90,10 @@ public class BeanAdapter implements Map<String, Object> {
         /**
          * Construct the property iterator over our bean object.
          */
-        PropertyIterator() {
+        PropertyIterator(final Class<?> beanClassValue, final boolean ignoreReadOnlyValue) {
+            beanClass = beanClassValue;
+            ignoreReadOnlyProperties = ignoreReadOnlyValue;
+
             methods = beanClass.getMethods();
             fields = beanClass.getFields();
             nextProperty();
@@ -131,7 +144,7 @@ public class BeanAdapter implements Map<String, Object> {
                             + methodName.substring(propertyOffset + 1);
 
                         if (!propertyName.equals("class")) {
-                            if (!ignoreReadOnlyProperties || !isReadOnly(propertyName)) {
+                            if (!ignoreReadOnlyProperties || !isReadOnly(beanClass, propertyName)) {
                                nextPropertyName = propertyName;
                             }
                         }
@@ -200,6 +213,49 @@ public class BeanAdapter implements Map<String, Object> {
     private static final String ENUM_COERCION_EXCEPTION_MESSAGE =
             "Unable to coerce %s (\"%s\") to %s.\nValid enum constants - %s";
 
+    /**
+     * Key for a cached setter method lookup.
+     */
+    private static final class SetterKey {
+        private final String key;
+        private final Class<?> valueType;
+
+        SetterKey(final String key, final Class<?> valueType) {
+            this.key = key;
+            this.valueType = valueType;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (o instanceof SetterKey) {
+                SetterKey setterKey = (SetterKey) o;
+                return (key.equals(setterKey.key) && valueType == setterKey.valueType);
+            }
+
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() * 31 + valueType.hashCode();
+        }
+    }
+
+    /**
+     * Getter and setter methods already looked up, per bean class (keyed by the
+     * property name for getters, and by a {@link SetterKey} for setters).
+     * Reflective lookups are slow and, when a method is not found, allocate an
+     * exception; skins and renderers get and set styles this way for every
+     * item they paint. Lookups that failed are kept as empty values.
+     */
+    private static final ClassValue<ConcurrentHashMap<Object, Optional<Method>>> METHOD_CACHE =
+        new ClassValue<ConcurrentHashMap<Object, Optional<Method>>>() {
+            @Override
+            protected ConcurrentHashMap<Object, Optional<Method>> computeValue(final Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+
     /**
      * Creates a new bean dictionary.
      *
@@ -497,7 +553,22 @@ public class BeanAdapter implements Map<String, Object> {
      */
     @Override
     public Iterator<String> iterator() {
-        return new PropertyIterator();
+        return new PropertyIterator(beanClass, ignoreReadOnlyProperties);
+    }
+
+    /**
+     * Returns an iterator over the properties of a bean class, in the order in
+     * which {@link #iterator()} returns them for its beans.
+     *
+     * @param beanClass The bean class.
+     * @param ignoreReadOnly {@code true} to skip the {@code final} fields and
+     * the properties that can't be set.
+     * @return An iterator over the names of the properties.
+     */
+    public static Iterator<String> getPropertyNames(final Class<?> beanClass, final boolean ignoreReadOnly) {
+        Utils.checkNull(beanClass, "beanClass");
+
+        return new PropertyIterator(beanClass, ignoreReadOnly);
     }
 
     @Override
@@ -637,6 +708,25 @@ public class BeanAdapter implements Map<String, Object> {
         Utils.checkNull(beanClass, "beanClass");
         Utils.checkNullOrEmpty(key, "key");
 
+        ConcurrentHashMap<Object, Optional<Method>> methods = METHOD_CACHE.get(beanClass);
+        Optional<Method> getterMethod = methods.get(key);
+
+        if (getterMethod == null) {
+            getterMethod = Optional.ofNullable(lookupGetterMethod(beanClass, key));
+            methods.put(key, getterMethod);
+        }
+
+        return getterMethod.orElse(null);
+    }
+
+    /**
+     * Does the (uncached) work of {@link #getGetterMethod}.
+     *
+     * @param beanClass The bean class.
+     * @param key The property name.
+     * @return The getter method, or {@code null} if the method does not exist.
+     */
+    private static Method lookupGetterMethod(final Class<?> beanClass, final String key) {
         // Upper-case the first letter
         String keyUpdated = Character.toUpperCase(key.charAt(0)) + key.substring(1);
         Method getterMethod = null;
@@ -736,12 +826,21 @@ public class BeanAdapter implements Map<String, Object> {
         Method setterMethod = null;
 
         if (valueType != null) {
-            // Upper-case the first letter and prepend the "set" prefix to
-            // determine the method name
-            String keyUpdated = Character.toUpperCase(key.charAt(0)) + key.substring(1);
-            final String methodName = SET_PREFIX + keyUpdated;
+            ConcurrentHashMap<Object, Optional<Method>> methods = METHOD_CACHE.get(beanClass);
+            SetterKey setterKey = new SetterKey(key, valueType);
+            Optional<Method> cachedMethod = methods.get(setterKey);
+
+            if (cachedMethod == null) {
+                // Upper-case the first letter and prepend the "set" prefix to
+                // determine the method name
+                String keyUpdated = Character.toUpperCase(key.charAt(0)) + key.substring(1);
+                final String methodName = SET_PREFIX + keyUpdated;
+
+                cachedMethod = Optional.ofNullable(internalGetSetterMethod(beanClass, methodName, valueType));
+                methods.put(setterKey, cachedMethod);
+            }
 
-            setterMethod = internalGetSetterMethod(beanClass, methodName, valueType);
+            setterMethod = cachedMethod.orElse(null);
         }
 
         return setterMethod;
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.beans;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time spent running one of the script handlers created by
+ * {@link BXMLSerializer}: an event listener given as a script (in an
+ * attribute or a listener list element) or a namespace binding mapping
+ * function. The statistics of the handlers created from the same document
+ * for the same event are combined.
+ *
+ * @see BXMLSerializer#setScriptStatisticsEnabled(boolean)
+ * @see BXMLSerializer#getScriptStatistics()
+ */
+public final class ScriptStatistics {
+    private final String name;
+
+    private long count = 0;
+    private long totalTime = 0;
+    private long maximumTime = 0;
+
+    ScriptStatistics(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return The name of the handler: the location of the document, the ID
+     * of the element it was attached to (if any), and the listener method or
+     * mapping function it implements.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records one execution of the handler.
+     *
+     * @param time The time the execution took, in nanoseconds.
+     */
+    synchronized void record(final long time) {
+        count++;
+        totalTime += time;
+        maximumTime = Math.max(maximumTime, time);
+    }
+
+    /**
+     * @return The number of times the handler was run.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The total time spent in the handler, in nanoseconds.
+     */
+    public synchronized long getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * @return The average time spent in the handler, in nanoseconds.
+     */
+    public synchronized long getAverageTime() {
+        return (count == 0) ? 0 : totalTime / count;
+    }
+
+    /**
+     * @return The longest time spent in a single run of the handler, in
+     * nanoseconds.
+     */
+    public synchronized long getMaximumTime() {
+        return maximumTime;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %d calls, %.3f ms total, %.3f ms average, %.3f ms maximum", name, count,
+            totalTime / (double) TimeUnit.MILLISECONDS.toNanos(1),
+            getAverageTime() / (double) TimeUnit.MILLISECONDS.toNanos(1),
+            maximumTime / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,1060 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.collections;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.pivot.annotations.UnsupportedOperation;
+import org.apache.pivot.util.ListenerList;
+import org.apache.pivot.util.Utils;
+
+/**
+ * A list of rows stored column by column: each column of the table holds its
+ * values in a single array, of a primitive type where possible, and the
+ * column names and types are shared by every row. <p> This takes a fraction
+ * of the memory of a list of maps with the same contents (there are no
+ * per-row hash tables or boxed numbers), so it suits large data sets read from
+ * a database or a CSV file. The values can be read and written by row and
+ * column index through the typed accessors, without boxing. <p> Each item of
+ * the list is a {@link Row}: a lightweight view of the row at a given index,
+ * which implements {@link Map} so that the table can be used wherever a list
+ * of dictionaries is expected (as the data of a table view, for instance).
+ * Since a row view refers to its row by position, it refers to a different
+ * row once rows are inserted or removed before it.
+ */
+public class ColumnTable implements List<ColumnTable.Row> {
+    /**
+     * The types of values a column can hold.
+     */
+    public enum ColumnType {
+        BOOLEAN, INT, LONG, DOUBLE, OBJECT;
+
+        /**
+         * @param type A value type.
+         * @return The column type that best holds values of the given type.
+         * Values are not widened: bytes, shorts and floats go in
+         * {@link #OBJECT} columns, so that they are read back as the same
+         * class.
+         */
+        public static ColumnType forClass(final Class<?> type) {
+            ColumnType columnType;
+
+            if (type == Boolean.class || type == Boolean.TYPE) {
+                columnType = BOOLEAN;
+            } else if (type == Integer.class || type == Integer.TYPE) {
+                columnType = INT;
+            } else if (type == Long.class || type == Long.TYPE) {
+                columnType = LONG;
+            } else if (type == Double.class || type == Double.TYPE) {
+                columnType = DOUBLE;
+            } else {
+                columnType = OBJECT;
+            }
+
+            return columnType;
+        }
+    }
+
+    /**
+     * The name and type of a column.
+     */
+    public static final class Column {
+        /**
+         * The name of the column, which is the key of its values in each row.
+         */
+        public final String name;
+
+        /**
+         * The type of the column's values.
+         */
+        public final ColumnType type;
+
+        public Column(final String name) {
+            this(name, ColumnType.OBJECT);
+        }
+
+        public Column(final String name, final ColumnType type) {
+            Utils.checkNull(name, "name");
+            Utils.checkNull(type, "type");
+
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    /**
+     * A view of a row of the table. Setting a value converts it to the type
+     * of its column; {@code null} values are allowed in any column, and are
+     * left out of the row's keys.
+     */
+    public final class Row implements Map<String, Object> {
+        private final int index;
+
+        private Row(final int index) {
+            this.index = index;
+        }
+
+        /**
+         * @return The table this row belongs to.
+         */
+        public ColumnTable getTable() {
+            return ColumnTable.this;
+        }
+
+        /**
+         * @return The index of the row in its table.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        private int columnIndexOf(final String key) {
+            Integer column = columnIndexes.get(key);
+            return (column == null) ? -1 : column.intValue();
+        }
+
+        @Override
+        public Object get(final String key) {
+            int column = columnIndexOf(key);
+            return (column == -1) ? null : getValue(index, column);
+        }
+
+        @Override
+        public Object put(final String key, final Object value) {
+            int column = columnIndexOf(key);
+            if (column == -1) {
+                throw new IllegalArgumentException("\"" + key + "\" is not a column of the table.");
+            }
+
+            Object previousValue = getValue(index, column);
+            setValue(index, column, value);
+
+            if (previousValue == null) {
+                rowListeners.valueAdded(this, key);
+            } else {
+                rowListeners.valueUpdated(this, key, previousValue);
+            }
+
+            return previousValue;
+        }
+
+        @Override
+        public Object remove(final String key) {
+            int column = columnIndexOf(key);
+            Object previousValue = null;
+
+            if (column != -1 && !isNull(index, column)) {
+                previousValue = getValue(index, column);
+                setValue(index, column, null);
+                rowListeners.valueRemoved(this, key, previousValue);
+            }
+
+            return previousValue;
+        }
+
+        @Override
+        public boolean containsKey(final String key) {
+            int column = columnIndexOf(key);
+            return (column != -1 && !isNull(index, column));
+        }
+
+        @Override
+        public void clear() {
+            for (int column = 0; column < columns.length; column++) {
+                setValue(index, column, null);
+            }
+
+            rowListeners.mapCleared(this);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return (getCount() == 0);
+        }
+
+        @Override
+        public int getCount() {
+            int count = 0;
+            for (int column = 0; column < columns.length; column++) {
+                if (!isNull(index, column)) {
+                    count++;
+                }
+            }
+
+            return count;
+        }
+
+        @Override
+        public Comparator<String> getComparator() {
+            return null;
+        }
+
+        @Override
+        @UnsupportedOperation
+        public void setComparator(final Comparator<String> comparator) {
+            throw new UnsupportedOperationException("The keys of a row are in column order.");
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int column = nextColumn(0);
+
+                private int nextColumn(final int from) {
+                    int i = from;
+                    while (i < columns.length && isNull(index, i)) {
+                        i++;
+                    }
+
+                    return i;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return (column < columns.length);
+                }
+
+                @Override
+                public String next() {
+                    if (column >= columns.length) {
+                        throw new NoSuchElementException();
+                    }
+
+                    String key = columns[column].name;
+                    column = nextColumn(column + 1);
+
+                    return key;
+                }
+            };
+        }
+
+        @Override
+        public ListenerList<MapListener<String, Object>> getMapListeners() {
+            return rowListeners;
+        }
+
+        /**
+         * @return The value as a string, whatever the type of its column, or
+         * {@code null} if there is no such value.
+         */
+        @Override
+        public String getString(final String key) {
+            int column = columnIndexOf(key);
+            return (column == -1) ? null : ColumnTable.this.getString(index, column);
+        }
+
+        @Override
+        public int getInt(final String key, final int defaultValue) {
+            int column = columnIndexOf(key);
+
+            if (column == -1 || isNull(index, column)) {
+                return defaultValue;
+            }
+
+            return (columns[column].type == ColumnType.INT)
+                ? ((int[]) data[column])[index] : Map.super.getInt(key, defaultValue);
+        }
+
+        @Override
+        public boolean getBoolean(final String key, final boolean defaultValue) {
+            int column = columnIndexOf(key);
+
+            if (column == -1 || isNull(index, column)) {
+                return defaultValue;
+            }
+
+            return (columns[column].type == ColumnType.BOOLEAN)
+                ? ((boolean[]) data[column])[index] : Map.super.getBoolean(key, defaultValue);
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            return (object instanceof Row && ((Row) object).getTable() == ColumnTable.this
+                && ((Row) object).index == index);
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+    }
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Column[] columns;
+    private final HashMap<String, Integer> columnIndexes = new HashMap<>();
+
+    // The values of each column (an array of the column's primitive type, or
+    // of objects), and which of them are null (allocated on the first one)
+    private final Object[] data;
+    private final BitSet[] nulls;
+
+    private int length = 0;
+    private int capacity = 0;
+    private int modificationCount = 0;
+
+    private Comparator<Row> comparator = null;
+
+    private transient ListListenerList<Row> listListeners = new ListListenerList<>();
+    private transient MapListener.Listeners<String, Object> rowListeners = new MapListener.Listeners<>();
+
+    public ColumnTable(final Column... columns) {
+        this(new ArrayAdapter<>(columns));
+    }
+
+    public ColumnTable(final Sequence<Column> columns) {
+        Utils.checkNull(columns, "columns");
+
+        int n = columns.getLength();
+        this.columns = new Column[n];
+        data = new Object[n];
+        nulls = new BitSet[n];
+
+        for (int i = 0; i < n; i++) {
+            Column column = columns.get(i);
+            Utils.checkNull(column, "column");
+
+            if (columnIndexes.containsKey(column.name)) {
+                throw new IllegalArgumentException("Duplicate column \"" + column.name + "\".");
+            }
+
+            this.columns[i] = column;
+            columnIndexes.put(column.name, i);
+        }
+
+        ensureCapacity(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @return The number of columns.
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @param column The index of a column.
+     * @return The column at that index.
+     */
+    public Column getColumn(final int column) {
+        Utils.checkIndexBounds(column, 0, columns.length - 1);
+
+        return columns[column];
+    }
+
+    /**
+     * @param name The name of a column.
+     * @return The index of the column, or -1 if there is no such column.
+     */
+    public int getColumnIndex(final String name) {
+        Integer column = columnIndexes.get(name);
+        return (column == null) ? -1 : column.intValue();
+    }
+
+    /**
+     * Ensures that the table has room for the given number of rows without
+     * reallocating its columns.
+     *
+     * @param minimumCapacity The number of rows.
+     */
+    public void ensureCapacity(final int minimumCapacity) {
+        if (minimumCapacity > capacity) {
+            int newCapacity = Math.max(minimumCapacity, capacity + (capacity >> 1));
+
+            for (int column = 0; column < columns.length; column++) {
+                Object values = data[column];
+
+                switch (columns[column].type) {
+                    case BOOLEAN:
+                        data[column] = (values == null) ? new boolean[newCapacity]
+                            : Arrays.copyOf((boolean[]) values, newCapacity);
+                        break;
+                    case INT:
+                        data[column] = (values == null) ? new int[newCapacity]
+                            : Arrays.copyOf((int[]) values, newCapacity);
+                        break;
+                    case LONG:
+                        data[column] = (values == null) ? new long[newCapacity]
+                            : Arrays.copyOf((long[]) values, newCapacity);
+                        break;
+                    case DOUBLE:
+                        data[column] = (values == null) ? new double[newCapacity]
+                            : Arrays.copyOf((double[]) values, newCapacity);
+                        break;
+                    default:
+                        data[column] = (values == null) ? new Object[newCapacity]
+                            : Arrays.copyOf((Object[]) values, newCapacity);
+                        break;
+                }
+            }
+
+            capacity = newCapacity;
+        }
+    }
+
+    /**
+     * Appends a row whose values are all {@code null}, to be filled in with
+     * the setters; this is the quickest way to load the table. The row is
+     * added at the end whether or not the table has a comparator, and the
+     * list listeners are not notified.
+     *
+     * @return The index of the new row.
+     */
+    public int addRow() {
+        ensureCapacity(length + 1);
+
+        for (int column = 0; column < columns.length; column++) {
+            setNull(length, column);
+        }
+
+        modificationCount++;
+
+        return length++;
+    }
+
+    /**
+     * Appends the rows of another table with the same columns, copying its
+     * column arrays in bulk. Like {@link #addRow}, the rows are added at the
+     * end and the list listeners are not notified.
+     *
+     * @param table The table whose rows are to be appended.
+     * @throws IllegalArgumentException if the table's columns differ from
+     * this table's.
+     */
+    public void addRows(final ColumnTable table) {
+        Utils.checkNull(table, "table");
+
+        if (table.columns.length != columns.length) {
+            throw new IllegalArgumentException("Tables have different columns.");
+        }
+
+        for (int column = 0; column < columns.length; column++) {
+            if (!table.columns[column].name.equals(columns[column].name)
+                || table.columns[column].type != columns[column].type) {
+                throw new IllegalArgumentException("Tables have different columns.");
+            }
+        }
+
+        int count = table.length;
+        ensureCapacity(length + count);
+
+        for (int column = 0; column < columns.length; column++) {
+            System.arraycopy(table.data[column], 0, data[column], length, count);
+
+            BitSet bits = table.nulls[column];
+            if (bits != null) {
+                for (int i = bits.nextSetBit(0); i >= 0 && i < count; i = bits.nextSetBit(i + 1)) {
+                    setNull(length + i, column);
+                }
+            }
+        }
+
+        length += count;
+        modificationCount++;
+    }
+
+    private void checkCell(final int row, final int column) {
+        Utils.checkIndexBounds(row, 0, length - 1);
+        Utils.checkIndexBounds(column, 0, columns.length - 1);
+    }
+
+    private void checkType(final int column, final ColumnType... types) {
+        ColumnType type = columns[column].type;
+
+        for (ColumnType allowedType : types) {
+            if (type == allowedType) {
+                return;
+            }
+        }
+
+        throw new IllegalArgumentException("Column \"" + columns[column].name + "\" holds "
+            + type + " values.");
+    }
+
+    /**
+     * @param row The index of a row.
+     * @param column The index of a column.
+     * @return Whether the value at that row and column is {@code null}.
+     */
+    public boolean isNull(final int row, final int column) {
+        checkCell(row, column);
+
+        return isNull0(row, column);
+    }
+
+    private boolean isNull0(final int row, final int column) {
+        return (columns[column].type == ColumnType.OBJECT)
+            ? ((Object[]) data[column])[row] == null
+            : (nulls[column] != null && nulls[column].get(row));
+    }
+
+    private void setNull(final int row, final int column) {
+        if (columns[column].type == ColumnType.OBJECT) {
+            ((Object[]) data[column])[row] = null;
+        } else {
+            if (nulls[column] == null) {
+                nulls[column] = new BitSet();
+            }
+
+            nulls[column].set(row);
+        }
+    }
+
+    private void clearNull(final int row, final int column) {
+        if (nulls[column] != null) {
+            nulls[column].clear(row);
+        }
+    }
+
+    public boolean getBoolean(final int row, final int column) {
+        checkCell(row, column);
+        checkType(column, ColumnType.BOOLEAN);
+
+        return ((boolean[]) data[column])[row];
+    }
+
+    public int getInt(final int row, final int column) {
+        checkCell(row, column);
+        checkType(column, ColumnType.INT);
+
+        return ((int[]) data[column])[row];
+    }
+
+    /**
+     * Returns a value from an integer column.
+     *
+     * @param row The index of a row.
+     * @param column The index of an {@code INT} or {@code LONG} column.
+     * @return The value, or 0 if it is {@code null}.
+     */
+    public long getLong(final int row, final int column) {
+        checkCell(row, column);
+        checkType(column, ColumnType.INT, ColumnType.LONG);
+
+        return (columns[column].type == ColumnType.INT)
+            ? ((int[]) data[column])[row] : ((long[]) data[column])[row];
+    }
+
+    /**
+     * Returns a value from a numeric column.
+     *
+     * @param row The index of a row.
+     * @param column The index of an {@code INT}, {@code LONG} or {@code DOUBLE}
+     * column.
+     * @return The value, or 0 if it is {@code null}.
+     */
+    public double getDouble(final int row, final int column) {
+        checkCell(row, column);
+        checkType(column, ColumnType.INT, ColumnType.LONG, ColumnType.DOUBLE);
+
+        switch (columns[column].type) {
+            case INT:
+                return ((int[]) data[column])[row];
+            case LONG:
+                return ((long[]) data[column])[row];
+            default:
+                return ((double[]) data[column])[row];
+        }
+    }
+
+    /**
+     * Returns a value of any column, boxing primitive values.
+     *
+     * @param row The index of a row.
+     * @param column The index of a column.
+     * @return The value, or {@code null}.
+     */
+    public Object getValue(final int row, final int column) {
+        checkCell(row, column);
+
+        if (isNull0(row, column)) {
+            return null;
+        }
+
+        switch (columns[column].type) {
+            case BOOLEAN:
+                return Boolean.valueOf(((boolean[]) data[column])[row]);
+            case INT:
+                return Integer.valueOf(((int[]) data[column])[row]);
+            case LONG:
+                return Long.valueOf(((long[]) data[column])[row]);
+            case DOUBLE:
+                return Double.valueOf(((double[]) data[column])[row]);
+            default:
+                return ((Object[]) data[column])[row];
+        }
+    }
+
+    /**
+     * Returns the string form of a value of any column, without boxing
+     * primitive values.
+     *
+     * @param row The index of a row.
+     * @param column The index of a column.
+     * @return The value as a string, or {@code null}.
+     */
+    public String getString(final int row, final int column) {
+        checkCell(row, column);
+
+        if (isNull0(row, column)) {
+            return null;
+        }
+
+        switch (columns[column].type) {
+            case BOOLEAN:
+                return Boolean.toString(((boolean[]) data[column])[row]);
+            case INT:
+                return Integer.toString(((int[]) data[column])[row]);
+            case LONG:
+                return Long.toString(((long[]) data[column])[row]);
+            case DOUBLE:
+                return Double.toString(((double[]) data[column])[row]);
+            default:
+                return ((Object[]) data[column])[row].toString();
+        }
+    }
+
+    public void setBoolean(final int row, final int column, final boolean value) {
+        checkCell(row, column);
+        checkType(column, ColumnType.BOOLEAN);
+
+        ((boolean[]) data[column])[row] = value;
+        clearNull(row, column);
+    }
+
+    public void setInt(final int row, final int column, final int value) {
+        checkCell(row, column);
+
+        switch (columns[column].type) {
+            case INT:
+                ((int[]) data[column])[row] = value;
+                break;
+            case LONG:
+                ((long[]) data[column])[row] = value;
+                break;
+            case DOUBLE:
+                ((double[]) data[column])[row] = value;
+                break;
+            default:
+                checkType(column, ColumnType.INT, ColumnType.LONG, ColumnType.DOUBLE);
+                break;
+        }
+
+        clearNull(row, column);
+    }
+
+    public void setLong(final int row, final int column, final long value) {
+        checkCell(row, column);
+
+        switch (columns[column].type) {
+            case LONG:
+                ((long[]) data[column])[row] = value;
+                break;
+            case DOUBLE:
+                ((double[]) data[column])[row] = value;
+                break;
+            default:
+                checkType(column, ColumnType.LONG, ColumnType.DOUBLE);
+                break;
+        }
+
+        clearNull(row, column);
+    }
+
+    public void setDouble(final int row, final int column, final double value) {
+        checkCell(row, column);
+        checkType(column, ColumnType.DOUBLE);
+
+        ((double[]) data[column])[row] = value;
+        clearNull(row, column);
+    }
+
+    /**
+     * Sets a value of any column. Numbers are converted to the type of the
+     * column, and strings are parsed for the primitive column types.
+     *
+     * @param row The index of a row.
+     * @param column The index of a column.
+     * @param value The value, or {@code null}.
+     * @throws IllegalArgumentException if the value can't be converted to the
+     * type of the column.
+     */
+    public void setValue(final int row, final int column, final Object value) {
+        checkCell(row, column);
+
+        if (value == null) {
+            setNull(row, column);
+        } else {
+            ColumnType type = columns[column].type;
+
+            try {
+                switch (type) {
+                    case BOOLEAN:
+                        ((boolean[]) data[column])[row] = (value instanceof String)
+                            ? Boolean.parseBoolean((String) value) : ((Boolean) value).booleanValue();
+                        break;
+                    case INT:
+                        ((int[]) data[column])[row] = (value instanceof String)
+                            ? Integer.parseInt((String) value) : ((Number) value).intValue();
+                        break;
+                    case LONG:
+                        ((long[]) data[column])[row] = (value instanceof String)
+                            ? Long.parseLong((String) value) : ((Number) value).longValue();
+                        break;
+                    case DOUBLE:
+                        ((double[]) data[column])[row] = (value instanceof String)
+                            ? Double.parseDouble((String) value) : ((Number) value).doubleValue();
+                        break;
+                    default:
+                        ((Object[]) data[column])[row] = value;
+                        break;
+                }
+            } catch (ClassCastException | NumberFormatException exception) {
+                throw new IllegalArgumentException("\"" + value + "\" is not a valid "
+                    + type + " value for column \"" + columns[column].name + "\".", exception);
+            }
+
+            clearNull(row, column);
+        }
+    }
+
+    /**
+     * Copies the values of a row (of this or another table) to a row of this
+     * table, matching columns by name; columns missing from the source row are
+     * set to {@code null}.
+     */
+    private void copyRow(final Row source, final int sourceIndex, final int row) {
+        ColumnTable sourceTable = source.getTable();
+
+        for (int column = 0; column < columns.length; column++) {
+            Column targetColumn = columns[column];
+            int sourceColumn = sourceTable.getColumnIndex(targetColumn.name);
+
+            if (sourceColumn == -1 || sourceTable.isNull0(sourceIndex, sourceColumn)) {
+                setNull(row, column);
+            } else if (sourceTable.columns[sourceColumn].type == targetColumn.type) {
+                Object sourceValues = sourceTable.data[sourceColumn];
+                Object values = data[column];
+
+                switch (targetColumn.type) {
+                    case BOOLEAN:
+                        ((boolean[]) values)[row] = ((boolean[]) sourceValues)[sourceIndex];
+                        break;
+                    case INT:
+                        ((int[]) values)[row] = ((int[]) sourceValues)[sourceIndex];
+                        break;
+                    case LONG:
+                        ((long[]) values)[row] = ((long[]) sourceValues)[sourceIndex];
+                        break;
+                    case DOUBLE:
+                        ((double[]) values)[row] = ((double[]) sourceValues)[sourceIndex];
+                        break;
+                    default:
+                        ((Object[]) values)[row] = ((Object[]) sourceValues)[sourceIndex];
+                        break;
+                }
+
+                clearNull(row, column);
+            } else {
+                setValue(row, column, sourceTable.getValue(sourceIndex, sourceColumn));
+            }
+        }
+    }
+
+    /**
+     * Moves the rows from the given index on by the given amount (which may
+     * be negative).
+     */
+    private void shiftRows(final int from, final int distance) {
+        int count = length - from;
+
+        for (int column = 0; column < columns.length; column++) {
+            System.arraycopy(data[column], from, data[column], from + distance, count);
+
+            BitSet bits = nulls[column];
+            if (bits != null) {
+                if (distance > 0) {
+                    for (int i = length - 1; i >= from; i--) {
+                        bits.set(i + distance, bits.get(i));
+                    }
+                } else {
+                    for (int i = from; i < length; i++) {
+                        bits.set(i + distance, bits.get(i));
+                    }
+                    bits.clear(length + distance, length);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return A new table with the same columns as this one, holding copies of
+     * the given rows.
+     */
+    private ColumnTable copyRows(final int index, final int count) {
+        ColumnTable copy = new ColumnTable(new ArrayAdapter<>(columns));
+        copy.ensureCapacity(count);
+
+        for (int i = 0; i < count; i++) {
+            copy.copyRow(new Row(index + i), index + i, copy.addRow());
+        }
+
+        return copy;
+    }
+
+    private int getSortedIndex(final Row item) {
+        int low = 0;
+        int high = length - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+
+            if (comparator.compare(new Row(middle), item) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+    @Override
+    public int add(final Row item) {
+        int index = (comparator == null) ? length : getSortedIndex(item);
+        insert(item, index, false);
+
+        return index;
+    }
+
+    @Override
+    public void insert(final Row item, final int index) {
+        insert(item, index, true);
+    }
+
+    private void insert(final Row item, final int index, final boolean validate) {
+        Utils.checkNull(item, "item");
+        Utils.checkIndexBounds(index, 0, length);
+
+        if (comparator != null && validate) {
+            int i = getSortedIndex(item);
+            if (index != i) {
+                throw new IllegalArgumentException("Given insertion point " + index
+                    + " does not match the sorted insertion location " + i + ".");
+            }
+        }
+
+        ensureCapacity(length + 1);
+        shiftRows(index, 1);
+        length++;
+
+        // The item may be a row of this table that has just moved
+        int sourceIndex = item.index;
+        if (item.getTable() == this && sourceIndex >= index) {
+            sourceIndex++;
+        }
+
+        copyRow(item, sourceIndex, index);
+        modificationCount++;
+
+        listListeners.itemInserted(this, index);
+    }
+
+    /**
+     * Copies the values of the given row into the row at the given index.
+     *
+     * @return A copy of the row as it was before the update.
+     */
+    @Override
+    public Row update(final int index, final Row item) {
+        Utils.checkNull(item, "item");
+        Utils.checkIndexBounds(index, 0, length - 1);
+
+        if (comparator != null) {
+            // Ensure that the new item is greater or equal to its
+            // predecessor and less than or equal to its successor
+            if ((index > 0 && comparator.compare(item, new Row(index - 1)) < 0)
+                || (index < length - 1 && comparator.compare(item, new Row(index + 1)) > 0)) {
+                throw new IllegalArgumentException("Updated item at index " + index
+                    + " is not in correct sorted order.");
+            }
+        }
+
+        Row previousItem = copyRows(index, 1).get(0);
+        copyRow(item, item.index, index);
+        modificationCount++;
+
+        listListeners.itemUpdated(this, index, previousItem);
+
+        return previousItem;
+    }
+
+    @Override
+    public int remove(final Row item) {
+        int index = indexOf(item);
+
+        if (index >= 0) {
+            remove(index, 1);
+        }
+
+        return index;
+    }
+
+    /**
+     * @return A table holding copies of the removed rows.
+     */
+    @Override
+    public Sequence<Row> remove(final int index, final int count) {
+        Utils.checkIndexBounds(index, count, 0, length);
+
+        ColumnTable removed = copyRows(index, count);
+
+        if (count > 0) {
+            shiftRows(index + count, -count);
+            length -= count;
+
+            // Let go of any objects beyond the end of the table
+            for (int column = 0; column < columns.length; column++) {
+                if (columns[column].type == ColumnType.OBJECT) {
+                    Arrays.fill((Object[]) data[column], length, length + count, null);
+                }
+            }
+
+            modificationCount++;
+
+            listListeners.itemsRemoved(this, index, removed);
+        }
+
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        if (length > 0) {
+            for (int column = 0; column < columns.length; column++) {
+                if (columns[column].type == ColumnType.OBJECT) {
+                    Arrays.fill((Object[]) data[column], 0, length, null);
+                }
+
+                nulls[column] = null;
+            }
+
+            length = 0;
+            modificationCount++;
+
+            listListeners.listCleared(this);
+        }
+    }
+
+    @Override
+    public Row get(final int index) {
+        Utils.checkIndexBounds(index, 0, length - 1);
+
+        return new Row(index);
+    }
+
+    @Override
+    public int indexOf(final Row item) {
+        return (item != null && item.getTable() == this && item.index < length) ? item.index : -1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return (length == 0);
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public Comparator<Row> getComparator() {
+        return comparator;
+    }
+
+    /**
+     * Sets the comparator, sorting the rows of the table with it.
+     */
+    @Override
+    public void setComparator(final Comparator<Row> newComparator) {
+        Comparator<Row> previousComparator = comparator;
+
+        if (newComparator != null && length > 1) {
+            Integer[] order = new Integer[length];
+            for (int i = 0; i < length; i++) {
+                order[i] = i;
+            }
+
+            Arrays.sort(order, (i1, i2) -> newComparator.compare(new Row(i1), new Row(i2)));
+
+            ColumnTable sorted = new ColumnTable(new ArrayAdapter<>(columns));
+            sorted.ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                sorted.copyRow(new Row(order[i]), order[i], sorted.addRow());
+            }
+
+            for (int column = 0; column < columns.length; column++) {
+                data[column] = sorted.data[column];
+                nulls[column] = sorted.nulls[column];
+            }
+
+            capacity = sorted.capacity;
+            modificationCount++;
+        }
+
+        comparator = newComparator;
+
+        listListeners.comparatorChanged(this, previousComparator);
+    }
+
+    @Override
+    public Iterator<Row> iterator() {
+        return new Iterator<Row>() {
+            private int index = 0;
+            private int iteratorModificationCount = modificationCount;
+
+            @Override
+            public boolean hasNext() {
+                if (iteratorModificationCount != modificationCount) {
+                    throw new ConcurrentModificationException();
+                }
+
+                return (index < length);
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return new Row(index++);
+            }
+        };
+    }
+
+    @Override
+    public ListenerList<ListListener<Row>> getListListeners() {
+        return listListeners;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.InvalidMarkException;
+
+import org.apache.pivot.util.Utils;
+
+/**
+ * Reader that reads the characters of a buffer (such as the text returned by
+ * {@link FileChannels#decode}), without copying or locking.
+ */
+public class CharBufferReader extends Reader {
+    private CharBuffer buffer;
+
+    public CharBufferReader(final CharBuffer buffer) {
+        Utils.checkNull(buffer, "buffer");
+
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return buffer.hasRemaining() ? buffer.get() : -1;
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(cbuf, off, n);
+
+        return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        if (n < 0) {
+            throw new IllegalArgumentException("Skip count must not be negative.");
+        }
+
+        int count = (int) Math.min(n, buffer.remaining());
+        buffer.position(buffer.position() + count);
+
+        return count;
+    }
+
+    @Override
+    public boolean ready() {
+        return true;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(final int readAheadLimit) {
+        buffer.mark();
+    }
+
+    @Override
+    public void reset() throws IOException {
+        try {
+            buffer.reset();
+        } catch (InvalidMarkException exception) {
+            throw new IOException("The reader has not been marked.", exception);
+        }
+    }
+
+    @Override
+    public void close() {
+        // No-op
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+import org.apache.pivot.util.Utils;
+
+/**
+ * Reads the contents of files through their channels, for the
+ * {@link org.apache.pivot.serialization.FileChannelSerializer} implementations.
+ * Files of {@link #MAPPING_THRESHOLD} bytes or more are memory-mapped, and
+ * copied out of the mapping in bulk; smaller ones are read directly, since
+ * mapping a file has a cost of its own. Text can also be decoded a chunk at
+ * a time through a {@link #newReader reader}, which works for files of any
+ * size.
+ */
+public final class FileChannels {
+    /**
+     * The size from which files are memory-mapped.
+     */
+    public static final int MAPPING_THRESHOLD = 1024 * 1024;
+
+    /**
+     * The number of bytes copied (or decoded) at a time, and between two
+     * progress reports.
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Decodes a file a chunk at a time, as it is read.
+     */
+    private static final class DecodingReader extends Reader {
+        private final FileChannel fileChannel;
+        private final CharsetDecoder decoder;
+        private final LongConsumer progress;
+
+        private final ByteBuffer bytes = ByteBuffer.allocate(CHUNK_SIZE);
+        private final CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
+
+        private long total = 0;
+        private boolean endOfInput = false;
+        private boolean decoded = false;
+        private boolean flushed = false;
+
+        DecodingReader(final FileChannel fileChannel, final CharsetDecoder decoder,
+            final LongConsumer progress) {
+            this.fileChannel = fileChannel;
+            this.decoder = decoder;
+            this.progress = progress;
+
+            chars.flip();
+        }
+
+        /**
+         * Decodes the next characters into the (empty) character buffer.
+         *
+         * @return {@code false} at the end of the file.
+         */
+        private boolean fill() throws IOException {
+            chars.clear();
+
+            while (chars.position() == 0 && !flushed) {
+                if (!endOfInput) {
+                    int count = fileChannel.read(bytes);
+                    if (count == -1) {
+                        endOfInput = true;
+                    } else {
+                        total += count;
+                    }
+
+                    report(progress, total);
+                }
+
+                if (!decoded) {
+                    bytes.flip();
+                    CoderResult result = decoder.decode(bytes, chars, endOfInput);
+                    bytes.compact();
+
+                    decoded = (endOfInput && result.isUnderflow());
+                }
+
+                if (decoded) {
+                    flushed = decoder.flush(chars).isUnderflow();
+                }
+            }
+
+            chars.flip();
+
+            return chars.hasRemaining();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!chars.hasRemaining() && !fill()) {
+                return -1;
+            }
+
+            return chars.get();
+        }
+
+        @Override
+        public int read(final char[] cbuf, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (!chars.hasRemaining() && !fill()) {
+                return -1;
+            }
+
+            int count = Math.min(len, chars.remaining());
+            chars.get(cbuf, off, count);
+
+            return count;
+        }
+
+        @Override
+        public boolean ready() {
+            return chars.hasRemaining();
+        }
+
+        /**
+         * Does nothing: the channel belongs to the caller.
+         */
+        @Override
+        public void close() {
+            // No-op
+        }
+    }
+
+    private FileChannels() {
+    }
+
+    /**
+     * Reads the rest of a file into a byte array.
+     *
+     * @param fileChannel The channel of the file, positioned where reading
+     * should start.
+     * @param progress If not {@code null}, called with the number of bytes
+     * read so far after each chunk.
+     * @return The bytes from the current position to the end of the file.
+     * @throws IOException if the file can't be read, or is too large for an
+     * array.
+     */
+    public static byte[] readBytes(final FileChannel fileChannel, final LongConsumer progress)
+        throws IOException {
+        Utils.checkNull(fileChannel, "fileChannel");
+
+        int length = getRemaining(fileChannel);
+        byte[] bytes = new byte[length];
+
+        int offset = 0;
+        if (length >= MAPPING_THRESHOLD) {
+            MappedByteBuffer mappedBuffer = map(fileChannel, length);
+
+            while (offset < length) {
+                int count = Math.min(CHUNK_SIZE, length - offset);
+                mappedBuffer.get(bytes, offset, count);
+                offset += count;
+
+                report(progress, offset);
+            }
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+            while (offset < length) {
+                buffer.limit(Math.min(offset + CHUNK_SIZE, length));
+
+                int count = fileChannel.read(buffer);
+                if (count == -1) {
+                    // The file was truncated while being read
+                    return Arrays.copyOf(bytes, offset);
+                }
+
+                offset += count;
+
+                report(progress, offset);
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Returns a reader of the rest of a text file, which decodes it a chunk
+     * at a time as it is read, so only a chunk of the file is held in memory
+     * at once. Malformed input is replaced, as {@link java.io.InputStreamReader}
+     * does. Closing the reader doesn't close the channel.
+     *
+     * @param fileChannel The channel of the file, positioned where reading
+     * should start.
+     * @param charset The character set of the file.
+     * @param progress If not {@code null}, called with the number of bytes
+     * read so far after each chunk.
+     * @return A reader of the text from the current position to the end of
+     * the file.
+     */
+    public static Reader newReader(final FileChannel fileChannel, final Charset charset,
+        final LongConsumer progress) {
+        Utils.checkNull(fileChannel, "fileChannel");
+        Utils.checkNull(charset, "charset");
+
+        return new DecodingReader(fileChannel, newDecoder(charset), progress);
+    }
+
+    /**
+     * Reads and decodes the rest of a text file. The bytes are decoded a
+     * chunk at a time from a heap buffer (the fast path of the JDK's UTF-8
+     * and ISO-8859-1 decoders), into a single character buffer; malformed
+     * input is replaced, as {@link java.io.InputStreamReader} does.
+     *
+     * @param fileChannel The channel of the file, positioned where reading
+     * should start.
+     * @param charset The character set of the file.
+     * @param progress If not {@code null}, called with the number of bytes
+     * read so far after each chunk.
+     * @return The text from the current position to the end of the file,
+     * ready to be read (see {@link CharBufferReader}).
+     * @throws IOException if the file can't be read, or is too large for a
+     * buffer.
+     */
+    public static CharBuffer decode(final FileChannel fileChannel, final Charset charset,
+        final LongConsumer progress) throws IOException {
+        Utils.checkNull(fileChannel, "fileChannel");
+        Utils.checkNull(charset, "charset");
+
+        CharsetDecoder decoder = newDecoder(charset);
+
+        int length = getRemaining(fileChannel);
+
+        // At most one character per byte for UTF-8 and ISO-8859-1
+        long capacity = (long) Math.ceil(length * (double) decoder.maxCharsPerByte());
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("File is too large to be decoded.");
+        }
+
+        CharBuffer chars = CharBuffer.allocate((int) capacity);
+
+        MappedByteBuffer mappedBuffer = (length >= MAPPING_THRESHOLD) ? map(fileChannel, length) : null;
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+
+        long total = 0;
+        boolean endOfInput = false;
+
+        while (!endOfInput) {
+            int count;
+            if (mappedBuffer == null) {
+                count = fileChannel.read(buffer);
+                endOfInput = (count == -1);
+            } else {
+                count = Math.min(buffer.remaining(), mappedBuffer.remaining());
+
+                int limit = mappedBuffer.limit();
+                mappedBuffer.limit(mappedBuffer.position() + count);
+                buffer.put(mappedBuffer);
+                mappedBuffer.limit(limit);
+
+                endOfInput = !mappedBuffer.hasRemaining();
+            }
+
+            if (count > 0) {
+                total += count;
+            }
+
+            buffer.flip();
+            chars = decode(decoder, buffer, chars, endOfInput);
+            buffer.compact();
+
+            report(progress, total);
+        }
+
+        while (decoder.flush(chars).isOverflow()) {
+            chars = grow(chars);
+        }
+
+        chars.flip();
+
+        return chars;
+    }
+
+    private static CharBuffer decode(final CharsetDecoder decoder, final ByteBuffer buffer,
+        final CharBuffer chars, final boolean endOfInput) {
+        CharBuffer charsLocal = chars;
+
+        CoderResult result = decoder.decode(buffer, charsLocal, endOfInput);
+        while (result.isOverflow()) {
+            charsLocal = grow(charsLocal);
+            result = decoder.decode(buffer, charsLocal, endOfInput);
+        }
+
+        return charsLocal;
+    }
+
+    private static CharsetDecoder newDecoder(final Charset charset) {
+        return charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private static CharBuffer grow(final CharBuffer chars) {
+        CharBuffer grownChars = CharBuffer.allocate(Math.max(chars.capacity() * 2, 16));
+        chars.flip();
+        grownChars.put(chars);
+
+        return grownChars;
+    }
+
+    private static int getRemaining(final FileChannel fileChannel) throws IOException {
+        long remaining = Math.max(fileChannel.size() - fileChannel.position(), 0);
+        if (remaining > Integer.MAX_VALUE) {
+            throw new IOException("File is too large to be read at once.");
+        }
+
+        return (int) remaining;
+    }
+
+    private static MappedByteBuffer map(final FileChannel fileChannel, final int length) throws IOException {
+        long position = fileChannel.position();
+
+        MappedByteBuffer mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        fileChannel.position(position + length);
+
+        return mappedBuffer;
+    }
+
+    private static void report(final LongConsumer progress, final long count) {
+        if (progress != null) {
+            progress.accept(count);
+        }
+    }
+}
@@ -16,29 +16,35 @@
  */
 package org.apache.pivot.io;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
 
 import javax.activation.MimetypesFileTypeMap;
 
+import org.apache.pivot.serialization.FileChannelSerializer;
 import org.apache.pivot.serialization.SerializationException;
 import org.apache.pivot.serialization.Serializer;
 import org.apache.pivot.util.Constants;
+import org.apache.pivot.util.Utils;
 
 /**
  * Implementation of the {@link Serializer} interface that reads and writes
  * {@link java.io.File} objects.
  */
-public class FileSerializer implements Serializer<File> {
+public class FileSerializer implements FileChannelSerializer<File> {
     private File tempFileDirectory;
 
     private static final MimetypesFileTypeMap MIME_TYPES_FILE_MAP = new MimetypesFileTypeMap();
 
+    // The number of bytes transferred between two progress reports
+    private static final long TRANSFER_SIZE = 1024 * 1024;
+
     /**
      * Creates a new file serializer that will store temporary files in the
      * default temporary file directory.
@@ -64,17 +70,55 @@ public class FileSerializer implements Serializer<File> {
 
     /**
      * Reads a file from an input stream. The returned file is a temporary file
-     * and must be deleted by the caller.
+     * and must be deleted by the caller; it is deleted here if the read fails.
      */
     @Override
     public File readObject(final InputStream inputStream) throws IOException, SerializationException {
         File file = File.createTempFile(getClass().getName(), null, tempFileDirectory);
 
-        try (OutputStream outputStream =
-                 new BufferedOutputStream(Files.newOutputStream(file.toPath()), Constants.BUFFER_SIZE)) {
-            for (int data = inputStream.read(); data != -1; data = inputStream.read()) {
-                outputStream.write((byte) data);
+        try (OutputStream outputStream = Files.newOutputStream(file.toPath())) {
+            byte[] buffer = new byte[Constants.BUFFER_SIZE];
+            for (int count = inputStream.read(buffer); count != -1; count = inputStream.read(buffer)) {
+                outputStream.write(buffer, 0, count);
+            }
+        } catch (IOException | RuntimeException exception) {
+            file.delete();
+            throw exception;
+        }
+
+        return file;
+    }
+
+    /**
+     * Reads a file from another file, which is copied channel to channel (by
+     * the operating system, where it can). The returned file is a temporary
+     * file and must be deleted by the caller; it is deleted here if the copy
+     * fails or is aborted by the progress callback.
+     */
+    @Override
+    public File readObject(final FileChannel fileChannel, final LongConsumer progress) throws IOException,
+        SerializationException {
+        Utils.checkNull(fileChannel, "fileChannel");
+
+        File file = File.createTempFile(getClass().getName(), null, tempFileDirectory);
+
+        try (FileChannel outputChannel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            long position = fileChannel.position();
+            long total = 0;
+            long count;
+
+            while ((count = fileChannel.transferTo(position + total, TRANSFER_SIZE, outputChannel)) > 0) {
+                total += count;
+
+                if (progress != null) {
+                    progress.accept(total);
+                }
             }
+
+            fileChannel.position(position + total);
+        } catch (IOException | RuntimeException exception) {
+            file.delete();
+            throw exception;
         }
 
         return file;
@@ -86,12 +130,7 @@ public class FileSerializer implements Serializer<File> {
     @Override
     public void writeObject(final File file, final OutputStream outputStream) throws IOException,
             SerializationException {
-        try (InputStream inputStream =
-                new BufferedInputStream(Files.newInputStream(file.toPath()), Constants.BUFFER_SIZE)) {
-            for (int data = inputStream.read(); data != -1; data = inputStream.read()) {
-                outputStream.write((byte) data);
-            }
-        }
+        Files.copy(file.toPath(), outputStream);
     }
 
     @Override
@@ -19,9 +19,17 @@ package org.apache.pivot.io;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.pivot.serialization.FileChannelSerializer;
+import org.apache.pivot.serialization.SerializationException;
+import org.apache.pivot.serialization.Serializer;
+import org.apache.pivot.util.Utils;
 import org.apache.pivot.util.concurrent.AbortException;
 import org.apache.pivot.util.concurrent.Task;
 
@@ -206,4 +214,43 @@ public abstract class IOTask<V> extends Task<V> {
     public IOTask(ExecutorService executorService) {
         super(executorService);
     }
+
+    /**
+     * Reads an object from a file, counting the bytes read in
+     * {@link #bytesReceived} and stopping if the task is aborted. Serializers
+     * that can read a file directly ({@link FileChannelSerializer}s) do so;
+     * the others read it through a {@link MonitoredInputStream}.
+     *
+     * @param <T> The type of object read.
+     * @param serializer The serializer to read the file with.
+     * @param path The file to read.
+     * @return The object read.
+     * @throws IOException if the file can't be read.
+     * @throws SerializationException if its contents are invalid.
+     * @throws AbortException if the task was aborted.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T readObject(final Serializer<T> serializer, final Path path) throws IOException,
+        SerializationException {
+        Utils.checkNull(serializer, "serializer");
+        Utils.checkNull(path, "path");
+
+        if (serializer instanceof FileChannelSerializer<?>) {
+            long start = bytesReceived.get();
+
+            try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return ((FileChannelSerializer<T>) serializer).readObject(fileChannel, count -> {
+                    if (abort) {
+                        throw new AbortException();
+                    }
+
+                    bytesReceived.set(start + count);
+                });
+            }
+        }
+
+        try (InputStream inputStream = new MonitoredInputStream(Files.newInputStream(path))) {
+            return serializer.readObject(inputStream);
+        }
+    }
 }
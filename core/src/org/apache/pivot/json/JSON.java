@@ -47,10 +47,10 @@ public final class JSON {
      * @param path The path to the value as a JavaScript path.
      * @return The value at the given path.
      * @see #get(Object, Sequence)
+     * @see JSONPath
      */
-    @SuppressWarnings("unchecked")
     public static <T> T get(Object root, String path) {
-        return (T) get(root, parse(path));
+        return JSONPath.compile(path).get(root);
     }
 
     /**
@@ -133,40 +133,10 @@ public final class JSON {
      * @param value The new value to set at the given path.
      * @return The value previously associated with the path.
      */
-    @SuppressWarnings("unchecked")
     public static <T> T put(Object root, String path, T value) {
         Utils.checkNull(root, "root");
 
-        Sequence<String> keys = parse(path);
-        if (keys.getLength() == 0) {
-            throw new IllegalArgumentException("Path is empty.");
-        }
-
-        String key = keys.remove(keys.getLength() - 1, 1).get(0);
-        Object parent = get(root, keys);
-        if (parent == null) {
-            throw new IllegalArgumentException("Invalid path.");
-        }
-
-        Map<String, T> adapter = (Map<String, T>) (parent instanceof java.util.Map
-            ? new MapAdapter<>((java.util.Map<String, T>) parent)
-            : (parent instanceof Map ? ((Map<String, T>) parent)
-                : new BeanAdapter(parent)));
-
-        Object previousValue;
-        if (adapter.containsKey(key)) {
-            previousValue = adapter.put(key, value);
-        } else if (parent instanceof Sequence<?>) {
-            Sequence<Object> sequence = (Sequence<Object>) parent;
-            previousValue = sequence.update(Integer.parseInt(key), value);
-        } else if (parent instanceof Dictionary<?, ?>) {
-            Dictionary<String, Object> dictionary = (Dictionary<String, Object>) parent;
-            previousValue = dictionary.put(key, value);
-        } else {
-            throw new IllegalArgumentException("Property \"" + key + "\" not found.");
-        }
-
-        return (T) previousValue;
+        return JSONPath.compile(path).put(root, value);
     }
 
     /**
@@ -214,42 +184,10 @@ public final class JSON {
      * @param path The path to test (from the root).
      * @return {@code true} if the path exists; {@code false}, otherwise.
      */
-    @SuppressWarnings("unchecked")
     public static <T> boolean containsKey(Object root, String path) {
         Utils.checkNull(root, "root");
 
-        Sequence<String> keys = parse(path);
-        if (keys.getLength() == 0) {
-            throw new IllegalArgumentException("Path is empty.");
-        }
-
-        String key = keys.remove(keys.getLength() - 1, 1).get(0);
-        Object parent = get(root, keys);
-
-        boolean containsKey;
-        if (parent == null) {
-            containsKey = false;
-        } else {
-            Map<String, T> adapter = (Map<String, T>) (parent instanceof java.util.Map
-                ? new MapAdapter<>((java.util.Map<String, T>) parent)
-                : (parent instanceof Map ? ((Map<String, T>) parent)
-                    : new BeanAdapter(parent)));
-            containsKey = adapter.containsKey(key);
-
-            if (!containsKey) {
-                if (parent instanceof Sequence<?>) {
-                    Sequence<Object> sequence = (Sequence<Object>) parent;
-                    containsKey = (sequence.getLength() > Integer.parseInt(key));
-                } else if (parent instanceof Dictionary<?, ?>) {
-                    Dictionary<String, Object> dictionary = (Dictionary<String, Object>) parent;
-                    containsKey = dictionary.containsKey(key);
-                } else {
-                    throw new IllegalArgumentException("Property \"" + key + "\" not found.");
-                }
-            }
-        }
-
-        return containsKey;
+        return JSONPath.compile(path).containsKey(root);
     }
 
     /**
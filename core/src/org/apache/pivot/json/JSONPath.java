@@ -0,0 +1,493 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.json;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.pivot.beans.BeanAdapter;
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.Dictionary;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.collections.Sequence;
+import org.apache.pivot.util.Utils;
+
+/**
+ * A JSON path that has been parsed once into its keys, and whose keys are
+ * resolved into accessors the first time they are applied to a given class.
+ * <p> The semantics are those of {@link JSON#get(Object, String)},
+ * {@link JSON#put(Object, String, Object)} and
+ * {@link JSON#containsKey(Object, String)}, which use compiled paths
+ * internally, but repeated evaluation of the same path (as happens when a
+ * form is loaded from or stored to a bean) does not re-parse the path or
+ * repeat the reflective method lookups.
+ */
+public final class JSONPath {
+    /**
+     * Resolves a single key against objects of one particular class.
+     */
+    private abstract static class Accessor {
+        /**
+         * @return Whether the key exists in the given object.
+         */
+        public abstract boolean containsKey(Object object);
+
+        /**
+         * @return The value of the key in the given object.
+         */
+        public abstract Object get(Object object);
+
+        /**
+         * Sets the value of the key in the given object.
+         *
+         * @return The previous value, if known.
+         */
+        public abstract Object put(Object object, Object value);
+    }
+
+    /**
+     * Accessor for {@link java.util.Map} and {@link Map} instances, whose keys
+     * can only be known by asking the instance itself.
+     */
+    private static final class MapAccessor extends Accessor {
+        private final Segment segment;
+
+        MapAccessor(final Segment segment) {
+            this.segment = segment;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean containsKey(final Object object) {
+            if (object instanceof java.util.Map<?, ?>) {
+                return ((java.util.Map<String, Object>) object).containsKey(segment.key);
+            }
+
+            return ((Map<String, Object>) object).containsKey(segment.key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object get(final Object object) {
+            if (object instanceof java.util.Map<?, ?>) {
+                return ((java.util.Map<String, Object>) object).get(segment.key);
+            }
+
+            return ((Map<String, Object>) object).get(segment.key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object put(final Object object, final Object value) {
+            if (object instanceof java.util.Map<?, ?>) {
+                return ((java.util.Map<String, Object>) object).put(segment.key, value);
+            }
+
+            return ((Map<String, Object>) object).put(segment.key, value);
+        }
+    }
+
+    /**
+     * Accessor for a bean property backed by a getter method or a public field.
+     */
+    private static final class PropertyAccessor extends Accessor {
+        private final Class<?> beanClass;
+        private final String key;
+        private final Method getterMethod;
+        private final Field field;
+
+        /**
+         * Setter methods resolved so far, keyed by the type of value being set.
+         */
+        private final ConcurrentHashMap<Class<?>, Object> setterMethods = new ConcurrentHashMap<>();
+
+        PropertyAccessor(final Class<?> beanClass, final String key, final Method getterMethod,
+            final Field field) {
+            this.beanClass = beanClass;
+            this.key = key;
+            this.getterMethod = getterMethod;
+            this.field = field;
+        }
+
+        @Override
+        public boolean containsKey(final Object object) {
+            return true;
+        }
+
+        @Override
+        public Object get(final Object object) {
+            try {
+                return (getterMethod == null) ? field.get(object) : getterMethod.invoke(object);
+            } catch (IllegalAccessException exception) {
+                throw new RuntimeException(String.format("Unable to access property \"%s\" for type %s.",
+                    key, beanClass.getName()), exception);
+            } catch (InvocationTargetException exception) {
+                throw new RuntimeException(String.format("Error getting property \"%s\" for type %s.",
+                    key, beanClass.getName()), exception.getCause());
+            }
+        }
+
+        @Override
+        public Object put(final Object object, final Object value) {
+            if (value != null) {
+                Class<?> valueType = value.getClass();
+                Object setterMethod = setterMethods.get(valueType);
+                if (setterMethod == null) {
+                    setterMethod = BeanAdapter.getSetterMethod(beanClass, key, valueType);
+                    if (setterMethod == null) {
+                        setterMethod = NO_SETTER;
+                    }
+
+                    setterMethods.put(valueType, setterMethod);
+                }
+
+                if (setterMethod != NO_SETTER) {
+                    try {
+                        ((Method) setterMethod).invoke(object, value);
+                    } catch (IllegalAccessException exception) {
+                        throw new RuntimeException(String.format(
+                            "Unable to access property \"%s\" for type %s.", key,
+                            beanClass.getName()), exception);
+                    } catch (InvocationTargetException exception) {
+                        throw new RuntimeException(String.format(
+                            "Error setting property \"%s\" for type %s to value \"%s\"", key,
+                            beanClass.getName(), "" + value), exception.getCause());
+                    }
+
+                    return null;
+                }
+            }
+
+            // Null values and values that need coercion go the long way around
+            return new BeanAdapter(object).put(key, value);
+        }
+    }
+
+    /**
+     * Accessor for an index into a {@link Sequence}.
+     */
+    private static final class SequenceAccessor extends Accessor {
+        private final Segment segment;
+
+        SequenceAccessor(final Segment segment) {
+            this.segment = segment;
+        }
+
+        @Override
+        public boolean containsKey(final Object object) {
+            return (((Sequence<?>) object).getLength() > segment.getIndex());
+        }
+
+        @Override
+        public Object get(final Object object) {
+            return ((Sequence<?>) object).get(segment.getIndex());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object put(final Object object, final Object value) {
+            return ((Sequence<Object>) object).update(segment.getIndex(), value);
+        }
+    }
+
+    /**
+     * Accessor for a key in a {@link Dictionary} that is not otherwise a bean property.
+     */
+    private static final class DictionaryAccessor extends Accessor {
+        private final Segment segment;
+
+        DictionaryAccessor(final Segment segment) {
+            this.segment = segment;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean containsKey(final Object object) {
+            return ((Dictionary<String, Object>) object).containsKey(segment.key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object get(final Object object) {
+            return ((Dictionary<String, Object>) object).get(segment.key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object put(final Object object, final Object value) {
+            return ((Dictionary<String, Object>) object).put(segment.key, value);
+        }
+    }
+
+    /**
+     * One key of the path, along with the accessors compiled for it so far.
+     */
+    private static final class Segment {
+        private final String key;
+        private int index = -1;
+
+        private final ConcurrentHashMap<Class<?>, Accessor> accessors = new ConcurrentHashMap<>();
+
+        private final MapAccessor mapAccessor;
+        private final SequenceAccessor sequenceAccessor;
+        private final DictionaryAccessor dictionaryAccessor;
+
+        Segment(final String key) {
+            this.key = key;
+
+            mapAccessor = new MapAccessor(this);
+            sequenceAccessor = new SequenceAccessor(this);
+            dictionaryAccessor = new DictionaryAccessor(this);
+        }
+
+        int getIndex() {
+            if (index == -1) {
+                index = Integer.parseInt(key);
+            }
+
+            return index;
+        }
+
+        /**
+         * Returns the accessor that is tried first for the given object: the map
+         * itself for maps, otherwise the bean property of that name (or
+         * {@code null} if there is no such property).
+         */
+        Accessor getPrimaryAccessor(final Object object) {
+            if (object instanceof java.util.Map<?, ?> || object instanceof Map<?, ?>) {
+                return mapAccessor;
+            }
+
+            Class<?> type = object.getClass();
+            Accessor accessor = accessors.get(type);
+
+            if (accessor == null) {
+                Method getterMethod = BeanAdapter.getGetterMethod(type, key);
+                Field field = (getterMethod == null) ? BeanAdapter.getField(type, key) : null;
+
+                accessor = (getterMethod == null && field == null) ? NO_ACCESSOR
+                    : new PropertyAccessor(type, key, getterMethod, field);
+                accessors.put(type, accessor);
+            }
+
+            return (accessor == NO_ACCESSOR) ? null : accessor;
+        }
+
+        /**
+         * Returns the accessor to use when the primary accessor does not
+         * contain the key.
+         */
+        Accessor getSecondaryAccessor(final Object object) {
+            if (object instanceof Sequence<?>) {
+                return sequenceAccessor;
+            }
+
+            if (object instanceof Dictionary<?, ?>) {
+                return dictionaryAccessor;
+            }
+
+            throw new IllegalArgumentException("Property \"" + key + "\" not found.");
+        }
+
+        Object get(final Object object) {
+            Accessor accessor = getPrimaryAccessor(object);
+            if (accessor == null || !accessor.containsKey(object)) {
+                accessor = getSecondaryAccessor(object);
+            }
+
+            return accessor.get(object);
+        }
+    }
+
+    private final String path;
+    private final Segment[] segments;
+
+    /**
+     * Placeholder cached for classes that have no bean property with a given name.
+     */
+    private static final Accessor NO_ACCESSOR = new DictionaryAccessor(null);
+
+    /**
+     * Placeholder cached for value types that have no matching setter method.
+     */
+    private static final Object NO_SETTER = new Object();
+
+    /**
+     * Compiled paths, keyed by path string.
+     */
+    private static final ConcurrentHashMap<String, JSONPath> COMPILED_PATHS = new ConcurrentHashMap<>();
+
+    /**
+     * The number of paths that will be cached before the cache is reset.
+     */
+    private static final int MAXIMUM_CACHED_PATHS = 1024;
+
+    private JSONPath(final String path, final Sequence<String> keys) {
+        this.path = path;
+
+        int n = keys.getLength();
+        segments = new Segment[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment(keys.get(i));
+        }
+    }
+
+    /**
+     * Returns the compiled form of a path, parsing it only if it has not been
+     * seen before.
+     *
+     * @param path The path to compile, as a JavaScript path.
+     * @return The compiled path.
+     * @throws IllegalArgumentException if the path cannot be parsed.
+     */
+    public static JSONPath compile(final String path) {
+        Utils.checkNull(path, "path");
+
+        JSONPath jsonPath = COMPILED_PATHS.get(path);
+
+        if (jsonPath == null) {
+            jsonPath = new JSONPath(path, JSON.parse(path));
+
+            // Bound the cache in case paths are being generated on the fly
+            if (COMPILED_PATHS.size() >= MAXIMUM_CACHED_PATHS) {
+                COMPILED_PATHS.clear();
+            }
+
+            JSONPath existingPath = COMPILED_PATHS.putIfAbsent(path, jsonPath);
+            if (existingPath != null) {
+                jsonPath = existingPath;
+            }
+        }
+
+        return jsonPath;
+    }
+
+    /**
+     * @return The path string this path was compiled from.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return The keys of this path.
+     */
+    public Sequence<String> getKeys() {
+        ArrayList<String> keys = new ArrayList<>(segments.length);
+        for (Segment segment : segments) {
+            keys.add(segment.key);
+        }
+
+        return keys;
+    }
+
+    /**
+     * Walks all but the last {@code count} keys of the path.
+     */
+    private Object getParent(final Object root, final int count) {
+        Object value = root;
+
+        for (int i = 0, n = segments.length - count; i < n && value != null; i++) {
+            value = segments[i].get(value);
+        }
+
+        return value;
+    }
+
+    private Segment getLastSegment() {
+        if (segments.length == 0) {
+            throw new IllegalArgumentException("Path is empty.");
+        }
+
+        return segments[segments.length - 1];
+    }
+
+    /**
+     * Returns the value at this path.
+     *
+     * @param <T> The type of value to expect.
+     * @param root The root object.
+     * @return The value at this path.
+     * @see JSON#get(Object, String)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final Object root) {
+        return (T) getParent(root, 0);
+    }
+
+    /**
+     * Sets the value at this path.
+     *
+     * @param <T> The type of value we're dealing with.
+     * @param root The root object.
+     * @param value The new value to set at this path.
+     * @return The value previously associated with the path.
+     * @see JSON#put(Object, String, Object)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T put(final Object root, final T value) {
+        Utils.checkNull(root, "root");
+
+        Segment segment = getLastSegment();
+        Object parent = getParent(root, 1);
+        if (parent == null) {
+            throw new IllegalArgumentException("Invalid path.");
+        }
+
+        Accessor accessor = segment.getPrimaryAccessor(parent);
+        if (accessor == null || !accessor.containsKey(parent)) {
+            accessor = segment.getSecondaryAccessor(parent);
+        }
+
+        return (T) accessor.put(parent, value);
+    }
+
+    /**
+     * Tests the existence of this path in a given object.
+     *
+     * @param root The root object.
+     * @return {@code true} if the path exists; {@code false}, otherwise.
+     * @see JSON#containsKey(Object, String)
+     */
+    public boolean containsKey(final Object root) {
+        Utils.checkNull(root, "root");
+
+        Segment segment = getLastSegment();
+        Object parent = getParent(root, 1);
+
+        boolean containsKey;
+        if (parent == null) {
+            containsKey = false;
+        } else {
+            Accessor accessor = segment.getPrimaryAccessor(parent);
+            containsKey = (accessor != null && accessor.containsKey(parent));
+
+            if (!containsKey) {
+                containsKey = segment.getSecondaryAccessor(parent).containsKey(parent);
+            }
+        }
+
+        return containsKey;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
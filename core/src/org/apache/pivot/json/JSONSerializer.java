@@ -32,8 +32,11 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
 
 import org.apache.pivot.beans.BeanAdapter;
 import org.apache.pivot.collections.ArrayList;
@@ -42,9 +45,11 @@ import org.apache.pivot.collections.HashMap;
 import org.apache.pivot.collections.List;
 import org.apache.pivot.collections.Map;
 import org.apache.pivot.collections.Sequence;
-import org.apache.pivot.collections.adapter.MapAdapter;
 import org.apache.pivot.io.EchoReader;
 import org.apache.pivot.io.EchoWriter;
+import org.apache.pivot.io.FileChannels;
+import org.apache.pivot.serialization.ChunkedFileParser;
+import org.apache.pivot.serialization.FileChannelSerializer;
 import org.apache.pivot.serialization.MacroReader;
 import org.apache.pivot.serialization.SerializationException;
 import org.apache.pivot.serialization.Serializer;
@@ -56,7 +61,7 @@ import org.apache.pivot.util.Utils;
  * Implementation of the {@link Serializer} interface that reads data from and
  * writes data to a JavaScript Object Notation (JSON) file.
  */
-public class JSONSerializer implements Serializer<Object> {
+public class JSONSerializer implements FileChannelSerializer<Object> {
     private Charset charset;
     private Type type;
 
@@ -194,6 +199,26 @@ public class JSONSerializer implements Serializer<Object> {
         return readObject(reader);
     }
 
+    /**
+     * Reads data from a JSON file, decoded a chunk at a time.
+     *
+     * @param fileChannel The file from which data will be read.
+     * @param progress Called with the number of bytes read so far, if not {@code null}.
+     * @see #readObject(Reader)
+     */
+    @Override
+    public Object readObject(final FileChannel fileChannel, final LongConsumer progress) throws IOException,
+        SerializationException {
+        Utils.checkNull(fileChannel, "fileChannel");
+
+        Reader reader = FileChannels.newReader(fileChannel, charset, progress);
+        if (verbose) {
+            reader = new EchoReader(reader);
+        }
+
+        return readObject(reader);
+    }
+
     /**
      * Reads data from a JSON stream.
      * <p> Processes macros at this level using {@link MacroReader}.
@@ -243,6 +268,92 @@ public class JSONSerializer implements Serializer<Object> {
         return object;
     }
 
+    /**
+     * Reads the values of a newline-delimited JSON (JSON lines) stream, which
+     * holds one value per line. Each value is read as {@link #readObject(Reader)}
+     * reads the root value; blank lines and comments between values are
+     * skipped.
+     *
+     * @param reader The reader from which data will be read.
+     * @return The values read from the stream, in order.
+     * @throws IOException for any I/O related errors while reading.
+     * @throws SerializationException for any formatting errors in the data.
+     */
+    public List<Object> readLines(final Reader reader) throws IOException, SerializationException {
+        Utils.checkNull(reader, "reader");
+
+        LineNumberReader lineNumberReader = new LineNumberReader(reader);
+        Reader realReader = lineNumberReader;
+        if (macros) {
+            realReader = new MacroReader(realReader);
+        }
+
+        ArrayList<Object> values = new ArrayList<>();
+
+        // Move to the first character
+        c = realReader.read();
+
+        // Ignore BOM (if present)
+        if (c == Constants.BYTE_ORDER_MARK) {
+            c = realReader.read();
+        }
+
+        try {
+            skipWhitespaceAndComments(realReader);
+
+            while (c != -1) {
+                values.add(readValue(realReader, type, type.getTypeName()));
+                skipWhitespaceAndComments(realReader);
+            }
+        } catch (SerializationException exception) {
+            System.err.println("An error occurred while processing input at line number "
+                + (lineNumberReader.getLineNumber() + 1));
+
+            throw exception;
+        }
+
+        return values;
+    }
+
+    /**
+     * Reads the values of a newline-delimited JSON file, parsing parts of the
+     * file in parallel (see {@link ChunkedFileParser}). The result is the same
+     * as that of {@link #readLines(Reader)}, but the listeners aren't notified,
+     * the input isn't echoed even if the serializer is verbose, and macros
+     * (which would only be defined in the part of the file where they appear)
+     * are not supported.
+     *
+     * @param fileChannel The file from which data will be read, from its
+     * current position.
+     * @param pool The pool on which to parse the file.
+     * @return The values read from the file, in order.
+     * @throws IOException for any I/O related errors while reading.
+     * @throws SerializationException for any formatting errors in the data.
+     */
+    public List<Object> readLines(final FileChannel fileChannel, final ForkJoinPool pool) throws IOException,
+        SerializationException {
+        Utils.checkNull(fileChannel, "fileChannel");
+        Utils.checkNull(pool, "pool");
+
+        // JSON strings can't hold line breaks, so any line feed ends a value
+        List<List<Object>> chunks = ChunkedFileParser.parse(fileChannel, charset, false, pool,
+            reader -> new JSONSerializer(charset, type).readLines(reader));
+
+        int count = 0;
+        for (List<Object> chunk : chunks) {
+            count += chunk.getLength();
+        }
+
+        ArrayList<Object> values = new ArrayList<>(count);
+        for (List<Object> chunk : chunks) {
+            for (Object value : chunk) {
+                values.add(value);
+            }
+        }
+
+        return values;
+    }
+
     private Object readValue(final Reader reader, final Type objTypeValue, final String key)
         throws IOException, SerializationException {
         Object object = null;
@@ -813,13 +924,25 @@ public class JSONSerializer implements Serializer<Object> {
         throws IOException, SerializationException {
         Utils.checkNull(outputStream, "outputStream");
 
-        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, charset),
-            Constants.BUFFER_SIZE);
-        if (verbose) {
-            writer = new EchoWriter(writer);
-        }
+        if (verbose || !JSONWriter.isEncodable(charset)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, charset),
+                Constants.BUFFER_SIZE);
+            if (verbose) {
+                writer = new EchoWriter(writer);
+            }
+
+            writeObject(object, writer);
+        } else {
+            // Encode the text straight into the stream, a buffer at a time
+            JSONWriter jsonWriter = new JSONWriter(outputStream, charset, alwaysDelimitMapKeys);
 
-        writeObject(object, writer);
+            try {
+                jsonWriter.writeValue(object);
+                jsonWriter.flush();
+            } finally {
+                jsonWriter.release();
+            }
+        }
     }
 
     /**
@@ -839,149 +962,18 @@ public class JSONSerializer implements Serializer<Object> {
      * @throws IOException for any errors during the writing process.
      * @throws SerializationException for any formatting errors in the data.
      */
-    @SuppressWarnings("unchecked")
     public void writeObject(final Object object, final Writer writer)
         throws IOException, SerializationException {
         Utils.checkNull(writer, "writer");
 
-        if (object == null) {
-            writer.append("null");
-        } else if (object instanceof String) {
-            String string = (String) object;
-            StringBuilder stringBuilder = new StringBuilder();
-
-            for (int i = 0, n = string.length(); i < n; i++) {
-                char ci = string.charAt(i);
-
-                switch (ci) {
-                    case '\t':
-                        stringBuilder.append("\\t");
-                        break;
-                    case '\n':
-                        stringBuilder.append("\\n");
-                        break;
-                    case '\r':
-                        stringBuilder.append("\\r");
-                        break;
-                    case '\f':
-                        stringBuilder.append("\\f");
-                        break;
-                    case '\b':
-                        stringBuilder.append("\\b");
-                        break;
-                    case '\\':
-                    case '\"':
-                    case '\'':
-                        stringBuilder.append("\\" + ci);
-                        break;
-                    default:
-                        // For Unicode character sets if it is a control character, then use \\uXXXX notation
-                        // and for other character sets if the value is an ASCII control character.
-                        if ((charset.name().startsWith("UTF") && !Character.isISOControl(ci))
-                         || (ci > 0x1F && ci != 0x7F && ci <= 0xFF)) {
-                            stringBuilder.append(ci);
-                        } else {
-                            stringBuilder.append("\\u");
-                            stringBuilder.append(String.format("%04x", (short) ci));
-                        }
-                        break;
-                }
-
-            }
-
-            writer.append("\"" + stringBuilder.toString() + "\"");
-        } else if (object instanceof Number) {
-            Number number = (Number) object;
-
-            if (number instanceof Float) {
-                Float f = (Float) number;
-                if (f.isNaN() || f.isInfinite()) {
-                    throw new SerializationException(number + " is not a valid value.");
-                }
-            } else if (number instanceof Double) {
-                Double d = (Double) number;
-                if (d.isNaN() || d.isInfinite()) {
-                    throw new SerializationException(number + " is not a valid value.");
-                }
-            }
-
-            writer.append(number.toString());
-        } else if (object instanceof Boolean) {
-            writer.append(object.toString());
-        } else if (object instanceof List<?>) {
-            List<Object> list = (List<Object>) object;
-            writer.append("[");
-
-            int i = 0;
-            for (Object item : list) {
-                if (i > 0) {
-                    writer.append(", ");
-                }
-
-                writeObject(item, writer);
-                i++;
-            }
-
-            writer.append("]");
-        } else {
-            Map<String, Object> map;
-            if (object instanceof Map<?, ?>) {
-                map = (Map<String, Object>) object;
-            } else if (object instanceof java.util.Map<?, ?>) {
-                map = new MapAdapter<>((java.util.Map<String, Object>) object);
-            } else {
-                map = new BeanAdapter(object, true);
-            }
-
-            writer.append("{");
-
-            int i = 0;
-            for (String key : map) {
-                Object value = map.get(key);
-
-                boolean identifier = true;
-                StringBuilder keyStringBuilder = new StringBuilder();
-
-                for (int j = 0, n = key.length(); j < n; j++) {
-                    char cj = key.charAt(j);
-                    identifier &= Character.isJavaIdentifierPart(cj);
-
-                    if (cj == '"') {
-                        keyStringBuilder.append('\\');
-                    }
-
-                    keyStringBuilder.append(cj);
-                }
-
-                key = keyStringBuilder.toString();
+        JSONWriter jsonWriter = new JSONWriter(writer, charset.name().startsWith("UTF"), alwaysDelimitMapKeys);
 
-                if (i > 0) {
-                    writer.append(", ");
-                }
-
-                // Write the key
-                if (!identifier || alwaysDelimitMapKeys) {
-                    writer.append('"');
-                }
-
-                writer.append(key);
-
-                if (!identifier || alwaysDelimitMapKeys) {
-                    writer.append('"');
-                }
-
-                writer.append(": ");
-
-                // Write the value
-                writeObject(value, writer);
-
-                i++;
-            }
-
-            writer.append("}");
+        try {
+            jsonWriter.writeValue(object);
+            jsonWriter.flush();
+        } finally {
+            jsonWriter.release();
         }
-
-        writer.flush();
     }
 
     @Override
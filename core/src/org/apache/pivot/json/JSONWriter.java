@@ -0,0 +1,628 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.apache.pivot.beans.BeanAdapter;
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.collections.adapter.MapAdapter;
+import org.apache.pivot.serialization.SerializationException;
+import org.apache.pivot.util.Constants;
+
+/**
+ * Generates the JSON text of {@link JSONSerializer#writeObject}. <p> The text
+ * is built in a character buffer, taken from a pool shared by all writers,
+ * and handed over a buffer at a time: to a {@link Writer}, or, for UTF-8 and
+ * ISO-8859-1, encoded directly into a (pooled) byte buffer and written to an
+ * {@link OutputStream}. Strings are copied into the buffer in runs, escaping
+ * only the characters that the lookup table (or, outside ASCII, the charset)
+ * calls for; integers, longs and most doubles are formatted into the buffer
+ * without allocating; and the accessors of each bean class are looked up once.
+ */
+final class JSONWriter {
+    /**
+     * A property of a bean class, and its accessor.
+     */
+    private static final class BeanProperty {
+        private final String name;
+        private final boolean identifier;
+        private final Method getterMethod;
+        private final Field field;
+
+        private BeanProperty(final String name, final Method getterMethod, final Field field) {
+            this.name = name;
+            this.getterMethod = getterMethod;
+            this.field = field;
+
+            identifier = isIdentifier(name);
+        }
+
+        private Object get(final Object bean) {
+            try {
+                return (getterMethod == null) ? field.get(bean) : getterMethod.invoke(bean);
+            } catch (IllegalAccessException exception) {
+                throw new RuntimeException("Unable to access property \"" + name + "\" for type "
+                    + bean.getClass().getName() + ".", exception);
+            } catch (InvocationTargetException exception) {
+                throw new RuntimeException("Error getting property \"" + name + "\" for type "
+                    + bean.getClass().getName() + ".", exception.getCause());
+            }
+        }
+    }
+
+    /**
+     * The properties written for the beans of each class (those that
+     * {@code new BeanAdapter(bean, true)} iterates over).
+     */
+    private static final ClassValue<BeanProperty[]> BEAN_PROPERTIES = new ClassValue<BeanProperty[]>() {
+        @Override
+        protected BeanProperty[] computeValue(final Class<?> type) {
+            ArrayList<BeanProperty> properties = new ArrayList<>();
+
+            Iterator<String> propertyNames = BeanAdapter.getPropertyNames(type, true);
+            while (propertyNames.hasNext()) {
+                String name = propertyNames.next();
+
+                Method getterMethod = BeanAdapter.getGetterMethod(type, name);
+                Field field = (getterMethod == null) ? BeanAdapter.getField(type, name) : null;
+
+                if (getterMethod != null || field != null) {
+                    properties.add(new BeanProperty(name, getterMethod, field));
+                }
+            }
+
+            BeanProperty[] propertyArray = new BeanProperty[properties.getLength()];
+            for (int i = 0; i < propertyArray.length; i++) {
+                propertyArray[i] = properties.get(i);
+            }
+
+            return propertyArray;
+        }
+    };
+
+    /**
+     * The number of characters written to the sink at a time.
+     */
+    private static final int BUFFER_LENGTH = Constants.BUFFER_SIZE;
+
+    /**
+     * The room reserved for a number (a long, or a double in plain notation).
+     */
+    private static final int MAXIMUM_RESERVE = 32;
+
+    /**
+     * The number of idle buffers of each kind that are kept for reuse.
+     */
+    private static final int POOL_SIZE = 16;
+
+    private static final ArrayBlockingQueue<char[]> CHAR_BUFFERS = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final ArrayBlockingQueue<byte[]> BYTE_BUFFERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    /**
+     * How the ASCII characters are written in strings: {@code 0} as is,
+     * {@code 'u'} as a Unicode escape, and anything else as a backslash
+     * followed by that character.
+     */
+    private static final char[] ESCAPES = new char[128];
+
+    static {
+        for (int i = 0; i < 0x20; i++) {
+            ESCAPES[i] = 'u';
+        }
+
+        ESCAPES['\t'] = 't';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['"'] = '"';
+        ESCAPES['\''] = '\'';
+        ESCAPES[0x7F] = 'u';
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17
+    };
+
+    /**
+     * The largest integer below which all integers are exactly representable
+     * as doubles.
+     */
+    private static final double MAXIMUM_EXACT_INTEGER = 9007199254740992.0;
+
+    private final Writer writer;
+    private final OutputStream outputStream;
+    private final boolean utf8;
+    private final boolean unicode;
+    private final boolean alwaysDelimitMapKeys;
+
+    private char[] chars;
+    private byte[] bytes;
+    private int count = 0;
+
+    /**
+     * Creates a writer that hands its text to a {@link Writer}.
+     *
+     * @param writer The writer.
+     * @param unicode Whether the text will be encoded in a Unicode charset;
+     * otherwise, characters beyond ISO-8859-1 are escaped.
+     * @param alwaysDelimitMapKeys Whether keys are quoted even when they are
+     * identifiers.
+     */
+    JSONWriter(final Writer writer, final boolean unicode, final boolean alwaysDelimitMapKeys) {
+        this.writer = writer;
+        this.unicode = unicode;
+        this.alwaysDelimitMapKeys = alwaysDelimitMapKeys;
+
+        outputStream = null;
+        utf8 = false;
+        chars = acquireChars();
+    }
+
+    /**
+     * Creates a writer that encodes its text directly to an {@link OutputStream}.
+     *
+     * @param outputStream The output stream.
+     * @param charset The charset, which must be one of the {@link #isEncodable
+     * encodable} ones.
+     * @param alwaysDelimitMapKeys Whether keys are quoted even when they are
+     * identifiers.
+     */
+    JSONWriter(final OutputStream outputStream, final Charset charset, final boolean alwaysDelimitMapKeys) {
+        this.outputStream = outputStream;
+        this.alwaysDelimitMapKeys = alwaysDelimitMapKeys;
+
+        writer = null;
+        utf8 = charset.equals(StandardCharsets.UTF_8);
+        unicode = utf8;
+        chars = acquireChars();
+        bytes = acquireBytes();
+    }
+
+    /**
+     * @param charset A charset.
+     * @return Whether the writer can encode text in that charset itself.
+     */
+    static boolean isEncodable(final Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    private static char[] acquireChars() {
+        char[] buffer = CHAR_BUFFERS.poll();
+        return (buffer == null) ? new char[BUFFER_LENGTH] : buffer;
+    }
+
+    private static byte[] acquireBytes() {
+        // Up to three bytes per character in UTF-8
+        byte[] buffer = BYTE_BUFFERS.poll();
+        return (buffer == null) ? new byte[BUFFER_LENGTH * 3] : buffer;
+    }
+
+    /**
+     * Returns the writer's buffers to the pool; the writer can't be used
+     * afterwards.
+     */
+    void release() {
+        if (chars != null) {
+            CHAR_BUFFERS.offer(chars);
+            chars = null;
+        }
+
+        if (bytes != null) {
+            BYTE_BUFFERS.offer(bytes);
+            bytes = null;
+        }
+    }
+
+    /**
+     * Writes out the buffered text, and flushes the sink.
+     *
+     * @throws IOException for any errors during writing.
+     */
+    void flush() throws IOException {
+        drain(true);
+
+        if (writer == null) {
+            outputStream.flush();
+        } else {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Makes room for the given number of characters in the buffer.
+     */
+    private void reserve(final int length) throws IOException {
+        if (count + length > chars.length) {
+            drain(false);
+        }
+    }
+
+    /**
+     * Hands the buffered text to the sink. Unless this is the end of the text,
+     * a high surrogate at the end of the buffer is kept back until the rest of
+     * its character arrives.
+     */
+    private void drain(final boolean end) throws IOException {
+        if (writer != null) {
+            writer.write(chars, 0, count);
+            count = 0;
+        } else {
+            int length = count;
+            if (!end && length > 0 && Character.isHighSurrogate(chars[length - 1])) {
+                length--;
+            }
+
+            outputStream.write(bytes, 0, utf8 ? encodeUTF8(length, end) : encodeISO88591(length));
+
+            if (length < count) {
+                chars[0] = chars[length];
+            }
+
+            count -= length;
+        }
+    }
+
+    private int encodeUTF8(final int length, final boolean end) {
+        int j = 0;
+
+        for (int i = 0; i < length; i++) {
+            char ci = chars[i];
+
+            if (ci < 0x80) {
+                bytes[j++] = (byte) ci;
+            } else if (ci < 0x800) {
+                bytes[j++] = (byte) (0xC0 | (ci >> 6));
+                bytes[j++] = (byte) (0x80 | (ci & 0x3F));
+            } else if (Character.isSurrogate(ci)) {
+                if (Character.isHighSurrogate(ci) && i + 1 < length && Character.isLowSurrogate(chars[i + 1])) {
+                    int codePoint = Character.toCodePoint(ci, chars[++i]);
+                    bytes[j++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[j++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[j++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[j++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    // Unpaired surrogates are replaced, as the charset's encoder does
+                    bytes[j++] = '?';
+                }
+            } else {
+                bytes[j++] = (byte) (0xE0 | (ci >> 12));
+                bytes[j++] = (byte) (0x80 | ((ci >> 6) & 0x3F));
+                bytes[j++] = (byte) (0x80 | (ci & 0x3F));
+            }
+        }
+
+        return j;
+    }
+
+    private int encodeISO88591(final int length) {
+        for (int i = 0; i < length; i++) {
+            char ci = chars[i];
+            bytes[i] = (ci <= 0xFF) ? (byte) ci : (byte) '?';
+        }
+
+        return length;
+    }
+
+    private void write(final char ci) throws IOException {
+        reserve(1);
+        chars[count++] = ci;
+    }
+
+    /**
+     * Copies (part of) a string into the buffer, a buffer at a time.
+     */
+    private void write(final String string, final int start, final int end) throws IOException {
+        int i = start;
+
+        while (i < end) {
+            if (count == chars.length) {
+                drain(false);
+            }
+
+            int length = Math.min(end - i, chars.length - count);
+            string.getChars(i, i + length, chars, count);
+            count += length;
+            i += length;
+        }
+    }
+
+    private void write(final String string) throws IOException {
+        write(string, 0, string.length());
+    }
+
+    /**
+     * Writes a value, as {@link JSONSerializer#writeObject(Object, Writer)}
+     * describes.
+     *
+     * @param object The value.
+     * @throws IOException for any errors during writing.
+     * @throws SerializationException for values that can't be written.
+     */
+    @SuppressWarnings("unchecked")
+    void writeValue(final Object object) throws IOException, SerializationException {
+        if (object == null) {
+            write("null");
+        } else if (object instanceof String) {
+            writeString((String) object);
+        } else if (object instanceof Number) {
+            writeNumber((Number) object);
+        } else if (object instanceof Boolean) {
+            write(((Boolean) object).booleanValue() ? "true" : "false");
+        } else if (object instanceof List<?>) {
+            List<Object> list = (List<Object>) object;
+            write('[');
+
+            int i = 0;
+            for (Object item : list) {
+                if (i > 0) {
+                    write(", ");
+                }
+
+                writeValue(item);
+                i++;
+            }
+
+            write(']');
+        } else if (object instanceof Map<?, ?> || object instanceof java.util.Map<?, ?>) {
+            Map<String, Object> map = (object instanceof Map<?, ?>) ? (Map<String, Object>) object
+                : new MapAdapter<>((java.util.Map<String, Object>) object);
+            write('{');
+
+            int i = 0;
+            for (String key : map) {
+                if (i > 0) {
+                    write(", ");
+                }
+
+                writeKey(key, isIdentifier(key));
+                writeValue(map.get(key));
+                i++;
+            }
+
+            write('}');
+        } else {
+            BeanProperty[] properties = BEAN_PROPERTIES.get(object.getClass());
+            write('{');
+
+            for (int i = 0; i < properties.length; i++) {
+                BeanProperty property = properties[i];
+
+                if (i > 0) {
+                    write(", ");
+                }
+
+                writeKey(property.name, property.identifier);
+                writeValue(property.get(object));
+            }
+
+            write('}');
+        }
+    }
+
+    private static boolean isIdentifier(final String key) {
+        for (int i = 0, n = key.length(); i < n; i++) {
+            if (!Character.isJavaIdentifierPart(key.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void writeKey(final String key, final boolean identifier) throws IOException {
+        boolean delimited = (!identifier || alwaysDelimitMapKeys);
+
+        if (delimited) {
+            write('"');
+        }
+
+        // Double quotes are preceded by a backslash
+        int start = 0;
+        for (int i = key.indexOf('"'); i != -1; i = key.indexOf('"', i + 1)) {
+            write(key, start, i);
+            write('\\');
+            start = i;
+        }
+
+        write(key, start, key.length());
+
+        if (delimited) {
+            write('"');
+        }
+
+        write(": ");
+    }
+
+    private void writeString(final String string) throws IOException {
+        write('"');
+
+        int start = 0;
+        for (int i = 0, n = string.length(); i < n; i++) {
+            char ci = string.charAt(i);
+
+            boolean escaped;
+            if (ci < 0x80) {
+                escaped = (ESCAPES[ci] != 0);
+            } else {
+                // Beyond ASCII, only what ISO-8859-1 lacks is escaped, and
+                // only for the other charsets
+                escaped = (!unicode && ci > 0xFF);
+            }
+
+            if (escaped) {
+                write(string, start, i);
+                writeEscape(ci);
+                start = i + 1;
+            }
+        }
+
+        write(string, start, string.length());
+        write('"');
+    }
+
+    private void writeEscape(final char ci) throws IOException {
+        reserve(6);
+
+        char escape = (ci < 0x80) ? ESCAPES[ci] : 'u';
+        chars[count++] = '\\';
+
+        if (escape == 'u') {
+            chars[count++] = 'u';
+            chars[count++] = HEX_DIGITS[(ci >> 12) & 0xF];
+            chars[count++] = HEX_DIGITS[(ci >> 8) & 0xF];
+            chars[count++] = HEX_DIGITS[(ci >> 4) & 0xF];
+            chars[count++] = HEX_DIGITS[ci & 0xF];
+        } else {
+            chars[count++] = escape;
+        }
+    }
+
+    private void writeNumber(final Number number) throws IOException, SerializationException {
+        if (number instanceof Integer || number instanceof Long || number instanceof Short
+            || number instanceof Byte) {
+            writeLong(number.longValue());
+        } else if (number instanceof Double) {
+            double value = number.doubleValue();
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new SerializationException(number + " is not a valid value.");
+            }
+
+            if (!writeDouble(value)) {
+                write(Double.toString(value));
+            }
+        } else {
+            if (number instanceof Float) {
+                float value = number.floatValue();
+                if (Float.isNaN(value) || Float.isInfinite(value)) {
+                    throw new SerializationException(number + " is not a valid value.");
+                }
+            }
+
+            write(number.toString());
+        }
+    }
+
+    private void writeLong(final long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+        } else {
+            reserve(MAXIMUM_RESERVE);
+
+            long magnitude = value;
+            if (value < 0) {
+                chars[count++] = '-';
+                magnitude = -value;
+            }
+
+            writeDigits(magnitude, 0);
+        }
+    }
+
+    /**
+     * Writes the digits of a non-negative number, with at least the given
+     * number of them (padding with zeros). The room must have been reserved.
+     */
+    private void writeDigits(final long value, final int minimumLength) {
+        int length = 1;
+        for (long limit = 10; length < 19 && value >= limit; limit *= 10) {
+            length++;
+        }
+
+        length = Math.max(length, minimumLength);
+
+        long remaining = value;
+        for (int i = count + length - 1; i >= count; i--) {
+            chars[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+
+        count += length;
+    }
+
+    /**
+     * Writes a double in the plain notation of {@link Double#toString(double)},
+     * for the values that it uses the notation for: the shortest decimal (with
+     * at least one fractional digit) that reads back as the same double.
+     *
+     * @return Whether the value was written; if not, it is too small or too
+     * large for the plain notation.
+     */
+    private boolean writeDouble(final double value) throws IOException {
+        double magnitude = Math.abs(value);
+        boolean negative = (value < 0 || (value == 0 && 1 / value < 0));
+
+        if (magnitude == 0) {
+            write(negative ? "-0.0" : "0.0");
+            return true;
+        }
+
+        if (magnitude < 1e-3 || magnitude >= 1e7) {
+            return false;
+        }
+
+        for (int scale = 0; scale < POWERS_OF_TEN.length; scale++) {
+            double power = POWERS_OF_TEN[scale];
+            double scaled = magnitude * power;
+            if (scaled >= MAXIMUM_EXACT_INTEGER) {
+                break;
+            }
+
+            long digits = Math.round(scaled);
+            if (digits / power != magnitude) {
+                // The product may be a unit off the closest decimal of this length
+                if ((digits + 1) / power == magnitude) {
+                    digits++;
+                } else if ((digits - 1) / power == magnitude) {
+                    digits--;
+                } else {
+                    continue;
+                }
+            }
+
+            reserve(MAXIMUM_RESERVE);
+
+            if (negative) {
+                chars[count++] = '-';
+            }
+
+            long divisor = (long) power;
+            writeDigits(digits / divisor, 1);
+            chars[count++] = '.';
+            writeDigits(digits % divisor, Math.max(scale, 1));
+
+            return true;
+        }
+
+        return false;
+    }
+}
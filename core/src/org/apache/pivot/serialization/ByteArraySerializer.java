@@ -22,7 +22,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.function.LongConsumer;
 
+import org.apache.pivot.io.FileChannels;
 import org.apache.pivot.util.Constants;
 import org.apache.pivot.util.Utils;
 
@@ -32,7 +35,7 @@ import org.apache.pivot.util.Utils;
  *
  * @see Serializer
  */
-public class ByteArraySerializer implements Serializer<byte[]> {
+public class ByteArraySerializer implements FileChannelSerializer<byte[]> {
     public static final String MIME_TYPE = "application/octet-stream";
 
     /**
@@ -65,6 +68,18 @@ public class ByteArraySerializer implements Serializer<byte[]> {
         return result;
     }
 
+    /**
+     * Reads a byte array from a file, straight into an array of the file's
+     * size.
+     */
+    @Override
+    public byte[] readObject(final FileChannel fileChannel, final LongConsumer progress) throws IOException,
+        SerializationException {
+        Utils.checkNull(fileChannel, "fileChannel");
+
+        return FileChannels.readBytes(fileChannel, progress);
+    }
+
     /**
      * Writes a byte array to an output stream.
      */
@@ -18,6 +18,7 @@ package org.apache.pivot.serialization;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -29,18 +30,24 @@ import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
 
 import org.apache.pivot.beans.BeanAdapter;
 import org.apache.pivot.collections.ArrayAdapter;
 import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.ColumnTable;
 import org.apache.pivot.collections.Dictionary;
 import org.apache.pivot.collections.HashMap;
 import org.apache.pivot.collections.List;
 import org.apache.pivot.collections.Sequence;
 import org.apache.pivot.io.EchoReader;
 import org.apache.pivot.io.EchoWriter;
+import org.apache.pivot.io.FileChannels;
 import org.apache.pivot.util.Constants;
 import org.apache.pivot.util.ListenerList;
 import org.apache.pivot.util.Utils;
@@ -49,11 +56,12 @@ import org.apache.pivot.util.Utils;
  * Implementation of the {@link Serializer} interface that reads data from and
  * writes data to a comma-separated value (CSV) file.
  */
-public class CSVSerializer implements Serializer<List<?>> {
+public class CSVSerializer implements FileChannelSerializer<List<?>> {
     private Charset charset;
     private Type itemType;
 
     private List<String> keys = new ArrayList<>();
+    private ColumnTable.Column[] columns = null;
 
     private boolean writeKeys = false;
     private boolean verbose = false;
@@ -137,6 +145,31 @@ public class CSVSerializer implements Serializer<List<?>> {
         setKeys(new ArrayAdapter<>(keys));
     }
 
+    /**
+     * Returns the columns of the table that will be read by this serializer.
+     * @return The columns, or {@code null} if the serializer reads a list of
+     * items of the item type.
+     * @see #setColumns(ColumnTable.Column...)
+     */
+    public ColumnTable.Column[] getColumns() {
+        return (columns == null) ? null : columns.clone();
+    }
+
+    /**
+     * Sets the columns of the table that will be read by this serializer. When
+     * columns are set, {@link #readObject(Reader)} returns a {@link ColumnTable}
+     * instead of a list of items of the item type, and the values are parsed
+     * straight into the table's column arrays. Keys that don't match a column
+     * are skipped, and empty values are read as {@code null} in all but the
+     * {@code OBJECT} columns.
+     *
+     * @param columns The columns of the table, or {@code null} to read a list
+     * of items of the item type.
+     */
+    public void setColumns(final ColumnTable.Column... columns) {
+        this.columns = (columns == null) ? null : columns.clone();
+    }
+
     /**
      * Returns the serializer's write keys flag.
      * @return {@code true} if keys will be written, {@code false} otherwise.
@@ -199,6 +232,29 @@ public class CSVSerializer implements Serializer<List<?>> {
         return readObject(reader);
     }
 
+    /**
+     * Reads values from a comma-separated value file, decoded a chunk at a time.
+     *
+     * @param fileChannel The file from which data will be read.
+     * @param progress Called with the number of bytes read so far, if not {@code null}.
+     * @return The list of values read from the file.
+     * @throws IOException for any errors during reading.
+     * @throws SerializationException for any formatting errors with the data.
+     * @see #readObject(Reader)
+     */
+    @Override
+    public List<?> readObject(final FileChannel fileChannel, final LongConsumer progress) throws IOException,
+        SerializationException {
+        Utils.checkNull(fileChannel, "fileChannel");
+
+        Reader reader = FileChannels.newReader(fileChannel, charset, progress);
+        if (verbose) {
+            reader = new EchoReader(reader);
+        }
+
+        return readObject(reader);
+    }
+
     /**
      * Reads values from a comma-separated value stream.
      *
@@ -207,7 +263,8 @@ public class CSVSerializer implements Serializer<List<?>> {
      * are instances of {@code Dictionary<String, Object>} populated by mapping columns
      * in the CSV file to keys in the key sequence. <p> If no keys have been
      * specified when this method is called, they are assumed to be defined in
-     * the first line of the file.
+     * the first line of the file. If columns have been set, the list is a
+     * {@link ColumnTable} with those columns.
      * @throws IOException for any errors during reading.
      * @throws SerializationException for any formatting errors with the data.
      * @throws IllegalArgumentException for {@code null} input reader.
@@ -225,16 +282,27 @@ public class CSVSerializer implements Serializer<List<?>> {
                 throw new SerializationException("Could not read keys from input.");
             }
 
-            String[] keysOnLine = line.split(",");
-            this.keys = new ArrayList<>(keysOnLine.length);
-
-            for (String key : keysOnLine) {
-                this.keys.add(key.trim());
-            }
+            this.keys = splitKeys(line);
         }
 
         // Create the list and notify the listeners
-        List<Object> items = new ArrayList<>();
+        ColumnTable table = null;
+        int[] columnIndexes = null;
+        List<Object> list = null;
+        List<?> items;
+
+        if (columns == null) {
+            list = new ArrayList<>();
+            items = list;
+        } else {
+            table = new ColumnTable(columns);
+            items = table;
+
+            columnIndexes = new int[keys.getLength()];
+            for (int i = 0; i < columnIndexes.length; i++) {
+                columnIndexes[i] = table.getColumnIndex(keys.get(i));
+            }
+        }
 
         if (csvSerializerListeners != null) {
             csvSerializerListeners.beginList(this, items);
@@ -250,9 +318,12 @@ public class CSVSerializer implements Serializer<List<?>> {
 
         try {
             while (c != -1) {
-                Object item = readItem(lineNumberReader);
+                Object item = (table == null) ? readItem(lineNumberReader)
+                    : readRow(lineNumberReader, table, columnIndexes);
                 while (item != null) {
-                    items.add(item);
+                    if (list != null) {
+                        list.add(item);
+                    }
 
                     // Move to next line
                     while (c != -1 && (c == '\r' || c == '\n')) {
@@ -260,7 +331,8 @@ public class CSVSerializer implements Serializer<List<?>> {
                     }
 
                     // Read the next item
-                    item = readItem(lineNumberReader);
+                    item = (table == null) ? readItem(lineNumberReader)
+                        : readRow(lineNumberReader, table, columnIndexes);
                 }
             }
         } catch (SerializationException exception) {
@@ -278,6 +350,146 @@ public class CSVSerializer implements Serializer<List<?>> {
         return items;
     }
 
+    private static ArrayList<String> splitKeys(final String line) {
+        String[] keysOnLine = line.split(",");
+        ArrayList<String> keysLocal = new ArrayList<>(keysOnLine.length);
+
+        for (String key : keysOnLine) {
+            keysLocal.add(key.trim());
+        }
+
+        return keysLocal;
+    }
+
+    /**
+     * Reads values from a comma-separated value file, parsing parts of the
+     * file in parallel (see {@link ChunkedFileParser}). The result is the same
+     * as that of {@link #readObject(Reader)}, but the listeners are only
+     * notified once the whole file has been read, and the input isn't echoed
+     * even if the serializer is verbose. Lines must end with a line feed
+     * (optionally preceded by a carriage return) for the file to be split.
+     *
+     * @param fileChannel The file from which data will be read, from its
+     * current position.
+     * @param pool The pool on which to parse the file.
+     * @return The list of values read from the file.
+     * @throws IOException for any errors during reading.
+     * @throws SerializationException for any formatting errors with the data.
+     */
+    public List<?> readObjectParallel(final FileChannel fileChannel, final ForkJoinPool pool) throws IOException,
+        SerializationException {
+        Utils.checkNull(fileChannel, "fileChannel");
+        Utils.checkNull(pool, "pool");
+
+        if (!ChunkedFileParser.isSplittable(charset)) {
+            return readObject(fileChannel, null);
+        }
+
+        if (keys.getLength() == 0) {
+            readKeys(fileChannel);
+        }
+
+        List<List<?>> chunks = ChunkedFileParser.parse(fileChannel, charset, true, pool,
+            reader -> newChunkSerializer().readObject(reader));
+
+        int count = 0;
+        for (List<?> chunk : chunks) {
+            count += chunk.getLength();
+        }
+
+        // Join the chunks in order
+        List<?> items;
+        if (columns == null) {
+            ArrayList<Object> list = new ArrayList<>(count);
+            for (List<?> chunk : chunks) {
+                for (Object item : chunk) {
+                    list.add(item);
+                }
+            }
+
+            items = list;
+        } else {
+            ColumnTable table = new ColumnTable(columns);
+            table.ensureCapacity(count);
+            for (List<?> chunk : chunks) {
+                table.addRows((ColumnTable) chunk);
+            }
+
+            items = table;
+        }
+
+        // Notify the listeners
+        if (csvSerializerListeners != null) {
+            csvSerializerListeners.beginList(this, items);
+
+            for (Object item : items) {
+                csvSerializerListeners.readItem(this, item);
+            }
+
+            csvSerializerListeners.endList(this);
+        }
+
+        return items;
+    }
+
+    /**
+     * Reads the keys from the first line of a file, leaving the channel
+     * positioned at the start of the next line.
+     */
+    private void readKeys(final FileChannel fileChannel) throws IOException, SerializationException {
+        ByteArrayOutputStream lineBytes = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(Constants.BUFFER_SIZE);
+
+        long position = fileChannel.position();
+        boolean lineEnded = false;
+
+        while (!lineEnded && fileChannel.read(buffer, position) != -1) {
+            buffer.flip();
+
+            while (buffer.hasRemaining() && !lineEnded) {
+                byte b = buffer.get();
+                position++;
+
+                lineEnded = (b == '\n');
+                if (!lineEnded) {
+                    lineBytes.write(b);
+                }
+            }
+
+            buffer.clear();
+        }
+
+        fileChannel.position(position);
+
+        if (lineBytes.size() == 0 && !lineEnded) {
+            throw new SerializationException("Could not read keys from input.");
+        }
+
+        String line = new String(lineBytes.toByteArray(), charset);
+
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+
+        if (line.length() > 0 && line.charAt(0) == Constants.BYTE_ORDER_MARK) {
+            line = line.substring(1);
+        }
+
+        this.keys = splitKeys(line);
+    }
+
+    /**
+     * @return A serializer with the same settings as this one (but no
+     * listeners), to read one of the chunks of a file.
+     */
+    private CSVSerializer newChunkSerializer() {
+        CSVSerializer serializer = new CSVSerializer(charset, itemType);
+        serializer.keys = keys;
+        serializer.columns = columns;
+
+        return serializer;
+    }
+
     @SuppressWarnings("unchecked")
     private Object readItem(final Reader reader) throws IOException, SerializationException {
         Object item = null;
@@ -315,18 +527,7 @@ public class CSVSerializer implements Serializer<List<?>> {
                         + " from input stream.");
                 }
 
-                if (c == '\r' || c == '\n') {
-                    if (i < n - 1) {
-                        throw new SerializationException("Line data is incomplete.");
-                    }
-
-                    // Move to next char; if LF, move again
-                    c = reader.read();
-
-                    if (c == '\n') {
-                        c = reader.read();
-                    }
-                }
+                endValue(reader, i, n);
 
                 itemDictionary.put(key, value);
             }
@@ -340,6 +541,61 @@ public class CSVSerializer implements Serializer<List<?>> {
         return item;
     }
 
+    private ColumnTable.Row readRow(final Reader reader, final ColumnTable table,
+        final int[] columnIndexes) throws IOException, SerializationException {
+        ColumnTable.Row row = null;
+
+        if (c != -1) {
+            int index = table.addRow();
+
+            // Add values to the row
+            for (int i = 0, n = keys.getLength(); i < n; i++) {
+                String value = readValue(reader);
+                if (value == null) {
+                    throw new SerializationException("Error reading value for " + keys.get(i)
+                        + " from input stream.");
+                }
+
+                endValue(reader, i, n);
+
+                int column = columnIndexes[i];
+                if (column != -1 && (value.length() > 0
+                    || table.getColumn(column).type == ColumnTable.ColumnType.OBJECT)) {
+                    try {
+                        table.setValue(index, column, value);
+                    } catch (IllegalArgumentException exception) {
+                        throw new SerializationException(exception);
+                    }
+                }
+            }
+
+            row = table.get(index);
+
+            // Notify the listeners
+            if (csvSerializerListeners != null) {
+                csvSerializerListeners.readItem(this, row);
+            }
+        }
+
+        return row;
+    }
+
+    private void endValue(final Reader reader, final int i, final int n)
+        throws IOException, SerializationException {
+        if (c == '\r' || c == '\n') {
+            if (i < n - 1) {
+                throw new SerializationException("Line data is incomplete.");
+            }
+
+            // Move to next char; if LF, move again
+            c = reader.read();
+
+            if (c == '\n') {
+                c = reader.read();
+            }
+        }
+    }
+
     private String readValue(final Reader reader) throws IOException, SerializationException {
         String value = null;
 
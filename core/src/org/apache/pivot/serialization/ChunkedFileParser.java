@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.serialization;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.io.CharBufferReader;
+import org.apache.pivot.io.FileChannels;
+import org.apache.pivot.util.Utils;
+
+/**
+ * Parses a large file of newline-terminated records (CSV rows, or JSON values
+ * one per line) in parallel. <p> The file is cut into chunks of roughly equal
+ * size, and each cut is moved forward to the start of the next record. For
+ * quoted records (CSV), where a value may span several lines, a first pass
+ * over the chunks counts their quotes, and notes where the first line of the
+ * chunk ends both if the chunk starts outside a quoted value and if it starts
+ * inside one; the quote counts of the preceding chunks then tell which of the
+ * two it is, so that the cuts never fall inside a value. <p> The chunks are
+ * then decoded and parsed on a fork/join pool, and their results returned in
+ * the order of the chunks. <p> The file is split on its bytes, which is only
+ * possible when the newline and quote characters can't be part of another
+ * character: the file is read as a single chunk for charsets other than
+ * UTF-8 and those with one byte per character.
+ */
+public final class ChunkedFileParser {
+    /**
+     * Parses the records of a chunk.
+     *
+     * @param <T> The type of the result of a chunk.
+     */
+    @FunctionalInterface
+    public interface ChunkParser<T> {
+        /**
+         * Parses the records of a chunk, which starts at the beginning of a
+         * record and ends at the end of one.
+         *
+         * @param reader The text of the chunk.
+         * @return The records read from the chunk.
+         * @throws IOException for any errors during reading.
+         * @throws SerializationException for any formatting errors with the data.
+         */
+        T parse(Reader reader) throws IOException, SerializationException;
+    }
+
+    /**
+     * The sizes between which the chunks are chosen (records longer than the
+     * maximum make longer chunks).
+     */
+    public static final int MINIMUM_CHUNK_SIZE = 1024 * 1024;
+    public static final int MAXIMUM_CHUNK_SIZE = 32 * 1024 * 1024;
+
+    /**
+     * The number of chunks per thread of the pool, so that threads that finish
+     * their chunks early can take over from the others.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * The number of bytes scanned at a time when looking for record boundaries.
+     */
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Where a chunk's first line ends, if the chunk starts outside a quoted
+     * value ({@code endOutside}) or inside one ({@code endInside}), and how many
+     * quotes the chunk holds.
+     */
+    private static class Scan {
+        private long endOutside = -1;
+        private long endInside = -1;
+        private long quoteCount = 0;
+    }
+
+    private ChunkedFileParser() {
+    }
+
+    /**
+     * Parses the rest of a file, from the current position of its channel, in
+     * parallel. The channel is left positioned at the end of the file.
+     *
+     * @param <T> The type of the result of a chunk.
+     * @param fileChannel The channel of the file, positioned at the start of a
+     * record.
+     * @param charset The character set of the file.
+     * @param quoted Whether records may contain double-quoted values that span
+     * several lines, a quote within a value being written as two quotes.
+     * @param pool The pool on which to parse the chunks.
+     * @param parser The parser of a chunk, called from the threads of the pool.
+     * @return The results of the chunks, in the order of the file (empty if the
+     * file has no data left).
+     * @throws IOException for any errors during reading.
+     * @throws SerializationException for any formatting errors with the data.
+     */
+    public static <T> List<T> parse(final FileChannel fileChannel, final Charset charset,
+        final boolean quoted, final ForkJoinPool pool, final ChunkParser<T> parser)
+        throws IOException, SerializationException {
+        Utils.checkNull(fileChannel, "fileChannel");
+        Utils.checkNull(charset, "charset");
+        Utils.checkNull(pool, "pool");
+        Utils.checkNull(parser, "parser");
+
+        long start = fileChannel.position();
+        long end = fileChannel.size();
+
+        List<T> results = new ArrayList<>();
+
+        if (start < end) {
+            if (isSplittable(charset)) {
+                long[] boundaries = getBoundaries(fileChannel, start, end, quoted, pool);
+
+                ArrayList<ForkJoinTask<T>> tasks = new ArrayList<>(boundaries.length - 1);
+                for (int i = 0; i < boundaries.length - 1; i++) {
+                    long chunkStart = boundaries[i];
+                    long chunkEnd = boundaries[i + 1];
+
+                    if (chunkStart < chunkEnd) {
+                        tasks.add(pool.submit(() -> parseChunk(fileChannel, chunkStart, chunkEnd,
+                            charset, parser)));
+                    }
+                }
+
+                for (ForkJoinTask<T> task : tasks) {
+                    results.add(join(task, tasks));
+                }
+            } else {
+                results.add(parser.parse(new CharBufferReader(FileChannels.decode(fileChannel, charset, null))));
+            }
+        }
+
+        fileChannel.position(end);
+
+        return results;
+    }
+
+    /**
+     * @param charset A character set.
+     * @return Whether files in that character set can be split into chunks
+     * (otherwise {@link #parse} reads them as a single chunk).
+     */
+    public static boolean isSplittable(final Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8)
+            || (charset.newEncoder().maxBytesPerChar() == 1
+                && "\n\"".equals(new String(new byte[] {'\n', '"'}, charset)));
+    }
+
+    /**
+     * @return The offsets at which the chunks start, followed by the end of the
+     * file; some chunks may be empty.
+     */
+    private static long[] getBoundaries(final FileChannel fileChannel, final long start, final long end,
+        final boolean quoted, final ForkJoinPool pool) throws IOException, SerializationException {
+        long length = end - start;
+        long chunkSize = Math.min(Math.max(length / ((long) pool.getParallelism() * CHUNKS_PER_THREAD),
+            MINIMUM_CHUNK_SIZE), MAXIMUM_CHUNK_SIZE);
+        int chunkCount = (int) ((length + chunkSize - 1) / chunkSize);
+
+        ArrayList<ForkJoinTask<Scan>> tasks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            long chunkStart = start + i * chunkSize;
+            long chunkEnd = Math.min(chunkStart + chunkSize, end);
+
+            tasks.add(pool.submit(() -> scan(fileChannel, chunkStart, chunkEnd, quoted)));
+        }
+
+        long[] boundaries = new long[chunkCount + 1];
+        boundaries[0] = start;
+        boundaries[chunkCount] = end;
+
+        long quoteCount = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            Scan scan = join(tasks.get(i), tasks);
+
+            if (i > 0) {
+                long lineEnd = ((quoteCount & 1) == 0) ? scan.endOutside : scan.endInside;
+                boundaries[i] = (lineEnd == -1) ? -1 : lineEnd + 1;
+            }
+
+            quoteCount += scan.quoteCount;
+        }
+
+        // A chunk without a record boundary is part of the record that started
+        // before it, so it starts where the next one does
+        for (int i = chunkCount - 1; i > 0; i--) {
+            if (boundaries[i] == -1) {
+                boundaries[i] = boundaries[i + 1];
+            }
+        }
+
+        return boundaries;
+    }
+
+    private static Scan scan(final FileChannel fileChannel, final long start, final long end,
+        final boolean quoted) throws IOException {
+        Scan scan = new Scan();
+
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+
+        long position = start;
+        while (position < end && (quoted || scan.endOutside == -1)) {
+            buffer.clear();
+            buffer.limit((int) Math.min(bytes.length, end - position));
+
+            int count = fileChannel.read(buffer, position);
+            if (count == -1) {
+                break;
+            }
+
+            for (int i = 0; i < count; i++) {
+                byte b = bytes[i];
+
+                if (b == '\n') {
+                    if ((scan.quoteCount & 1) == 0) {
+                        if (scan.endOutside == -1) {
+                            scan.endOutside = position + i;
+
+                            if (!quoted) {
+                                break;
+                            }
+                        }
+                    } else if (scan.endInside == -1) {
+                        scan.endInside = position + i;
+                    }
+                } else if (b == '"' && quoted) {
+                    scan.quoteCount++;
+                }
+            }
+
+            position += count;
+        }
+
+        return scan;
+    }
+
+    private static <T> T parseChunk(final FileChannel fileChannel, final long start, final long end,
+        final Charset charset, final ChunkParser<T> parser) throws IOException, SerializationException {
+        try {
+            return parser.parse(new CharBufferReader(decode(fileChannel, start, end, charset)));
+        } catch (SerializationException exception) {
+            throw new SerializationException("Could not parse the records from byte " + start + ": "
+                + exception.getMessage(), exception);
+        }
+    }
+
+    private static CharBuffer decode(final FileChannel fileChannel, final long start, final long end,
+        final Charset charset) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Record at byte " + start + " is too large to be read.");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, start + buffer.position()) == -1) {
+                throw new IOException("File was truncated while being read.");
+            }
+        }
+
+        buffer.flip();
+
+        return charset.decode(buffer);
+    }
+
+    /**
+     * Waits for a task, cancelling the others if it failed.
+     */
+    private static <T> T join(final ForkJoinTask<T> task, final ArrayList<? extends ForkJoinTask<?>> tasks)
+        throws IOException, SerializationException {
+        try {
+            return task.get();
+        } catch (InterruptedException exception) {
+            cancel(tasks);
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException();
+        } catch (ExecutionException exception) {
+            cancel(tasks);
+
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof SerializationException) {
+                throw (SerializationException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new SerializationException(cause);
+        }
+    }
+
+    private static void cancel(final ArrayList<? extends ForkJoinTask<?>> tasks) {
+        for (ForkJoinTask<?> task : tasks) {
+            task.cancel(false);
+        }
+    }
+}
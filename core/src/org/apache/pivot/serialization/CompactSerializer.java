@@ -0,0 +1,862 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.serialization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import org.apache.pivot.beans.BeanAdapter;
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.HashMap;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.collections.Sequence;
+import org.apache.pivot.util.Constants;
+import org.apache.pivot.util.Utils;
+
+/**
+ * Implementation of the {@link Serializer} interface that reads and writes
+ * values in a compact, tagged binary format. It is meant for caching large
+ * models (to disk, say) and exchanging them with a server, where
+ * {@link BinarySerializer} is slow and verbose and JSON loses the types of
+ * the values. <p> The supported values are {@code null}, booleans, numbers
+ * (the primitive wrappers, {@link BigInteger} and {@link BigDecimal}),
+ * characters, strings, dates (read back as {@link Date}), byte arrays, enums,
+ * Pivot {@link List lists}, {@link Map maps} and other {@link Sequence
+ * sequences} (read back as {@link ArrayList}s), and beans: objects of public
+ * classes with a public no-argument constructor, whose properties with both
+ * a getter and a setter are written. <p> Integers are written as variable
+ * length (zig-zag) numbers, so small values take a single byte. Each string
+ * of up to {@link #MAX_SHARED_STRING_LENGTH} characters is written once per
+ * stream, later occurrences (map keys, typically) referring back to it; each
+ * class is described once too, beans along with the names of their
+ * properties, so that their instances only write the property values. The
+ * properties are matched by name when reading, so beans that have since
+ * gained or lost properties can still be read. <p> Unlike
+ * {@link BinarySerializer}, this serializer only creates instances of the
+ * classes its {@link #getTypeFilter type filter} accepts; by default, the
+ * Pivot collections. The types of enums and beans must be allowed explicitly
+ * to read them. <p> The values must form a tree: an object referred to twice
+ * is written twice, and cycles are rejected. <p> Like the other serializers,
+ * an instance should only be used by one thread at a time.
+ */
+public class CompactSerializer implements Serializer<Object> {
+    /**
+     * A bean class's properties with both a getter and a setter, sorted by
+     * name.
+     */
+    private static final class Schema {
+        public final Constructor<?> constructor;
+        public final String[] names;
+        public final Method[] getters;
+        public final Method[] setters;
+
+        Schema(final Class<?> type) {
+            Constructor<?> constructorLocal = null;
+            if (Modifier.isPublic(type.getModifiers()) && !Modifier.isAbstract(type.getModifiers())) {
+                try {
+                    constructorLocal = type.getConstructor();
+                } catch (NoSuchMethodException exception) {
+                    // No-op
+                }
+            }
+
+            constructor = constructorLocal;
+
+            TreeMap<String, Method[]> accessors = new TreeMap<>();
+            for (Method getter : type.getMethods()) {
+                String methodName = getter.getName();
+                Class<?> propertyType = getter.getReturnType();
+
+                int prefixLength;
+                if (methodName.startsWith(BeanAdapter.GET_PREFIX)) {
+                    prefixLength = BeanAdapter.GET_PREFIX.length();
+                } else if (methodName.startsWith(BeanAdapter.IS_PREFIX) && propertyType == Boolean.TYPE) {
+                    prefixLength = BeanAdapter.IS_PREFIX.length();
+                } else {
+                    continue;
+                }
+
+                if (methodName.length() == prefixLength || getter.getParameterCount() > 0
+                    || Modifier.isStatic(getter.getModifiers()) || propertyType == Void.TYPE) {
+                    continue;
+                }
+
+                String suffix = methodName.substring(prefixLength);
+
+                Method setter;
+                try {
+                    setter = type.getMethod(BeanAdapter.SET_PREFIX + suffix, propertyType);
+                } catch (NoSuchMethodException exception) {
+                    continue;
+                }
+
+                if (!Modifier.isStatic(setter.getModifiers())) {
+                    String name = Character.toLowerCase(suffix.charAt(0)) + suffix.substring(1);
+                    accessors.put(name, new Method[] {getter, setter});
+                }
+            }
+
+            int n = accessors.size();
+            names = accessors.keySet().toArray(new String[n]);
+            getters = new Method[n];
+            setters = new Method[n];
+
+            for (int i = 0; i < n; i++) {
+                Method[] methods = accessors.get(names[i]);
+                getters[i] = methods[0];
+                setters[i] = methods[1];
+            }
+        }
+
+        public int indexOf(final String name) {
+            int i = Arrays.binarySearch(names, name);
+            return (i < 0) ? -1 : i;
+        }
+    }
+
+    /**
+     * A class described in the stream being read.
+     */
+    private static final class ClassEntry {
+        public final Class<?> type;
+        public final Schema schema;
+        // The index in the schema of each property written, or -1 for
+        // properties the class no longer has
+        public final int[] propertyIndexes;
+
+        ClassEntry(final Class<?> type, final Schema schema, final int[] propertyIndexes) {
+            this.type = type;
+            this.schema = schema;
+            this.propertyIndexes = propertyIndexes;
+        }
+    }
+
+    /**
+     * The state of a write: the output buffer and the strings and classes
+     * written so far.
+     */
+    private static final class Output {
+        private final OutputStream outputStream;
+        private final byte[] buffer = new byte[Constants.BUFFER_SIZE];
+        private int position = 0;
+
+        public final HashMap<String, Integer> strings = new HashMap<>();
+        public final HashMap<Class<?>, Integer> classes = new HashMap<>();
+        public final IdentityHashMap<Object, Boolean> path = new IdentityHashMap<>();
+
+        Output(final OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        public void writeByte(final int value) throws IOException {
+            if (position == buffer.length) {
+                flush();
+            }
+
+            buffer[position++] = (byte) value;
+        }
+
+        public void writeBytes(final byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - position) {
+                flush();
+            }
+
+            if (bytes.length > buffer.length) {
+                outputStream.write(bytes);
+            } else {
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+            }
+        }
+
+        public void writeVarLong(final long value) throws IOException {
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                writeByte((int) (remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+
+            writeByte((int) remaining);
+        }
+
+        public void writeLong(final long value) throws IOException {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        public void flush() throws IOException {
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    /**
+     * The state of a read: the input buffer and the strings and classes read
+     * so far.
+     */
+    private static final class Input {
+        private final InputStream inputStream;
+        private final byte[] buffer = new byte[Constants.BUFFER_SIZE];
+        private int position = 0;
+        private int limit = 0;
+
+        public final ArrayList<String> strings = new ArrayList<>();
+        public final ArrayList<ClassEntry> classes = new ArrayList<>();
+        // The number of values being read, one inside the other
+        public int depth = 0;
+
+        Input(final InputStream inputStream) {
+            this.inputStream = inputStream;
+        }
+
+        public int readByte() throws IOException {
+            if (position == limit) {
+                limit = inputStream.read(buffer);
+                position = 0;
+
+                if (limit <= 0) {
+                    limit = 0;
+                    throw new EOFException();
+                }
+            }
+
+            return buffer[position++] & 0xFF;
+        }
+
+        public byte[] readBytes(final int length) throws IOException {
+            // Don't trust the length with a large allocation before the data
+            // is actually there
+            if (length > MAX_ALLOCATION) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(MAX_ALLOCATION);
+                for (int remaining = length; remaining > 0; remaining -= MAX_ALLOCATION) {
+                    bytes.write(readBytes(Math.min(remaining, MAX_ALLOCATION)));
+                }
+
+                return bytes.toByteArray();
+            }
+
+            byte[] bytes = new byte[length];
+
+            int offset = Math.min(length, limit - position);
+            System.arraycopy(buffer, position, bytes, 0, offset);
+            position += offset;
+
+            while (offset < length) {
+                int count = inputStream.read(bytes, offset, length - offset);
+                if (count <= 0) {
+                    throw new EOFException();
+                }
+
+                offset += count;
+            }
+
+            return bytes;
+        }
+
+        public long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new IOException("Malformed variable length number.");
+        }
+
+        public int readLength() throws IOException {
+            long length = readVarLong();
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Invalid length " + length + ".");
+            }
+
+            return (int) length;
+        }
+
+        public long readLong() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+
+            return value;
+        }
+    }
+
+    private static final int NULL = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+    private static final int BYTE = 3;
+    private static final int SHORT = 4;
+    private static final int INTEGER = 5;
+    private static final int LONG = 6;
+    private static final int FLOAT = 7;
+    private static final int DOUBLE = 8;
+    private static final int CHARACTER = 9;
+    private static final int STRING = 10;
+    private static final int BIG_INTEGER = 11;
+    private static final int BIG_DECIMAL = 12;
+    private static final int DATE = 13;
+    private static final int BYTES = 14;
+    private static final int ENUM = 15;
+    private static final int LIST = 16;
+    private static final int MAP = 17;
+    private static final int SEQUENCE = 18;
+    private static final int BEAN = 19;
+
+    private static final byte[] HEADER = {'P', 'V', 'C', 1};
+
+    private static final int MAX_ALLOCATION = 1024 * 1024;
+
+    private static final ClassValue<Schema> SCHEMAS = new ClassValue<Schema>() {
+        @Override
+        protected Schema computeValue(final Class<?> type) {
+            return new Schema(type);
+        }
+    };
+
+    private static final String COLLECTIONS_PACKAGE_PREFIX = ArrayList.class.getPackage().getName() + ".";
+
+    /**
+     * The type filter used by default, which only accepts the Pivot
+     * collections.
+     */
+    public static final Predicate<Class<?>> DEFAULT_TYPE_FILTER =
+        type -> type.getName().startsWith(COLLECTIONS_PACKAGE_PREFIX);
+
+    /**
+     * The maximum length of the strings written only once per stream; longer
+     * strings are written each time.
+     */
+    public static final int MAX_SHARED_STRING_LENGTH = 256;
+
+    /**
+     * The maximum number of values read one inside the other (lists, maps
+     * and beans); data nested deeper is rejected rather than risking a stack
+     * overflow.
+     */
+    public static final int MAX_DEPTH = 512;
+
+    public static final String MIME_TYPE = "application/x-pivot-compact";
+
+    private Predicate<Class<?>> typeFilter;
+
+    public CompactSerializer() {
+        this(DEFAULT_TYPE_FILTER);
+    }
+
+    public CompactSerializer(final Predicate<Class<?>> typeFilter) {
+        setTypeFilter(typeFilter);
+    }
+
+    /**
+     * @return The filter the classes named in the data read must pass to be
+     * instantiated.
+     */
+    public Predicate<Class<?>> getTypeFilter() {
+        return typeFilter;
+    }
+
+    /**
+     * Sets the filter the classes named in the data read must pass to be
+     * instantiated (lists, maps and beans) or used (enums). Classes that
+     * don't pass it are not initialized. Only accept all classes for data
+     * that comes from a trusted source.
+     *
+     * @param typeFilter The new type filter.
+     * @throws IllegalArgumentException if the filter is {@code null}.
+     */
+    public void setTypeFilter(final Predicate<Class<?>> typeFilter) {
+        Utils.checkNull(typeFilter, "typeFilter");
+
+        this.typeFilter = typeFilter;
+    }
+
+    /**
+     * Reads a value from an input stream. The stream is buffered, so data
+     * past the end of the value may be consumed.
+     */
+    @Override
+    public Object readObject(final InputStream inputStream) throws IOException, SerializationException {
+        Utils.checkNull(inputStream, "inputStream");
+
+        Input input = new Input(inputStream);
+
+        try {
+            for (int i = 0; i < HEADER.length; i++) {
+                if (input.readByte() != HEADER[i]) {
+                    throw new SerializationException("Unsupported data format.");
+                }
+            }
+
+            return readValue(input);
+        } catch (EOFException exception) {
+            throw new SerializationException("Unexpected end of data.", exception);
+        }
+    }
+
+    /**
+     * Writes a value to an output stream.
+     */
+    @Override
+    public void writeObject(final Object object, final OutputStream outputStream) throws IOException,
+        SerializationException {
+        Utils.checkNull(outputStream, "outputStream");
+
+        Output output = new Output(outputStream);
+        output.writeBytes(HEADER);
+        writeValue(object, output);
+        output.flush();
+        outputStream.flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeValue(final Object value, final Output output) throws IOException,
+        SerializationException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof String) {
+            output.writeByte(STRING);
+            writeString((String) value, output);
+        } else if (value instanceof Integer) {
+            output.writeByte(INTEGER);
+            output.writeVarLong(zigZag((Integer) value));
+        } else if (value instanceof Boolean) {
+            output.writeByte(((Boolean) value).booleanValue() ? TRUE : FALSE);
+        } else if (value instanceof Long) {
+            output.writeByte(LONG);
+            output.writeVarLong(zigZag((Long) value));
+        } else if (value instanceof Double) {
+            output.writeByte(DOUBLE);
+            output.writeLong(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof Float) {
+            output.writeByte(FLOAT);
+            output.writeVarLong(Integer.toUnsignedLong(Float.floatToIntBits((Float) value)));
+        } else if (value instanceof Short) {
+            output.writeByte(SHORT);
+            output.writeVarLong(zigZag((Short) value));
+        } else if (value instanceof Byte) {
+            output.writeByte(BYTE);
+            output.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            output.writeByte(CHARACTER);
+            output.writeVarLong((Character) value);
+        } else if (value instanceof BigInteger) {
+            output.writeByte(BIG_INTEGER);
+            writeBytes(((BigInteger) value).toByteArray(), output);
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            output.writeByte(BIG_DECIMAL);
+            output.writeVarLong(zigZag(decimal.scale()));
+            writeBytes(decimal.unscaledValue().toByteArray(), output);
+        } else if (value instanceof Date) {
+            output.writeByte(DATE);
+            output.writeVarLong(zigZag(((Date) value).getTime()));
+        } else if (value instanceof byte[]) {
+            output.writeByte(BYTES);
+            writeBytes((byte[]) value, output);
+        } else if (value instanceof Enum<?>) {
+            output.writeByte(ENUM);
+            writeClass(((Enum<?>) value).getDeclaringClass(), null, output);
+            writeString(((Enum<?>) value).name(), output);
+        } else {
+            if (output.path.put(value, Boolean.TRUE) != null) {
+                throw new SerializationException("Cycle detected at an instance of "
+                    + value.getClass().getName() + ".");
+            }
+
+            Class<?> type = value.getClass();
+            boolean instantiable = (SCHEMAS.get(type).constructor != null);
+
+            if (value instanceof Map<?, ?>) {
+                Map<Object, Object> map = (Map<Object, Object>) value;
+
+                output.writeByte(MAP);
+                writeClass(instantiable ? type : HashMap.class, null, output);
+                output.writeVarLong(map.getCount());
+
+                for (Object key : map) {
+                    writeValue(key, output);
+                    writeValue(map.get(key), output);
+                }
+            } else if (value instanceof Sequence<?>) {
+                Sequence<?> sequence = (Sequence<?>) value;
+
+                if (value instanceof List<?> && instantiable) {
+                    output.writeByte(LIST);
+                    writeClass(type, null, output);
+                } else {
+                    output.writeByte(SEQUENCE);
+                }
+
+                int n = sequence.getLength();
+                output.writeVarLong(n);
+
+                for (int i = 0; i < n; i++) {
+                    writeValue(sequence.get(i), output);
+                }
+            } else {
+                Schema schema = SCHEMAS.get(type);
+                if (!instantiable) {
+                    throw new SerializationException("Instances of " + type.getName()
+                        + " can't be serialized.");
+                }
+
+                output.writeByte(BEAN);
+                writeClass(type, schema, output);
+
+                for (Method getter : schema.getters) {
+                    try {
+                        writeValue(getter.invoke(value), output);
+                    } catch (IllegalAccessException | InvocationTargetException exception) {
+                        throw new SerializationException(exception);
+                    }
+                }
+            }
+
+            output.path.remove(value);
+        }
+    }
+
+    private static void writeString(final String string, final Output output) throws IOException {
+        Integer index = output.strings.get(string);
+
+        if (index == null) {
+            output.writeByte(0);
+            writeBytes(string.getBytes(StandardCharsets.UTF_8), output);
+
+            if (string.length() <= MAX_SHARED_STRING_LENGTH) {
+                output.strings.put(string, output.strings.getCount());
+            }
+        } else {
+            output.writeVarLong(index + 1L);
+        }
+    }
+
+    private static void writeBytes(final byte[] bytes, final Output output) throws IOException {
+        output.writeVarLong(bytes.length);
+        output.writeBytes(bytes);
+    }
+
+    private static void writeClass(final Class<?> type, final Schema schema, final Output output)
+        throws IOException {
+        Integer index = output.classes.get(type);
+
+        if (index == null) {
+            output.writeByte(0);
+            writeString(type.getName(), output);
+
+            if (schema != null) {
+                output.writeVarLong(schema.names.length);
+                for (String name : schema.names) {
+                    writeString(name, output);
+                }
+            }
+
+            output.classes.put(type, output.classes.getCount());
+        } else {
+            output.writeVarLong(index + 1L);
+        }
+    }
+
+    private Object readValue(final Input input) throws IOException, SerializationException {
+        if (input.depth == MAX_DEPTH) {
+            throw new SerializationException("Values are nested more than " + MAX_DEPTH + " levels deep.");
+        }
+
+        input.depth++;
+
+        try {
+            return readValue(input, input.readByte());
+        } finally {
+            input.depth--;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object readValue(final Input input, final int tag) throws IOException, SerializationException {
+        Object value;
+
+        switch (tag) {
+            case NULL:
+                value = null;
+                break;
+
+            case FALSE:
+                value = Boolean.FALSE;
+                break;
+
+            case TRUE:
+                value = Boolean.TRUE;
+                break;
+
+            case BYTE:
+                value = Byte.valueOf((byte) input.readByte());
+                break;
+
+            case SHORT:
+                value = Short.valueOf((short) unZigZag(input.readVarLong()));
+                break;
+
+            case INTEGER:
+                value = Integer.valueOf((int) unZigZag(input.readVarLong()));
+                break;
+
+            case LONG:
+                value = Long.valueOf(unZigZag(input.readVarLong()));
+                break;
+
+            case FLOAT:
+                value = Float.valueOf(Float.intBitsToFloat((int) input.readVarLong()));
+                break;
+
+            case DOUBLE:
+                value = Double.valueOf(Double.longBitsToDouble(input.readLong()));
+                break;
+
+            case CHARACTER:
+                value = Character.valueOf((char) input.readVarLong());
+                break;
+
+            case STRING:
+                value = readString(input);
+                break;
+
+            case BIG_INTEGER:
+                value = new BigInteger(input.readBytes(input.readLength()));
+                break;
+
+            case BIG_DECIMAL:
+                int scale = (int) unZigZag(input.readVarLong());
+                value = new BigDecimal(new BigInteger(input.readBytes(input.readLength())), scale);
+                break;
+
+            case DATE:
+                value = new Date(unZigZag(input.readVarLong()));
+                break;
+
+            case BYTES:
+                value = input.readBytes(input.readLength());
+                break;
+
+            case ENUM:
+                ClassEntry enumEntry = readClass(tag, input);
+                String name = readString(input);
+
+                try {
+                    value = Enum.valueOf(enumEntry.type.asSubclass(Enum.class), name);
+                } catch (IllegalArgumentException exception) {
+                    throw new SerializationException(exception);
+                }
+
+                break;
+
+            case LIST:
+            case SEQUENCE:
+                List<Object> list = (tag == LIST) ? (List<Object>) newInstance(readClass(tag, input))
+                    : new ArrayList<>();
+
+                for (int i = 0, n = input.readLength(); i < n; i++) {
+                    list.add(readValue(input));
+                }
+
+                value = list;
+                break;
+
+            case MAP:
+                Map<Object, Object> map = (Map<Object, Object>) newInstance(readClass(tag, input));
+
+                for (int i = 0, n = input.readLength(); i < n; i++) {
+                    Object key = readValue(input);
+                    map.put(key, readValue(input));
+                }
+
+                value = map;
+                break;
+
+            case BEAN:
+                ClassEntry beanEntry = readClass(tag, input);
+                Object bean = newInstance(beanEntry);
+
+                for (int i = 0; i < beanEntry.propertyIndexes.length; i++) {
+                    Object propertyValue = readValue(input);
+
+                    int j = beanEntry.propertyIndexes[i];
+                    if (j != -1) {
+                        setProperty(bean, beanEntry.schema, j, propertyValue);
+                    }
+                }
+
+                value = bean;
+                break;
+
+            default:
+                throw new SerializationException("Unknown tag " + tag + ".");
+        }
+
+        return value;
+    }
+
+    private static String readString(final Input input) throws IOException, SerializationException {
+        int index = input.readLength();
+
+        if (index == 0) {
+            String string = new String(input.readBytes(input.readLength()), StandardCharsets.UTF_8);
+
+            if (string.length() <= MAX_SHARED_STRING_LENGTH) {
+                input.strings.add(string);
+            }
+
+            return string;
+        }
+
+        if (index > input.strings.getLength()) {
+            throw new SerializationException("Invalid string reference " + index + ".");
+        }
+
+        return input.strings.get(index - 1);
+    }
+
+    private ClassEntry readClass(final int tag, final Input input) throws IOException, SerializationException {
+        int index = input.readLength();
+
+        if (index > 0) {
+            if (index > input.classes.getLength()) {
+                throw new SerializationException("Invalid class reference " + index + ".");
+            }
+
+            return input.classes.get(index - 1);
+        }
+
+        String className = readString(input);
+
+        Class<?> type;
+        try {
+            type = Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException exception) {
+            throw new SerializationException(exception);
+        }
+
+        if (!typeFilter.test(type)) {
+            throw new SerializationException("Type " + className + " is not allowed.");
+        }
+
+        boolean valid;
+        switch (tag) {
+            case ENUM:
+                valid = type.isEnum();
+                break;
+
+            case LIST:
+                valid = List.class.isAssignableFrom(type);
+                break;
+
+            case MAP:
+                valid = Map.class.isAssignableFrom(type);
+                break;
+
+            default:
+                valid = !Sequence.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type);
+                break;
+        }
+
+        if (!valid) {
+            throw new SerializationException("Unexpected type " + className + ".");
+        }
+
+        Schema schema = null;
+        int[] propertyIndexes = null;
+
+        if (tag != ENUM) {
+            schema = SCHEMAS.get(type);
+            if (schema.constructor == null) {
+                throw new SerializationException("Type " + className + " can't be instantiated.");
+            }
+        }
+
+        if (tag == BEAN) {
+            propertyIndexes = new int[input.readLength()];
+            for (int i = 0; i < propertyIndexes.length; i++) {
+                propertyIndexes[i] = schema.indexOf(readString(input));
+            }
+        }
+
+        ClassEntry entry = new ClassEntry(type, schema, propertyIndexes);
+        input.classes.add(entry);
+
+        return entry;
+    }
+
+    private static Object newInstance(final ClassEntry entry) throws SerializationException {
+        try {
+            return entry.schema.constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException exception) {
+            throw new SerializationException(exception);
+        }
+    }
+
+    private static void setProperty(final Object bean, final Schema schema, final int index,
+        final Object value) throws SerializationException {
+        Method setter = schema.setters[index];
+        Class<?> propertyType = setter.getParameterTypes()[0];
+
+        try {
+            Object propertyValue = value;
+            if (value != null && !(propertyType.isPrimitive() || propertyType.isInstance(value))) {
+                // The property's type has changed since the bean was written
+                propertyValue = BeanAdapter.coerce(value, propertyType, schema.names[index]);
+            }
+
+            setter.invoke(bean, propertyValue);
+        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException exception) {
+            throw new SerializationException(exception);
+        }
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @Override
+    public String getMIMEType(final Object object) {
+        return MIME_TYPE;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.serialization;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * A {@link Serializer} that can also read its data directly from a file,
+ * without going through an {@link java.io.InputStream}: large files are
+ * memory-mapped, and text is decoded in large chunks straight from the
+ * channel rather than through a chain of readers.
+ *
+ * @param <T> The type of data being read and written.
+ * @see org.apache.pivot.io.FileChannels
+ */
+public interface FileChannelSerializer<T> extends Serializer<T> {
+    /**
+     * Reads an object from a file channel, from its current position to the
+     * end of the file.
+     *
+     * @param fileChannel The channel from which the object will be read.
+     * @param progress If not {@code null}, called as reading goes with the
+     * number of bytes read so far. It may throw an unchecked exception to
+     * abort the read.
+     * @return The deserialized object.
+     * @throws IOException for any errors accessing or reading the file.
+     * @throws SerializationException for any formatting errors encountered
+     * while deserializing the object.
+     */
+    public T readObject(FileChannel fileChannel, LongConsumer progress) throws IOException,
+        SerializationException;
+
+    /**
+     * Reads an object from a file.
+     *
+     * @param path The file from which the object will be read.
+     * @return The deserialized object.
+     * @throws IOException for any errors accessing or reading the file.
+     * @throws SerializationException for any formatting errors encountered
+     * while deserializing the object.
+     */
+    public default T readObject(final Path path) throws IOException, SerializationException {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readObject(fileChannel, null);
+        }
+    }
+}
@@ -19,17 +19,21 @@ package org.apache.pivot.serialization;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.Properties;
+import java.util.function.LongConsumer;
 
 import org.apache.pivot.collections.Map;
 import org.apache.pivot.collections.adapter.MapAdapter;
+import org.apache.pivot.io.FileChannels;
 import org.apache.pivot.util.Utils;
 
 /**
  * Implementation of the {@link Serializer} interface that reads data from and
  * writes data to the Java properties file format.
  */
-public class PropertiesSerializer implements Serializer<Map<?, ?>> {
+public class PropertiesSerializer implements FileChannelSerializer<Map<?, ?>> {
     public static final String PROPERTIES_EXTENSION = "properties";
     public static final String MIME_TYPE = "text/plain";
 
@@ -50,6 +54,26 @@ public class PropertiesSerializer implements Serializer<Map<?, ?>> {
         return new MapAdapter<>(properties);
     }
 
+    /**
+     * Reads data from a properties file, which (like a properties stream) is
+     * encoded in ISO-8859-1.
+     *
+     * @param fileChannel The file from which data will be read.
+     * @param progress Called with the number of bytes read so far, if not {@code null}.
+     * @return An instance of {@link Map} containing the data read from the
+     * properties file. Both keys and values are strings.
+     */
+    @Override
+    public Map<?, ?> readObject(final FileChannel fileChannel, final LongConsumer progress) throws IOException,
+        SerializationException {
+        Utils.checkNull(fileChannel, "fileChannel");
+
+        Properties properties = new Properties();
+        properties.load(FileChannels.newReader(fileChannel, StandardCharsets.ISO_8859_1, progress));
+
+        return new MapAdapter<>(properties);
+    }
+
     /**
      * Writes data to a properties stream.
      *
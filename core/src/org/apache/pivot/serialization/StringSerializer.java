@@ -22,9 +22,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.function.LongConsumer;
 
+import org.apache.pivot.io.FileChannels;
 import org.apache.pivot.util.Constants;
 import org.apache.pivot.util.Utils;
 
@@ -37,7 +40,7 @@ import org.apache.pivot.util.Utils;
  * instance data is used in the {@link #readObject} and {@link #writeObject}
  * methods.
  */
-public class StringSerializer implements Serializer<String> {
+public class StringSerializer implements FileChannelSerializer<String> {
     private final Charset charset;
 
     public static final String TEXT_EXTENSION = "txt";
@@ -91,6 +94,23 @@ public class StringSerializer implements Serializer<String> {
         return result;
     }
 
+    /**
+     * Reads plain text data from a file, interpreted by the given {@link Charset}.
+     * The file is read straight into an array of its size, and decoded from there.
+     *
+     * @param fileChannel The file from which data will be read.
+     * @param progress Called with the number of bytes read so far, if not {@code null}.
+     * @return The text read from the file.
+     * @see #getCharset
+     */
+    @Override
+    public String readObject(final FileChannel fileChannel, final LongConsumer progress) throws IOException,
+        SerializationException {
+        Utils.checkNull(fileChannel, "fileChannel");
+
+        return new String(FileChannels.readBytes(fileChannel, progress), charset);
+    }
+
     /**
      * Writes plain text data to an output stream, encoded in the given {@link Charset}.
      *
@@ -0,0 +1,637 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.sql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.pivot.annotations.UnsupportedOperation;
+import org.apache.pivot.collections.ArrayAdapter;
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.HashMap;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.ListListener;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.collections.MapListener;
+import org.apache.pivot.collections.Sequence;
+import org.apache.pivot.util.ListenerList;
+import org.apache.pivot.util.Utils;
+import org.apache.pivot.util.concurrent.Task;
+
+/**
+ * Read-only implementation of the {@link List} interface that provides random
+ * access to the rows of a scrollable {@link java.sql.ResultSet}, so that it
+ * can back a table view over a large query. <p> Rows are read a page at a
+ * time, and a limited number of recently used pages are kept; when a row near
+ * the end (or start) of its page is requested, the next (or previous) page is
+ * read in the background. Each row is a compact, read-only map whose values
+ * are held in an array, indexed by column. <p> The result set must not be
+ * {@link ResultSet#TYPE_FORWARD_ONLY forward-only}, and should be insensitive
+ * to changes in the database, since the length of the list is only determined
+ * once. The result set is only accessed by one thread at a time, but it
+ * shouldn't be used by anything else while the list is in use.
+ */
+public class PagedResultList implements List<Map<String, Object>> {
+    /**
+     * The columns read into each row, shared by the rows.
+     */
+    private static final class Columns {
+        private final int[] columnIndexes;
+        private final Class<?>[] types;
+        private final String[] keys;
+        private final HashMap<String, Integer> keyIndexes = new HashMap<>();
+        private final boolean includeNullValues;
+
+        private final MapListener.Listeners<String, Object> rowListeners = new MapListener.Listeners<>();
+
+        private Columns(final int[] columnIndexes, final Class<?>[] types, final String[] keys,
+            final boolean includeNullValues) {
+            this.columnIndexes = columnIndexes;
+            this.types = types;
+            this.keys = keys;
+            this.includeNullValues = includeNullValues;
+
+            for (int i = 0; i < keys.length; i++) {
+                keyIndexes.put(keys[i], i);
+            }
+        }
+    }
+
+    /**
+     * A row of the result set.
+     */
+    private static final class Row implements Map<String, Object> {
+        private final Columns columns;
+        private final int index;
+        private final Object[] values;
+
+        private Row(final Columns columns, final int index, final Object[] values) {
+            this.columns = columns;
+            this.index = index;
+            this.values = values;
+        }
+
+        private int indexOf(final String key) {
+            Integer columnIndex = columns.keyIndexes.get(key);
+            return (columnIndex == null
+                || (values[columnIndex.intValue()] == null && !columns.includeNullValues))
+                ? -1 : columnIndex.intValue();
+        }
+
+        @Override
+        public Object get(final String key) {
+            int columnIndex = indexOf(key);
+            return (columnIndex == -1) ? null : values[columnIndex];
+        }
+
+        @Override
+        public boolean containsKey(final String key) {
+            return (indexOf(key) != -1);
+        }
+
+        @Override
+        public int getCount() {
+            int count = 0;
+            for (Object value : values) {
+                if (value != null || columns.includeNullValues) {
+                    count++;
+                }
+            }
+
+            return count;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return (getCount() == 0);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int columnIndex = nextColumn(0);
+
+                private int nextColumn(final int from) {
+                    int i = from;
+                    while (i < values.length && values[i] == null && !columns.includeNullValues) {
+                        i++;
+                    }
+
+                    return i;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return (columnIndex < values.length);
+                }
+
+                @Override
+                public String next() {
+                    if (columnIndex >= values.length) {
+                        throw new NoSuchElementException();
+                    }
+
+                    String key = columns.keys[columnIndex];
+                    columnIndex = nextColumn(columnIndex + 1);
+
+                    return key;
+                }
+            };
+        }
+
+        @Override
+        @UnsupportedOperation
+        public Object put(final String key, final Object value) {
+            throw new UnsupportedOperationException(ERROR_MSG);
+        }
+
+        @Override
+        @UnsupportedOperation
+        public Object remove(final String key) {
+            throw new UnsupportedOperationException(ERROR_MSG);
+        }
+
+        @Override
+        @UnsupportedOperation
+        public void clear() {
+            throw new UnsupportedOperationException(ERROR_MSG);
+        }
+
+        @Override
+        public Comparator<String> getComparator() {
+            return null;
+        }
+
+        @Override
+        @UnsupportedOperation
+        public void setComparator(final Comparator<String> comparator) {
+            throw new UnsupportedOperationException(ERROR_MSG);
+        }
+
+        @Override
+        public ListenerList<MapListener<String, Object>> getMapListeners() {
+            return columns.rowListeners;
+        }
+    }
+
+    /**
+     * The most recently used pages, by page number.
+     */
+    private static final class PageCache extends LinkedHashMap<Integer, Row[]> {
+        private static final long serialVersionUID = -4187265103427394625L;
+
+        private int capacity;
+
+        PageCache(final int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final java.util.Map.Entry<Integer, Row[]> eldest) {
+            return (size() > capacity);
+        }
+    }
+
+    /**
+     * The default number of rows in a page.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * The default number of pages kept.
+     */
+    public static final int DEFAULT_MAXIMUM_PAGE_COUNT = 16;
+
+    private ResultSet resultSet;
+    private ExecutorService executorService;
+
+    private ArrayList<ResultList.Field> fields = new ArrayList<>();
+    private boolean includeNullValues = false;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    // The columns, resolved when the first page is read
+    private Columns columns = null;
+
+    private int length = -1;
+
+    // The cache is guarded by its own lock, the result set by the result set
+    private final PageCache pages = new PageCache(DEFAULT_MAXIMUM_PAGE_COUNT);
+    private final HashSet<Integer> prefetchedPages = new HashSet<>();
+
+    private ListListenerList<Map<String, Object>> listListeners = new ListListenerList<>();
+
+    private static final String ERROR_MSG = "Paged Result List is read-only.";
+
+    public PagedResultList(final ResultSet resultSet) {
+        this(resultSet, Task.DEFAULT_EXECUTOR_SERVICE);
+    }
+
+    /**
+     * @param resultSet The (scrollable) result set to provide access to.
+     * @param executorService The executor service used to read pages in the
+     * background, or {@code null} to only read pages when they are needed.
+     */
+    public PagedResultList(final ResultSet resultSet, final ExecutorService executorService) {
+        Utils.checkNull(resultSet, "resultSet");
+
+        try {
+            if (resultSet.getType() == ResultSet.TYPE_FORWARD_ONLY) {
+                throw new IllegalArgumentException("resultSet must be scrollable.");
+            }
+        } catch (SQLException exception) {
+            throw new RuntimeException(exception);
+        }
+
+        this.resultSet = resultSet;
+        this.executorService = executorService;
+    }
+
+    public ResultSet getResultSet() {
+        return resultSet;
+    }
+
+    public Sequence<ResultList.Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Sets the fields of each row. If no fields are set, every column of the
+     * result set is included, keyed by its label.
+     *
+     * @param fields The fields.
+     */
+    public void setFields(final Sequence<ResultList.Field> fields) {
+        Utils.checkNull(fields, "fields");
+
+        this.fields = new ArrayList<>(fields);
+        reset();
+    }
+
+    public void setFields(final ResultList.Field... fields) {
+        Utils.checkNull(fields, "fields");
+
+        setFields(new ArrayAdapter<>(fields));
+    }
+
+    public boolean getIncludeNullValues() {
+        return includeNullValues;
+    }
+
+    public void setIncludeNullValues(final boolean includeNullValues) {
+        this.includeNullValues = includeNullValues;
+        reset();
+    }
+
+    /**
+     * @return The number of rows read at a time.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the number of rows read at a time.
+     *
+     * @param pageSize The new page size.
+     */
+    public void setPageSize(final int pageSize) {
+        Utils.checkPositive(pageSize, "pageSize");
+
+        this.pageSize = pageSize;
+        reset();
+    }
+
+    /**
+     * @return The number of pages kept in memory.
+     */
+    public int getMaximumPageCount() {
+        synchronized (pages) {
+            return pages.capacity;
+        }
+    }
+
+    /**
+     * Sets the number of pages kept in memory. This should be enough for the
+     * rows that are shown at once, plus a page on either side.
+     *
+     * @param maximumPageCount The new number of pages.
+     */
+    public void setMaximumPageCount(final int maximumPageCount) {
+        Utils.checkPositive(maximumPageCount, "maximumPageCount");
+
+        synchronized (pages) {
+            pages.capacity = maximumPageCount;
+            pages.clear();
+        }
+    }
+
+    /**
+     * Discards the rows read so far, along with the column lookups.
+     */
+    private void reset() {
+        synchronized (resultSet) {
+            synchronized (pages) {
+                pages.clear();
+            }
+
+            columns = null;
+        }
+
+        listListeners.listCleared(this);
+    }
+
+    /**
+     * Looks up the columns of the fields, or of the result set if no fields
+     * have been set. Called with the result set locked.
+     */
+    private Columns resolveColumns() throws SQLException {
+        int n = fields.getLength();
+        int[] columnIndexes;
+        Class<?>[] types;
+        String[] keys;
+
+        if (n == 0) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            n = metaData.getColumnCount();
+
+            columnIndexes = new int[n];
+            types = new Class<?>[n];
+            keys = new String[n];
+
+            for (int i = 0; i < n; i++) {
+                columnIndexes[i] = i + 1;
+                keys[i] = metaData.getColumnLabel(i + 1);
+            }
+        } else {
+            columnIndexes = ResultList.getColumnIndexes(resultSet, fields);
+            types = new Class<?>[n];
+            keys = new String[n];
+
+            for (int i = 0; i < n; i++) {
+                ResultList.Field field = fields.get(i);
+                types[i] = field.type;
+                keys[i] = (field.key == null) ? field.columnName : field.key;
+            }
+        }
+
+        return new Columns(columnIndexes, types, keys, includeNullValues);
+    }
+
+    /**
+     * Returns a page of rows, reading it if it isn't in memory.
+     *
+     * @param page The page number.
+     * @return The rows of the page.
+     */
+    private Row[] getPage(final int page) {
+        Row[] rows;
+        synchronized (pages) {
+            rows = pages.get(page);
+        }
+
+        if (rows == null) {
+            synchronized (resultSet) {
+                // The page may have been read in the background meanwhile
+                synchronized (pages) {
+                    rows = pages.get(page);
+                }
+
+                if (rows == null) {
+                    try {
+                        rows = readPage(page);
+                    } catch (SQLException exception) {
+                        throw new RuntimeException(exception);
+                    }
+
+                    synchronized (pages) {
+                        pages.put(page, rows);
+                    }
+                }
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Reads a page of rows. Called with the result set locked.
+     */
+    private Row[] readPage(final int page) throws SQLException {
+        if (columns == null) {
+            columns = resolveColumns();
+        }
+
+        int[] columnIndexes = columns.columnIndexes;
+        Class<?>[] types = columns.types;
+
+        int start = page * pageSize;
+        Row[] rows = new Row[Math.min(pageSize, length - start)];
+
+        // Result set rows are numbered from 1
+        boolean valid = resultSet.absolute(start + 1);
+
+        for (int i = 0; i < rows.length; i++) {
+            if (!valid) {
+                throw new SQLException("Result set has fewer rows than expected.");
+            }
+
+            Object[] values = new Object[columnIndexes.length];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = ResultList.getValue(resultSet, columnIndexes[j], types[j]);
+            }
+
+            rows[i] = new Row(columns, start + i, values);
+
+            if (i < rows.length - 1) {
+                valid = resultSet.next();
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Reads a page in the background, unless it is in memory (or already
+     * being read).
+     *
+     * @param page The page number.
+     */
+    private void prefetch(final int page) {
+        if (executorService != null && page >= 0 && page * pageSize < length) {
+            synchronized (pages) {
+                if (pages.containsKey(page) || !prefetchedPages.add(page)) {
+                    return;
+                }
+            }
+
+            try {
+                executorService.submit(() -> {
+                    try {
+                        getPage(page);
+                    } catch (RuntimeException exception) {
+                        // The same error will be thrown when the page is needed
+                    } finally {
+                        synchronized (pages) {
+                            prefetchedPages.remove(page);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException exception) {
+                // The page will be read when it is needed
+                synchronized (pages) {
+                    prefetchedPages.remove(page);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> get(final int index) {
+        Utils.checkIndexBounds(index, 0, getLength() - 1);
+
+        int page = index / pageSize;
+        int offset = index % pageSize;
+        Row row = getPage(page)[offset];
+
+        // Read ahead as the rows being viewed approach either end of the page
+        int distance = Math.max(pageSize / 4, 1);
+        if (offset >= pageSize - distance) {
+            prefetch(page + 1);
+        } else if (offset < distance) {
+            prefetch(page - 1);
+        }
+
+        return row;
+    }
+
+    @Override
+    public int indexOf(final Map<String, Object> item) {
+        int index = -1;
+
+        if (item instanceof Row) {
+            Row row = (Row) item;
+
+            if (row.index < getLength() && get(row.index) == row) {
+                index = row.index;
+            }
+        }
+
+        return index;
+    }
+
+    @Override
+    public int getLength() {
+        if (length == -1) {
+            synchronized (resultSet) {
+                try {
+                    length = resultSet.last() ? resultSet.getRow() : 0;
+                } catch (SQLException exception) {
+                    throw new RuntimeException(exception);
+                }
+            }
+        }
+
+        return length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return (getLength() == 0);
+    }
+
+    @Override
+    public Iterator<Map<String, Object>> iterator() {
+        return new Iterator<Map<String, Object>>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return (index < getLength());
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (index >= getLength()) {
+                    throw new NoSuchElementException();
+                }
+
+                return get(index++);
+            }
+        };
+    }
+
+    @Override
+    @UnsupportedOperation
+    public int add(final Map<String, Object> item) {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    @Override
+    @UnsupportedOperation
+    public void insert(final Map<String, Object> item, final int index) {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    @Override
+    @UnsupportedOperation
+    public Map<String, Object> update(final int index, final Map<String, Object> item) {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    @Override
+    @UnsupportedOperation
+    public int remove(final Map<String, Object> item) {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    @Override
+    @UnsupportedOperation
+    public Sequence<Map<String, Object>> remove(final int index, final int count) {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    @Override
+    @UnsupportedOperation
+    public void clear() {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    @Override
+    public Comparator<Map<String, Object>> getComparator() {
+        return null;
+    }
+
+    @Override
+    @UnsupportedOperation
+    public void setComparator(final Comparator<Map<String, Object>> comparator) {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    @Override
+    public ListenerList<ListListener<Map<String, Object>>> getListListeners() {
+        return listListeners;
+    }
+}
@@ -17,7 +17,9 @@
 package org.apache.pivot.sql;
 
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
@@ -26,6 +28,7 @@ import java.util.NoSuchElementException;
 import org.apache.pivot.annotations.UnsupportedOperation;
 import org.apache.pivot.collections.ArrayAdapter;
 import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.ColumnTable;
 import org.apache.pivot.collections.HashMap;
 import org.apache.pivot.collections.List;
 import org.apache.pivot.collections.ListListener;
@@ -37,7 +40,8 @@ import org.apache.pivot.util.Utils;
 /**
  * Implementation of the {@link List} interface that is backed by a instance of
  * {@link java.sql.ResultSet}. <p> Note that this list is not suitable for
- * random access and can only be navigated via an iterator.
+ * random access and can only be navigated via an iterator; see
+ * {@link PagedResultList} for a list that is.
  */
 public class ResultList implements List<Map<String, Object>> {
     /**
@@ -94,6 +98,7 @@ public class ResultList implements List<Map<String, Object>> {
     private class ResultListItemIterator implements Iterator<Map<String, Object>> {
         private boolean hasNext = true;
         private boolean moveNext = true;
+        private int[] columnIndexes = null;
 
         @Override
         public boolean hasNext() {
@@ -118,34 +123,14 @@ public class ResultList implements List<Map<String, Object>> {
             HashMap<String, Object> item = new HashMap<>();
 
             try {
-                for (Field field : fields) {
-                    Object value;
-
-                    if (field.type == Boolean.class || field.type == Boolean.TYPE) {
-                        value = resultSet.getBoolean(field.columnName);
-                    } else if (field.type == Byte.class || field.type == Byte.TYPE) {
-                        value = resultSet.getByte(field.columnName);
-                    } else if (field.type == Short.class || field.type == Short.TYPE) {
-                        value = resultSet.getShort(field.columnName);
-                    } else if (field.type == Integer.class || field.type == Integer.TYPE) {
-                        value = resultSet.getInt(field.columnName);
-                    } else if (field.type == Long.class || field.type == Long.TYPE) {
-                        value = resultSet.getLong(field.columnName);
-                    } else if (field.type == Float.class || field.type == Float.TYPE) {
-                        value = resultSet.getFloat(field.columnName);
-                    } else if (field.type == Double.class || field.type == Double.TYPE) {
-                        value = resultSet.getDouble(field.columnName);
-                    } else if (field.type == String.class) {
-                        value = resultSet.getString(field.columnName);
-                    } else if (field.type == Date.class) {
-                        value = resultSet.getDate(field.columnName);
-                    } else {
-                        value = resultSet.getObject(field.columnName);
-                    }
+                // Look the columns up once, rather than by name for every row
+                if (columnIndexes == null) {
+                    columnIndexes = getColumnIndexes(resultSet, fields);
+                }
 
-                    if (resultSet.wasNull()) {
-                        value = null;
-                    }
+                for (int i = 0, n = fields.getLength(); i < n; i++) {
+                    Field field = fields.get(i);
+                    Object value = getValue(resultSet, columnIndexes[i], field.type);
 
                     if (value != null || includeNullValues) {
                         item.put((field.key == null) ? field.columnName : field.key, value);
@@ -167,6 +152,66 @@ public class ResultList implements List<Map<String, Object>> {
         }
     }
 
+    /**
+     * Finds the result set columns of the given fields.
+     *
+     * @param resultSet The result set.
+     * @param fields The fields.
+     * @return The (1-based) column index of each field.
+     * @throws SQLException if a column can't be found.
+     */
+    static int[] getColumnIndexes(ResultSet resultSet, Sequence<Field> fields) throws SQLException {
+        int[] columnIndexes = new int[fields.getLength()];
+
+        for (int i = 0; i < columnIndexes.length; i++) {
+            columnIndexes[i] = resultSet.findColumn(fields.get(i).columnName);
+        }
+
+        return columnIndexes;
+    }
+
+    /**
+     * Reads a value from the current row of a result set.
+     *
+     * @param resultSet The result set.
+     * @param columnIndex The (1-based) index of the column to read.
+     * @param type The type of the value, or {@code null} for the default SQL
+     * type.
+     * @return The value, or {@code null} if it is SQL {@code NULL}.
+     * @throws SQLException if the value can't be read.
+     */
+    static Object getValue(ResultSet resultSet, int columnIndex, Class<?> type) throws SQLException {
+        Object value;
+
+        if (type == Boolean.class || type == Boolean.TYPE) {
+            value = resultSet.getBoolean(columnIndex);
+        } else if (type == Byte.class || type == Byte.TYPE) {
+            value = resultSet.getByte(columnIndex);
+        } else if (type == Short.class || type == Short.TYPE) {
+            value = resultSet.getShort(columnIndex);
+        } else if (type == Integer.class || type == Integer.TYPE) {
+            value = resultSet.getInt(columnIndex);
+        } else if (type == Long.class || type == Long.TYPE) {
+            value = resultSet.getLong(columnIndex);
+        } else if (type == Float.class || type == Float.TYPE) {
+            value = resultSet.getFloat(columnIndex);
+        } else if (type == Double.class || type == Double.TYPE) {
+            value = resultSet.getDouble(columnIndex);
+        } else if (type == String.class) {
+            value = resultSet.getString(columnIndex);
+        } else if (type == Date.class) {
+            value = resultSet.getDate(columnIndex);
+        } else {
+            value = resultSet.getObject(columnIndex);
+        }
+
+        if (resultSet.wasNull()) {
+            value = null;
+        }
+
+        return value;
+    }
+
     private ResultSet resultSet;
     private ArrayList<Field> fields = new ArrayList<>();
     private boolean includeNullValues = false;
@@ -210,6 +255,107 @@ public class ResultList implements List<Map<String, Object>> {
         this.includeNullValues = includeNullValues;
     }
 
+    /**
+     * Reads the remaining rows of the result set into a table, whose columns
+     * are named by the field keys. Numeric and boolean values are read with
+     * the result set's primitive getters and stored without boxing; the type
+     * of each column is that of its field or, if the field has no type, the
+     * one that best fits its SQL type. Values are read back as the same class
+     * as when iterating this list: fields of type byte, short or float, and
+     * untyped {@code REAL} columns, are stored as objects rather than widened
+     * (see {@link ColumnTable.ColumnType#forClass}). Null values are left out
+     * of the rows whatever the {@linkplain #setIncludeNullValues include null
+     * values} setting.
+     *
+     * @return A table holding the rows read from the result set.
+     * @throws SQLException if the result set can't be read.
+     */
+    public ColumnTable toTable() throws SQLException {
+        int n = fields.getLength();
+        int[] columnIndexes = getColumnIndexes(resultSet, fields);
+        ResultSetMetaData metaData = resultSet.getMetaData();
+
+        ColumnTable.Column[] columns = new ColumnTable.Column[n];
+        for (int i = 0; i < n; i++) {
+            Field field = fields.get(i);
+            ColumnTable.ColumnType type = (field.type == null)
+                ? getColumnType(metaData.getColumnType(columnIndexes[i]))
+                : ColumnTable.ColumnType.forClass(field.type);
+
+            columns[i] = new ColumnTable.Column((field.key == null) ? field.columnName : field.key,
+                type);
+        }
+
+        ColumnTable table = new ColumnTable(columns);
+
+        while (resultSet.next()) {
+            int row = table.addRow();
+
+            for (int i = 0; i < n; i++) {
+                int columnIndex = columnIndexes[i];
+
+                switch (columns[i].type) {
+                    case BOOLEAN: {
+                        boolean value = resultSet.getBoolean(columnIndex);
+                        if (!resultSet.wasNull()) {
+                            table.setBoolean(row, i, value);
+                        }
+                        break;
+                    }
+
+                    case INT: {
+                        int value = resultSet.getInt(columnIndex);
+                        if (!resultSet.wasNull()) {
+                            table.setInt(row, i, value);
+                        }
+                        break;
+                    }
+
+                    case LONG: {
+                        long value = resultSet.getLong(columnIndex);
+                        if (!resultSet.wasNull()) {
+                            table.setLong(row, i, value);
+                        }
+                        break;
+                    }
+
+                    case DOUBLE: {
+                        double value = resultSet.getDouble(columnIndex);
+                        if (!resultSet.wasNull()) {
+                            table.setDouble(row, i, value);
+                        }
+                        break;
+                    }
+
+                    default:
+                        table.setValue(row, i, getValue(resultSet, columnIndex, fields.get(i).type));
+                        break;
+                }
+            }
+        }
+
+        return table;
+    }
+
+    private static ColumnTable.ColumnType getColumnType(int sqlType) {
+        switch (sqlType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return ColumnTable.ColumnType.BOOLEAN;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return ColumnTable.ColumnType.INT;
+            case Types.BIGINT:
+                return ColumnTable.ColumnType.LONG;
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return ColumnTable.ColumnType.DOUBLE;
+            default:
+                return ColumnTable.ColumnType.OBJECT;
+        }
+    }
+
     @Override
     @UnsupportedOperation
     public int add(Map<String, Object> item) {
@@ -50,6 +50,8 @@ public final class Constants {
     /** The secure HTTP protocol identifier. */
     public static final String HTTPS_PROTOCOL = "https";
 
+    /** Standard name of the HTTP header for the content types a client accepts. */
+    public static final String ACCEPT_HEADER = "Accept";
     /** Standard name of the HTTP header for the content type. */
     public static final String CONTENT_TYPE_HEADER = "Content-Type";
     /** Standard name of the HTTP header for the content length. */
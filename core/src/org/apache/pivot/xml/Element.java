@@ -16,6 +16,7 @@
  */
 package org.apache.pivot.xml;
 
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 
@@ -120,7 +121,7 @@ public class Element extends Node implements List<Node> {
             if (previousValue != value) {
                 this.value = value;
 
-                if (element != null) {
+                if (element != null && element.elementListeners != null) {
                     element.elementListeners.attributeValueChanged(this, previousValue);
                 }
             }
@@ -209,16 +210,30 @@ public class Element extends Node implements List<Node> {
             }
 
             String attributeName = attribute.getName();
-            if (attributeMap.containsKey(attributeName)) {
+            if (getAttribute(attributeName) != null) {
                 throw new IllegalArgumentException("Attribute \"" + attributeName
                     + "\" already exists in this element.");
             }
 
+            if (attributes == null) {
+                attributes = new ArrayList<>(1);
+            }
+
             attributes.insert(attribute, index);
-            attributeMap.put(attributeName, attribute);
             attribute.element = Element.this;
 
-            elementListeners.attributeInserted(Element.this, index);
+            if (attributeMap != null) {
+                attributeMap.put(attributeName, attribute);
+            } else if (attributes.getLength() > ATTRIBUTE_MAP_THRESHOLD) {
+                attributeMap = new HashMap<>();
+                for (Attribute existingAttribute : attributes) {
+                    attributeMap.put(existingAttribute.getName(), existingAttribute);
+                }
+            }
+
+            if (elementListeners != null) {
+                elementListeners.attributeInserted(Element.this, index);
+            }
         }
 
         /**
@@ -256,16 +271,24 @@ public class Element extends Node implements List<Node> {
          */
         @Override
         public Sequence<Attribute> remove(int index, int count) {
+            if (attributes == null) {
+                Utils.checkIndexBounds(index, count, 0, 0);
+                return new ArrayList<>(0);
+            }
+
             Sequence<Attribute> removed = attributes.remove(index, count);
             if (count > 0) {
                 for (int i = 0, n = removed.getLength(); i < n; i++) {
                     Attribute attribute = removed.get(i);
-                    String attributeName = attribute.getName();
-                    attributeMap.remove(attributeName);
+                    if (attributeMap != null) {
+                        attributeMap.remove(attribute.getName());
+                    }
                     attribute.element = null;
                 }
 
-                elementListeners.attributesRemoved(Element.this, index, removed);
+                if (elementListeners != null) {
+                    elementListeners.attributesRemoved(Element.this, index, removed);
+                }
             }
 
             return removed;
@@ -280,6 +303,10 @@ public class Element extends Node implements List<Node> {
          */
         @Override
         public Attribute get(int index) {
+            if (attributes == null) {
+                Utils.checkZeroBasedIndex(index, 0);
+            }
+
             return attributes.get(index);
         }
 
@@ -291,7 +318,7 @@ public class Element extends Node implements List<Node> {
          */
         @Override
         public int indexOf(Attribute attribute) {
-            return attributes.indexOf(attribute);
+            return (attributes == null) ? -1 : attributes.indexOf(attribute);
         }
 
         /**
@@ -299,7 +326,7 @@ public class Element extends Node implements List<Node> {
          */
         @Override
         public int getLength() {
-            return attributes.getLength();
+            return (attributes == null) ? 0 : attributes.getLength();
         }
 
         /**
@@ -307,7 +334,8 @@ public class Element extends Node implements List<Node> {
          */
         @Override
         public Iterator<Attribute> iterator() {
-            return new ImmutableIterator<>(attributes.iterator());
+            return (attributes == null) ? Collections.emptyIterator()
+                : new ImmutableIterator<>(attributes.iterator());
         }
     }
 
@@ -327,7 +355,7 @@ public class Element extends Node implements List<Node> {
          */
         @Override
         public String get(String prefix) {
-            return namespaces.get(prefix);
+            return (namespaces == null) ? null : namespaces.get(prefix);
         }
 
         /**
@@ -342,12 +370,18 @@ public class Element extends Node implements List<Node> {
             Utils.checkNull(uri, "uri");
 
             boolean update = containsKey(prefix);
+            if (namespaces == null) {
+                namespaces = new HashMap<>();
+            }
+
             String previousURI = namespaces.put(prefix, uri);
 
-            if (update) {
-                elementListeners.namespaceUpdated(Element.this, prefix, previousURI);
-            } else {
-                elementListeners.namespaceAdded(Element.this, prefix);
+            if (elementListeners != null) {
+                if (update) {
+                    elementListeners.namespaceUpdated(Element.this, prefix, previousURI);
+                } else {
+                    elementListeners.namespaceAdded(Element.this, prefix);
+                }
             }
 
             return previousURI;
@@ -365,7 +399,10 @@ public class Element extends Node implements List<Node> {
 
             if (containsKey(prefix)) {
                 uri = namespaces.remove(prefix);
-                elementListeners.namespaceRemoved(Element.this, prefix, uri);
+
+                if (elementListeners != null) {
+                    elementListeners.namespaceRemoved(Element.this, prefix, uri);
+                }
             }
 
             return uri;
@@ -380,7 +417,7 @@ public class Element extends Node implements List<Node> {
          */
         @Override
         public boolean containsKey(String prefix) {
-            return namespaces.containsKey(prefix);
+            return (namespaces != null && namespaces.containsKey(prefix));
         }
 
         /**
@@ -388,7 +425,8 @@ public class Element extends Node implements List<Node> {
          */
         @Override
         public Iterator<String> iterator() {
-            return new ImmutableIterator<>(namespaces.iterator());
+            return (namespaces == null) ? Collections.emptyIterator()
+                : new ImmutableIterator<>(namespaces.iterator());
         }
     }
 
@@ -408,7 +446,7 @@ public class Element extends Node implements List<Node> {
          */
         @Override
         public String get(String attributeName) {
-            Attribute attribute = attributeMap.get(attributeName);
+            Attribute attribute = getAttribute(attributeName);
             return (attribute == null) ? null : attribute.getValue();
         }
 
@@ -424,7 +462,7 @@ public class Element extends Node implements List<Node> {
         public String put(String attributeName, String value) {
             String previousValue;
 
-            Attribute attribute = attributeMap.get(attributeName);
+            Attribute attribute = getAttribute(attributeName);
             if (attribute == null) {
                 previousValue = null;
 
@@ -439,7 +477,7 @@ public class Element extends Node implements List<Node> {
                     localNameElementDictionary = attributeName.substring(i + 1);
                 }
 
-                attributeSequence.add(new Attribute(namespacePrefixElementDictionary,
+                getAttributes().add(new Attribute(namespacePrefixElementDictionary,
                     localNameElementDictionary, value));
             } else {
                 previousValue = attribute.getValue();
@@ -458,9 +496,9 @@ public class Element extends Node implements List<Node> {
          */
         @Override
         public String remove(String attributeName) {
-            Attribute attribute = attributeMap.get(attributeName);
+            Attribute attribute = getAttribute(attributeName);
             if (attribute != null) {
-                attributeSequence.remove(attribute);
+                getAttributes().remove(attribute);
             }
 
             return (attribute == null) ? null : attribute.getValue();
@@ -475,7 +513,7 @@ public class Element extends Node implements List<Node> {
          */
         @Override
         public boolean containsKey(String attributeName) {
-            return attributeMap.containsKey(attributeName);
+            return (getAttribute(attributeName) != null);
         }
 
     }
@@ -483,19 +521,32 @@ public class Element extends Node implements List<Node> {
     private String namespacePrefix;
     private String localName;
 
+    // A large document has a great many elements, most of which have no
+    // namespaces, attributes or listeners and few children, so the storage
+    // for each is only allocated when it is first needed
     private String defaultNamespaceURI = null;
-    private HashMap<String, String> namespaces = new HashMap<>();
-    private NamespaceDictionary namespaceDictionary = new NamespaceDictionary();
-    private ElementDictionary elementDictionary = new ElementDictionary();
+    private HashMap<String, String> namespaces = null;
+    private NamespaceDictionary namespaceDictionary = null;
+    private ElementDictionary elementDictionary = null;
+
+    private ArrayList<Attribute> attributes = null;
+    private AttributeSequence attributeSequence = null;
+    private HashMap<String, Attribute> attributeMap = null;
 
-    private ArrayList<Attribute> attributes = new ArrayList<>();
-    private AttributeSequence attributeSequence = new AttributeSequence();
-    private HashMap<String, Attribute> attributeMap = new HashMap<>();
+    private ArrayList<Node> nodes = null;
 
-    private ArrayList<Node> nodes = new ArrayList<>();
+    // Child elements by name, built when the children are first looked up by
+    // name and discarded when they change
+    private HashMap<String, ArrayList<Element>> elementIndex = null;
 
-    private ListListenerList<Node> listListeners = new ListListenerList<>();
-    private ElementListener.Listeners elementListeners = new ElementListener.Listeners();
+    private ListListenerList<Node> listListeners = null;
+    private ElementListener.Listeners elementListeners = null;
+
+    /**
+     * The number of attributes above which they are also kept in a hash map,
+     * rather than only looked up by a linear search.
+     */
+    private static final int ATTRIBUTE_MAP_THRESHOLD = 8;
 
     public Element(String localName) {
         this(null, localName);
@@ -563,7 +614,10 @@ public class Element extends Node implements List<Node> {
 
         if (previousDefaultNamespaceURI != defaultNamespaceURI) {
             this.defaultNamespaceURI = defaultNamespaceURI;
-            elementListeners.defaultNamespaceURIChanged(this, previousDefaultNamespaceURI);
+
+            if (elementListeners != null) {
+                elementListeners.defaultNamespaceURIChanged(this, previousDefaultNamespaceURI);
+            }
         }
     }
 
@@ -571,6 +625,10 @@ public class Element extends Node implements List<Node> {
      * @return The element's namespace dictionary.
      */
     public NamespaceDictionary getNamespaces() {
+        if (namespaceDictionary == null) {
+            namespaceDictionary = new NamespaceDictionary();
+        }
+
         return namespaceDictionary;
     }
 
@@ -594,7 +652,7 @@ public class Element extends Node implements List<Node> {
                 namespaceURI = defaultNamespaceURI;
             }
         } else {
-            if (namespaces.containsKey(prefix)) {
+            if (namespaces != null && namespaces.containsKey(prefix)) {
                 namespaceURI = namespaces.get(prefix);
             } else {
                 namespaceURI = parent.getNamespaceURI(prefix);
@@ -608,6 +666,10 @@ public class Element extends Node implements List<Node> {
      * @return The element's element dictionary.
      */
     public ElementDictionary getElementDictionary() {
+        if (elementDictionary == null) {
+            elementDictionary = new ElementDictionary();
+        }
+
         return elementDictionary;
     }
 
@@ -615,9 +677,31 @@ public class Element extends Node implements List<Node> {
      * @return The element's attribute dictionary.
      */
     public AttributeSequence getAttributes() {
+        if (attributeSequence == null) {
+            attributeSequence = new AttributeSequence();
+        }
+
         return attributeSequence;
     }
 
+    private Attribute getAttribute(String attributeName) {
+        Attribute attribute = null;
+
+        if (attributeMap != null) {
+            attribute = attributeMap.get(attributeName);
+        } else if (attributes != null) {
+            for (int i = 0, n = attributes.getLength(); i < n; i++) {
+                Attribute candidate = attributes.get(i);
+                if (candidate.getName().equals(attributeName)) {
+                    attribute = candidate;
+                    break;
+                }
+            }
+        }
+
+        return attribute;
+    }
+
     /**
      * Adds a node to this element.
      *
@@ -645,9 +729,18 @@ public class Element extends Node implements List<Node> {
             throw new IllegalArgumentException("Node already belongs to another parent.");
         }
 
+        if (nodes == null) {
+            Utils.checkIndexBounds(index, 0, 0);
+            nodes = new ArrayList<>(1);
+        }
+
         nodes.insert(node, index);
         node.setParent(this);
-        listListeners.itemInserted(this, index);
+        elementIndex = null;
+
+        if (listListeners != null) {
+            listListeners.itemInserted(this, index);
+        }
     }
 
     /**
@@ -685,6 +778,11 @@ public class Element extends Node implements List<Node> {
      */
     @Override
     public Sequence<Node> remove(int index, int count) {
+        if (nodes == null) {
+            Utils.checkIndexBounds(index, count, 0, 0);
+            return new ArrayList<>(0);
+        }
+
         Sequence<Node> removed = nodes.remove(index, count);
         if (count > 0) {
             for (int i = 0, n = removed.getLength(); i < n; i++) {
@@ -692,7 +790,11 @@ public class Element extends Node implements List<Node> {
                 node.setParent(null);
             }
 
-            listListeners.itemsRemoved(this, index, removed);
+            elementIndex = null;
+
+            if (listListeners != null) {
+                listListeners.itemsRemoved(this, index, removed);
+            }
         }
 
         return removed;
@@ -710,7 +812,11 @@ public class Element extends Node implements List<Node> {
             }
 
             nodes.clear();
-            listListeners.listCleared(this);
+            elementIndex = null;
+
+            if (listListeners != null) {
+                listListeners.listCleared(this);
+            }
         }
     }
 
@@ -723,6 +829,10 @@ public class Element extends Node implements List<Node> {
      */
     @Override
     public Node get(int index) {
+        if (nodes == null) {
+            Utils.checkZeroBasedIndex(index, 0);
+        }
+
         return nodes.get(index);
     }
 
@@ -734,7 +844,7 @@ public class Element extends Node implements List<Node> {
      */
     @Override
     public int indexOf(Node node) {
-        return nodes.indexOf(node);
+        return (nodes == null) ? -1 : nodes.indexOf(node);
     }
 
     /**
@@ -742,7 +852,7 @@ public class Element extends Node implements List<Node> {
      */
     @Override
     public int getLength() {
-        return nodes.getLength();
+        return (nodes == null) ? 0 : nodes.getLength();
     }
 
     /**
@@ -767,7 +877,8 @@ public class Element extends Node implements List<Node> {
      */
     @Override
     public Iterator<Node> iterator() {
-        return new ImmutableIterator<>(nodes.iterator());
+        return (nodes == null) ? Collections.emptyIterator()
+            : new ImmutableIterator<>(nodes.iterator());
     }
 
     /**
@@ -778,7 +889,7 @@ public class Element extends Node implements List<Node> {
      */
     @Override
     public boolean isEmpty() {
-        return attributeMap.isEmpty();
+        return (attributes == null || attributes.isEmpty());
     }
 
     /**
@@ -790,21 +901,38 @@ public class Element extends Node implements List<Node> {
      * no elements matched the given tag name.
      */
     public List<Element> getElements(String name) {
-        ArrayList<Element> elements = new ArrayList<>();
+        return new ArrayList<>(getIndexedElements(name));
+    }
+
+    /**
+     * Returns the sub-elements of this element with the given name, from an
+     * index of the children by name that is built on the first call and kept
+     * until the children change; the returned list must not be modified.
+     */
+    Sequence<Element> getIndexedElements(String name) {
+        if (elementIndex == null) {
+            elementIndex = new HashMap<>();
+
+            for (int i = 0, n = getLength(); i < n; i++) {
+                Node node = nodes.get(i);
 
-        for (int i = 0, n = getLength(); i < n; i++) {
-            Node node = get(i);
+                if (node instanceof Element) {
+                    Element element = (Element) node;
+                    String elementName = element.getName();
 
-            if (node instanceof Element) {
-                Element element = (Element) node;
+                    ArrayList<Element> elements = elementIndex.get(elementName);
+                    if (elements == null) {
+                        elements = new ArrayList<>(1);
+                        elementIndex.put(elementName, elements);
+                    }
 
-                if (element.getName().equals(name)) {
                     elements.add(element);
                 }
             }
         }
 
-        return elements;
+        ArrayList<Element> elements = elementIndex.get(name);
+        return (elements == null) ? new ArrayList<>(0) : elements;
     }
 
     /**
@@ -835,6 +963,10 @@ public class Element extends Node implements List<Node> {
      */
     @Override
     public ListenerList<ListListener<Node>> getListListeners() {
+        if (listListeners == null) {
+            listListeners = new ListListenerList<>();
+        }
+
         return listListeners;
     }
 
@@ -842,6 +974,10 @@ public class Element extends Node implements List<Node> {
      * @return The element listener list.
      */
     public ListenerList<ElementListener> getElementListeners() {
+        if (elementListeners == null) {
+            elementListeners = new ElementListener.Listeners();
+        }
+
         return elementListeners;
     }
 
@@ -24,7 +24,7 @@ import org.apache.pivot.util.ListenerList;
 public abstract class Node {
     private Element parent = null;
 
-    private NodeListener.Listeners nodeListeners = new NodeListener.Listeners();
+    private NodeListener.Listeners nodeListeners = null;
 
     /**
      * @return The parent element of the node.
@@ -42,13 +42,19 @@ public abstract class Node {
         Element previousParent = this.parent;
         this.parent = parent;
 
-        nodeListeners.parentChanged(this, previousParent);
+        if (nodeListeners != null) {
+            nodeListeners.parentChanged(this, previousParent);
+        }
     }
 
     /**
      * @return The node listener list.
      */
     public ListenerList<NodeListener> getNodeListeners() {
+        if (nodeListeners == null) {
+            nodeListeners = new NodeListener.Listeners();
+        }
+
         return nodeListeners;
     }
 }
@@ -18,6 +18,7 @@ package org.apache.pivot.xml;
 
 import org.apache.pivot.collections.ArrayList;
 import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Sequence;
 import org.apache.pivot.util.Utils;
 
 /**
@@ -40,6 +41,7 @@ public final class XML {
      * the path refers to the first occurrence of the named element (i.e. the
      * element at index 0).
      * @return The matching element, or {@code null} if no such element exists.
+     * @see XMLPath
      */
     public static Element getElement(final Element root, final String path) {
         Utils.checkNull(root, "root");
@@ -69,26 +71,9 @@ public final class XML {
                     trailingBracketIndex));
             }
 
-            int j = 0;
-            int k = 0;
-            for (Node node : current) {
-                if (node instanceof Element) {
-                    Element element = (Element) node;
-
-                    if (element.getName().equals(tagName)) {
-                        if (k == index) {
-                            break;
-                        }
-
-                        k++;
-                    }
-                }
-
-                j++;
-            }
-
-            if (j < current.getLength()) {
-                current = (Element) current.get(j);
+            Sequence<Element> elements = current.getIndexedElements(tagName);
+            if (index >= 0 && index < elements.getLength()) {
+                current = elements.get(index);
             } else {
                 current = null;
                 break;
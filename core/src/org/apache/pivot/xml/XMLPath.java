@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.xml;
+
+import java.util.function.Predicate;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.HashSet;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Sequence;
+import org.apache.pivot.util.Utils;
+
+/**
+ * A compiled path query over an XML element tree. <p> A path is a sequence of
+ * steps separated by "/", each of which selects child elements by tag name,
+ * or any child element with "*", optionally followed by a bracketed index
+ * that selects the <i>n</i>th such child of its parent (starting at 0). A step
+ * preceded by "//" instead of "/" selects matching elements at any depth. For
+ * instance, <pre> channel/item[0]/title </pre> selects the title of the first
+ * item of each channel, and <pre> //item/* </pre> the children of every item
+ * in the tree. Paths are relative to the element they are evaluated against.
+ * <p> Compiling a path once and evaluating it many times avoids parsing it
+ * each time, and steps by name are looked up in an index of each element's
+ * children rather than by walking them. A compiled path is immutable and may
+ * be shared between threads (though the element trees may not).
+ *
+ * @see XMLSerializer#readElements(java.io.Reader, XMLPath, java.util.function.Consumer)
+ */
+public final class XMLPath {
+    private final String path;
+
+    // For each step: the tag name (null for "*"), the index (-1 if none),
+    // and whether it matches at any depth
+    private final String[] names;
+    private final int[] indexes;
+    private final boolean[] descendants;
+
+    private XMLPath(final String path, final String[] names, final int[] indexes,
+        final boolean[] descendants) {
+        this.path = path;
+        this.names = names;
+        this.indexes = indexes;
+        this.descendants = descendants;
+    }
+
+    /**
+     * Compiles a path.
+     *
+     * @param path The path, as described above.
+     * @return The compiled path.
+     * @throws IllegalArgumentException if the path is not valid.
+     */
+    public static XMLPath compile(final String path) {
+        Utils.checkNullOrEmpty(path, "path");
+
+        ArrayList<String> stepNames = new ArrayList<>();
+        ArrayList<Integer> stepIndexes = new ArrayList<>();
+        ArrayList<Boolean> stepDescendants = new ArrayList<>();
+
+        int length = path.length();
+
+        // A leading "//" applies to the first step
+        boolean descendant = path.startsWith("//");
+        int start = descendant ? 2 : 0;
+
+        while (start <= length) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+
+            String step = path.substring(start, end).trim();
+
+            if (step.length() == 0) {
+                if (descendant || start == 0 || end == length) {
+                    throw new IllegalArgumentException("Empty step in path \"" + path + "\".");
+                }
+
+                // "//": the next step matches at any depth
+                descendant = true;
+            } else {
+                String name;
+                int index;
+
+                int leadingBracketIndex = step.indexOf('[');
+                if (leadingBracketIndex == -1) {
+                    name = step;
+                    index = -1;
+                } else {
+                    name = step.substring(0, leadingBracketIndex);
+
+                    int trailingBracketIndex = step.lastIndexOf(']');
+                    if (trailingBracketIndex != step.length() - 1) {
+                        throw new IllegalArgumentException("Unterminated index identifier.");
+                    }
+
+                    try {
+                        index = Integer.parseInt(step.substring(leadingBracketIndex + 1,
+                            trailingBracketIndex).trim());
+                    } catch (NumberFormatException exception) {
+                        throw new IllegalArgumentException("Invalid index in path step \""
+                            + step + "\".", exception);
+                    }
+
+                    Utils.checkNonNegative(index, "index");
+                }
+
+                if (name.length() == 0) {
+                    throw new IllegalArgumentException("Missing tag name in path step \""
+                        + step + "\".");
+                }
+
+                stepNames.add(name.equals("*") ? null : name);
+                stepIndexes.add(index);
+                stepDescendants.add(descendant);
+
+                descendant = false;
+            }
+
+            start = end + 1;
+        }
+
+        int n = stepNames.getLength();
+        String[] names = new String[n];
+        int[] indexes = new int[n];
+        boolean[] descendants = new boolean[n];
+
+        for (int i = 0; i < n; i++) {
+            names[i] = stepNames.get(i);
+            indexes[i] = stepIndexes.get(i);
+            descendants[i] = stepDescendants.get(i);
+        }
+
+        return new XMLPath(path, names, indexes, descendants);
+    }
+
+    /**
+     * @return The number of steps in the path.
+     */
+    int getStepCount() {
+        return names.length;
+    }
+
+    /**
+     * @return Whether any step of the path has an index.
+     */
+    boolean hasIndexes() {
+        for (int index : indexes) {
+            if (index != -1) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the elements the path selects.
+     *
+     * @param root The element against which the path is evaluated.
+     * @return The matching elements, in document order (each element appears
+     * once, even if it is reached in several ways).
+     */
+    public List<Element> select(final Element root) {
+        Utils.checkNull(root, "root");
+
+        ArrayList<Element> elements = new ArrayList<>();
+
+        if (hasDescendantSteps()) {
+            HashSet<Element> selected = new HashSet<>();
+            select(root, 0, element -> {
+                if (!selected.contains(element)) {
+                    selected.add(element);
+                    elements.add(element);
+                }
+
+                return true;
+            });
+        } else {
+            select(root, 0, element -> {
+                elements.add(element);
+                return true;
+            });
+        }
+
+        return elements;
+    }
+
+    /**
+     * Returns the first element the path selects.
+     *
+     * @param root The element against which the path is evaluated.
+     * @return The first matching element, or {@code null} if there is none.
+     */
+    public Element selectFirst(final Element root) {
+        Utils.checkNull(root, "root");
+
+        Element[] first = new Element[1];
+        select(root, 0, element -> {
+            first[0] = element;
+            return false;
+        });
+
+        return first[0];
+    }
+
+    /**
+     * Returns the text of the first element the path selects.
+     *
+     * @param root The element against which the path is evaluated.
+     * @return The text of the first matching element, or {@code null} if there
+     * is no such element or it does not contain text.
+     * @see Element#getText()
+     */
+    public String getText(final Element root) {
+        Element element = selectFirst(root);
+        return (element == null) ? null : element.getText();
+    }
+
+    private boolean hasDescendantSteps() {
+        for (boolean descendant : descendants) {
+            if (descendant) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Passes the elements selected by the steps from the given one on to the
+     * visitor, in document order, until the visitor returns {@code false}.
+     *
+     * @return {@code false} if the visitor stopped the search.
+     */
+    private boolean select(final Element context, final int step, final Predicate<Element> visitor) {
+        if (step == names.length) {
+            return visitor.test(context);
+        }
+
+        String name = names[step];
+        int index = indexes[step];
+
+        if (name != null && !descendants[step]) {
+            // Look the children up by name
+            Sequence<Element> elements = context.getIndexedElements(name);
+
+            if (index == -1) {
+                for (int i = 0, n = elements.getLength(); i < n; i++) {
+                    if (!select(elements.get(i), step + 1, visitor)) {
+                        return false;
+                    }
+                }
+            } else if (index < elements.getLength()) {
+                return select(elements.get(index), step + 1, visitor);
+            }
+        } else {
+            int count = 0;
+
+            for (int i = 0, n = context.getLength(); i < n; i++) {
+                Node node = context.get(i);
+
+                if (node instanceof Element) {
+                    Element element = (Element) node;
+
+                    if (name == null || element.getName().equals(name)) {
+                        if ((index == -1 || index == count)
+                            && !select(element, step + 1, visitor)) {
+                            return false;
+                        }
+
+                        count++;
+                    }
+
+                    if (descendants[step] && !select(element, step, visitor)) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Determines whether the path selects the innermost of a chain of nested
+     * elements, as is needed when reading a document as a stream.
+     *
+     * @param elementNames The names of the elements, outermost first.
+     * @param nameIndexes The index of each element among its siblings of the
+     * same name.
+     * @param elementIndexes The index of each element among its sibling
+     * elements.
+     * @param depth The number of elements in the chain.
+     * @return Whether the path selects the last element of the chain, given the
+     * element that contains the first.
+     */
+    boolean matches(final String[] elementNames, final int[] nameIndexes,
+        final int[] elementIndexes, final int depth) {
+        return matches(elementNames, nameIndexes, elementIndexes, depth, 0, 0);
+    }
+
+    private boolean matches(final String[] elementNames, final int[] nameIndexes,
+        final int[] elementIndexes, final int depth, final int step, final int level) {
+        if (step == names.length) {
+            return (level == depth);
+        }
+
+        if (descendants[step]) {
+            for (int i = level; i < depth; i++) {
+                if (stepMatches(step, elementNames[i], nameIndexes[i], elementIndexes[i])
+                    && matches(elementNames, nameIndexes, elementIndexes, depth, step + 1, i + 1)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        return (level < depth
+            && stepMatches(step, elementNames[level], nameIndexes[level], elementIndexes[level])
+            && matches(elementNames, nameIndexes, elementIndexes, depth, step + 1, level + 1));
+    }
+
+    private boolean stepMatches(final int step, final String elementName, final int nameIndex,
+        final int elementIndex) {
+        String name = names[step];
+        int index = indexes[step];
+
+        return ((name == null || name.equals(elementName))
+            && (index == -1 || index == ((name == null) ? elementIndex : nameIndex)));
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
@@ -27,7 +27,11 @@ import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
 
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamConstants;
@@ -35,6 +39,8 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.HashMap;
 import org.apache.pivot.serialization.SerializationException;
 import org.apache.pivot.serialization.Serializer;
 import org.apache.pivot.util.Constants;
@@ -113,42 +119,7 @@ public class XMLSerializer implements Serializer<Element> {
                         break;
 
                     case XMLStreamConstants.START_ELEMENT:
-                        // Create the element
-                        String prefix = xmlStreamReader.getPrefix();
-                        if (prefix != null && prefix.length() == 0) {
-                            prefix = null;
-                        }
-
-                        String localName = xmlStreamReader.getLocalName();
-
-                        Element element = new Element(prefix, localName);
-
-                        // Get the element's namespaces
-                        for (int i = 0, n = xmlStreamReader.getNamespaceCount(); i < n; i++) {
-                            String namespacePrefix = xmlStreamReader.getNamespacePrefix(i);
-                            String namespaceURI = xmlStreamReader.getNamespaceURI(i);
-
-                            if (namespacePrefix == null) {
-                                element.setDefaultNamespaceURI(namespaceURI);
-                            } else {
-                                element.getNamespaces().put(namespacePrefix, namespaceURI);
-                            }
-                        }
-
-                        // Get the element's attributes
-                        for (int i = 0, n = xmlStreamReader.getAttributeCount(); i < n; i++) {
-                            String attributePrefix = xmlStreamReader.getAttributePrefix(i);
-                            if (attributePrefix != null && attributePrefix.length() == 0) {
-                                attributePrefix = null;
-                            }
-
-                            String attributeLocalName = xmlStreamReader.getAttributeLocalName(i);
-                            String attributeValue = xmlStreamReader.getAttributeValue(i);
-
-                            element.getAttributes().add(
-                                new Element.Attribute(attributePrefix, attributeLocalName,
-                                    attributeValue));
-                        }
+                        Element element = createElement(xmlStreamReader);
 
                         if (current == null) {
                             document = element;
@@ -189,6 +160,254 @@ public class XMLSerializer implements Serializer<Element> {
         return document;
     }
 
+    /**
+     * Reads the elements matching a path from an XML stream, as with
+     * {@link #readElements(Reader, XMLPath, Consumer)}.
+     *
+     * @param inputStream The stream to read.
+     * @param path The path of the elements to read.
+     * @param consumer The consumer to pass each matching element to.
+     * @return The number of matching elements.
+     * @throws IOException if the stream can't be read.
+     * @throws SerializationException if the data is not valid XML.
+     */
+    public int readElements(final InputStream inputStream, final XMLPath path,
+        final Consumer<Element> consumer) throws IOException, SerializationException {
+        Utils.checkNull(inputStream, "inputStream");
+
+        Reader reader = new BufferedReader(new InputStreamReader(inputStream, charset), Constants.BUFFER_SIZE);
+        return readElements(reader, path, consumer);
+    }
+
+    /**
+     * Reads the elements matching a path from an XML stream, passing each one
+     * to a consumer as soon as it has been read, without building the rest of
+     * the document. Memory use is bounded by the size of the largest matching
+     * element rather than that of the document, which suits large documents
+     * made of many similar records. <p> The path is relative to the document
+     * element. Each matching element is passed with its subtree but without
+     * its ancestors (its parent is {@code null}), and matching elements nested
+     * inside another matching element are read only as part of it. The
+     * serializer listeners are not notified.
+     *
+     * @param reader The reader to read.
+     * @param path The path of the elements to read.
+     * @param consumer The consumer to pass each matching element to.
+     * @return The number of matching elements.
+     * @throws SerializationException if the data is not valid XML.
+     */
+    public int readElements(final Reader reader, final XMLPath path, final Consumer<Element> consumer)
+        throws SerializationException {
+        Utils.checkNull(reader, "reader");
+        Utils.checkNull(path, "path");
+        Utils.checkNull(consumer, "consumer");
+
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty("javax.xml.stream.isCoalescing", true);
+
+        // The names and positions of the open elements below the document
+        // element, and the number of children read so far at each level
+        // (those by name only if the path needs them)
+        boolean countNames = path.hasIndexes();
+        String[] elementNames = new String[16];
+        int[] nameIndexes = new int[16];
+        int[] elementIndexes = new int[16];
+        int[] childCounts = new int[17];
+        ArrayList<HashMap<String, Integer>> childNameCounts = new ArrayList<>();
+
+        // The namespace prefixes declared by each open element ("" for the
+        // default namespace)
+        ArrayList<ArrayList<String>> namespacePrefixes = new ArrayList<>();
+
+        int depth = -1;
+        int count = 0;
+
+        // The innermost element of the matching element being read
+        Element current = null;
+
+        try {
+            XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(reader);
+
+            while (xmlStreamReader.hasNext()) {
+                int event = xmlStreamReader.next();
+
+                switch (event) {
+                    case XMLStreamConstants.CHARACTERS:
+                        if (current != null && !xmlStreamReader.isWhiteSpace()) {
+                            current.add(new TextNode(xmlStreamReader.getText()));
+                        }
+
+                        break;
+
+                    case XMLStreamConstants.START_ELEMENT:
+                        if (current != null) {
+                            Element element = createElement(xmlStreamReader);
+                            current.add(element);
+                            current = element;
+                            break;
+                        }
+
+                        depth++;
+
+                        if (depth > 0) {
+                            int level = depth - 1;
+
+                            if (depth == elementNames.length) {
+                                int capacity = elementNames.length * 2;
+                                elementNames = Arrays.copyOf(elementNames, capacity);
+                                nameIndexes = Arrays.copyOf(nameIndexes, capacity);
+                                elementIndexes = Arrays.copyOf(elementIndexes, capacity);
+                                childCounts = Arrays.copyOf(childCounts, capacity + 1);
+                            }
+
+                            String prefix = xmlStreamReader.getPrefix();
+                            String localName = xmlStreamReader.getLocalName();
+                            String name = (prefix == null || prefix.length() == 0)
+                                ? localName : prefix + ":" + localName;
+
+                            elementNames[level] = name;
+                            elementIndexes[level] = childCounts[level]++;
+
+                            if (countNames) {
+                                HashMap<String, Integer> nameCounts = childNameCounts.get(level);
+                                Integer nameCount = nameCounts.get(name);
+                                nameIndexes[level] = (nameCount == null) ? 0 : nameCount.intValue();
+                                nameCounts.put(name, nameIndexes[level] + 1);
+                            }
+
+                            if (path.matches(elementNames, nameIndexes, elementIndexes, depth)) {
+                                current = createElement(xmlStreamReader);
+                                declareNamespaces(current, xmlStreamReader, namespacePrefixes, depth);
+                            }
+                        }
+
+                        if (current == null) {
+                            childCounts[depth] = 0;
+
+                            if (depth == namespacePrefixes.getLength()) {
+                                namespacePrefixes.add(new ArrayList<>());
+                            }
+
+                            ArrayList<String> prefixes = namespacePrefixes.get(depth);
+                            prefixes.clear();
+
+                            for (int i = 0, n = xmlStreamReader.getNamespaceCount(); i < n; i++) {
+                                String namespacePrefix = xmlStreamReader.getNamespacePrefix(i);
+                                prefixes.add((namespacePrefix == null)
+                                    ? XMLConstants.DEFAULT_NS_PREFIX : namespacePrefix);
+                            }
+
+                            if (countNames) {
+                                if (depth == childNameCounts.getLength()) {
+                                    childNameCounts.add(new HashMap<>());
+                                } else {
+                                    childNameCounts.get(depth).clear();
+                                }
+                            }
+                        }
+
+                        break;
+
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (current == null) {
+                            depth--;
+                        } else {
+                            Element parent = current.getParent();
+
+                            if (parent == null) {
+                                consumer.accept(current);
+                                count++;
+                                depth--;
+                            }
+
+                            current = parent;
+                        }
+
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        } catch (XMLStreamException exception) {
+            throw new SerializationException(exception);
+        }
+
+        return count;
+    }
+
+    /**
+     * Declares on a matching element the namespaces its ancestors declared, so
+     * that its prefixes still resolve once it is read without them.
+     *
+     * @param element The matching element.
+     * @param xmlStreamReader The reader, positioned at the start of the element.
+     * @param namespacePrefixes The prefixes declared by each ancestor.
+     * @param depth The number of ancestors.
+     */
+    private static void declareNamespaces(final Element element,
+        final XMLStreamReader xmlStreamReader, final ArrayList<ArrayList<String>> namespacePrefixes,
+        final int depth) {
+        NamespaceContext namespaceContext = xmlStreamReader.getNamespaceContext();
+        Element.NamespaceDictionary namespaces = element.getNamespaces();
+
+        for (int level = 0; level < depth; level++) {
+            for (String prefix : namespacePrefixes.get(level)) {
+                // The context gives the innermost declaration of each prefix
+                String namespaceURI = namespaceContext.getNamespaceURI(prefix);
+
+                if (prefix.equals(XMLConstants.DEFAULT_NS_PREFIX)) {
+                    if (element.getDefaultNamespaceURI() == null && namespaceURI != null
+                        && namespaceURI.length() > 0) {
+                        element.setDefaultNamespaceURI(namespaceURI);
+                    }
+                } else if (!namespaces.containsKey(prefix) && namespaceURI != null) {
+                    namespaces.put(prefix, namespaceURI);
+                }
+            }
+        }
+    }
+
+    private static Element createElement(final XMLStreamReader xmlStreamReader) {
+        // Create the element
+        String prefix = xmlStreamReader.getPrefix();
+        if (prefix != null && prefix.length() == 0) {
+            prefix = null;
+        }
+
+        String localName = xmlStreamReader.getLocalName();
+
+        Element element = new Element(prefix, localName);
+
+        // Get the element's namespaces
+        for (int i = 0, n = xmlStreamReader.getNamespaceCount(); i < n; i++) {
+            String namespacePrefix = xmlStreamReader.getNamespacePrefix(i);
+            String namespaceURI = xmlStreamReader.getNamespaceURI(i);
+
+            if (namespacePrefix == null) {
+                element.setDefaultNamespaceURI(namespaceURI);
+            } else {
+                element.getNamespaces().put(namespacePrefix, namespaceURI);
+            }
+        }
+
+        // Get the element's attributes
+        for (int i = 0, n = xmlStreamReader.getAttributeCount(); i < n; i++) {
+            String attributePrefix = xmlStreamReader.getAttributePrefix(i);
+            if (attributePrefix != null && attributePrefix.length() == 0) {
+                attributePrefix = null;
+            }
+
+            String attributeLocalName = xmlStreamReader.getAttributeLocalName(i);
+            String attributeValue = xmlStreamReader.getAttributeValue(i);
+
+            element.getAttributes().add(
+                new Element.Attribute(attributePrefix, attributeLocalName, attributeValue));
+        }
+
+        return element;
+    }
+
     @Override
     public void writeObject(final Element element, final OutputStream outputStream) throws IOException,
         SerializationException {
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.beans.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.pivot.beans.BXMLCompiler;
+import org.apache.pivot.beans.BXMLSerializer;
+import org.apache.pivot.beans.DefaultProperty;
+import org.apache.pivot.beans.IDProperty;
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.collections.Sequence;
+import org.apache.pivot.serialization.SerializationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BXMLCompilerTest {
+    /**
+     * A bean to build.
+     */
+    @DefaultProperty("items")
+    @IDProperty("name")
+    public static class Item {
+        /**
+         * An enum property type.
+         */
+        public enum Kind {
+            SMALL, LARGE
+        }
+
+        private String name = null;
+        private int count = 0;
+        private Kind kind = Kind.SMALL;
+        private double weight = 0;
+        private Object value = null;
+        private ArrayList<Object> items = new ArrayList<>();
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(final int count) {
+            this.count = count;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public void setKind(final Kind kind) {
+            this.kind = kind;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public void setWeight(final double weight) {
+            this.weight = weight;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public void setValue(final Object value) {
+            this.value = value;
+        }
+
+        public Sequence<Object> getItems() {
+            return items;
+        }
+    }
+
+    private static final String DOCUMENT = "<test:BXMLCompilerTest.Item"
+        + " xmlns:bxml=\"http://pivot.apache.org/bxml\" xmlns:test=\"org.apache.pivot.beans.test\""
+        + " xmlns=\"org.apache.pivot.collections\""
+        + " bxml:id=\"root\" count=\"%d\" kind=\"large\" weight=\"-1.5\">\n"
+        + "    <bxml:define>\n"
+        + "        <HashMap bxml:id=\"map\" a=\"b\"/>\n"
+        + "    </bxml:define>\n"
+        + "    <test:BXMLCompilerTest.Item bxml:id=\"child\" value=\"$map\"/>\n"
+        + "    <bxml:include src=\"include.bxml\"/>\n"
+        + "    <value>text</value>\n"
+        + "</test:BXMLCompilerTest.Item>\n";
+
+    private static final String INCLUDE = "<test:BXMLCompilerTest.Item"
+        + " xmlns:test=\"org.apache.pivot.beans.test\" count=\"7\"/>\n";
+
+    private File directory;
+    private ClassLoader contextClassLoader;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bxml").toFile();
+        contextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Thread.currentThread().setContextClassLoader(contextClassLoader);
+        BXMLSerializer.setCompiledBuildersEnabled(true);
+
+        try (Stream<java.nio.file.Path> paths = Files.walk(directory.toPath())) {
+            for (java.nio.file.Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void write(final File file, final String text) throws IOException {
+        file.getParentFile().mkdirs();
+
+        try (OutputStream outputStream = Files.newOutputStream(file.toPath())) {
+            outputStream.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void checkDocument(final Object object, final BXMLSerializer serializer, final int count) {
+        Item root = (Item) object;
+        assertEquals("root", root.getName());
+        assertEquals(count, root.getCount());
+        assertEquals(Item.Kind.LARGE, root.getKind());
+        assertEquals(-1.5, root.getWeight(), 0);
+        assertEquals("text", root.getValue());
+
+        Map<String, Object> map = (Map<String, Object>) serializer.getNamespace().get("map");
+        assertEquals("b", map.get("a"));
+
+        assertEquals(2, root.getItems().getLength());
+        Item child = (Item) root.getItems().get(0);
+        assertEquals("child", child.getName());
+        assertSame(map, child.getValue());
+        assertEquals(7, ((Item) root.getItems().get(1)).getCount());
+    }
+
+    @Test
+    public void generateTest() throws IOException, SerializationException {
+        String source = new BXMLCompiler().compile("test/document.bxml",
+            new ByteArrayInputStream(String.format(DOCUMENT, 3).getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(source.contains("public final class document_bxml"));
+
+        // Literal values are coerced and set directly
+        assertTrue(source.contains("value.setCount(3);"));
+        assertTrue(source.contains("value.setKind(org.apache.pivot.beans.test.BXMLCompilerTest.Item.Kind.LARGE);"));
+        assertTrue(source.contains("value.setWeight((-1.5d));"));
+        assertTrue(source.contains("value.setName(\"root\");"));
+
+        assertEquals("com.example.main_window_bxml", BXMLCompiler.getBuilderClassName("com/example/main-window.bxml"));
+        assertEquals("_1_bxml", BXMLCompiler.getBuilderClassName("1.bxml"));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void unsupportedTest() throws IOException, SerializationException {
+        new BXMLCompiler().compile("test/script.bxml", new ByteArrayInputStream(("<HashMap"
+            + " xmlns=\"org.apache.pivot.collections\" xmlns:bxml=\"http://pivot.apache.org/bxml\">"
+            + "<bxml:script>var a = 1;</bxml:script></HashMap>").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void buildTest() throws IOException, SerializationException {
+        // The builders can only be compiled when running on a JDK
+        JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+        if (javaCompiler == null) {
+            return;
+        }
+
+        File sourceDirectory = new File(directory, "src");
+        File outputDirectory = new File(directory, "gen");
+        write(new File(sourceDirectory, "buildtest/document.bxml"), String.format(DOCUMENT, 3));
+        write(new File(sourceDirectory, "buildtest/include.bxml"), INCLUDE);
+
+        assertEquals(2, new BXMLCompiler().compile(sourceDirectory, outputDirectory));
+
+        File builderFile = new File(outputDirectory, "buildtest/document_bxml.java");
+        assertEquals(0, javaCompiler.run(null, null, null, "-classpath", System.getProperty("java.class.path"),
+            new File(outputDirectory, "buildtest/include_bxml.java").getPath(), builderFile.getPath()));
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[] {outputDirectory.toURI().toURL(),
+            sourceDirectory.toURI().toURL()}, getClass().getClassLoader());
+        Thread.currentThread().setContextClassLoader(classLoader);
+
+        try {
+            URL location = classLoader.getResource("buildtest/document.bxml");
+            assertNotNull(location);
+
+            // Change the document after it has been compiled, so that its
+            // builder and the document itself can be told apart
+            write(new File(sourceDirectory, "buildtest/document.bxml"), String.format(DOCUMENT, 4));
+
+            BXMLSerializer serializer = new BXMLSerializer();
+            checkDocument(serializer.readObject(location), serializer, 3);
+
+            BXMLSerializer.setCompiledBuildersEnabled(false);
+            BXMLSerializer.clearTemplateCache();
+
+            serializer = new BXMLSerializer();
+            checkDocument(serializer.readObject(location), serializer, 4);
+        } finally {
+            classLoader.close();
+        }
+    }
+
+    @Test
+    public void classLoaderTest() throws Exception {
+        JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+        if (javaCompiler == null) {
+            return;
+        }
+
+        File sourceDirectory = new File(directory, "src");
+        File outputDirectory = new File(directory, "gen");
+        write(new File(sourceDirectory, "loadertest/document.bxml"), String.format(DOCUMENT, 3));
+        write(new File(sourceDirectory, "loadertest/include.bxml"), INCLUDE);
+
+        new BXMLCompiler().compile(sourceDirectory, outputDirectory);
+        assertEquals(0, javaCompiler.run(null, null, null, "-classpath", System.getProperty("java.class.path"),
+            new File(outputDirectory, "loadertest/include_bxml.java").getPath(),
+            new File(outputDirectory, "loadertest/document_bxml.java").getPath()));
+
+        // The builders are only visible to this class loader, not to the
+        // thread's context class loader
+        URLClassLoader classLoader = new URLClassLoader(new URL[] {outputDirectory.toURI().toURL(),
+            sourceDirectory.toURI().toURL()}, getClass().getClassLoader());
+
+        try {
+            write(new File(sourceDirectory, "loadertest/document.bxml"), String.format(DOCUMENT, 4));
+
+            // A document read on behalf of one of its classes is built
+            Class<?> ownerType = classLoader.loadClass("loadertest.document_bxml");
+            BXMLSerializer serializer = new BXMLSerializer();
+            checkDocument(serializer.readObject(ownerType, "document.bxml", false), serializer, 3);
+
+            // The same URL read through the context class loader has no
+            // builder, whatever was found through the other loader
+            serializer = new BXMLSerializer();
+            checkDocument(serializer.readObject(classLoader.getResource("loadertest/document.bxml")),
+                serializer, 4);
+        } finally {
+            classLoader.close();
+        }
+    }
+}
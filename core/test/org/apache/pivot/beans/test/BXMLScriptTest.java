@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.beans.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import org.apache.pivot.beans.BXMLSerializer;
+import org.apache.pivot.beans.ScriptStatistics;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.serialization.SerializationException;
+import org.junit.After;
+import org.junit.Test;
+
+public class BXMLScriptTest {
+    /**
+     * A bean to bind script values to.
+     */
+    public static class Item {
+        private Object value = null;
+
+        public Object getValue() {
+            return value;
+        }
+
+        public void setValue(final Object value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * A compilable engine for a tiny language, so that the handling of compiled
+     * scripts is tested whether or not the JDK has a JavaScript engine. Each
+     * statement is either "set name value", which sets an engine scope attribute,
+     * or "copy from to", which copies an attribute (if there is one) to the
+     * global scope, that is the namespace of the document.
+     */
+    public static class FakeEngineFactory implements ScriptEngineFactory {
+        public static final String LANGUAGE = "pivotfakescript";
+
+        public static final AtomicInteger COMPILE_COUNT = new AtomicInteger();
+
+        @Override
+        public String getEngineName() {
+            return LANGUAGE;
+        }
+
+        @Override
+        public String getEngineVersion() {
+            return "1.0";
+        }
+
+        @Override
+        public java.util.List<String> getExtensions() {
+            return Collections.singletonList("pfs");
+        }
+
+        @Override
+        public java.util.List<String> getMimeTypes() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public java.util.List<String> getNames() {
+            return Collections.singletonList(LANGUAGE);
+        }
+
+        @Override
+        public String getLanguageName() {
+            return LANGUAGE;
+        }
+
+        @Override
+        public String getLanguageVersion() {
+            return "1.0";
+        }
+
+        @Override
+        public Object getParameter(final String key) {
+            return ScriptEngine.NAME.equals(key) ? LANGUAGE : null;
+        }
+
+        @Override
+        public String getMethodCallSyntax(final String obj, final String m, final String... args) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getOutputStatement(final String toDisplay) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getProgram(final String... statements) {
+            return String.join(";", statements);
+        }
+
+        @Override
+        public ScriptEngine getScriptEngine() {
+            return new FakeEngine(this);
+        }
+    }
+
+    private static class FakeEngine extends AbstractScriptEngine implements Compilable {
+        private final ScriptEngineFactory factory;
+
+        FakeEngine(final ScriptEngineFactory factory) {
+            this.factory = factory;
+        }
+
+        private static void run(final String script, final ScriptContext context) throws ScriptException {
+            for (String statement : script.split(";")) {
+                String[] words = statement.trim().split("\\s+");
+                if (words.length != 3) {
+                    throw new ScriptException("Bad statement \"" + statement + "\".");
+                }
+
+                if (words[0].equals("set")) {
+                    context.setAttribute(words[1], words[2], ScriptContext.ENGINE_SCOPE);
+                } else if (words[0].equals("copy")) {
+                    Object value = context.getAttribute(words[1]);
+                    if (value != null) {
+                        context.setAttribute(words[2], value, ScriptContext.GLOBAL_SCOPE);
+                    }
+                } else {
+                    throw new ScriptException("Unknown statement \"" + words[0] + "\".");
+                }
+            }
+        }
+
+        @Override
+        public Object eval(final String script, final ScriptContext context) throws ScriptException {
+            run(script, context);
+            return null;
+        }
+
+        @Override
+        public Object eval(final Reader reader, final ScriptContext context) throws ScriptException {
+            return eval(new BufferedReader(reader).lines().collect(Collectors.joining("\n")), context);
+        }
+
+        @Override
+        public CompiledScript compile(final String script) {
+            FakeEngineFactory.COMPILE_COUNT.incrementAndGet();
+
+            return new CompiledScript() {
+                @Override
+                public Object eval(final ScriptContext context) throws ScriptException {
+                    run(script, context);
+                    return null;
+                }
+
+                @Override
+                public ScriptEngine getEngine() {
+                    return FakeEngine.this;
+                }
+            };
+        }
+
+        @Override
+        public CompiledScript compile(final Reader reader) {
+            return compile(new BufferedReader(reader).lines().collect(Collectors.joining("\n")));
+        }
+
+        @Override
+        public Bindings createBindings() {
+            return new SimpleBindings();
+        }
+
+        @Override
+        public ScriptEngineFactory getFactory() {
+            return factory;
+        }
+    }
+
+    private static final String SCRIPT_DOCUMENT = "<?language javascript?>\n"
+        + "<test:BXMLScriptTest.Item xmlns:bxml=\"http://pivot.apache.org/bxml\""
+        + " xmlns:test=\"org.apache.pivot.beans.test\">\n"
+        + "  <bxml:script>var total = 40 + 2;</bxml:script>\n"
+        + "  <bxml:define><test:BXMLScriptTest.Item bxml:id=\"result\" value=\"$total\"/></bxml:define>\n"
+        + "</test:BXMLScriptTest.Item>\n";
+
+    private static final String BINDING_DOCUMENT = "<?language javascript?>\n"
+        + "<test:BXMLScriptTest.Item xmlns:bxml=\"http://pivot.apache.org/bxml\""
+        + " xmlns:test=\"org.apache.pivot.beans.test\" xmlns:collections=\"org.apache.pivot.collections\">\n"
+        + "  <bxml:script>function upper(value) { return value.toUpperCase(); }</bxml:script>\n"
+        + "  <bxml:define>\n"
+        + "    <collections:HashMap bxml:id=\"source\" value=\"pivot\"/>\n"
+        + "    <test:BXMLScriptTest.Item bxml:id=\"target\" value=\"${upper:source.value}\"/>\n"
+        + "  </bxml:define>\n"
+        + "</test:BXMLScriptTest.Item>\n";
+
+    private static String fakeDocument(final String script) {
+        return "<?language " + FakeEngineFactory.LANGUAGE + "?>\n"
+            + "<test:BXMLScriptTest.Item xmlns:bxml=\"http://pivot.apache.org/bxml\""
+            + " xmlns:test=\"org.apache.pivot.beans.test\">\n"
+            + "  <bxml:script>" + script + "</bxml:script>\n"
+            + "</test:BXMLScriptTest.Item>\n";
+    }
+
+    @After
+    public void tearDown() {
+        BXMLSerializer.setScriptStatisticsEnabled(false);
+        BXMLSerializer.resetScriptStatistics();
+    }
+
+    private static boolean hasScriptEngine() {
+        // Script engines are optional (and not bundled with recent JDKs)
+        return (new ScriptEngineManager().getEngineByName(BXMLSerializer.DEFAULT_LANGUAGE) != null);
+    }
+
+    private static Object read(final BXMLSerializer serializer, final String document)
+        throws IOException, SerializationException {
+        return serializer.readObject(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void scriptTest() throws IOException, SerializationException {
+        if (!hasScriptEngine()) {
+            return;
+        }
+
+        // The second read runs the compiled script
+        for (int i = 0; i < 2; i++) {
+            BXMLSerializer serializer = new BXMLSerializer();
+            read(serializer, SCRIPT_DOCUMENT);
+
+            Item result = (Item) serializer.getNamespace().get("result");
+            assertEquals(42, ((Number) result.getValue()).intValue());
+        }
+    }
+
+    @Test
+    public void statisticsTest() throws IOException, SerializationException {
+        if (!hasScriptEngine()) {
+            return;
+        }
+
+        BXMLSerializer.setScriptStatisticsEnabled(true);
+
+        BXMLSerializer serializer = new BXMLSerializer();
+        read(serializer, BINDING_DOCUMENT);
+
+        Item target = (Item) serializer.getNamespace().get("target");
+        assertEquals("PIVOT", target.getValue());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> source = (Map<String, Object>) serializer.getNamespace().get("source");
+        source.put("value", "bxml");
+        assertEquals("BXML", target.getValue());
+
+        List<ScriptStatistics> statistics = BXMLSerializer.getScriptStatistics();
+        assertEquals(1, statistics.getLength());
+
+        ScriptStatistics upperStatistics = statistics.get(0);
+        assertEquals("#target: upper", upperStatistics.getName());
+        assertEquals(2, upperStatistics.getCount());
+        assertTrue(upperStatistics.getMaximumTime() <= upperStatistics.getTotalTime());
+
+        BXMLSerializer.resetScriptStatistics();
+        assertEquals(0, BXMLSerializer.getScriptStatistics().getLength());
+    }
+
+    @Test
+    public void compiledScriptTest() throws IOException, SerializationException {
+        // Make the fake engine visible to the script engine manager
+        Path services = Files.createTempDirectory("BXMLScriptTest");
+        Path serviceFile = services.resolve("META-INF/services/" + ScriptEngineFactory.class.getName());
+        Files.createDirectories(serviceFile.getParent());
+        Files.write(serviceFile, Arrays.asList(FakeEngineFactory.class.getName()), StandardCharsets.UTF_8);
+
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {services.toUri().toURL()},
+            BXMLScriptTest.class.getClassLoader())) {
+            thread.setContextClassLoader(classLoader);
+
+            String firstDocument = fakeDocument("set a 1; copy a seenA");
+            String secondDocument = fakeDocument("copy a seenA; copy b seenB; set b 2");
+            int compileCount = FakeEngineFactory.COMPILE_COUNT.get();
+
+            BXMLSerializer first = new BXMLSerializer();
+            read(first, firstDocument);
+            assertEquals("1", first.getNamespace().get("seenA"));
+
+            // The engine is shared, but the bindings of the first document are not
+            BXMLSerializer second = new BXMLSerializer();
+            first.getNamespace().put("b", "first");
+            read(second, secondDocument);
+            assertNull(second.getNamespace().get("seenA"));
+            assertNull(second.getNamespace().get("seenB"));
+            assertEquals("1", first.getNamespace().get("seenA"));
+            assertNull(first.getNamespace().get("seenB"));
+            assertEquals(compileCount + 2, FakeEngineFactory.COMPILE_COUNT.get());
+
+            // Reading the documents again reuses their compiled scripts
+            for (String document : new String[] {firstDocument, secondDocument}) {
+                BXMLSerializer serializer = new BXMLSerializer();
+                read(serializer, document);
+            }
+            assertEquals(compileCount + 2, FakeEngineFactory.COMPILE_COUNT.get());
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+            Files.delete(serviceFile);
+            Files.delete(serviceFile.getParent());
+            Files.delete(serviceFile.getParent().getParent());
+            Files.delete(services);
+        }
+    }
+}
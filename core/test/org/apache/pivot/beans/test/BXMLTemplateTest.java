@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.beans.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.pivot.beans.BXMLSerializer;
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.HashMap;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.serialization.SerializationException;
+import org.apache.pivot.serialization.Serializer;
+import org.junit.After;
+import org.junit.Test;
+
+public class BXMLTemplateTest {
+    private static final String DOCUMENT = "<HashMap xmlns=\"org.apache.pivot.collections\""
+        + " xmlns:bxml=\"http://pivot.apache.org/bxml\" a=\"1\">\n"
+        + "    <!-- A comment -->\n"
+        + "    <b>\n"
+        + "        <ArrayList bxml:id=\"list\">\n"
+        + "            <HashMap c=\"$list\"/>\n"
+        + "            <bxml:include src=\"include.bxml\"/>\n"
+        + "        </ArrayList>\n"
+        + "    </b>\n"
+        + "</HashMap>\n";
+
+    private static final String INCLUDE = "<HashMap xmlns=\"org.apache.pivot.collections\" d=\"e\"/>";
+
+    /**
+     * Serves the test documents, counting how many times each is opened.
+     */
+    private static class DocumentHandler extends URLStreamHandler {
+        private HashMap<String, Integer> openCounts = new HashMap<>();
+
+        @Override
+        protected URLConnection openConnection(final URL url) {
+            return new URLConnection(url) {
+                @Override
+                public void connect() {
+                    // No-op
+                }
+
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    String path = url.getPath();
+                    Integer count = openCounts.get(path);
+                    openCounts.put(path, (count == null) ? 1 : count + 1);
+
+                    String document = path.endsWith("include.bxml") ? INCLUDE : DOCUMENT;
+                    return new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8));
+                }
+            };
+        }
+
+        public int getOpenCount(final String path) {
+            Integer count = openCounts.get(path);
+            return (count == null) ? 0 : count;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        BXMLSerializer.setTemplateCacheEnabled(true);
+        BXMLSerializer.clearTemplateCache();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void checkDocument(final Object object, final BXMLSerializer serializer) {
+        Map<String, Object> map = (Map<String, Object>) object;
+        assertEquals("1", map.get("a"));
+
+        List<Object> list = (List<Object>) map.get("b");
+        assertEquals(2, list.getLength());
+        assertSame(list, serializer.getNamespace().get("list"));
+        assertSame(list, ((Map<String, Object>) list.get(0)).get("c"));
+        assertEquals("e", ((Map<String, Object>) list.get(1)).get("d"));
+    }
+
+    @Test
+    public void cacheTest() throws IOException, SerializationException {
+        DocumentHandler handler = new DocumentHandler();
+        URL location = new URL("test", null, -1, "/cacheTest/document.bxml", handler);
+
+        BXMLSerializer serializer1 = new BXMLSerializer();
+        Object object1 = serializer1.readObject(location);
+        checkDocument(object1, serializer1);
+
+        BXMLSerializer serializer2 = new BXMLSerializer();
+        Object object2 = serializer2.readObject(location);
+        checkDocument(object2, serializer2);
+        assertNotSame(object1, object2);
+
+        // The document and its include were only read once
+        assertEquals(1, handler.getOpenCount("/cacheTest/document.bxml"));
+        assertEquals(1, handler.getOpenCount("/cacheTest/include.bxml"));
+
+        BXMLSerializer.clearTemplateCache();
+
+        BXMLSerializer serializer3 = new BXMLSerializer();
+        checkDocument(serializer3.readObject(location), serializer3);
+        assertEquals(2, handler.getOpenCount("/cacheTest/document.bxml"));
+    }
+
+    @Test
+    public void disabledTest() throws IOException, SerializationException {
+        DocumentHandler handler = new DocumentHandler();
+        URL location = new URL("test", null, -1, "/disabledTest/document.bxml", handler);
+
+        BXMLSerializer.setTemplateCacheEnabled(false);
+
+        for (int i = 0; i < 2; i++) {
+            BXMLSerializer serializer = new BXMLSerializer();
+            checkDocument(serializer.readObject(location), serializer);
+        }
+
+        assertEquals(2, handler.getOpenCount("/disabledTest/document.bxml"));
+        assertEquals(2, handler.getOpenCount("/disabledTest/include.bxml"));
+    }
+
+    @Test
+    public void includeLocationTest() throws IOException, SerializationException {
+        DocumentHandler handler = new DocumentHandler();
+        URL location = new URL("test", null, -1, "/includeLocationTest/document.bxml", handler);
+
+        ArrayList<BXMLSerializer> includeSerializers = new ArrayList<>();
+        BXMLSerializer serializer = new BXMLSerializer() {
+            @Override
+            protected Serializer<?> newIncludeSerializer(final Class<? extends Serializer<?>> type)
+                throws InstantiationException, IllegalAccessException, NoSuchMethodException,
+                       InvocationTargetException {
+                Serializer<?> includeSerializer = super.newIncludeSerializer(type);
+                includeSerializers.add((BXMLSerializer) includeSerializer);
+                return includeSerializer;
+            }
+        };
+
+        checkDocument(serializer.readObject(location), serializer);
+
+        // The include keeps its location, although it went through the cache
+        assertEquals(1, includeSerializers.getLength());
+        assertEquals(new URL(location, "include.bxml"), includeSerializers.get(0).getLocation());
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.collections.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Comparator;
+
+import org.apache.pivot.collections.ColumnTable;
+import org.apache.pivot.collections.ColumnTable.Column;
+import org.apache.pivot.collections.ColumnTable.ColumnType;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Sequence;
+import org.apache.pivot.serialization.CSVSerializer;
+import org.apache.pivot.serialization.SerializationException;
+import org.junit.Test;
+
+public class ColumnTableTest {
+    private static ColumnTable createTable() {
+        ColumnTable table = new ColumnTable(new Column("name"), new Column("count", ColumnType.INT),
+            new Column("price", ColumnType.DOUBLE), new Column("active", ColumnType.BOOLEAN));
+
+        String[] names = {"c", "a", "b"};
+        for (int i = 0; i < names.length; i++) {
+            int row = table.addRow();
+            table.setValue(row, 0, names[i]);
+            table.setInt(row, 1, i * 10);
+            table.setDouble(row, 2, i + 0.5);
+        }
+
+        return table;
+    }
+
+    @Test
+    public void valuesTest() {
+        ColumnTable table = createTable();
+        assertEquals(3, table.getLength());
+        assertEquals(4, table.getColumnCount());
+        assertEquals(1, table.getColumnIndex("count"));
+        assertEquals(-1, table.getColumnIndex("missing"));
+
+        assertEquals(20, table.getInt(2, 1));
+        assertEquals(20L, table.getLong(2, 1));
+        assertEquals(2.5, table.getDouble(2, 2), 0.0);
+        assertTrue(table.isNull(0, 3));
+        assertEquals("10", table.getString(1, 1));
+
+        ColumnTable.Row row = table.get(1);
+        assertEquals("a", row.get("name"));
+        assertEquals(Integer.valueOf(10), row.get("count"));
+        assertEquals(10, row.getInt("count"));
+        assertEquals("1.5", row.getString("price"));
+        assertFalse(row.containsKey("active"));
+        assertEquals(3, row.getCount());
+
+        row.put("active", "true");
+        assertTrue(row.getBoolean("active"));
+        row.put("count", 7L);
+        assertEquals(7, table.getInt(1, 1));
+        row.remove("count");
+        assertTrue(table.isNull(1, 1));
+        assertNull(row.get("count"));
+
+        try {
+            row.put("count", "many");
+            assertTrue(false);
+        } catch (IllegalArgumentException exception) {
+            // Expected
+        }
+
+        try {
+            row.put("missing", "value");
+            assertTrue(false);
+        } catch (IllegalArgumentException exception) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void forClassTest() {
+        assertEquals(ColumnType.BOOLEAN, ColumnType.forClass(Boolean.TYPE));
+        assertEquals(ColumnType.INT, ColumnType.forClass(Integer.class));
+        assertEquals(ColumnType.LONG, ColumnType.forClass(Long.TYPE));
+        assertEquals(ColumnType.DOUBLE, ColumnType.forClass(Double.class));
+
+        // Narrower types are not widened
+        assertEquals(ColumnType.OBJECT, ColumnType.forClass(Short.class));
+        assertEquals(ColumnType.OBJECT, ColumnType.forClass(Float.TYPE));
+        assertEquals(ColumnType.OBJECT, ColumnType.forClass(String.class));
+    }
+
+    @Test
+    public void listTest() {
+        ColumnTable table = createTable();
+
+        table.insert(table.get(2), 0);
+        assertEquals(4, table.getLength());
+        assertEquals("b", table.getValue(0, 0));
+        assertEquals("b", table.getValue(3, 0));
+        assertEquals(20, table.getInt(3, 1));
+        assertTrue(table.isNull(0, 3));
+
+        ColumnTable.Row previous = table.update(1, table.get(2));
+        assertEquals("c", previous.get("name"));
+        assertEquals("a", table.getValue(1, 0));
+
+        Sequence<ColumnTable.Row> removed = table.remove(0, 2);
+        assertEquals(2, removed.getLength());
+        assertEquals("b", removed.get(0).get("name"));
+        assertEquals(2, table.getLength());
+        assertEquals("a", table.getValue(0, 0));
+        assertEquals(Double.valueOf(2.5), table.get(1).get("price"));
+
+        table.clear();
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void sortTest() {
+        ColumnTable table = createTable();
+        table.setComparator(Comparator.comparing(row -> row.getString("name")));
+
+        assertEquals("a", table.getValue(0, 0));
+        assertEquals(10, table.getInt(0, 1));
+        assertEquals("b", table.getValue(1, 0));
+        assertEquals("c", table.getValue(2, 0));
+        assertEquals(0, table.getInt(2, 1));
+
+        ColumnTable other = createTable();
+        assertEquals(2, table.add(other.get(2)));
+        assertEquals("b", table.getValue(1, 0));
+        assertEquals(4, table.getLength());
+        assertEquals(1, table.indexOf(table.get(1)));
+        assertEquals(-1, table.indexOf(other.get(1)));
+    }
+
+    @Test
+    public void csvTest() throws IOException, SerializationException {
+        CSVSerializer serializer = new CSVSerializer();
+        serializer.setColumns(new Column("name"), new Column("count", ColumnType.INT),
+            new Column("price", ColumnType.DOUBLE));
+
+        List<?> list = serializer.readObject(new StringReader(
+            "name, count, price, ignored\r\nx, 1, 2.5, q\r\n\"y, z\", , 3, r\r\n"));
+        assertTrue(list instanceof ColumnTable);
+
+        ColumnTable table = (ColumnTable) list;
+        assertEquals(2, table.getLength());
+        assertEquals("x", table.getValue(0, 0));
+        assertEquals(1, table.getInt(0, 1));
+        assertEquals(2.5, table.getDouble(0, 2), 0.0);
+        assertEquals("y, z", table.getValue(1, 0));
+        assertTrue(table.isNull(1, 1));
+        assertEquals(3.0, table.getDouble(1, 2), 0.0);
+
+        serializer.setKeys("name", "count");
+        try {
+            serializer.readObject(new StringReader("x, y\r\n"));
+            assertTrue(false);
+        } catch (SerializationException exception) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.json.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.HashMap;
+import org.apache.pivot.json.JSON;
+import org.apache.pivot.json.JSONPath;
+import org.junit.Test;
+
+public class JSONPathTest {
+    private static SampleBean1 createBean() {
+        SampleBean1 bean = new SampleBean1();
+        bean.setA(1);
+        bean.setB("one");
+
+        SampleBean1 child = new SampleBean1();
+        child.setA(2);
+        bean.setI(child);
+
+        HashMap<String, Integer> e = new HashMap<>();
+        e.put("x", 10);
+        bean.setE(e);
+
+        ArrayList<String> d = new ArrayList<>();
+        d.add("d0");
+        d.add("d1");
+        bean.setD(d);
+
+        return bean;
+    }
+
+    @Test
+    public void testCompileIsCached() {
+        JSONPath path = JSONPath.compile("i.a");
+        assertSame(path, JSONPath.compile("i.a"));
+        assertEquals("i.a", path.getPath());
+        assertEquals(2, path.getKeys().getLength());
+    }
+
+    @Test
+    public void testGet() {
+        SampleBean1 bean = createBean();
+
+        assertEquals(Integer.valueOf(1), JSON.get(bean, "a"));
+        assertEquals("one", JSON.get(bean, "b"));
+        assertEquals(Integer.valueOf(2), JSON.get(bean, "i.a"));
+        assertEquals(Integer.valueOf(10), JSON.get(bean, "e.x"));
+        assertEquals("d1", JSON.get(bean, "d[1]"));
+        assertNull(JSON.get(bean, "i.i.a"));
+
+        // The same compiled path must work against a different class
+        java.util.HashMap<String, Object> map = new java.util.HashMap<>();
+        map.put("i", createBean());
+        assertEquals(Integer.valueOf(1), JSON.get(map, "i.a"));
+    }
+
+    @Test
+    public void testContainsKey() {
+        SampleBean1 bean = createBean();
+
+        assertTrue(JSON.containsKey(bean, "a"));
+        assertTrue(JSON.containsKey(bean, "e.x"));
+        assertFalse(JSON.containsKey(bean, "e.y"));
+        assertTrue(JSON.containsKey(bean, "d[1]"));
+        assertFalse(JSON.containsKey(bean, "d[2]"));
+        assertFalse(JSON.containsKey(bean, "i.i.a"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingProperty() {
+        JSON.get(createBean(), "z");
+    }
+
+    @Test
+    public void testPut() {
+        SampleBean1 bean = createBean();
+
+        JSON.put(bean, "b", "two");
+        assertEquals("two", bean.getB());
+
+        JSON.put(bean, "i.a", 5);
+        assertEquals(5, bean.getI().getA());
+
+        // Coerced from a string
+        JSON.put(bean, "i.a", "6");
+        assertEquals(6, bean.getI().getA());
+
+        JSON.put(bean, "b", null);
+        assertNull(bean.getB());
+
+        JSON.put(bean, "e.y", 20);
+        assertEquals(Integer.valueOf(20), bean.getE().get("y"));
+
+        JSON.put(bean, "d[0]", "first");
+        assertEquals("first", bean.getD().get(0));
+    }
+}
@@ -20,9 +20,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
 
+import org.apache.pivot.collections.ArrayList;
 import org.apache.pivot.collections.Dictionary;
+import org.apache.pivot.collections.HashMap;
 import org.apache.pivot.collections.List;
 import org.apache.pivot.collections.Sequence;
 import org.apache.pivot.json.JSON;
@@ -184,4 +190,95 @@ public class JSONSerializerTest {
         assertEquals(serializedForm, "{child: {address: \"123 Main St.\\r\\nAnytown USA\", name: \"John Doe\"}}");
     }
 
+    @Test
+    public void testWriteStrings() throws SerializationException {
+        assertEquals("\"a\\\"b\\\\c\\'\\n\\t\\u0001\\u007f\u00e9\u0085\u2603\"",
+            JSONSerializer.toString("a\"b\\c'\n\t\u0001\u007f\u00e9\u0085\u2603"));
+
+        assertEquals("{\"a \\\"b\\\"\": 1}",
+            JSONSerializer.toString(new HashMap<>(new Dictionary.Pair<String, Object>("a \"b\"", 1))));
+    }
+
+    @Test
+    public void testWriteNumbers() throws SerializationException {
+        assertEquals("[0, -7, 2147483647, -9223372036854775808, 12, 1.5, -0.0, 0.0, 100.0, 0.001, "
+            + "1.0E7, 1.0E-4, 123456.789, 2.5]",
+            JSONSerializer.toString(new ArrayList<Object>(0, -7, Integer.MAX_VALUE, Long.MIN_VALUE,
+                (short) 12, 1.5, -0.0, 0.0, 100.0, 0.001, 1e7, 1e-4, 123456.789, 2.5f)));
+
+        Random random = new Random(1234);
+        for (int i = 0; i < 100000; i++) {
+            double value = (i % 2 == 0) ? random.nextDouble() * Math.pow(10, random.nextInt(10) - 3)
+                : Math.round(random.nextDouble() * 1e6) / 100.0;
+            String text = JSONSerializer.toString(value);
+
+            assertEquals(value, Double.parseDouble(text), 0);
+            assertTrue(text.length() <= Double.toString(value).length());
+        }
+    }
+
+    @Test
+    public void testWriteStream() throws IOException, SerializationException {
+        // Long enough for characters (and surrogate pairs) to straddle buffers
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append("x\u00e9\u2603\uD83D\uDE00\n");
+        }
+
+        ArrayList<Object> list = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            list.add(text.toString());
+            list.add(new HashMap<>(new Dictionary.Pair<String, Object>("value", i * 0.25)));
+        }
+
+        JSONSerializer serializer = new JSONSerializer();
+        StringWriter writer = new StringWriter();
+        serializer.writeObject(list, writer);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        serializer.writeObject(list, outputStream);
+        assertEquals(writer.toString(), new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+
+        JSONSerializer latin1Serializer = new JSONSerializer(StandardCharsets.ISO_8859_1);
+        outputStream = new ByteArrayOutputStream();
+        latin1Serializer.writeObject(list, outputStream);
+        String latin1Text = new String(outputStream.toByteArray(), StandardCharsets.ISO_8859_1);
+        assertTrue(latin1Text.startsWith("[\"x\u00e9\\u2603\\ud83d\\ude00\\nx"));
+        assertEquals(list, latin1Serializer.readObject(new java.io.StringReader(latin1Text)));
+    }
+
+    public static class Bean {
+        private int count = 3;
+        private String name = "bean";
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(final int count) {
+            this.count = count;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public String getReadOnly() {
+            return "ignored";
+        }
+    }
+
+    @Test
+    public void testWriteBean() throws SerializationException {
+        String text = JSONSerializer.toString(new ArrayList<Object>(new Bean(), new Bean()));
+
+        assertTrue(text.contains("count: 3"));
+        assertTrue(text.contains("name: \"bean\""));
+        assertFalse(text.contains("readOnly"));
+        assertEquals(2, JSONSerializer.parseList(text).getLength());
+    }
 }
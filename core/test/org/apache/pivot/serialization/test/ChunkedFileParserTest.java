@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.serialization.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.pivot.collections.ColumnTable;
+import org.apache.pivot.collections.ColumnTable.Column;
+import org.apache.pivot.collections.ColumnTable.ColumnType;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.json.JSONSerializer;
+import org.apache.pivot.serialization.CSVSerializer;
+import org.apache.pivot.serialization.ChunkedFileParser;
+import org.apache.pivot.serialization.SerializationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkedFileParserTest {
+    private Path file = null;
+    private ForkJoinPool pool = null;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile(getClass().getSimpleName(), null);
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Writes a CSV file of several chunks, with quoted values spanning lines
+     * (some of them longer than a scan buffer) wherever the chunks are cut.
+     */
+    private void writeCSV(final int rowCount) throws IOException {
+        StringBuilder text = new StringBuilder("id,name,note\r\n");
+
+        for (int i = 0; i < rowCount; i++) {
+            text.append(i).append(",name ").append(i).append(" é☃,");
+
+            if (i % 97 == 0 || i % 997 == 0) {
+                text.append('"');
+                for (int j = 0, n = (i % 997 == 0) ? 5000 : 50; j < n; j++) {
+                    text.append("line ").append(j).append(", \"\"quoted\"\"\n");
+                }
+                text.append('"');
+            } else if (i % 3 == 0) {
+                text.append("\"a, b\nc\"");
+            } else {
+                text.append("plain");
+            }
+
+            text.append("\r\n");
+        }
+
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<?> readStream(final CSVSerializer serializer) throws IOException, SerializationException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return serializer.readObject(inputStream);
+        }
+    }
+
+    @Test
+    public void testCSV() throws IOException, SerializationException {
+        writeCSV(60000);
+        assertTrue(Files.size(file) > 4 * ChunkedFileParser.MINIMUM_CHUNK_SIZE);
+
+        List<?> expected = readStream(new CSVSerializer(StandardCharsets.UTF_8));
+
+        List<?> items;
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            items = new CSVSerializer(StandardCharsets.UTF_8).readObjectParallel(fileChannel, pool);
+            assertEquals(fileChannel.size(), fileChannel.position());
+        }
+
+        assertEquals(60000, items.getLength());
+        for (int i = 0; i < expected.getLength(); i++) {
+            assertEquals(expected.get(i), items.get(i));
+        }
+    }
+
+    @Test
+    public void testColumns() throws IOException, SerializationException {
+        writeCSV(60000);
+
+        CSVSerializer serializer = new CSVSerializer(StandardCharsets.UTF_8);
+        serializer.setColumns(new Column("id", ColumnType.INT), new Column("note"));
+
+        ColumnTable table;
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            table = (ColumnTable) serializer.readObjectParallel(fileChannel, pool);
+        }
+
+        assertEquals(60000, table.getLength());
+        for (int i = 0; i < table.getLength(); i++) {
+            assertEquals(i, table.getInt(i, 0));
+        }
+        assertEquals("a, b\nc", table.getString(3, 1));
+        assertTrue(table.getString(97, 1).endsWith("line 49, \"quoted\""));
+    }
+
+    @Test
+    public void testJSONLines() throws IOException, SerializationException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            text.append("{\"id\": ").append(i).append(", \"tags\": [\"a\", \"é\"], \"text\": \"x\\ny\"}\n");
+        }
+        text.append("\n42\n");
+
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<Object> expected;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            expected = new JSONSerializer().readLines(reader);
+        }
+
+        List<Object> values;
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            values = new JSONSerializer().readLines(fileChannel, pool);
+        }
+
+        assertEquals(50001, values.getLength());
+        for (int i = 0; i < expected.getLength(); i++) {
+            assertEquals(expected.get(i), values.get(i));
+        }
+        assertEquals(42, values.get(50000));
+    }
+
+    @Test
+    public void testSmallFiles() throws IOException, SerializationException {
+        Files.write(file, "a,b\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CSVSerializer serializer = new CSVSerializer();
+            assertEquals(0, serializer.readObjectParallel(fileChannel, pool).getLength());
+            assertEquals("b", serializer.getKeys().get(1));
+        }
+
+        Files.write(file, "a,b\n1,\"2\n3\"".getBytes(StandardCharsets.ISO_8859_1));
+
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<?> items = new CSVSerializer().readObjectParallel(fileChannel, pool);
+            assertEquals(1, items.getLength());
+            assertEquals(readStream(new CSVSerializer()).get(0), items.get(0));
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.serialization.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.HashMap;
+import org.apache.pivot.collections.LinkedList;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.serialization.BinarySerializer;
+import org.apache.pivot.serialization.CompactSerializer;
+import org.apache.pivot.serialization.SerializationException;
+import org.apache.pivot.serialization.Serializer;
+import org.junit.Test;
+
+public class CompactSerializerTest {
+    /**
+     * A bean to serialize.
+     */
+    public static class Person {
+        /**
+         * An enum property type.
+         */
+        public enum Role {
+            USER, ADMINISTRATOR
+        }
+
+        private String name = null;
+        private int age = 0;
+        private boolean active = false;
+        private Role role = Role.USER;
+        private List<Person> friends = null;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(final int age) {
+            this.age = age;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(final boolean active) {
+            this.active = active;
+        }
+
+        public Role getRole() {
+            return role;
+        }
+
+        public void setRole(final Role role) {
+            this.role = role;
+        }
+
+        public List<Person> getFriends() {
+            return friends;
+        }
+
+        public void setFriends(final List<Person> friends) {
+            this.friends = friends;
+        }
+    }
+
+    private static byte[] write(final Serializer<Object> serializer, final Object value)
+        throws IOException, SerializationException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        serializer.writeObject(value, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static Object read(final Serializer<Object> serializer, final byte[] bytes)
+        throws IOException, SerializationException {
+        return serializer.readObject(new ByteArrayInputStream(bytes));
+    }
+
+    private static Object roundTrip(final Object value) throws IOException, SerializationException {
+        CompactSerializer serializer = new CompactSerializer(type -> true);
+        return read(serializer, write(serializer, value));
+    }
+
+    @Test
+    public void testValues() throws IOException, SerializationException {
+        Object[] values = {null, Boolean.TRUE, Boolean.FALSE, (byte) -7, (short) 300, 0, -1,
+            Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MIN_VALUE, 1234567890123L, 1.5f, -0.0d,
+            Double.NaN, 'x', "", "Hello World", "été ☃", new BigInteger("-123456789012345678901234567890"),
+            new BigDecimal("3.14159265358979323846"), new Date(1234567890L)};
+
+        for (Object value : values) {
+            assertEquals(value, roundTrip(value));
+        }
+
+        assertArrayEquals(new byte[] {1, 2, 3}, (byte[]) roundTrip(new byte[] {1, 2, 3}));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCollections() throws IOException, SerializationException {
+        ArrayList<Object> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            HashMap<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            row.put("name", "Item " + i);
+            row.put("price", i * 0.25);
+            row.put("tags", new LinkedList<Object>("a", "b"));
+            list.add(row);
+        }
+
+        CompactSerializer serializer = new CompactSerializer();
+        byte[] bytes = write(serializer, list);
+
+        List<Object> result = (List<Object>) read(serializer, bytes);
+        assertEquals(ArrayList.class, result.getClass());
+        assertEquals(100, result.getLength());
+
+        Map<String, Object> row = (Map<String, Object>) result.get(42);
+        assertEquals(42, row.get("id"));
+        assertEquals("Item 42", row.get("name"));
+        assertEquals(10.5, row.get("price"));
+        assertEquals(LinkedList.class, row.get("tags").getClass());
+        assertEquals("b", ((List<Object>) row.get("tags")).get(1));
+
+        // The keys (and the class names) are only written once
+        byte[] binaryBytes = write(new BinarySerializer(), list);
+        assertTrue(bytes.length * 2 < binaryBytes.length);
+    }
+
+    @Test
+    public void testBeans() throws IOException, SerializationException {
+        Person alice = new Person();
+        alice.setName("Alice");
+        alice.setAge(42);
+        alice.setActive(true);
+        alice.setRole(Person.Role.ADMINISTRATOR);
+
+        Person bob = new Person();
+        bob.setName("Bob");
+        alice.setFriends(new ArrayList<>(bob));
+
+        CompactSerializer serializer = new CompactSerializer(type -> type.getName().startsWith("org.apache.pivot."));
+        Person result = (Person) read(serializer, write(serializer, alice));
+
+        assertEquals("Alice", result.getName());
+        assertEquals(42, result.getAge());
+        assertTrue(result.isActive());
+        assertEquals(Person.Role.ADMINISTRATOR, result.getRole());
+        assertEquals("Bob", result.getFriends().get(0).getName());
+        assertNull(result.getFriends().get(0).getFriends());
+
+        // Beans aren't created unless their type is allowed
+        try {
+            read(new CompactSerializer(), write(serializer, alice));
+            fail("Expected a SerializationException");
+        } catch (SerializationException exception) {
+            assertTrue(exception.getMessage().contains(Person.class.getName()));
+        }
+    }
+
+    @Test
+    public void testInvalidData() throws IOException {
+        CompactSerializer serializer = new CompactSerializer();
+
+        HashMap<String, Object> map = new HashMap<>();
+        map.put("self", map);
+
+        try {
+            write(serializer, map);
+            fail("Expected a SerializationException");
+        } catch (SerializationException exception) {
+            // Expected
+        }
+
+        byte[][] invalidData = {{}, {'P', 'V', 'C'}, {'P', 'V', 'C', 1, 99}, {'P', 'V', 'C', 1, 10, 0, 5, 'a'},
+            {'X', 'Y', 'Z', 1, 0}};
+
+        for (byte[] bytes : invalidData) {
+            try {
+                read(serializer, bytes);
+                fail("Expected a SerializationException");
+            } catch (SerializationException exception) {
+                // Expected
+            }
+        }
+
+        // Sequences nested too deep
+        ByteArrayOutputStream nested = new ByteArrayOutputStream();
+        nested.write(new byte[] {'P', 'V', 'C', 1});
+        for (int i = 0; i < CompactSerializer.MAX_DEPTH; i++) {
+            nested.write(new byte[] {18, 1});
+        }
+        nested.write(0);
+
+        try {
+            read(serializer, nested.toByteArray());
+            fail("Expected a SerializationException");
+        } catch (SerializationException exception) {
+            assertTrue(exception.getMessage().contains("nested"));
+        }
+    }
+
+    @Test
+    public void testInvalidProperty() throws IOException {
+        // A person whose role is a string that isn't one of the roles
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[] {'P', 'V', 'C', 1, 19, 0, 0});
+        byte[] className = Person.class.getName().getBytes(StandardCharsets.UTF_8);
+        bytes.write(className.length);
+        bytes.write(className);
+        bytes.write(new byte[] {1, 0, 4, 'r', 'o', 'l', 'e', 10, 0, 3, 'C', 'E', 'O'});
+
+        try {
+            read(new CompactSerializer(type -> true), bytes.toByteArray());
+            fail("Expected a SerializationException");
+        } catch (SerializationException exception) {
+            assertTrue(exception.getCause() instanceof IllegalArgumentException);
+        }
+    }
+}
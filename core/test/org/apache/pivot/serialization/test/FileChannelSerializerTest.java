@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.serialization.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.io.FileChannels;
+import org.apache.pivot.io.FileSerializer;
+import org.apache.pivot.json.JSONSerializer;
+import org.apache.pivot.serialization.ByteArraySerializer;
+import org.apache.pivot.serialization.CSVSerializer;
+import org.apache.pivot.serialization.FileChannelSerializer;
+import org.apache.pivot.serialization.PropertiesSerializer;
+import org.apache.pivot.serialization.SerializationException;
+import org.apache.pivot.serialization.StringSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileChannelSerializerTest {
+    private Path file = null;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile(getClass().getSimpleName(), null);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * @return Text of (about) the given size, with multi-byte characters
+     * straddling the boundaries of the chunks the text is decoded in.
+     */
+    private static String newText(final int size) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < size; i++) {
+            text.append("line ").append(i).append(": d\u00e9j\u00e0 vu \u2603 \uD83D\uDE00\n");
+        }
+
+        return text.toString();
+    }
+
+    private <T> T readStream(final FileChannelSerializer<T> serializer) throws IOException,
+        SerializationException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return serializer.readObject(inputStream);
+        }
+    }
+
+    @Test
+    public void testDecode() throws IOException, SerializationException {
+        // Read directly, then memory-mapped
+        for (int size : new int[] {0, 1000, FileChannels.MAPPING_THRESHOLD * 3}) {
+            String text = newText(size);
+            Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+
+            ArrayList<Long> counts = new ArrayList<>();
+            try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                assertEquals(text, FileChannels.decode(fileChannel, StandardCharsets.UTF_8, counts::add).toString());
+                assertEquals(fileChannel.size(), fileChannel.position());
+            }
+
+            assertEquals(Files.size(file), counts.get(counts.getLength() - 1).longValue());
+            for (int i = 1; i < counts.getLength(); i++) {
+                assertTrue(counts.get(i - 1) <= counts.get(i));
+            }
+
+            assertEquals(text, new StringSerializer().readObject(file));
+            assertArrayEquals(Files.readAllBytes(file), new ByteArraySerializer().readObject(file));
+        }
+    }
+
+    @Test
+    public void testReader() throws IOException {
+        for (int size : new int[] {0, 1000, FileChannels.MAPPING_THRESHOLD * 3}) {
+            String text = newText(size);
+            Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+
+            ArrayList<Long> counts = new ArrayList<>();
+            StringBuilder result = new StringBuilder();
+            try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+                Reader reader = FileChannels.newReader(fileChannel, StandardCharsets.UTF_8, counts::add)) {
+                // Read both a character and an odd number of characters at a time
+                char[] buffer = new char[1001];
+                for (int c = reader.read(); c != -1; c = reader.read()) {
+                    result.append((char) c);
+
+                    int count = reader.read(buffer);
+                    if (count == -1) {
+                        break;
+                    }
+
+                    result.append(buffer, 0, count);
+                }
+
+                assertEquals(-1, reader.read());
+                assertEquals(fileChannel.size(), fileChannel.position());
+            }
+
+            assertEquals(text, result.toString());
+            assertEquals(Files.size(file), counts.get(counts.getLength() - 1).longValue());
+        }
+
+        // Malformed input is replaced, including at the end of the file
+        Files.write(file, new byte[] {'a', (byte) 0xFF, 'b', (byte) 0xE2, (byte) 0x98});
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+            Reader reader = FileChannels.newReader(fileChannel, StandardCharsets.UTF_8, null)) {
+            StringBuilder result = new StringBuilder();
+            for (int c = reader.read(); c != -1; c = reader.read()) {
+                result.append((char) c);
+            }
+
+            assertEquals("a\uFFFDb\uFFFD", result.toString());
+        }
+    }
+
+    @Test
+    public void testSerializers() throws IOException, SerializationException {
+        Files.write(file, "{a: 1, b: [\"x\", \"\u00e9\"]}".getBytes(StandardCharsets.UTF_8));
+        JSONSerializer jsonSerializer = new JSONSerializer();
+        assertEquals(readStream(jsonSerializer), jsonSerializer.readObject(file));
+
+        Files.write(file, "a,b\n1,2\n3,4\n".getBytes(StandardCharsets.ISO_8859_1));
+        List<?> rows = new CSVSerializer().readObject(file);
+        assertEquals(readStream(new CSVSerializer()), rows);
+        assertEquals(2, rows.getLength());
+
+        Files.write(file, "a=1\nb=caf\\u00e9\n".getBytes(StandardCharsets.ISO_8859_1));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> properties = (Map<String, Object>) new PropertiesSerializer().readObject(file);
+        assertEquals("caf\u00e9", properties.get("b"));
+        assertEquals("1", properties.get("a"));
+        assertEquals(2, properties.getCount());
+    }
+
+    @Test
+    public void testAbort() throws IOException, SerializationException {
+        Files.write(file, newText(FileChannels.MAPPING_THRESHOLD * 2).getBytes(StandardCharsets.UTF_8));
+
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            new StringSerializer().readObject(fileChannel, count -> {
+                throw new IllegalStateException("Aborted");
+            });
+
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException exception) {
+            assertEquals("Aborted", exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testAbortDeletesTempFile() throws IOException, SerializationException {
+        Files.write(file, newText(FileChannels.MAPPING_THRESHOLD).getBytes(StandardCharsets.UTF_8));
+        Path tempFileDirectory = Files.createTempDirectory(getClass().getSimpleName());
+
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            new FileSerializer(tempFileDirectory.toFile()).readObject(fileChannel, count -> {
+                throw new IllegalStateException("Aborted");
+            });
+
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException exception) {
+            File[] files = tempFileDirectory.toFile().listFiles();
+            assertEquals(0, files.length);
+        } finally {
+            Files.deleteIfExists(tempFileDirectory);
+        }
+    }
+}
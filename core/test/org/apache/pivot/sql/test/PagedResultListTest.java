@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.sql.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.sql.PagedResultList;
+import org.apache.pivot.sql.ResultList;
+
+public class PagedResultListTest {
+    private static final String[] COLUMNS = {"id", "name"};
+    private static final int ROW_COUNT = 1000;
+
+    /**
+     * A scrollable, read-only result set over rows of (id, name), where
+     * every tenth name is {@code NULL}.
+     */
+    private static ResultSet createResultSet(final AtomicInteger seekCount) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+            PagedResultListTest.class.getClassLoader(), new Class<?>[] {ResultSetMetaData.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getColumnCount":
+                        return COLUMNS.length;
+                    case "getColumnLabel":
+                        return COLUMNS[(Integer) args[0] - 1];
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+
+        int[] row = {0};
+        Object[] lastValue = {null};
+
+        return (ResultSet) Proxy.newProxyInstance(PagedResultListTest.class.getClassLoader(),
+            new Class<?>[] {ResultSet.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getType":
+                        return ResultSet.TYPE_SCROLL_INSENSITIVE;
+                    case "getMetaData":
+                        return metaData;
+                    case "absolute":
+                        seekCount.incrementAndGet();
+                        row[0] = (Integer) args[0];
+                        return (row[0] >= 1 && row[0] <= ROW_COUNT);
+                    case "next":
+                        row[0]++;
+                        return (row[0] <= ROW_COUNT);
+                    case "last":
+                        row[0] = ROW_COUNT;
+                        return true;
+                    case "getRow":
+                        return row[0];
+                    case "findColumn":
+                        return ("id".equals(args[0])) ? 1 : 2;
+                    case "getInt":
+                    case "getObject":
+                    case "getString":
+                        int id = row[0] - 1;
+                        if ((Integer) args[0] == 1) {
+                            lastValue[0] = id;
+                            return ("getString".equals(method.getName())) ? Integer.toString(id) : id;
+                        }
+                        lastValue[0] = (id % 10 == 0) ? null : "Row " + id;
+                        return lastValue[0];
+                    case "wasNull":
+                        return (lastValue[0] == null);
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+
+    @Test
+    public void testRandomAccess() {
+        AtomicInteger seekCount = new AtomicInteger();
+        PagedResultList list = new PagedResultList(createResultSet(seekCount), null);
+        list.setPageSize(50);
+
+        assertEquals(ROW_COUNT, list.getLength());
+
+        Map<String, Object> row = list.get(777);
+        assertEquals(777, row.get("id"));
+        assertEquals("Row 777", row.get("name"));
+        assertEquals(2, row.getCount());
+        assertEquals(777, list.indexOf(row));
+
+        // Null values are left out unless asked for
+        Map<String, Object> nullRow = list.get(780);
+        assertFalse(nullRow.containsKey("name"));
+        assertEquals(1, nullRow.getCount());
+
+        // Rows on the same page are read together
+        assertEquals(1, seekCount.get());
+        list.get(751);
+        assertEquals(1, seekCount.get());
+
+        list.get(0);
+        assertEquals(2, seekCount.get());
+
+        int count = 0;
+        for (Map<String, Object> item : list) {
+            assertEquals(count++, item.get("id"));
+        }
+        assertEquals(ROW_COUNT, count);
+    }
+
+    @Test
+    public void testFields() {
+        PagedResultList list = new PagedResultList(createResultSet(new AtomicInteger()), null);
+        list.setFields(new ResultList.Field("id", "key", String.class), new ResultList.Field("name"));
+        list.setIncludeNullValues(true);
+
+        Map<String, Object> row = list.get(10);
+        assertEquals("10", row.get("key"));
+        assertTrue(row.containsKey("name"));
+        assertNull(row.get("name"));
+        assertFalse(row.containsKey("id"));
+
+        int count = 0;
+        for (String key : row) {
+            assertTrue(row.containsKey(key));
+            count++;
+        }
+        assertEquals(2, count);
+    }
+
+    @Test
+    public void testPrefetch() throws InterruptedException {
+        AtomicInteger seekCount = new AtomicInteger();
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        PagedResultList list = new PagedResultList(createResultSet(seekCount), executorService);
+
+        // Reading towards the end of a page reads the next one in the background
+        list.get(95);
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(2, seekCount.get());
+
+        assertEquals(100, list.get(100).get("id"));
+        assertEquals(2, seekCount.get());
+    }
+}
@@ -19,14 +19,19 @@ package org.apache.pivot.xml.test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 
+import org.apache.pivot.collections.ArrayList;
 import org.apache.pivot.collections.List;
 import org.apache.pivot.serialization.SerializationException;
 import org.apache.pivot.xml.Element;
 import org.apache.pivot.xml.TextNode;
 import org.apache.pivot.xml.XML;
+import org.apache.pivot.xml.XMLPath;
 import org.apache.pivot.xml.XMLSerializer;
 import org.apache.pivot.xml.XMLSerializerListener;
 import org.junit.Test;
@@ -113,4 +118,98 @@ public class XMLSerializerTest {
         Element root2 = xmlSerializer.readObject(getClass().getResourceAsStream("sample.xml"));
         assertNotNull(root2);
     }
+
+    @Test
+    public void pathTest() throws IOException, SerializationException {
+        XMLSerializer xmlSerializer = new XMLSerializer();
+        Element root = xmlSerializer.readObject(getClass().getResourceAsStream("sample.xml"));
+
+        List<Element> fs = XMLPath.compile("d/e/f").select(root);
+        assertEquals(4, fs.getLength());
+        assertEquals("5", fs.get(3).getText());
+
+        assertEquals("3", XMLPath.compile("d/e/f[2]").getText(root));
+        assertEquals("4", XMLPath.compile("d/*/*[3]").getText(root));
+        assertEquals("Hello", XMLPath.compile("//foo:h").getText(root));
+        assertEquals(3, XMLPath.compile("//i").select(root).getLength());
+        assertEquals(3, XMLPath.compile("d//is/i").select(root).getLength());
+        assertEquals("2", XMLPath.compile("//is/i[1]").selectFirst(root)
+            .getElementDictionary().get("id"));
+        assertEquals(6, XMLPath.compile("//e/*").select(root).getLength());
+        assertNull(XMLPath.compile("a/b/n").selectFirst(root));
+
+        // The index of children by name follows changes to the element
+        Element e = XML.getElement(root, "d/e");
+        e.remove(0, 1);
+        assertEquals("2", XMLPath.compile("f").getText(e));
+        assertEquals(3, e.getElements("f").getLength());
+
+        try {
+            XMLPath.compile("d/e[1");
+            assertTrue(false);
+        } catch (IllegalArgumentException exception) {
+            // Expected
+        }
+
+        try {
+            XMLPath.compile("d///e");
+            assertTrue(false);
+        } catch (IllegalArgumentException exception) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void streamTest() throws IOException, SerializationException {
+        XMLSerializer xmlSerializer = new XMLSerializer();
+
+        ArrayList<Element> fs = new ArrayList<>();
+        int count = xmlSerializer.readElements(getClass().getResourceAsStream("sample.xml"),
+            XMLPath.compile("d/e/f"), fs::add);
+        assertEquals(4, count);
+        assertEquals("1", fs.get(0).getText());
+        assertEquals("5", fs.get(3).getText());
+        assertNull(fs.get(0).getParent());
+
+        ArrayList<Element> is = new ArrayList<>();
+        xmlSerializer.readElements(getClass().getResourceAsStream("sample.xml"),
+            XMLPath.compile("//is"), is::add);
+        assertEquals(1, is.getLength());
+        assertEquals(3, is.get(0).getLength());
+        assertEquals("3", XMLPath.compile("i[2]").selectFirst(is.get(0))
+            .getElementDictionary().get("id"));
+
+        ArrayList<Element> ids = new ArrayList<>();
+        xmlSerializer.readElements(getClass().getResourceAsStream("sample.xml"),
+            XMLPath.compile("d/e/*[3]"), ids::add);
+        assertEquals(1, ids.getLength());
+        assertEquals("g", ids.get(0).getName());
+    }
+
+    @Test
+    public void streamNamespaceTest() throws IOException, SerializationException {
+        XMLSerializer xmlSerializer = new XMLSerializer();
+
+        String xml = "<root xmlns=\"urn:d\" xmlns:p=\"urn:p\" xmlns:q=\"urn:q\">"
+            + "<list xmlns:p=\"urn:p2\"><p:item q:id=\"1\"><p:name>a</p:name></p:item></list>"
+            + "</root>";
+
+        ArrayList<Element> items = new ArrayList<>();
+        xmlSerializer.readElements(new StringReader(xml), XMLPath.compile("list/p:item"), items::add);
+        assertEquals(1, items.getLength());
+
+        // The declarations of the ancestors are carried over, innermost first
+        Element item = items.get(0);
+        assertEquals("urn:p2", item.getNamespaceURI("p"));
+        assertEquals("urn:q", item.getNamespaceURI("q"));
+        assertEquals("urn:d", item.getDefaultNamespaceURI());
+
+        // So the element can be written out and read back on its own
+        StringWriter writer = new StringWriter();
+        xmlSerializer.writeObject(item, writer);
+
+        Element copy = xmlSerializer.readObject(new StringReader(writer.toString()));
+        assertEquals("urn:p2", copy.getNamespaceURI("p"));
+        assertEquals("a", XML.getElement(copy, "p:name").getText());
+    }
 }
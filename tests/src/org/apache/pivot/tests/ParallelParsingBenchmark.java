@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.tests;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.pivot.io.CharBufferReader;
+import org.apache.pivot.io.FileChannels;
+import org.apache.pivot.json.JSONSerializer;
+import org.apache.pivot.serialization.CSVSerializer;
+import org.apache.pivot.serialization.SerializationException;
+
+/**
+ * Measures how parsing a large CSV file, and a large newline-delimited JSON
+ * file, scales with the number of threads parsing it, against the sequential
+ * parser. The files are generated in the temporary directory, and read once
+ * before timing so that they are in the file system cache. <p> Usage:
+ * {@code ParallelParsingBenchmark [megabytes [iterations]]}
+ */
+public final class ParallelParsingBenchmark {
+    /** The default size of the files, in megabytes. */
+    private static final int DEFAULT_SIZE = 100;
+
+    /** The default number of times each file is read with each pool. */
+    private static final int DEFAULT_ITERATIONS = 3;
+
+    /** The pool sizes to compare. */
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+    /** A read of a file. */
+    @FunctionalInterface
+    private interface Read {
+        int run(FileChannel fileChannel) throws IOException, SerializationException;
+    }
+
+    /** A parallel read of a file. */
+    @FunctionalInterface
+    private interface ParallelRead {
+        int run(FileChannel fileChannel, ForkJoinPool pool) throws IOException, SerializationException;
+    }
+
+    private ParallelParsingBenchmark() {
+    }
+
+    public static void main(final String[] args) throws IOException, SerializationException {
+        long size = ((args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_SIZE) * 1024L * 1024L;
+        int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+
+        Path csvFile = Files.createTempFile("benchmark", ".csv");
+        Path jsonFile = Files.createTempFile("benchmark", ".jsonl");
+
+        try {
+            writeCSV(csvFile, size);
+            writeJSON(jsonFile, size);
+
+            System.out.println("CSV (" + Files.size(csvFile) / (1024 * 1024) + " MB)");
+            run(csvFile, iterations, fileChannel -> new CSVSerializer(StandardCharsets.UTF_8)
+                .readObject(new CharBufferReader(FileChannels.decode(fileChannel, StandardCharsets.UTF_8, null)))
+                .getLength(), (fileChannel, pool) -> new CSVSerializer(StandardCharsets.UTF_8)
+                .readObjectParallel(fileChannel, pool).getLength());
+
+            System.out.println("JSON lines (" + Files.size(jsonFile) / (1024 * 1024) + " MB)");
+            run(jsonFile, iterations, fileChannel -> {
+                try (Reader reader = new CharBufferReader(FileChannels.decode(fileChannel,
+                    StandardCharsets.UTF_8, null))) {
+                    return new JSONSerializer().readLines(reader).getLength();
+                }
+            }, (fileChannel, pool) -> new JSONSerializer().readLines(fileChannel, pool).getLength());
+        } finally {
+            Files.deleteIfExists(csvFile);
+            Files.deleteIfExists(jsonFile);
+        }
+    }
+
+    private static void run(final Path file, final int iterations, final Read sequentialRead,
+        final ParallelRead parallelRead) throws IOException, SerializationException {
+        // Warm up the file system cache and the JIT
+        time(file, 1, sequentialRead);
+
+        long sequentialTime = time(file, iterations, sequentialRead);
+        System.out.println(String.format("  sequential: %6d ms", sequentialTime));
+
+        for (int threadCount : THREAD_COUNTS) {
+            ForkJoinPool pool = new ForkJoinPool(threadCount);
+
+            try {
+                long time = time(file, iterations, fileChannel -> parallelRead.run(fileChannel, pool));
+                System.out.println(String.format("  %2d threads: %6d ms (%.1fx)", threadCount, time,
+                    (double) sequentialTime / time));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * @return The best time of the reads, in milliseconds.
+     */
+    private static long time(final Path file, final int iterations, final Read read) throws IOException,
+        SerializationException {
+        long bestTime = Long.MAX_VALUE;
+
+        for (int i = 0; i < iterations; i++) {
+            try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long start = System.nanoTime();
+                read.run(fileChannel);
+                bestTime = Math.min(bestTime, (System.nanoTime() - start) / 1000000);
+            }
+        }
+
+        return bestTime;
+    }
+
+    private static void writeCSV(final Path file, final long size) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("id,name,amount,comment\r\n");
+
+            long length = 0;
+            for (int i = 0; length < size; i++) {
+                String line = i + ",name " + i + "," + (i * 31 % 10007) / 100.0 + ","
+                    + ((i % 10 == 0) ? "\"quoted, with a\nline break and \"\"quotes\"\"\"" : "caf\u00e9")
+                    + "\r\n";
+                writer.write(line);
+                length += line.length();
+            }
+        }
+    }
+
+    private static void writeJSON(final Path file, final long size) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long length = 0;
+            for (int i = 0; length < size; i++) {
+                String line = "{\"id\": " + i + ", \"name\": \"name " + i + "\", \"amount\": "
+                    + (i * 31 % 10007) / 100.0 + ", \"tags\": [\"a\", \"caf\u00e9\"]}\n";
+                writer.write(line);
+                length += line.length();
+            }
+        }
+    }
+}
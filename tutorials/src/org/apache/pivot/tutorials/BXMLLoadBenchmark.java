@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.tutorials;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URISyntaxException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.pivot.beans.BXMLCompiler;
+import org.apache.pivot.beans.BXMLSerializer;
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.serialization.SerializationException;
+import org.apache.pivot.serialization.Serializer;
+import org.apache.pivot.wtk.Window;
+
+/**
+ * Measures how long it takes to build the windows of the tutorials from their
+ * BXML files, with the BXML template cache cold (each file read and parsed on
+ * every load), warm (each load replaying the cached template) and, for the
+ * files that have one, with the builder generated by {@link BXMLCompiler}
+ * (see the {@code compile-bxml} step of the build). Files that
+ * don't describe a window, or can't be loaded outside of their application
+ * (because they need a script engine the JVM doesn't provide, for instance),
+ * are skipped. <p> Usage: {@code BXMLLoadBenchmark [iterations]}
+ */
+public final class BXMLLoadBenchmark {
+    private static final int DEFAULT_ITERATIONS = 20;
+
+    private static final String BXML_SUFFIX = "." + BXMLSerializer.BXML_EXTENSION;
+
+    /**
+     * A serializer that doesn't print the errors of the files it can't load,
+     * nor those of the files they include.
+     */
+    private static class QuietSerializer extends BXMLSerializer {
+        @Override
+        protected void reportException(final Throwable exception) {
+            // No-op
+        }
+
+        @Override
+        protected Serializer<?> newIncludeSerializer(final Class<? extends Serializer<?>> type)
+            throws InstantiationException, IllegalAccessException, NoSuchMethodException,
+                   InvocationTargetException {
+            return (type == BXMLSerializer.class) ? new QuietSerializer() : super.newIncludeSerializer(type);
+        }
+    }
+
+    private BXMLLoadBenchmark() {
+    }
+
+    public static void main(final String[] args) throws IOException, URISyntaxException,
+        SerializationException {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+
+        List<String> resourceNames = getResourceNames();
+        Properties builderIndex = getBuilderIndex();
+
+        long totalColdTime = 0;
+        long totalWarmTime = 0;
+        long totalCompiledTime = 0;
+        long totalCompiledWarmTime = 0;
+        int windowCount = 0;
+        int compiledCount = 0;
+        int skippedCount = 0;
+
+        System.out.println(String.format("%-60s %10s %10s %13s", "File", "Cold (ms)", "Warm (ms)",
+            "Compiled (ms)"));
+
+        for (String resourceName : resourceNames) {
+            URL location = BXMLLoadBenchmark.class.getClassLoader().getResource(resourceName);
+
+            // Load the file once, to load the classes it uses and to check that
+            // it is a window
+            BXMLSerializer.setCompiledBuildersEnabled(false);
+            BXMLSerializer.clearTemplateCache();
+
+            Object root;
+            try {
+                root = new QuietSerializer().readObject(location);
+            } catch (Exception | LinkageError exception) {
+                root = null;
+            }
+
+            if (!(root instanceof Window)) {
+                skippedCount++;
+                continue;
+            }
+
+            long coldTime = 0;
+            for (int i = 0; i < iterations; i++) {
+                BXMLSerializer.clearTemplateCache();
+
+                long start = System.nanoTime();
+                new QuietSerializer().readObject(location);
+                coldTime += System.nanoTime() - start;
+            }
+
+            // Cache the template, then time loading from it
+            new QuietSerializer().readObject(location);
+
+            long warmTime = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                new QuietSerializer().readObject(location);
+                warmTime += System.nanoTime() - start;
+            }
+
+            String compiled = "-";
+            if (builderIndex.containsKey(resourceName)) {
+                BXMLSerializer.setCompiledBuildersEnabled(true);
+                new QuietSerializer().readObject(location);
+
+                long compiledTime = 0;
+                for (int i = 0; i < iterations; i++) {
+                    long start = System.nanoTime();
+                    new QuietSerializer().readObject(location);
+                    compiledTime += System.nanoTime() - start;
+                }
+
+                compiled = String.format("%.3f", compiledTime / (iterations * 1e6));
+
+                totalCompiledTime += compiledTime;
+                totalCompiledWarmTime += warmTime;
+                compiledCount++;
+            }
+
+            System.out.println(String.format("%-60s %10.3f %10.3f %13s", resourceName,
+                coldTime / (iterations * 1e6), warmTime / (iterations * 1e6), compiled));
+
+            totalColdTime += coldTime;
+            totalWarmTime += warmTime;
+            windowCount++;
+        }
+
+        BXMLSerializer.setCompiledBuildersEnabled(true);
+
+        System.out.println();
+        System.out.println(String.format("%d windows (%d compiled), %d files skipped, %d iterations each",
+            windowCount, compiledCount, skippedCount, iterations));
+
+        if (windowCount > 0) {
+            System.out.println(String.format("Average per window: cold %.3f ms, warm %.3f ms (%.1fx)",
+                totalColdTime / (windowCount * iterations * 1e6),
+                totalWarmTime / (windowCount * iterations * 1e6),
+                (double) totalColdTime / Math.max(totalWarmTime, 1)));
+        }
+
+        if (compiledCount > 0) {
+            System.out.println(String.format("Average per compiled window: warm %.3f ms, compiled %.3f ms (%.1fx)",
+                totalCompiledWarmTime / (compiledCount * iterations * 1e6),
+                totalCompiledTime / (compiledCount * iterations * 1e6),
+                (double) totalCompiledWarmTime / Math.max(totalCompiledTime, 1)));
+        }
+    }
+
+    /**
+     * @return The index of the builders generated for the BXML resources, as
+     * written by {@link BXMLCompiler}; empty if they weren't compiled.
+     */
+    private static Properties getBuilderIndex() throws IOException {
+        Properties builderIndex = new Properties();
+
+        URL location = BXMLLoadBenchmark.class.getClassLoader().getResource(BXMLSerializer.BUILDER_INDEX);
+        if (location != null) {
+            try (InputStream inputStream = location.openStream()) {
+                builderIndex.load(inputStream);
+            }
+        }
+
+        return builderIndex;
+    }
+
+    /**
+     * @return The names of the BXML resources of the tutorials package, from
+     * the directory or JAR file this class was loaded from.
+     */
+    private static List<String> getResourceNames() throws IOException, URISyntaxException {
+        ArrayList<String> resourceNames = new ArrayList<>(String::compareTo);
+
+        String packagePath = BXMLLoadBenchmark.class.getPackage().getName().replace('.', '/') + "/";
+        URL codeSource = BXMLLoadBenchmark.class.getProtectionDomain().getCodeSource().getLocation();
+        File file = new File(codeSource.toURI());
+
+        if (file.isDirectory()) {
+            addResourceNames(new File(file, packagePath), packagePath, resourceNames);
+        } else {
+            try (JarFile jarFile = new JarFile(file)) {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    if (name.startsWith(packagePath) && name.endsWith(BXML_SUFFIX)) {
+                        resourceNames.add(name);
+                    }
+                }
+            }
+        }
+
+        return resourceNames;
+    }
+
+    private static void addResourceNames(final File directory, final String path,
+        final List<String> resourceNames) {
+        File[] files = directory.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    addResourceNames(file, path + file.getName() + "/", resourceNames);
+                } else if (file.getName().endsWith(BXML_SUFFIX)) {
+                    resourceNames.add(path + file.getName());
+                }
+            }
+        }
+    }
+}
@@ -39,6 +39,7 @@ import org.apache.pivot.serialization.SerializationException;
 import org.apache.pivot.serialization.Serializer;
 import org.apache.pivot.util.Constants;
 import org.apache.pivot.util.ImmutableIterator;
+import org.apache.pivot.util.Utils;
 import org.apache.pivot.web.Query;
 import org.apache.pivot.web.QueryDictionary;
 import org.apache.pivot.web.QueryException;
@@ -47,7 +48,8 @@ import org.apache.pivot.web.QueryException;
  * Abstract base class for query servlets.<br/>
  *
  * Note that for better security, you should only use BinarySerializer in QueryServlet
- * if you're sure the incoming requests will only come from trusted sources.
+ * if you're sure the incoming requests will only come from trusted sources
+ * (CompactSerializer is a safer binary alternative).
  */
 public abstract class QueryServlet extends HttpServlet {
     /**
@@ -334,6 +336,55 @@ public abstract class QueryServlet extends HttpServlet {
     protected abstract Serializer<?> createSerializer(Query.Method method, Path path)
         throws QueryException;
 
+    /**
+     * Tells whether the client asked for the given data format: for POST and
+     * PUT requests, whether it is the content type of the request; for GET and
+     * DELETE requests, whether the {@code Accept} request header lists it
+     * explicitly (wildcards don't count). Meant for {@link #createSerializer}
+     * implementations that support more than one format, such as
+     * {@link org.apache.pivot.serialization.CompactSerializer} for the clients
+     * that ask for it and JSON for the others.
+     *
+     * @param method Type of query being processed.
+     * @param mimeType The MIME type of the format, without parameters.
+     * @return Whether the client asked for that format.
+     */
+    protected boolean isRequested(final Query.Method method, final String mimeType) {
+        Utils.checkNull(method, "method");
+        Utils.checkNullOrEmpty(mimeType, "mimeType");
+
+        String headerName = (method == Query.Method.POST || method == Query.Method.PUT)
+            ? Constants.CONTENT_TYPE_HEADER : Constants.ACCEPT_HEADER;
+
+        QueryDictionary requestHeaderDictionary = requestHeaders.get();
+        for (int i = 0, n = requestHeaderDictionary.getLength(headerName); i < n; i++) {
+            for (String mediaRange : requestHeaderDictionary.get(headerName, i).split(",")) {
+                String[] parts = mediaRange.split(";");
+
+                if (parts[0].trim().equalsIgnoreCase(mimeType)) {
+                    // A quality of zero means "not acceptable"
+                    boolean acceptable = true;
+                    for (int j = 1; j < parts.length; j++) {
+                        String parameter = parts[j].trim();
+                        if (parameter.startsWith("q=")) {
+                            try {
+                                acceptable = (Double.parseDouble(parameter.substring(2)) > 0);
+                            } catch (NumberFormatException exception) {
+                                acceptable = false;
+                            }
+                        }
+                    }
+
+                    if (acceptable) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
     @Override
     protected void service(final HttpServletRequest request, final HttpServletResponse response)
         throws IOException, ServletException {
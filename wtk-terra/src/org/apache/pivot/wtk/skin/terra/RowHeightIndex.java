@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.skin.terra;
+
+import org.apache.pivot.util.Utils;
+
+/**
+ * Keeps track of the heights and positions of the rows of a list or table
+ * whose rows vary in height. <p> Rows are measured lazily by the owning skin;
+ * until a row has been measured, an estimated height is used for it. Row
+ * positions are kept in a binary indexed tree, so mapping between rows and
+ * y-coordinates takes logarithmic time, as does a change in the height of a
+ * single row. Inserting or removing rows only shifts the stored heights; the
+ * tree is rebuilt the next time it is needed.
+ */
+final class RowHeightIndex {
+    // Space between consecutive rows (e.g., for a grid line)
+    private final int gap;
+
+    // Height used for rows that have not been measured
+    private final int estimatedHeight;
+
+    private int count = 0;
+    private int[] heights;
+    private boolean[] measured;
+
+    // Sum of all row heights, not including gaps
+    private int heightSum = 0;
+
+    // One-based binary indexed tree over (height + gap); null if out of date
+    private int[] tree = null;
+
+    /**
+     * Creates an index of unmeasured rows.
+     *
+     * @param count The initial number of rows.
+     * @param gap The space between consecutive rows.
+     * @param estimatedHeight The height to assume for rows that have not been
+     * measured yet.
+     */
+    RowHeightIndex(final int count, final int gap, final int estimatedHeight) {
+        Utils.checkNonNegative(count, "count");
+
+        this.gap = gap;
+        this.estimatedHeight = estimatedHeight;
+
+        heights = new int[Math.max(count, 16)];
+        measured = new boolean[heights.length];
+
+        insert(0, count);
+    }
+
+    /**
+     * @return The number of rows in the index.
+     */
+    int getLength() {
+        return count;
+    }
+
+    /**
+     * @return The sum of the heights of all rows, not including the gaps
+     * between them.
+     */
+    int getHeightSum() {
+        return heightSum;
+    }
+
+    /**
+     * @return Whether the given row has been measured.
+     * @param index The row index.
+     */
+    boolean isMeasured(final int index) {
+        return measured[index];
+    }
+
+    /**
+     * @return The (measured or estimated) height of the given row.
+     * @param index The row index.
+     */
+    int getHeight(final int index) {
+        return heights[index];
+    }
+
+    /**
+     * Records the measured height of a row.
+     *
+     * @param index The row index.
+     * @param height The measured height.
+     * @return {@code true} if the height of the row changed.
+     */
+    boolean setHeight(final int index, final int height) {
+        measured[index] = true;
+
+        int delta = height - heights[index];
+        if (delta != 0) {
+            heights[index] = height;
+            heightSum += delta;
+
+            if (tree != null) {
+                for (int i = index + 1; i <= count; i += i & -i) {
+                    tree[i] += delta;
+                }
+            }
+        }
+
+        return (delta != 0);
+    }
+
+    /**
+     * Marks a row as needing to be measured again; its current height is kept
+     * as the estimate until then.
+     *
+     * @param index The row index.
+     */
+    void invalidate(final int index) {
+        measured[index] = false;
+    }
+
+    /**
+     * Adds unmeasured rows to the index.
+     *
+     * @param index The index of the first new row.
+     * @param rowCount The number of rows to add.
+     */
+    void insert(final int index, final int rowCount) {
+        if (count + rowCount > heights.length) {
+            int capacity = Math.max(count + rowCount, heights.length * 3 / 2);
+
+            int[] newHeights = new int[capacity];
+            System.arraycopy(heights, 0, newHeights, 0, count);
+            heights = newHeights;
+
+            boolean[] newMeasured = new boolean[capacity];
+            System.arraycopy(measured, 0, newMeasured, 0, count);
+            measured = newMeasured;
+        }
+
+        System.arraycopy(heights, index, heights, index + rowCount, count - index);
+        System.arraycopy(measured, index, measured, index + rowCount, count - index);
+
+        for (int i = index, n = index + rowCount; i < n; i++) {
+            heights[i] = estimatedHeight;
+            measured[i] = false;
+        }
+
+        count += rowCount;
+        heightSum += rowCount * estimatedHeight;
+        tree = null;
+    }
+
+    /**
+     * Removes rows from the index.
+     *
+     * @param index The index of the first row to remove.
+     * @param rowCount The number of rows to remove.
+     */
+    void remove(final int index, final int rowCount) {
+        for (int i = index, n = index + rowCount; i < n; i++) {
+            heightSum -= heights[i];
+        }
+
+        System.arraycopy(heights, index + rowCount, heights, index, count - (index + rowCount));
+        System.arraycopy(measured, index + rowCount, measured, index, count - (index + rowCount));
+
+        count -= rowCount;
+        tree = null;
+    }
+
+    private void buildTree() {
+        if (tree == null) {
+            tree = new int[count + 1];
+
+            for (int i = 1; i <= count; i++) {
+                tree[i] += heights[i - 1] + gap;
+
+                int parent = i + (i & -i);
+                if (parent <= count) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The y-coordinate of the given row, which may be equal to the row
+     * count, giving the position just past the last row (and its gap).
+     * @param index The row index.
+     */
+    int getY(final int index) {
+        buildTree();
+
+        int y = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            y += tree[i];
+        }
+
+        return y;
+    }
+
+    /**
+     * @return The index of the row at the given y-coordinate (a gap belongs
+     * to the row above it), or <tt>-1</tt> if there is no row there.
+     * @param y The y-coordinate.
+     */
+    int getIndexAt(final int y) {
+        int index = -1;
+
+        if (y >= 0) {
+            buildTree();
+
+            int remaining = y;
+            index = 0;
+
+            for (int bit = Integer.highestOneBit(Math.max(count, 1)); bit != 0; bit >>= 1) {
+                int i = index + bit;
+                if (i <= count && tree[i] <= remaining) {
+                    index = i;
+                    remaining -= tree[i];
+                }
+            }
+
+            if (index >= count) {
+                index = -1;
+            }
+        }
+
+        return index;
+    }
+}
@@ -20,9 +20,9 @@ import java.awt.Graphics2D;
 
 import org.apache.pivot.util.Utils;
 import org.apache.pivot.wtk.ActivityIndicator;
-import org.apache.pivot.wtk.ApplicationContext;
 import org.apache.pivot.wtk.GraphicsUtilities;
 import org.apache.pivot.wtk.Theme;
+import org.apache.pivot.wtk.effects.AnimationClock;
 import org.apache.pivot.wtk.skin.ActivityIndicatorSkin;
 import org.apache.pivot.wtk.util.ColorUtilities;
 
@@ -35,7 +35,7 @@ public class TerraActivityIndicatorSkin extends ActivityIndicatorSkin {
 
     private int angle = 0;
 
-    private ApplicationContext.ScheduledCallback updateCallback = null;
+    private AnimationClock.Animation updateAnimation = null;
 
     public TerraActivityIndicatorSkin() {
         setColor(2);
@@ -139,13 +139,13 @@ public class TerraActivityIndicatorSkin extends ActivityIndicatorSkin {
     @Override
     public void activeChanged(ActivityIndicator activityIndicator) {
         if (activityIndicator.isActive()) {
-            updateCallback = ApplicationContext.scheduleRecurringCallback(() -> {
+            updateAnimation = AnimationClock.getDefault().schedule(() -> {
                 angle = (angle + 30) % 360;
                 repaintComponent();
             }, 100);
         } else {
-            updateCallback.cancel();
-            updateCallback = null;
+            updateAnimation.cancel();
+            updateAnimation = null;
             repaintComponent();
         }
     }
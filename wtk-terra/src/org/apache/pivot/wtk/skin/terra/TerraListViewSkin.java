@@ -28,6 +28,7 @@ import org.apache.pivot.collections.List;
 import org.apache.pivot.collections.Sequence;
 import org.apache.pivot.util.Filter;
 import org.apache.pivot.util.Utils;
+import org.apache.pivot.wtk.ApplicationContext;
 import org.apache.pivot.wtk.Bounds;
 import org.apache.pivot.wtk.Button;
 import org.apache.pivot.wtk.Checkbox;
@@ -73,7 +74,8 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
     private int highlightIndex = -1;
     private int selectIndex = -1;
 
-    private ArrayList<Integer> itemBoundaries = null;
+    private RowHeightIndex itemHeights = null;
+    private int itemHeightsWidth = -1;
     private int fixedItemHeight;
 
     private boolean validateSelection = false;
@@ -144,16 +146,17 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
         ListView.ItemRenderer itemRenderer = listView.getItemRenderer();
 
         if (variableItemHeight) {
-            int clientWidth = width;
-            if (listView.getCheckmarksEnabled()) {
-                clientWidth = Math.max(clientWidth
-                    - (CHECKBOX.getWidth() + checkboxPadding.getWidth()), 0);
-            }
+            int itemWidth = getItemWidth(listView, width);
 
-            int index = 0;
-            for (Object item : listData) {
-                itemRenderer.render(item, index++, listView, false, Button.State.UNSELECTED, false, false);
-                preferredHeight += itemRenderer.getPreferredHeight(clientWidth);
+            if (itemHeights == null || itemWidth == itemHeightsWidth) {
+                // Items that have not been measured yet are estimated
+                preferredHeight = getItemHeights(listView, itemWidth).getHeightSum();
+            } else {
+                // Measure every item at this width, but don't discard the
+                // measurements made at the current one
+                for (int i = 0, n = listData.getLength(); i < n; i++) {
+                    preferredHeight += measureItemHeight(listView, i, itemWidth);
+                }
             }
         } else {
             itemRenderer.render(null, -1, listView, false, Button.State.UNSELECTED, false, false);
@@ -217,43 +220,16 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
         ListView.ItemRenderer itemRenderer = listView.getItemRenderer();
 
         if (variableItemHeight) {
-            int width = getWidth();
-
-            int checkboxHeight = 0;
-            if (listView.getCheckmarksEnabled()) {
-                checkboxHeight = CHECKBOX.getHeight() + checkboxPadding.getHeight();
-            }
-
-            int n = listData.getLength();
-            itemBoundaries = new ArrayList<>(n);
-
-            int itemY = 0;
-            for (int i = 0; i < n; i++) {
-                Object item = listData.get(i);
-
-                int itemWidth = width;
-                int itemX = 0;
-
-                Button.State state = Button.State.UNSELECTED;
-                if (listView.getCheckmarksEnabled()) {
-                    if (listView.getAllowTriStateCheckmarks()) {
-                        state = listView.getItemCheckmarkState(i);
-                    } else {
-                        state = listView.isItemChecked(i) ? Button.State.SELECTED : Button.State.UNSELECTED;
-                    }
-                    itemX = CHECKBOX.getWidth() + checkboxPadding.getWidth();
-                    itemWidth -= itemX;
-                }
-
-                itemRenderer.render(item, i, listView, false, state, false, false);
-                int itemHeight = itemRenderer.getPreferredHeight(itemWidth);
-
-                if (listView.getCheckmarksEnabled()) {
-                    itemHeight = Math.max(itemHeight, checkboxHeight);
-                }
-
-                itemY += itemHeight;
-                itemBoundaries.add(itemY);
+            itemHeights = getItemHeights(listView, getItemWidth(listView, getWidth()));
+
+            // Measure the items that are currently in view; the others keep
+            // their estimated heights until they are scrolled into view
+            Bounds visibleArea = listView.getVisibleArea();
+            if (visibleArea != null
+                && measureItems(visibleArea.y, visibleArea.y + visibleArea.height)) {
+                // The component is being laid out, so it can't be invalidated
+                // until the layout is done
+                ApplicationContext.queueCallback(this::invalidateComponent);
             }
         } else {
             itemRenderer.render(null, -1, listView, false, Button.State.UNSELECTED, false, false);
@@ -287,6 +263,113 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
         validateSelection = false;
     }
 
+    /**
+     * @return The width available to the item renderer.
+     * @param listView The list view.
+     * @param width The width of the list view.
+     */
+    private int getItemWidth(final ListView listView, final int width) {
+        int itemWidth = width;
+        if (listView.getCheckmarksEnabled()) {
+            itemWidth = Math.max(itemWidth - (CHECKBOX.getWidth() + checkboxPadding.getWidth()), 0);
+        }
+
+        return itemWidth;
+    }
+
+    /**
+     * @return The item height to use when items are all the same height, and
+     * as the estimate for unmeasured items otherwise.
+     * @param listView The list view.
+     */
+    private int calculateFixedItemHeight(final ListView listView) {
+        ListView.ItemRenderer itemRenderer = listView.getItemRenderer();
+        itemRenderer.render(null, -1, listView, false, Button.State.UNSELECTED, false, false);
+
+        int itemHeight = itemRenderer.getPreferredHeight(-1);
+        if (listView.getCheckmarksEnabled()) {
+            itemHeight = Math.max(CHECKBOX.getHeight() + checkboxPadding.getHeight(), itemHeight);
+        }
+
+        return itemHeight;
+    }
+
+    /**
+     * Returns the item height index for the given item width. The index is
+     * kept across layouts, and only recreated (with all items unmeasured) when
+     * the width differs from the one that it was measured with.
+     *
+     * @param listView The list view.
+     * @param itemWidth The width available to the item renderer.
+     * @return The item height index.
+     */
+    private RowHeightIndex getItemHeights(final ListView listView, final int itemWidth) {
+        if (itemHeights == null || itemWidth != itemHeightsWidth) {
+            itemHeights = new RowHeightIndex(listView.getListData().getLength(), 0,
+                calculateFixedItemHeight(listView));
+            itemHeightsWidth = itemWidth;
+        }
+
+        return itemHeights;
+    }
+
+    /**
+     * Measures the items between the given y-coordinates that have not been
+     * measured yet.
+     *
+     * @param top The top of the area, inclusive.
+     * @param bottom The bottom of the area, exclusive.
+     * @return {@code true} if the height of any item changed.
+     */
+    private boolean measureItems(final int top, final int bottom) {
+        ListView listView = (ListView) getComponent();
+
+        boolean changed = false;
+
+        int index = itemHeights.getIndexAt(Math.max(top, 0));
+        if (index != -1) {
+            for (int n = itemHeights.getLength(); index < n && itemHeights.getY(index) < bottom; index++) {
+                if (!itemHeights.isMeasured(index)) {
+                    changed |= itemHeights.setHeight(index, measureItemHeight(listView, index, itemHeightsWidth));
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Measures the height of an item.
+     *
+     * @param listView The list view.
+     * @param index The index of the item.
+     * @param itemWidth The width available to the item renderer.
+     * @return The height of the item.
+     */
+    private int measureItemHeight(final ListView listView, final int index, final int itemWidth) {
+        @SuppressWarnings("unchecked")
+        List<Object> listData = (List<Object>) listView.getListData();
+        ListView.ItemRenderer itemRenderer = listView.getItemRenderer();
+
+        Button.State state = Button.State.UNSELECTED;
+        if (listView.getCheckmarksEnabled()) {
+            if (listView.getAllowTriStateCheckmarks()) {
+                state = listView.getItemCheckmarkState(index);
+            } else {
+                state = listView.isItemChecked(index) ? Button.State.SELECTED : Button.State.UNSELECTED;
+            }
+        }
+
+        itemRenderer.render(listData.get(index), index, listView, false, state, false, false);
+        int itemHeight = itemRenderer.getPreferredHeight(itemWidth);
+
+        if (listView.getCheckmarksEnabled()) {
+            itemHeight = Math.max(itemHeight, CHECKBOX.getHeight() + checkboxPadding.getHeight());
+        }
+
+        return itemHeight;
+    }
+
     @Override
     public void paint(final Graphics2D graphics) {
         ListView listView = (ListView) getComponent();
@@ -311,6 +394,13 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
         Rectangle clipBounds = graphics.getClipBounds();
         if (clipBounds != null) {
             if (variableItemHeight) {
+                // Measure any items being painted for the first time; if their
+                // heights differ from the estimates, the list needs to be
+                // laid out again
+                if (measureItems(clipBounds.y, clipBounds.y + clipBounds.height)) {
+                    invalidateComponent();
+                }
+
                 itemStart = getItemAt(clipBounds.y);
                 if (itemStart == -1) {
                     itemStart = listData.getLength();
@@ -318,7 +408,7 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
 
                 if (itemEnd != -1) {
                     int clipBottom = clipBounds.y + clipBounds.height - 1;
-                    clipBottom = Math.min(clipBottom, itemBoundaries.get(itemEnd) - 1);
+                    clipBottom = Math.min(clipBottom, getItemY(itemEnd) + getItemHeight(itemEnd) - 1);
                     itemEnd = getItemAt(clipBottom);
                 }
             } else {
@@ -419,14 +509,7 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
 
         int index;
         if (variableItemHeight) {
-            if (y == 0) {
-                index = 0;
-            } else {
-                index = ArrayList.binarySearch(itemBoundaries, y);
-                if (index < 0) {
-                    index = -(index + 1);
-                }
-            }
+            index = itemHeights.getIndexAt(y);
         } else {
             index = (y / fixedItemHeight);
 
@@ -461,11 +544,7 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
         int itemY;
 
         if (variableItemHeight) {
-            if (index == 0) {
-                itemY = 0;
-            } else {
-                itemY = itemBoundaries.get(index - 1);
-            }
+            itemY = itemHeights.getY(index);
         } else {
             itemY = index * fixedItemHeight;
         }
@@ -477,11 +556,7 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
         int itemHeight;
 
         if (variableItemHeight) {
-            itemHeight = itemBoundaries.get(index);
-
-            if (index > 0) {
-                itemHeight -= itemBoundaries.get(index - 1);
-            }
+            itemHeight = itemHeights.getHeight(index);
         } else {
             itemHeight = fixedItemHeight;
         }
@@ -508,6 +583,7 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
         Utils.checkNull(font, "font");
 
         this.font = font;
+        itemHeights = null;
         invalidateComponent();
     }
 
@@ -728,6 +804,7 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
         Utils.checkNull(checkboxPadding, "checkboxPadding");
 
         this.checkboxPadding = checkboxPadding;
+        itemHeights = null;
         invalidateComponent();
     }
 
@@ -753,6 +830,7 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
 
     public final void setVariableItemHeight(final boolean variableItemHeight) {
         this.variableItemHeight = variableItemHeight;
+        itemHeights = null;
         invalidateComponent();
     }
 
@@ -1160,11 +1238,13 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
     @Override
     public void listDataChanged(final ListView listView, final List<?> previousListData) {
         highlightIndex = -1;
+        itemHeights = null;
         invalidateComponent();
     }
 
     @Override
     public void itemRendererChanged(final ListView listView, final ListView.ItemRenderer previousItemRenderer) {
+        itemHeights = null;
         invalidateComponent();
     }
 
@@ -1180,6 +1260,7 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
 
     @Override
     public void checkmarksEnabledChanged(final ListView listView) {
+        itemHeights = null;
         invalidateComponent();
     }
 
@@ -1207,6 +1288,11 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
     // List view item events
     @Override
     public void itemInserted(final ListView listView, final int index) {
+        // Only the new item needs to be measured
+        if (itemHeights != null) {
+            itemHeights.insert(index, 1);
+        }
+
         invalidateComponent();
     }
 
@@ -1215,23 +1301,34 @@ public class TerraListViewSkin extends ComponentSkin implements ListView.Skin, L
         if (highlightIndex >= index) {
             highlightIndex = -1;
         }
+
+        if (itemHeights != null) {
+            itemHeights.remove(index, count);
+        }
+
         invalidateComponent();
     }
 
     @Override
     public void itemUpdated(final ListView listView, final int index) {
+        if (itemHeights != null) {
+            itemHeights.invalidate(index);
+        }
+
         invalidateComponent();
     }
 
     @Override
     public void itemsCleared(final ListView listView) {
         highlightIndex = -1;
+        itemHeights = null;
         invalidateComponent();
     }
 
     @Override
     public void itemsSorted(final ListView listView) {
         if (variableItemHeight) {
+            itemHeights = null;
             invalidateComponent();
         } else {
             repaintComponent();
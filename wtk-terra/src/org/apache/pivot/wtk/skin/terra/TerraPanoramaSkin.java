@@ -612,7 +612,8 @@ public class TerraPanoramaSkin extends ContainerSkin implements Viewport.Skin, V
         if (view != null) {
             int maxScrollTop = getMaxScrollTop();
             int scrollTop = Math.min(panorama.getScrollTop(), maxScrollTop);
-            view.setLocation(view.getX(), -scrollTop);
+            panorama.getBlitter().scroll(getViewportBounds(),
+                () -> view.setLocation(view.getX(), -scrollTop));
             updateScrollButtonVisibility();
         }
     }
@@ -623,7 +624,8 @@ public class TerraPanoramaSkin extends ContainerSkin implements Viewport.Skin, V
         if (view != null) {
             int maxScrollLeft = getMaxScrollLeft();
             int scrollLeft = Math.min(panorama.getScrollLeft(), maxScrollLeft);
-            view.setLocation(-scrollLeft, view.getY());
+            panorama.getBlitter().scroll(getViewportBounds(),
+                () -> view.setLocation(-scrollLeft, view.getY()));
             updateScrollButtonVisibility();
         }
     }
@@ -28,6 +28,7 @@ import org.apache.pivot.collections.List;
 import org.apache.pivot.collections.Sequence;
 import org.apache.pivot.util.Filter;
 import org.apache.pivot.util.Utils;
+import org.apache.pivot.wtk.ApplicationContext;
 import org.apache.pivot.wtk.Bounds;
 import org.apache.pivot.wtk.Component;
 import org.apache.pivot.wtk.Dimensions;
@@ -80,7 +81,8 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
     private boolean editOnMouseDown;
 
     private ArrayList<Integer> columnWidths = null;
-    private ArrayList<Integer> rowBoundaries = null;
+    private RowHeightIndex rowHeights = null;
+    private ArrayList<Integer> rowHeightsColumnWidths = null;
     private int fixedRowHeight = -1;
     private int defaultWidthColumnCount = 0;
 
@@ -188,8 +190,15 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
         if (variableRowHeight) {
             ArrayList<Integer> columnWidthsLocal = getColumnWidths(tableView, width);
 
-            for (int i = 0; i < n; i++) {
-                preferredHeight += getVariableRowHeight(i, columnWidthsLocal);
+            if (rowHeights == null || columnWidthsLocal.equals(rowHeightsColumnWidths)) {
+                // Rows that have not been measured yet are estimated
+                preferredHeight = getRowHeights(tableView, columnWidthsLocal).getHeightSum();
+            } else {
+                // Measure every row at these widths, but don't discard the
+                // measurements made at the current ones
+                for (int i = 0; i < n; i++) {
+                    preferredHeight += getVariableRowHeight(i, columnWidthsLocal);
+                }
             }
         } else {
             int fixedRowHeightLocal = calculateFixedRowHeight(tableView);
@@ -257,32 +266,16 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
         TableView.ColumnSequence columns = tableView.getColumns();
 
         if (variableRowHeight) {
-            @SuppressWarnings("unchecked")
-            List<Object> tableData = (List<Object>) tableView.getTableData();
-
-            int n = tableData.getLength();
-            rowBoundaries = new ArrayList<>(n);
-
-            int rowY = 0;
-            for (int i = 0; i < n; i++) {
-                Object rowData = tableData.get(i);
-
-                int rowHeight = 0;
-                for (int columnIndex = 0, columnCount = columns.getLength(); columnIndex < columnCount; columnIndex++) {
-                    TableView.Column column = columns.get(columnIndex);
-
-                    TableView.CellRenderer cellRenderer = column.getCellRenderer();
-
-                    int columnWidth = columnWidths.get(columnIndex).intValue();
-
-                    cellRenderer.render(rowData, i, columnIndex, tableView, column.getName(),
-                        false, false, false);
-                    rowHeight = Math.max(rowHeight, cellRenderer.getPreferredHeight(columnWidth));
-                }
-
-                rowY += rowHeight;
-                rowBoundaries.add(Integer.valueOf(rowY));
-                rowY++;
+            rowHeights = getRowHeights(tableView, columnWidths);
+
+            // Measure the rows that are currently in view; the others keep
+            // their estimated heights until they are scrolled into view
+            Bounds visibleArea = tableView.getVisibleArea();
+            if (visibleArea != null
+                && measureRows(visibleArea.y, visibleArea.y + visibleArea.height)) {
+                // The component is being laid out, so it can't be invalidated
+                // until the layout is done
+                ApplicationContext.queueCallback(this::invalidateComponent);
             }
         } else {
             fixedRowHeight = calculateFixedRowHeight(tableView);
@@ -310,6 +303,50 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
         validateSelection = false;
     }
 
+    /**
+     * Returns the row height index for the given column widths. The index is
+     * kept across layouts, and only recreated (with all rows unmeasured) when
+     * the column widths differ from those that it was measured with.
+     *
+     * @param tableView The table view.
+     * @param columnWidthsArgument The column widths.
+     * @return The row height index.
+     */
+    private RowHeightIndex getRowHeights(final TableView tableView,
+        final ArrayList<Integer> columnWidthsArgument) {
+        if (rowHeights == null || !columnWidthsArgument.equals(rowHeightsColumnWidths)) {
+            rowHeights = new RowHeightIndex(tableView.getTableData().getLength(), 1,
+                calculateFixedRowHeight(tableView));
+            rowHeightsColumnWidths = columnWidthsArgument;
+        }
+
+        return rowHeights;
+    }
+
+    /**
+     * Measures the rows between the given y-coordinates that have not been
+     * measured yet.
+     *
+     * @param top The top of the area, inclusive.
+     * @param bottom The bottom of the area, exclusive.
+     * @return {@code true} if the height of any row changed.
+     */
+    private boolean measureRows(final int top, final int bottom) {
+        boolean changed = false;
+
+        int rowIndex = rowHeights.getIndexAt(Math.max(top, 0));
+        if (rowIndex != -1) {
+            for (int n = rowHeights.getLength(); rowIndex < n && rowHeights.getY(rowIndex) < bottom; rowIndex++) {
+                if (!rowHeights.isMeasured(rowIndex)) {
+                    changed |= rowHeights.setHeight(rowIndex,
+                        getVariableRowHeight(rowIndex, rowHeightsColumnWidths));
+                }
+            }
+        }
+
+        return changed;
+    }
+
     /**
      * Calculates the table row height, which is determined as the maximum
      * preferred height of all cell renderers.
@@ -354,6 +391,13 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
         Rectangle clipBounds = graphics.getClipBounds();
         if (clipBounds != null) {
             if (variableRowHeight) {
+                // Measure any rows being painted for the first time; if their
+                // heights differ from the estimates, the table needs to be
+                // laid out again
+                if (measureRows(clipBounds.y, clipBounds.y + clipBounds.height)) {
+                    invalidateComponent();
+                }
+
                 rowStart = getRowAt(clipBounds.y);
                 if (rowStart == -1) {
                     rowStart = tableData.getLength();
@@ -361,7 +405,7 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
 
                 if (rowEnd != -1) {
                     int clipBottom = clipBounds.y + clipBounds.height - 1;
-                    clipBottom = Math.min(clipBottom, rowBoundaries.get(rowEnd).intValue() - 1);
+                    clipBottom = Math.min(clipBottom, getRowY(rowEnd) + getRowHeight(rowEnd) - 1);
                     rowEnd = getRowAt(clipBottom);
                 }
             } else {
@@ -524,11 +568,7 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
     private int getRowY(final int rowIndex) {
         int rowY;
         if (variableRowHeight) {
-            if (rowIndex == 0) {
-                rowY = 0;
-            } else {
-                rowY = rowBoundaries.get(rowIndex - 1).intValue();
-            }
+            rowY = rowHeights.getY(rowIndex);
         } else {
             rowY = rowIndex * (fixedRowHeight + 1);
         }
@@ -538,11 +578,7 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
     private int getRowHeight(final int rowIndex) {
         int rowHeight;
         if (variableRowHeight) {
-            rowHeight = rowBoundaries.get(rowIndex).intValue();
-
-            if (rowIndex > 0) {
-                rowHeight -= rowBoundaries.get(rowIndex - 1).intValue();
-            }
+            rowHeight = rowHeights.getHeight(rowIndex);
         } else {
             rowHeight = fixedRowHeight;
         }
@@ -581,14 +617,7 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
 
         int rowIndex;
         if (variableRowHeight) {
-            if (y == 0) {
-                rowIndex = 0;
-            } else {
-                rowIndex = ArrayList.binarySearch(rowBoundaries, Integer.valueOf(y));
-                if (rowIndex < 0) {
-                    rowIndex = -(rowIndex + 1);
-                }
-            }
+            rowIndex = rowHeights.getIndexAt(y);
         } else {
             rowIndex = (y / (fixedRowHeight + 1));
         }
@@ -736,6 +765,7 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
         Utils.checkNull(font, "font");
 
         this.font = font;
+        rowHeights = null;
         invalidateComponent();
     }
 
@@ -1060,7 +1090,7 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
 
     public final void setVariableRowHeight(final boolean variableRowHeight) {
         this.variableRowHeight = variableRowHeight;
-        this.rowBoundaries = null;
+        this.rowHeights = null;
         this.fixedRowHeight = -1;
         invalidateComponent();
     }
@@ -1420,6 +1450,7 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
     // Table view events
     @Override
     public void tableDataChanged(final TableView tableView, final List<?> previousTableData) {
+        rowHeights = null;
         invalidateComponent();
     }
 
@@ -1462,6 +1493,7 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
             defaultWidthColumnCount++;
         }
 
+        rowHeights = null;
         invalidateComponent();
     }
 
@@ -1475,11 +1507,13 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
             }
         }
 
+        rowHeights = null;
         invalidateComponent();
     }
 
     @Override
     public void columnNameChanged(final TableView.Column column, final String previousName) {
+        rowHeights = null;
         invalidateComponent();
     }
 
@@ -1520,22 +1554,36 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
     @Override
     public void columnCellRendererChanged(final TableView.Column column,
         final TableView.CellRenderer previousCellRenderer) {
+        rowHeights = null;
         invalidateComponent();
     }
 
     // Table view row events
     @Override
     public void rowInserted(final TableView tableView, final int index) {
+        // Only the new row needs to be measured
+        if (rowHeights != null) {
+            rowHeights.insert(index, 1);
+        }
+
         invalidateComponent();
     }
 
     @Override
     public void rowsRemoved(final TableView tableView, final int index, final int count) {
+        if (rowHeights != null) {
+            rowHeights.remove(index, count);
+        }
+
         invalidateComponent();
     }
 
     @Override
     public void rowUpdated(final TableView tableView, final int index) {
+        if (rowHeights != null) {
+            rowHeights.invalidate(index);
+        }
+
         if (variableRowHeight || defaultWidthColumnCount > 0) {
             invalidateComponent();
         } else {
@@ -1545,12 +1593,14 @@ public class TerraTableViewSkin extends ComponentSkin implements TableView.Skin,
 
     @Override
     public void rowsCleared(final TableView listView) {
+        rowHeights = null;
         invalidateComponent();
     }
 
     @Override
     public void rowsSorted(final TableView tableView) {
         if (variableRowHeight) {
+            rowHeights = null;
             invalidateComponent();
         } else {
             repaintComponent();
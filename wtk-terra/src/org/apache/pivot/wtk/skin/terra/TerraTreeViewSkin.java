@@ -91,7 +91,7 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
         private NodeInfo previous = null;
 
         public VisibleNodeIterator() {
-            this(0, visibleNodes.getLength() - 1);
+            this(0, getVisibleNodeCount() - 1);
         }
 
         /**
@@ -102,7 +102,7 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
          * @param endIndex The end index, inclusive
          */
         public VisibleNodeIterator(final int startIndex, final int endIndex) {
-            if (startIndex < 0 || endIndex >= visibleNodes.getLength()) {
+            if (startIndex < 0 || endIndex >= getVisibleNodeCount()) {
                 throw new IndexOutOfBoundsException();
             }
 
@@ -127,25 +127,42 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
                 throw new NoSuchElementException();
             }
 
-            NodeInfo next = visibleNodes.get(index++);
+            NodeInfo next;
 
             if (path == null) {
-                // First iteration
+                // First iteration; locate the starting row in the row index
+                next = getVisibleNodeAt(index);
                 path = next.getPath();
-            } else if (next.parent == previous) {
-                // Child of previous visible node
-                path.add(0);
             } else {
-                int n = path.getLength();
-                while (next.parent != previous.parent) {
-                    path.remove(--n, 1);
-                    previous = previous.parent;
+                // Step from the previous visible node to the next one, which
+                // is its first child if it is an expanded branch, or else the
+                // next sibling of it or of its closest ancestor
+                next = null;
+
+                if (previous instanceof BranchInfo) {
+                    BranchInfo branchInfo = (BranchInfo) previous;
+                    if (branchInfo.isExpanded() && branchInfo.getChildCount() > 0) {
+                        next = branchInfo.getChild(0);
+                        path.add(0);
+                    }
                 }
 
-                int tail = path.get(n - 1);
-                path.update(n - 1, tail + 1);
+                NodeInfo nodeInfo = previous;
+                while (next == null) {
+                    int n = path.getLength();
+                    int siblingIndex = path.get(n - 1) + 1;
+
+                    if (siblingIndex < nodeInfo.parent.getChildCount()) {
+                        next = nodeInfo.parent.getChild(siblingIndex);
+                        path.update(n - 1, siblingIndex);
+                    } else {
+                        path.remove(n - 1, 1);
+                        nodeInfo = nodeInfo.parent;
+                    }
+                }
             }
 
+            index++;
             previous = next;
 
             return next;
@@ -188,16 +205,15 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
 
     /**
      * An internal data structure that keeps track of skin-related metadata for
-     * a tree node. The justification for the existence of this class lies in
-     * the {@code visibleNodes} data structure, which is a flat list of nodes
-     * that are visible at any given time. In this context, visible means that
-     * their parent hierarchy is expanded, <b>not</b> that they are being
-     * painted. This list, combined with {@code getNodeHeight()}, enables us to
-     * quickly determine which nodes to paint given a graphics clip rect. It
-     * also enables us to quickly traverse the tree view when handling key
-     * events. <p> NOTE: some of this data is managed by {@code TreeView} and
-     * cached here to provide further optimizations during painting and user
-     * input.
+     * a tree node. Node info objects are only created for the nodes that the
+     * skin actually needs (see {@link BranchInfo#getChild(int)}), and each
+     * branch keeps a count of its visible descendants. In this context,
+     * visible means that their parent hierarchy is expanded, <b>not</b> that
+     * they are being painted. These counts, combined with
+     * {@code getNodeHeight()}, enable us to quickly map between rows and nodes,
+     * and thus to determine which nodes to paint given a graphics clip rect.
+     * <p> NOTE: some of this data is managed by {@code TreeView} and cached
+     * here to provide further optimizations during painting and user input.
      */
     private static class NodeInfo {
         // Core metadata
@@ -206,6 +222,10 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
         final Object data;
         final int depth;
 
+        // Index of this node within its parent, or -1 once the node has been
+        // removed from the tree
+        int index = -1;
+
         // Cached fields. Note that this is maintained as a bitmask in favor of
         // separate properties because it allows us to easily clear any cached
         // field for all nodes in one common method. See #clearField(byte)
@@ -259,17 +279,13 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
             return nodeInfo;
         }
 
-        @SuppressWarnings("unchecked")
         public Path getPath() {
             Path path = Path.forDepth(depth);
 
             NodeInfo nodeInfo = this;
 
             while (nodeInfo.parent != null) {
-                List<Object> parentData = (List<Object>) nodeInfo.parent.data;
-                int index = parentData.indexOf(nodeInfo.data);
-                path.insert(index, 0);
-
+                path.insert(nodeInfo.index, 0);
                 nodeInfo = nodeInfo.parent;
             }
 
@@ -378,9 +394,18 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
      * a tree branch.
      */
     private static final class BranchInfo extends NodeInfo {
-        // Core skin metadata
+        // Core skin metadata; an entry is null until the node info for that
+        // child is first needed
         private List<NodeInfo> children = null;
 
+        // Number of rows below this branch while it is expanded
+        private int rowCount = 0;
+
+        // Binary indexed tree over the number of rows taken up by each child
+        // (the child itself plus its rows if it is an expanded branch). It is
+        // only needed once some child has been expanded, and is built lazily.
+        private int[] rowTree = null;
+
         public static final byte EXPANDED_MASK = 1 << 6;
 
         public BranchInfo(final TreeView treeView, final BranchInfo parent, final List<Object> data) {
@@ -391,24 +416,252 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
          * Loads this branch info's children. The children list is initialized
          * to {@code null} and loaded lazily to allow the skin to only create
          * {@code NodeInfo} objects for the nodes that it actually needs in
-         * order to paint. Thus, it is the responsibility of the skin to check
-         * if {@code children} is null and call {@code loadChildren()} if
-         * necessary.
+         * order to paint. Loading only sizes the list; the node info for an
+         * individual child is created by {@link #getChild(int)}.
          */
         @SuppressWarnings("unchecked")
         public void loadChildren() {
-            if (children == null || children.isEmpty()) {
-                List<Object> dataLocal = (List<Object>) this.data;
-                int count = dataLocal.getLength();
+            if (children == null) {
+                int count = ((List<Object>) data).getLength();
+
+                children = new ArrayList<>(new NodeInfo[count]);
+                rowCount = count;
+                rowTree = null;
+            }
+        }
+
+        /**
+         * Discards the children of this branch, so that they are reloaded from
+         * the branch data the next time they are needed.
+         */
+        public void unloadChildren() {
+            if (children != null) {
+                for (int i = 0, n = children.getLength(); i < n; i++) {
+                    NodeInfo child = children.get(i);
+                    if (child != null) {
+                        child.index = -1;
+                    }
+                }
+
+                children = null;
+                rowCount = 0;
+                rowTree = null;
+            }
+        }
+
+        public int getChildCount() {
+            loadChildren();
+            return children.getLength();
+        }
+
+        /**
+         * @return The node info for the given child, which is created if it
+         * does not exist yet.
+         * @param childIndex The index of the child within this branch.
+         */
+        @SuppressWarnings("unchecked")
+        public NodeInfo getChild(final int childIndex) {
+            loadChildren();
+
+            NodeInfo child = children.get(childIndex);
+            if (child == null) {
+                child = NodeInfo.newInstance(treeView, this, ((List<Object>) data).get(childIndex));
+                child.index = childIndex;
+                children.update(childIndex, child);
+            }
+
+            return child;
+        }
+
+        /**
+         * Accounts for a new child (whose node info will be created on demand)
+         * having been inserted into the branch data.
+         *
+         * @param childIndex The index of the new child.
+         */
+        public void insertChild(final int childIndex) {
+            children.insert(null, childIndex);
+            updateIndexes(childIndex + 1);
+
+            rowCount++;
+            rowTree = null;
+        }
+
+        /**
+         * Accounts for children having been removed from the branch data.
+         *
+         * @param childIndex The index of the first removed child.
+         * @param count The number of removed children.
+         * @return The number of rows that were taken up by the removed children.
+         */
+        public int removeChildren(final int childIndex, final int count) {
+            int rows = 0;
+
+            for (int i = childIndex, n = childIndex + count; i < n; i++) {
+                rows += getRows(i);
+
+                NodeInfo child = children.get(i);
+                if (child != null) {
+                    child.index = -1;
+                }
+            }
+
+            children.remove(childIndex, count);
+            updateIndexes(childIndex);
+
+            rowCount -= rows;
+            rowTree = null;
+
+            return rows;
+        }
+
+        /**
+         * Discards the node info of a single child, whose data has been replaced.
+         *
+         * @param childIndex The index of the child.
+         * @return The change in the number of rows below this branch.
+         */
+        public int resetChild(final int childIndex) {
+            int delta = 0;
+
+            NodeInfo child = children.get(childIndex);
+            if (child != null) {
+                delta = 1 - getRows(childIndex);
+                child.index = -1;
+                children.update(childIndex, null);
+                childRowsChanged(childIndex, delta);
+            }
+
+            return delta;
+        }
+
+        private void updateIndexes(final int start) {
+            for (int i = start, n = children.getLength(); i < n; i++) {
+                NodeInfo child = children.get(i);
+                if (child != null) {
+                    child.index = i;
+                }
+            }
+        }
+
+        /**
+         * @return The number of rows taken up by the given child.
+         */
+        private int getRows(final int childIndex) {
+            int rows = 1;
+
+            NodeInfo child = children.get(childIndex);
+            if (child instanceof BranchInfo) {
+                BranchInfo branchInfo = (BranchInfo) child;
+                if (branchInfo.isExpanded()) {
+                    rows += branchInfo.rowCount;
+                }
+            }
+
+            return rows;
+        }
 
-                children = new ArrayList<>(count);
+        /**
+         * Recalculates the row count of this branch from its children.
+         */
+        public void updateRowCount() {
+            rowCount = 0;
+            for (int i = 0, n = children.getLength(); i < n; i++) {
+                rowCount += getRows(i);
+            }
+
+            rowTree = null;
+        }
+
+        /**
+         * Updates the row count after the number of rows taken up by a child
+         * (that is, by the child's expanded descendants) has changed.
+         *
+         * @param childIndex The index of the child.
+         * @param delta The change in rows.
+         */
+        public void childRowsChanged(final int childIndex, final int delta) {
+            if (rowTree != null) {
+                for (int i = childIndex + 1; i < rowTree.length; i += i & -i) {
+                    rowTree[i] += delta;
+                }
+            }
+
+            rowCount += delta;
+        }
+
+        /**
+         * @return {@code true} if some child takes up more than one row, in
+         * which case rows can no longer be mapped directly to child indexes.
+         */
+        private boolean hasExpandedChildren() {
+            return (rowCount != children.getLength());
+        }
+
+        private void buildRowTree() {
+            if (rowTree == null) {
+                int n = children.getLength();
+                rowTree = new int[n + 1];
+
+                for (int i = 1; i <= n; i++) {
+                    rowTree[i] += getRows(i - 1);
+
+                    int parentIndex = i + (i & -i);
+                    if (parentIndex <= n) {
+                        rowTree[parentIndex] += rowTree[i];
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return The row of the given child, relative to the first row below
+         * this branch.
+         * @param childIndex The index of the child.
+         */
+        public int getRowOffset(final int childIndex) {
+            loadChildren();
+
+            int rowOffset = childIndex;
+
+            if (hasExpandedChildren()) {
+                buildRowTree();
+
+                rowOffset = 0;
+                for (int i = childIndex; i > 0; i -= i & -i) {
+                    rowOffset += rowTree[i];
+                }
+            }
+
+            return rowOffset;
+        }
+
+        /**
+         * @return The index of the child whose rows include the given row.
+         * @param rowOffset The row, relative to the first row below this branch.
+         */
+        public int getChildIndexAt(final int rowOffset) {
+            loadChildren();
+
+            int childIndex = rowOffset;
 
-                for (int i = 0; i < count; i++) {
-                    Object nodeData = dataLocal.get(i);
-                    NodeInfo childNodeInfo = NodeInfo.newInstance(treeView, this, nodeData);
-                    children.add(childNodeInfo);
+            if (hasExpandedChildren()) {
+                buildRowTree();
+
+                int n = children.getLength();
+                int remaining = rowOffset;
+
+                childIndex = 0;
+                for (int bit = Integer.highestOneBit(n); bit != 0; bit >>= 1) {
+                    int i = childIndex + bit;
+                    if (i <= n && rowTree[i] <= remaining) {
+                        childIndex = i;
+                        remaining -= rowTree[i];
+                    }
                 }
             }
+
+            return childIndex;
         }
 
         public boolean isExpanded() {
@@ -425,7 +678,6 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
     }
 
     private BranchInfo rootBranchInfo = null;
-    private List<NodeInfo> visibleNodes = new ArrayList<>();
 
     private NodeInfo highlightedNode = null;
     private Path selectPath = null;
@@ -499,18 +751,8 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
 
         int preferredWidth = 0;
 
-        VisibleNodeIterator visibleNodeIterator = new VisibleNodeIterator();
-        while (visibleNodeIterator.hasNext()) {
-            NodeInfo nodeInfo = visibleNodeIterator.next();
-
-            int nodeWidth = (nodeInfo.depth - 1) * (indent + spacing);
-
-            nodeRenderer.render(nodeInfo.data, visibleNodeIterator.getPath(),
-                visibleNodeIterator.getRowIndex(), treeView, false, false,
-                TreeView.NodeCheckState.UNCHECKED, false, false);
-            nodeWidth += nodeRenderer.getPreferredWidth(-1);
-
-            preferredWidth = Math.max(preferredWidth, nodeWidth);
+        if (rootBranchInfo != null) {
+            preferredWidth = getPreferredWidth(nodeRenderer, rootBranchInfo, new Path(), 0);
         }
 
         if (showBranchControls) {
@@ -524,10 +766,56 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
         return preferredWidth;
     }
 
+    /**
+     * Calculates the preferred width of the visible descendants of a branch.
+     * Node data is rendered straight from the branch data, so no node info is
+     * created for nodes that have not otherwise been needed.
+     *
+     * @param nodeRenderer The node renderer.
+     * @param branchInfo The (visible) branch.
+     * @param path The path to the branch; used as scratch space and restored
+     * on return.
+     * @param rowIndex The row index of the first child of the branch.
+     * @return The widest node width found.
+     */
+    @SuppressWarnings("unchecked")
+    private int getPreferredWidth(final TreeView.NodeRenderer nodeRenderer,
+        final BranchInfo branchInfo, final Path path, final int rowIndex) {
+        TreeView treeView = getTreeView();
+        List<Object> branchData = (List<Object>) branchInfo.data;
+
+        int preferredWidth = 0;
+        int nodeIndent = branchInfo.depth * (indent + spacing);
+        int row = rowIndex;
+
+        branchInfo.loadChildren();
+
+        for (int i = 0, n = branchInfo.children.getLength(); i < n; i++) {
+            path.add(i);
+
+            nodeRenderer.render(branchData.get(i), path, row++, treeView, false, false,
+                TreeView.NodeCheckState.UNCHECKED, false, false);
+            preferredWidth = Math.max(preferredWidth, nodeIndent + nodeRenderer.getPreferredWidth(-1));
+
+            // Only a child with node info can be an expanded branch
+            NodeInfo nodeInfo = branchInfo.children.get(i);
+            if (nodeInfo instanceof BranchInfo && ((BranchInfo) nodeInfo).isExpanded()) {
+                BranchInfo childBranchInfo = (BranchInfo) nodeInfo;
+                preferredWidth = Math.max(preferredWidth,
+                    getPreferredWidth(nodeRenderer, childBranchInfo, path, row));
+                row += childBranchInfo.rowCount;
+            }
+
+            path.remove(path.getLength() - 1, 1);
+        }
+
+        return preferredWidth;
+    }
+
     @Override
     public int getPreferredHeight(final int width) {
         int nodeHeight = getNodeHeight();
-        int visibleNodeCount = visibleNodes.getLength();
+        int visibleNodeCount = getVisibleNodeCount();
 
         int preferredHeight = nodeHeight * visibleNodeCount;
 
@@ -542,11 +830,11 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
     public int getBaseline(final int width, final int height) {
         int baseline = -1;
 
-        if (visibleNodes.getLength() > 0) {
+        if (getVisibleNodeCount() > 0) {
             TreeView treeView = getTreeView();
             TreeView.NodeRenderer nodeRenderer = treeView.getNodeRenderer();
 
-            NodeInfo nodeInfo = visibleNodes.get(0);
+            NodeInfo nodeInfo = getVisibleNodeAt(0);
 
             int nodeWidth = width - (nodeInfo.depth - 1) * (indent + spacing);
             int nodeHeight = getNodeHeight();
@@ -607,7 +895,7 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
 
         // nodeStart and nodeEnd are both inclusive
         int nodeStart = 0;
-        int nodeEnd = visibleNodes.getLength() - 1;
+        int nodeEnd = getVisibleNodeCount() - 1;
 
         // Ensure that we only paint items that are visible
         Rectangle clipBounds = graphics.getClipBounds();
@@ -653,8 +941,7 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
 
                     boolean showBranchControl = true;
                     if (!showEmptyBranchControls) {
-                        branchInfo.loadChildren();
-                        showBranchControl = !(branchInfo.children == null || branchInfo.children.isEmpty());
+                        showBranchControl = (branchInfo.getChildCount() > 0);
                     }
 
                     if (showBranchControl) {
@@ -1133,13 +1420,81 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
         int nodeHeight = getNodeHeight();
         int index = y / (nodeHeight + VERTICAL_SPACING);
 
-        if (index >= 0 && index < visibleNodes.getLength()) {
-            nodeInfo = visibleNodes.get(index);
+        if (index >= 0 && index < getVisibleNodeCount()) {
+            nodeInfo = getVisibleNodeAt(index);
         }
 
         return nodeInfo;
     }
 
+    /**
+     * @return The number of visible nodes (rows) in the tree.
+     */
+    private int getVisibleNodeCount() {
+        return (rootBranchInfo == null) ? 0 : rootBranchInfo.rowCount;
+    }
+
+    /**
+     * @return The metadata for the visible node at the given row. Only the
+     * branches along the way are searched, so the cost depends on the depth of
+     * the node rather than on the number of visible nodes.
+     * @param rowIndex The row index, which must be valid.
+     */
+    private NodeInfo getVisibleNodeAt(final int rowIndex) {
+        assert (rowIndex >= 0 && rowIndex < getVisibleNodeCount()) : "Row index out of range";
+
+        BranchInfo branchInfo = rootBranchInfo;
+        int rowOffset = rowIndex;
+
+        while (true) {
+            int childIndex = branchInfo.getChildIndexAt(rowOffset);
+            NodeInfo nodeInfo = branchInfo.getChild(childIndex);
+
+            rowOffset -= branchInfo.getRowOffset(childIndex);
+            if (rowOffset == 0) {
+                return nodeInfo;
+            }
+
+            // The row lies within the rows of this (expanded) child branch
+            branchInfo = (BranchInfo) nodeInfo;
+            rowOffset--;
+        }
+    }
+
+    /**
+     * @return The row index of the specified node, or <code>-1</code> if the
+     * node is not currently visible.
+     * @param nodeInfo The node to look up.
+     */
+    private int getRowIndex(final NodeInfo nodeInfo) {
+        int rowIndex = 0;
+
+        NodeInfo node = nodeInfo;
+        while (node.parent != null) {
+            BranchInfo parent = node.parent;
+
+            if (node.index == -1) {
+                // The node has been removed from the tree
+                return -1;
+            }
+
+            rowIndex += parent.getRowOffset(node.index);
+
+            if (parent != rootBranchInfo) {
+                if (!parent.isExpanded()) {
+                    return -1;
+                }
+
+                // Account for the parent's own row
+                rowIndex++;
+            }
+
+            node = parent;
+        }
+
+        return (node == rootBranchInfo && nodeInfo != rootBranchInfo) ? rowIndex : -1;
+    }
+
     /**
      * @return The metadata associated with the node at the specified path. The
      * path must be valid. The empty path is supported and represents the root
@@ -1158,16 +1513,14 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
             BranchInfo branchInfo = rootBranchInfo;
 
             for (int i = 0; i < n - 1; i++) {
-                branchInfo.loadChildren();
-                NodeInfo nodeInfo = branchInfo.children.get(path.get(i));
+                NodeInfo nodeInfo = branchInfo.getChild(path.get(i));
 
                 assert (nodeInfo instanceof BranchInfo) : "Invalid path";
 
                 branchInfo = (BranchInfo) nodeInfo;
             }
 
-            branchInfo.loadChildren();
-            result = branchInfo.children.get(path.get(n - 1));
+            result = branchInfo.getChild(path.get(n - 1));
         }
 
         return result;
@@ -1190,7 +1543,7 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
     protected final Bounds getNodeBounds(final NodeInfo nodeInfo) {
         Bounds bounds = null;
 
-        int index = visibleNodes.indexOf(nodeInfo);
+        int index = getRowIndex(nodeInfo);
 
         if (index >= 0) {
             int nodeHeight = getNodeHeight();
@@ -1222,160 +1575,59 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
                 BranchInfo branchInfo = (BranchInfo) nodeInfo;
 
                 if (branchInfo.children != null) {
-                    for (int i = 0, n = branchInfo.children.getLength(); i < n; i++) {
-                        nodes.insert(branchInfo.children.get(i), i);
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Adds all children of the specified branch to the visible node list. Any
-     * children nodes that are expanded [branches] will also have their children
-     * made visible, and so on. Invalidates the component only if necessary.
-     * @param parentBranchInfo The parent branch to traverse.
-     */
-    private void addVisibleNodes(final BranchInfo parentBranchInfo) {
-        int insertIndex = -1;
-
-        if (parentBranchInfo == rootBranchInfo) {
-            // Bootstrap case since the root branch is implicitly expanded
-            insertIndex = 0;
-        } else {
-            int branchIndex = visibleNodes.indexOf(parentBranchInfo);
-            if (branchIndex >= 0) {
-                insertIndex = branchIndex + 1;
-            }
-        }
-
-        if (insertIndex >= 0) {
-            Sequence<NodeInfo> nodes = new ArrayList<>();
-
-            // The parent branch's children are the baseline nodes to make visible
-            parentBranchInfo.loadChildren();
-            for (int i = 0, n = parentBranchInfo.children.getLength(); i < n; i++) {
-                nodes.add(parentBranchInfo.children.get(i));
-            }
-
-            while (nodes.getLength() > 0) {
-                NodeInfo nodeInfo = nodes.get(0);
-                nodes.remove(0, 1);
-                visibleNodes.insert(nodeInfo, insertIndex++);
-
-                // If we encounter an expanded branch, we add that branch's
-                // children to our list of nodes that are to become visible
-                if (nodeInfo instanceof BranchInfo) {
-                    BranchInfo branchInfo = (BranchInfo) nodeInfo;
-                    if (branchInfo.isExpanded()) {
-                        branchInfo.loadChildren();
-                        for (int i = 0, n = branchInfo.children.getLength(); i < n; i++) {
-                            nodes.insert(branchInfo.children.get(i), i);
+                    for (int i = 0, j = 0, n = branchInfo.children.getLength(); i < n; i++) {
+                        NodeInfo child = branchInfo.children.get(i);
+                        if (child != null) {
+                            nodes.insert(child, j++);
                         }
                     }
                 }
             }
-
-            invalidateComponent();
         }
     }
 
     /**
-     * Adds the specified child of the specified branch to the visible node
-     * list. It is assumed that the child in question is not an expanded branch.
-     * Invalidates the component only if necessary.
+     * Propagates a change in the row count of the specified branch to its
+     * ancestors, for as long as they are expanded. Each step is a logarithmic
+     * update of the parent's row index. Invalidates the component only if the
+     * number of visible rows changed.
      *
-     * @param parentBranchInfo The branch info of the parent node.
-     * @param index The index of the child within its parent.
+     * @param branchInfo The branch whose row count changed.
+     * @param delta The change in the row count.
      */
-    private void addVisibleNode(final BranchInfo parentBranchInfo, final int index) {
-        parentBranchInfo.loadChildren();
-
-        assert (index >= 0) : "Index is too small";
-        assert (index < parentBranchInfo.children.getLength()) : "Index is too large";
+    private void propagateRowCount(final BranchInfo branchInfo, final int delta) {
+        BranchInfo branch = branchInfo;
 
-        int branchIndex = visibleNodes.indexOf(parentBranchInfo);
-
-        if (parentBranchInfo == rootBranchInfo
-            || (branchIndex >= 0 && parentBranchInfo.isExpanded())) {
-
-            NodeInfo nodeInfo = parentBranchInfo.children.get(index);
-            int insertIndex = branchIndex + index + 1;
-
-            if (index > 0) {
-                // Siblings of the node that lie before it may be expanded
-                // branches, thus adding their own children to the
-                // visible nodes list and pushing down our insert index
-                NodeInfo youngerSibling = parentBranchInfo.children.get(index - 1);
-
-                // Try to insert after our younger sibling
-                insertIndex = visibleNodes.indexOf(youngerSibling) + 1;
-
-                // Continue looking as long as the node at our insert index
-                // has a greater depth than we do, which means that it's a
-                // descendant of our younger sibling
-                for (int n = visibleNodes.getLength(), nodeDepth = youngerSibling.depth; insertIndex < n
-                    && visibleNodes.get(insertIndex).depth > nodeDepth; insertIndex++) {
-                    continue;
-                }
+        while (branch != rootBranchInfo) {
+            if (branch.index == -1 || !branch.isExpanded()) {
+                return;
             }
 
-            visibleNodes.insert(nodeInfo, insertIndex);
-
-            invalidateComponent();
+            branch.parent.childRowsChanged(branch.index, delta);
+            branch = branch.parent;
         }
+
+        invalidateComponent();
     }
 
     /**
-     * Removes the specified children of the specified branch from the visible
-     * node list if necessary. If they are not already in the visible node list,
-     * nothing happens. Invalidates the component only if necessary.
+     * Expands or collapses the specified branch, adding its rows to or
+     * removing them from the rows of its ancestors.
      *
-     * @param parentBranchInfo The branch info of the parent node.
-     * @param index The index of the first child node to remove from the visible
-     * nodes sequence.
-     * @param count The number of child nodes to remove, or <code>-1</code> to remove
-     * all child nodes from the visible nodes sequence.
+     * @param branchInfo The branch.
+     * @param expanded The new expanded state.
      */
-    private void removeVisibleNodes(final BranchInfo parentBranchInfo, final int index, final int count) {
-        parentBranchInfo.loadChildren();
-        int childrenLength = parentBranchInfo.children.getLength();
-
-        int countUpdated = count;
-
-        if (countUpdated == -1) {
-            assert (index == 0) : "Non-zero index with 'remove all' count";
-            countUpdated = childrenLength;
-        }
-
-        // If the index is greater-equal the child length, then there could
-        // not possibly be any visible nodes, so just quit
-        if (index >= childrenLength) {
-            return;
-        }
-        assert (index + countUpdated <= childrenLength) : "Value too big";
-        if (countUpdated > 0) {
-            NodeInfo first = parentBranchInfo.children.get(index);
-            NodeInfo last = parentBranchInfo.children.get(index + countUpdated - 1);
-
-            int rangeStart = visibleNodes.indexOf(first);
-
-            if (rangeStart >= 0) {
-                int rangeEnd = visibleNodes.indexOf(last) + 1;
-
-                assert (rangeEnd > rangeStart) : "Invalid visible node structure";
-
-                // Continue looking as long as the node at our endpoint has a
-                // greater depth than the last child node, which means that
-                // it's a descendant of the last child node
-                for (int n = visibleNodes.getLength(), nodeDepth = last.depth; rangeEnd < n
-                    && visibleNodes.get(rangeEnd).depth > nodeDepth; rangeEnd++) {
-                    continue;
-                }
+    private void setExpanded(final BranchInfo branchInfo, final boolean expanded) {
+        if (branchInfo.isExpanded() != expanded) {
+            branchInfo.loadChildren();
 
-                visibleNodes.remove(rangeStart, rangeEnd - rangeStart);
+            int delta = expanded ? branchInfo.rowCount : -branchInfo.rowCount;
+            branchInfo.setExpanded(expanded);
 
-                invalidateComponent();
+            BranchInfo parent = branchInfo.parent;
+            if (parent != null && branchInfo.index != -1) {
+                parent.childRowsChanged(branchInfo.index, delta);
+                propagateRowCount(parent, delta);
             }
         }
     }
@@ -1664,15 +1916,15 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
                     int index;
                     if (firstSelectedPath != null) {
                         NodeInfo previousSelectedNode = getNodeInfoAt(firstSelectedPath);
-                        index = visibleNodes.indexOf(previousSelectedNode);
+                        index = getRowIndex(previousSelectedNode);
                     } else {
                         // Select the last visible node
-                        index = visibleNodes.getLength();
+                        index = getVisibleNodeCount();
                     }
 
                     NodeInfo newSelectedNode = null;
                     do {
-                        newSelectedNode = (--index >= 0) ? visibleNodes.get(index) : null;
+                        newSelectedNode = (--index >= 0) ? getVisibleNodeAt(index) : null;
                     } while (newSelectedNode != null && newSelectedNode.isDisabled());
 
                     if (newSelectedNode != null) {
@@ -1695,16 +1947,16 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
                     int index;
                     if (lastSelectedPath != null) {
                         NodeInfo previousSelectedNode = getNodeInfoAt(lastSelectedPath);
-                        index = visibleNodes.indexOf(previousSelectedNode);
+                        index = getRowIndex(previousSelectedNode);
                     } else {
                         // Select the first visible node
                         index = -1;
                     }
 
                     NodeInfo newSelectedNode = null;
-                    int n = visibleNodes.getLength();
+                    int n = getVisibleNodeCount();
                     do {
-                        newSelectedNode = (++index <= n - 1) ? visibleNodes.get(index) : null;
+                        newSelectedNode = (++index <= n - 1) ? getVisibleNodeAt(index) : null;
                     } while (newSelectedNode != null && newSelectedNode.isDisabled());
 
                     if (newSelectedNode != null) {
@@ -1875,7 +2127,7 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
         NodeInfo nodeInfo = getNodeInfoAt(path);
 
         if (nodeInfo != null) {
-            rowIndex = visibleNodes.indexOf(nodeInfo);
+            rowIndex = getRowIndex(nodeInfo);
         }
 
         return rowIndex;
@@ -1888,13 +2140,11 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
         @SuppressWarnings("unchecked")
         List<Object> treeData = (List<Object>) treeView.getTreeData();
 
-        visibleNodes.clear();
-
         if (treeData == null) {
             rootBranchInfo = null;
         } else {
             rootBranchInfo = new BranchInfo(treeView, null, treeData);
-            addVisibleNodes(rootBranchInfo);
+            rootBranchInfo.loadChildren();
         }
 
         invalidateComponent();
@@ -1943,8 +2193,11 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
 
                     // Add the branch's children to the queue
                     if (branchInfo.children != null) {
-                        for (int i = 0, n = branchInfo.children.getLength(); i < n; i++) {
-                            nodes.insert(branchInfo.children.get(i), i);
+                        for (int i = 0, j = 0, n = branchInfo.children.getLength(); i < n; i++) {
+                            NodeInfo child = branchInfo.children.get(i);
+                            if (child != null) {
+                                nodes.insert(child, j++);
+                            }
                         }
                     }
                 }
@@ -1993,8 +2246,7 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
     public void branchExpanded(final TreeView treeView, final Path path) {
         BranchInfo branchInfo = getBranchInfoAt(path);
 
-        branchInfo.setExpanded(true);
-        addVisibleNodes(branchInfo);
+        setExpanded(branchInfo, true);
 
         repaintNode(branchInfo);
     }
@@ -2003,12 +2255,66 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
     public void branchCollapsed(final TreeView treeView, final Path path) {
         BranchInfo branchInfo = getBranchInfoAt(path);
 
-        branchInfo.setExpanded(false);
-        removeVisibleNodes(branchInfo, 0, -1);
+        setExpanded(branchInfo, false);
 
         repaintNode(branchInfo);
     }
 
+    @Override
+    public void expandedBranchesChanged(final TreeView treeView) {
+        // Re-synchronize the expanded state of every branch, recounting the
+        // rows from the bottom up
+        updateExpandedState(rootBranchInfo, new Path());
+
+        invalidateComponent();
+        repaintComponent();
+    }
+
+    /**
+     * Copies the tree view's expansion state into the descendants of the
+     * given branch and recalculates their row counts. Node info is only
+     * created for the branches that are expanded.
+     *
+     * @param branchInfo The branch whose descendants are to be updated.
+     * @param path The path to the branch; used as scratch space and restored
+     * on return.
+     */
+    @SuppressWarnings("unchecked")
+    private void updateExpandedState(final BranchInfo branchInfo, final Path path) {
+        TreeView treeView = getTreeView();
+
+        if (branchInfo == rootBranchInfo || branchInfo.isExpanded()) {
+            branchInfo.loadChildren();
+        }
+
+        if (branchInfo.children != null) {
+            List<Object> branchData = (List<Object>) branchInfo.data;
+
+            for (int i = 0, n = branchInfo.children.getLength(); i < n; i++) {
+                NodeInfo nodeInfo = branchInfo.children.get(i);
+
+                if (nodeInfo == null && branchData.get(i) instanceof List<?>) {
+                    path.add(i);
+                    if (treeView.isBranchExpanded(path)) {
+                        nodeInfo = branchInfo.getChild(i);
+                    }
+                    path.remove(path.getLength() - 1, 1);
+                }
+
+                if (nodeInfo instanceof BranchInfo) {
+                    BranchInfo childBranchInfo = (BranchInfo) nodeInfo;
+
+                    path.add(i);
+                    childBranchInfo.setExpanded(treeView.isBranchExpanded(path));
+                    updateExpandedState(childBranchInfo, path);
+                    path.remove(path.getLength() - 1, 1);
+                }
+            }
+
+            branchInfo.updateRowCount();
+        }
+    }
+
     @Override
     public Vote previewBranchExpandedChange(final TreeView treeView, final Path path) {
         // We currently have no reason to refuse to open / close the branch
@@ -2025,20 +2331,16 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
     // TreeViewNodeListener methods
 
     @Override
-    @SuppressWarnings("unchecked")
     public void nodeInserted(final TreeView treeView, final Path path, final int index) {
         BranchInfo branchInfo = getBranchInfoAt(path);
-        List<Object> branchData = (List<Object>) branchInfo.data;
 
-        // Update our internal branch info
+        // Update our internal branch info; the node info for the new node
+        // will be created when it is needed
         if (branchInfo.children != null) {
-            NodeInfo nodeInfo = NodeInfo.newInstance(treeView, branchInfo, branchData.get(index));
-            branchInfo.children.insert(nodeInfo, index);
+            branchInfo.insertChild(index);
+            propagateRowCount(branchInfo, 1);
         }
 
-        // Add the node to the visible nodes list
-        addVisibleNode(branchInfo, index);
-
         // If the empty branch controls are not shown, then this event might
         // need a repaint of the parent
         if (!showEmptyBranchControls) {
@@ -2050,17 +2352,12 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
     public void nodesRemoved(final TreeView treeView, final Path path, final int index, final int count) {
         BranchInfo branchInfo = getBranchInfoAt(path);
 
-        // Remove the nodes from the visible nodes list
-        removeVisibleNodes(branchInfo, index, count);
-
         // Update our internal branch info
         if (branchInfo.children != null) {
-            // Problem: if "loadChildren" was called on this branch the first time
-            // by "removeVisibleNodes" above, then the "children" will actually be
-            // correct here (i.e., already removed), so this is unnecessary.
             int len = branchInfo.children.getLength();
             if (index < len && index + count <= len) {
-                branchInfo.children.remove(index, count);
+                int rows = branchInfo.removeChildren(index, count);
+                propagateRowCount(branchInfo, -rows);
             }
         }
 
@@ -2075,33 +2372,29 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
     @SuppressWarnings("unchecked")
     public void nodeUpdated(final TreeView treeView, final Path path, final int index) {
         BranchInfo branchInfo = getBranchInfoAt(path);
-        List<Object> branchData = (List<Object>) branchInfo.data;
 
-        branchInfo.loadChildren();
-        NodeInfo nodeInfo = branchInfo.children.get(index);
-
-        Object previousNodeData = nodeInfo.data;
-        Object nodeData = branchData.get(index);
-
-        if (previousNodeData != nodeData) {
-            // Remove the old node from the visible nodes list
-            removeVisibleNodes(branchInfo, index, 1);
-
-            // Update our internal branch info
-            nodeInfo = NodeInfo.newInstance(treeView, branchInfo, nodeData);
-            branchInfo.children.update(index, nodeInfo);
+        if (branchInfo.children != null) {
+            NodeInfo nodeInfo = branchInfo.children.get(index);
+            int delta = 0;
 
-            // Add the new node to the visible nodes list
-            addVisibleNode(branchInfo, index);
-        } else {
-            // This update might affect the node's disabled state
-            Filter<Object> disabledNodeFilter = (Filter<Object>) treeView.getDisabledNodeFilter();
-            nodeInfo.setDisabled(disabledNodeFilter != null && disabledNodeFilter.include(nodeData));
+            if (nodeInfo != null) {
+                List<Object> branchData = (List<Object>) branchInfo.data;
+                Object nodeData = branchData.get(index);
 
-            if (visibleNodes.indexOf(nodeInfo) >= 0) {
-                // The updated node data might affect our preferred width
-                invalidateComponent();
+                if (nodeInfo.data != nodeData) {
+                    // Discard the old node info; a new one will be created
+                    // when it is needed
+                    delta = branchInfo.resetChild(index);
+                } else {
+                    // This update might affect the node's disabled state
+                    Filter<Object> disabledNodeFilter = (Filter<Object>) treeView.getDisabledNodeFilter();
+                    nodeInfo.setDisabled(disabledNodeFilter != null && disabledNodeFilter.include(nodeData));
+                }
             }
+
+            // The updated node data might affect our preferred size, if the
+            // node is visible
+            propagateRowCount(branchInfo, delta);
         }
     }
 
@@ -2109,12 +2402,10 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
     public void nodesCleared(final TreeView treeView, final Path path) {
         BranchInfo branchInfo = getBranchInfoAt(path);
 
-        // Remove the node from the visible nodes list
-        removeVisibleNodes(branchInfo, 0, -1);
-
         // Update our internal branch info
         if (branchInfo.children != null) {
-            branchInfo.children.clear();
+            int rows = branchInfo.removeChildren(0, branchInfo.children.getLength());
+            propagateRowCount(branchInfo, -rows);
         }
     }
 
@@ -2122,15 +2413,15 @@ public class TerraTreeViewSkin extends ComponentSkin implements TreeView.Skin, T
     public void nodesSorted(final TreeView treeView, final Path path) {
         BranchInfo branchInfo = getBranchInfoAt(path);
 
-        // Remove the child nodes from the visible nodes list
-        removeVisibleNodes(branchInfo, 0, -1);
-
         // Re-load the branch's children to get the correct sort order
-        branchInfo.children = null;
-        branchInfo.loadChildren();
+        if (branchInfo.children != null) {
+            int previousRowCount = branchInfo.rowCount;
+
+            branchInfo.unloadChildren();
+            branchInfo.loadChildren();
 
-        // Add the child nodes back to the visible nodes list
-        addVisibleNodes(branchInfo);
+            propagateRowCount(branchInfo, branchInfo.rowCount - previousRowCount);
+        }
     }
 
     // TreeViewNodeStateListener methods
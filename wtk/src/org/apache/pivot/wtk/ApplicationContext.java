@@ -21,6 +21,7 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
 import java.awt.PrintGraphics;
 import java.awt.RenderingHints;
 import java.awt.Transparency;
@@ -362,9 +363,12 @@ public abstract class ApplicationContext implements Application.UncaughtExceptio
                 // No-op
             }
 
-            // Add native drop support
-            @SuppressWarnings("unused")
-            java.awt.dnd.DropTarget dropTarget = new java.awt.dnd.DropTarget(this, dropTargetListener);
+            // Add native drop support (not available in a headless environment,
+            // where the host can still be used to lay out and paint offscreen)
+            if (!GraphicsEnvironment.isHeadless()) {
+                @SuppressWarnings("unused")
+                java.awt.dnd.DropTarget dropTarget = new java.awt.dnd.DropTarget(this, dropTargetListener);
+            }
 
             setFocusTraversalKeysEnabled(false);
         }
@@ -410,6 +414,15 @@ public abstract class ApplicationContext implements Application.UncaughtExceptio
             }
         }
 
+        /**
+         * @return Whether what is painted on this host can be copied elsewhere
+         * on the screen (to scroll it, say) rather than painted again. This is
+         * only the case for a host shown by the desktop application context.
+         */
+        protected boolean isCopyAreaEnabled() {
+            return DesktopApplicationContext.isActive() && isDisplayable();
+        }
+
         /**
          * Use this method to zoom in to the application's main window
          * (that is, make all the text and components look visually bigger).
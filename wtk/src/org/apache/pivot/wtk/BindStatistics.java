@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk;
+
+/**
+ * Collects timing information for bulk data binding, that is, for calls to
+ * {@link Container#load(Object)} and {@link Container#store(Object)}. Only the
+ * outermost container of a nested load or store is counted, so each count
+ * corresponds to one bind operation as seen by the application.
+ * <p> Like the rest of the toolkit, this class is meant to be used from the
+ * event dispatch thread only.
+ */
+public final class BindStatistics {
+    private static int depth = 0;
+
+    private static long loadCount = 0;
+    private static long loadTime = 0;
+    private static long lastLoadTime = 0;
+
+    private static long storeCount = 0;
+    private static long storeTime = 0;
+    private static long lastStoreTime = 0;
+
+    private BindStatistics() {
+    }
+
+    /**
+     * Marks the start of a load or store operation.
+     *
+     * @return The start time, or <tt>-1</tt> if this is a nested operation.
+     */
+    static long begin() {
+        return (depth++ == 0) ? System.nanoTime() : -1;
+    }
+
+    /**
+     * Marks the end of a load operation.
+     *
+     * @param startTime The value returned by the matching call to {@link #begin}.
+     */
+    static void endLoad(final long startTime) {
+        depth--;
+
+        if (startTime != -1) {
+            lastLoadTime = System.nanoTime() - startTime;
+            loadTime += lastLoadTime;
+            loadCount++;
+        }
+    }
+
+    /**
+     * Marks the end of a store operation.
+     *
+     * @param startTime The value returned by the matching call to {@link #begin}.
+     */
+    static void endStore(final long startTime) {
+        depth--;
+
+        if (startTime != -1) {
+            lastStoreTime = System.nanoTime() - startTime;
+            storeTime += lastStoreTime;
+            storeCount++;
+        }
+    }
+
+    /**
+     * @return The number of bulk load operations performed.
+     */
+    public static long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * @return The total time spent in bulk load operations, in nanoseconds.
+     */
+    public static long getLoadTime() {
+        return loadTime;
+    }
+
+    /**
+     * @return The duration of the most recent bulk load, in nanoseconds.
+     */
+    public static long getLastLoadTime() {
+        return lastLoadTime;
+    }
+
+    /**
+     * @return The number of bulk store operations performed.
+     */
+    public static long getStoreCount() {
+        return storeCount;
+    }
+
+    /**
+     * @return The total time spent in bulk store operations, in nanoseconds.
+     */
+    public static long getStoreTime() {
+        return storeTime;
+    }
+
+    /**
+     * @return The duration of the most recent bulk store, in nanoseconds.
+     */
+    public static long getLastStoreTime() {
+        return lastStoreTime;
+    }
+
+    /**
+     * Resets all counters to zero.
+     */
+    public static void reset() {
+        loadCount = 0;
+        loadTime = 0;
+        lastLoadTime = 0;
+        storeCount = 0;
+        storeTime = 0;
+        lastStoreTime = 0;
+    }
+}
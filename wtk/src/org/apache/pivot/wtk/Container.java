@@ -542,11 +542,18 @@ public abstract class Container extends Component implements Sequence<Component>
      * Propagates binding to subcomponents.
      *
      * @param context The object we're binding to.
+     * @see BindStatistics
      */
     @Override
     public void load(Object context) {
-        for (Component component : components) {
-            component.load(context);
+        long startTime = BindStatistics.begin();
+
+        try {
+            for (int i = 0, n = components.getLength(); i < n; i++) {
+                components.get(i).load(context);
+            }
+        } finally {
+            BindStatistics.endLoad(startTime);
         }
     }
 
@@ -554,11 +561,18 @@ public abstract class Container extends Component implements Sequence<Component>
      * Propagates binding to subcomponents.
      *
      * @param context The object we're binding to.
+     * @see BindStatistics
      */
     @Override
     public void store(Object context) {
-        for (Component component : components) {
-            component.store(context);
+        long startTime = BindStatistics.begin();
+
+        try {
+            for (int i = 0, n = components.getLength(); i < n; i++) {
+                components.get(i).store(context);
+            }
+        } finally {
+            BindStatistics.endStore(startTime);
         }
     }
 
@@ -567,8 +581,8 @@ public abstract class Container extends Component implements Sequence<Component>
      */
     @Override
     public void clear() {
-        for (Component component : components) {
-            component.clear();
+        for (int i = 0, n = components.getLength(); i < n; i++) {
+            components.get(i).clear();
         }
     }
 
@@ -0,0 +1,450 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.Iterator;
+
+import org.apache.pivot.annotations.UnsupportedOperation;
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.ListListener;
+import org.apache.pivot.collections.ReadOnlySequence;
+import org.apache.pivot.collections.Sequence.Tree.ImmutablePath;
+import org.apache.pivot.collections.Sequence.Tree.Path;
+import org.apache.pivot.util.ImmutableIterator;
+import org.apache.pivot.util.ListenerList;
+
+/**
+ * A set of tree paths stored as a prefix tree, used by {@link TreeView} to
+ * track its expanded, selected and checked nodes. <p> Membership tests walk
+ * one trie node per path element, and shifting the children of a branch after
+ * an insertion or removal only renumbers the affected siblings; their
+ * descendants are stored relative to them and are left untouched. <p> As a
+ * {@link List}, the set presents its paths in "row order" (see
+ * {@link TreeView.PathComparator}); the flattened list is built on demand and
+ * kept until the set is next modified. The list methods are read-only; the
+ * set is modified through its own methods.
+ */
+final class PathSet extends ReadOnlySequence<Path> implements List<Path> {
+    private static final long serialVersionUID = -4204380346364939414L;
+
+    /**
+     * A node in the prefix tree, representing one path element.
+     */
+    private static final class Node implements Serializable {
+        private static final long serialVersionUID = 6394855214137932245L;
+
+        // Index of this node within its parent
+        private int index;
+
+        // Whether the path ending at this node is in the set
+        private boolean member = false;
+
+        // Number of paths in the set at or below this node
+        private int count = 0;
+
+        // Child nodes, sorted by index; only nodes with a non-zero count are kept
+        private ArrayList<Node> children = null;
+
+        Node(final int index) {
+            this.index = index;
+        }
+
+        /**
+         * @return The position of the child with the given index, or the
+         * (negative) insertion point as in {@link ArrayList#binarySearch}.
+         */
+        int search(final int childIndex) {
+            int low = 0;
+            int high = (children == null) ? -1 : children.getLength() - 1;
+
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midIndex = children.get(mid).index;
+
+                if (midIndex < childIndex) {
+                    low = mid + 1;
+                } else if (midIndex > childIndex) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+
+            return -(low + 1);
+        }
+
+        Node getChild(final int childIndex) {
+            int i = search(childIndex);
+            return (i < 0) ? null : children.get(i);
+        }
+
+        Node getOrCreateChild(final int childIndex) {
+            int i = search(childIndex);
+
+            Node child;
+            if (i < 0) {
+                if (children == null) {
+                    children = new ArrayList<>();
+                }
+
+                child = new Node(childIndex);
+                children.insert(child, -(i + 1));
+            } else {
+                child = children.get(i);
+            }
+
+            return child;
+        }
+    }
+
+    private Node root = new Node(-1);
+
+    // Flattened, row-ordered view of the set, built on demand
+    private transient ArrayList<Path> paths = null;
+
+    private transient ListListenerList<Path> listListeners = new ListListenerList<>();
+
+    /**
+     * Returns the trie node for the given path.
+     *
+     * @param path The path to look up.
+     * @return The node, or {@code null} if neither the path nor any of its
+     * descendants are in the set.
+     */
+    private Node find(final Path path) {
+        Node node = root;
+
+        for (int i = 0, n = path.getLength(); i < n && node != null; i++) {
+            node = node.getChild(path.get(i));
+        }
+
+        return node;
+    }
+
+    /**
+     * Adds a delta to the counts of all the nodes along a path, pruning any
+     * node whose count drops to zero.
+     */
+    private void adjustCounts(final Path path, final int delta) {
+        Node node = root;
+        node.count += delta;
+
+        for (int i = 0, n = path.getLength(); i < n; i++) {
+            int position = node.search(path.get(i));
+            Node child = node.children.get(position);
+            child.count += delta;
+
+            if (child.count == 0) {
+                node.children.remove(position, 1);
+                break;
+            }
+
+            node = child;
+        }
+    }
+
+    /**
+     * Tells whether the given path is in the set.
+     *
+     * @param path The path to test.
+     * @return {@code true} if the path is a member of this set.
+     */
+    public boolean contains(final Path path) {
+        Node node = find(path);
+        return (node != null && node.member);
+    }
+
+    /**
+     * Tells whether any strict descendant of the given path is in the set.
+     *
+     * @param path The ancestor path.
+     * @return {@code true} if at least one descendant is a member of this set.
+     */
+    public boolean containsDescendants(final Path path) {
+        Node node = find(path);
+        return (node != null && node.count > (node.member ? 1 : 0));
+    }
+
+    /**
+     * Adds a path to the set.
+     *
+     * @param path The path to add.
+     * @return {@code true} if the path was added; {@code false} if it was
+     * already present.
+     */
+    public boolean addPath(final Path path) {
+        if (contains(path)) {
+            return false;
+        }
+
+        Node node = root;
+        node.count++;
+
+        for (int i = 0, n = path.getLength(); i < n; i++) {
+            node = node.getOrCreateChild(path.get(i));
+            node.count++;
+        }
+
+        node.member = true;
+        paths = null;
+
+        return true;
+    }
+
+    /**
+     * Removes a path from the set; its descendants, if any, are not affected.
+     *
+     * @param path The path to remove.
+     * @return {@code true} if the path was removed; {@code false} if it was not
+     * present.
+     */
+    public boolean removePath(final Path path) {
+        Node node = find(path);
+        if (node == null || !node.member) {
+            return false;
+        }
+
+        node.member = false;
+        adjustCounts(path, -1);
+        paths = null;
+
+        return true;
+    }
+
+    /**
+     * Updates the set in response to a node having been inserted into the
+     * tree: every path that passes through a later sibling of the inserted
+     * node is moved down by one. No paths are added or removed.
+     *
+     * @param basePath The path to the parent of the inserted node.
+     * @param index The index of the inserted node within its parent.
+     * @return The number of paths that were moved.
+     */
+    public int incrementPaths(final Path basePath, final int index) {
+        Node base = find(basePath);
+        if (base == null || base.children == null) {
+            return 0;
+        }
+
+        int i = base.search(index);
+        if (i < 0) {
+            i = -(i + 1);
+        }
+
+        int updated = 0;
+        for (int n = base.children.getLength(); i < n; i++) {
+            Node child = base.children.get(i);
+            child.index++;
+            updated += child.count;
+        }
+
+        if (updated > 0) {
+            paths = null;
+        }
+
+        return updated;
+    }
+
+    /**
+     * Updates the set in response to nodes having been removed from the tree:
+     * paths through the removed nodes are cleared, and paths through later
+     * siblings are moved up by {@code count}.
+     *
+     * @param basePath The path to the parent of the removed nodes.
+     * @param index The index of the first removed node within its parent.
+     * @param count The number of nodes removed.
+     * @return The number of paths that were cleared or moved.
+     */
+    public int clearAndDecrementPaths(final Path basePath, final int index, final int count) {
+        Node base = find(basePath);
+        if (base == null || base.children == null) {
+            return 0;
+        }
+
+        int start = base.search(index);
+        if (start < 0) {
+            start = -(start + 1);
+        }
+
+        int end = base.search(index + count);
+        if (end < 0) {
+            end = -(end + 1);
+        }
+
+        int cleared = 0;
+        for (int i = start; i < end; i++) {
+            cleared += base.children.get(i).count;
+        }
+
+        if (end > start) {
+            base.children.remove(start, end - start);
+        }
+
+        int updated = 0;
+        for (int i = start, n = base.children.getLength(); i < n; i++) {
+            Node child = base.children.get(i);
+            child.index -= count;
+            updated += child.count;
+        }
+
+        if (cleared > 0) {
+            adjustCounts(basePath, -cleared);
+        }
+
+        if (cleared + updated > 0) {
+            paths = null;
+        }
+
+        return cleared + updated;
+    }
+
+    /**
+     * Clears the paths through a single child of the given branch, including
+     * the path to the child itself.
+     *
+     * @param basePath The path to the parent of the child.
+     * @param index The index of the child within its parent.
+     * @return The number of paths that were cleared.
+     */
+    public int clearPaths(final Path basePath, final int index) {
+        Node base = find(basePath);
+        if (base == null) {
+            return 0;
+        }
+
+        Node child = base.getChild(index);
+        if (child == null) {
+            return 0;
+        }
+
+        int cleared = child.count;
+        base.children.remove(base.search(index), 1);
+        adjustCounts(basePath, -cleared);
+        paths = null;
+
+        return cleared;
+    }
+
+    /**
+     * Clears the paths to all descendants of the given branch, leaving the
+     * branch itself as it is.
+     *
+     * @param basePath The path to the branch.
+     * @return The number of paths that were cleared.
+     */
+    public int clearPaths(final Path basePath) {
+        Node base = find(basePath);
+        if (base == null || base.children == null) {
+            return 0;
+        }
+
+        int cleared = base.count - (base.member ? 1 : 0);
+        base.children = null;
+
+        if (cleared > 0) {
+            adjustCounts(basePath, -cleared);
+            paths = null;
+        }
+
+        return cleared;
+    }
+
+    /**
+     * Removes all paths from the set.
+     */
+    @Override
+    public void clear() {
+        root = new Node(-1);
+        paths = null;
+    }
+
+    /**
+     * Builds the row-ordered list of paths, if needed.
+     */
+    private ArrayList<Path> getPaths() {
+        if (paths == null) {
+            paths = new ArrayList<>(root.count);
+            addPaths(root, new ArrayList<Integer>());
+        }
+
+        return paths;
+    }
+
+    private void addPaths(final Node node, final ArrayList<Integer> elements) {
+        if (node.member) {
+            paths.add(new ImmutablePath(elements.toArray(Integer[].class)));
+        }
+
+        if (node.children != null) {
+            for (int i = 0, n = node.children.getLength(); i < n; i++) {
+                Node child = node.children.get(i);
+                elements.add(child.index);
+                addPaths(child, elements);
+                elements.remove(elements.getLength() - 1, 1);
+            }
+        }
+    }
+
+    @Override
+    public Path get(final int index) {
+        return getPaths().get(index);
+    }
+
+    @Override
+    public int indexOf(final Path path) {
+        return contains(path) ? ArrayList.binarySearch(getPaths(), path, TreeView.PATH_COMPARATOR) : -1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return (root.count == 0);
+    }
+
+    @Override
+    public int getLength() {
+        return root.count;
+    }
+
+    @Override
+    public Comparator<Path> getComparator() {
+        return TreeView.PATH_COMPARATOR;
+    }
+
+    @Override
+    @UnsupportedOperation
+    public void setComparator(final Comparator<Path> comparator) {
+        throw defaultException();
+    }
+
+    @Override
+    public Iterator<Path> iterator() {
+        return new ImmutableIterator<>(getPaths().iterator());
+    }
+
+    @Override
+    public ListenerList<ListListener<Path>> getListListeners() {
+        return listListeners;
+    }
+
+    @Override
+    public String toString() {
+        return getPaths().toString();
+    }
+}
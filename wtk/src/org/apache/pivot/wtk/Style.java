@@ -45,6 +45,7 @@ public enum Style {
     editOnMouseDown,
     fill,
     font,
+    glyphCacheSize,
     gridFrequency,
     headingColor,
     hideDisabledFiles,
@@ -24,7 +24,6 @@ import org.apache.pivot.collections.ArrayList;
 import org.apache.pivot.collections.List;
 import org.apache.pivot.collections.ListListener;
 import org.apache.pivot.collections.Sequence;
-import org.apache.pivot.collections.Sequence.Tree.ImmutablePath;
 import org.apache.pivot.collections.Sequence.Tree.Path;
 import org.apache.pivot.collections.immutable.ImmutableList;
 import org.apache.pivot.util.Filter;
@@ -320,9 +319,9 @@ public class TreeView extends Component {
             insert(null, index);
 
             // Update our data structures
-            incrementPaths(expandedPaths, path, index);
-            int updated = incrementPaths(selectedPaths, path, index);
-            incrementPaths(checkedPaths, path, index);
+            expandedPaths.incrementPaths(path, index);
+            int updated = selectedPaths.incrementPaths(path, index);
+            checkedPaths.incrementPaths(path, index);
 
             // Notify listeners
             treeViewNodeListeners.nodeInserted(TreeView.this, path, index);
@@ -357,9 +356,9 @@ public class TreeView extends Component {
             }
 
             // Update our data structures
-            clearAndDecrementPaths(expandedPaths, path, index, count);
-            int updated = clearAndDecrementPaths(selectedPaths, path, index, count);
-            clearAndDecrementPaths(checkedPaths, path, index, count);
+            expandedPaths.clearAndDecrementPaths(path, index, count);
+            int updated = selectedPaths.clearAndDecrementPaths(path, index, count);
+            checkedPaths.clearAndDecrementPaths(path, index, count);
 
             // Notify listeners
             treeViewNodeListeners.nodesRemoved(TreeView.this, path, index, count);
@@ -387,9 +386,9 @@ public class TreeView extends Component {
                 }
 
                 // Update our data structures
-                clearPaths(expandedPaths, path, index);
-                clearPaths(selectedPaths, path, index);
-                clearPaths(checkedPaths, path, index);
+                expandedPaths.clearPaths(path, index);
+                selectedPaths.clearPaths(path, index);
+                checkedPaths.clearPaths(path, index);
             }
 
             // Notify listeners
@@ -413,9 +412,9 @@ public class TreeView extends Component {
             super.clear();
 
             // Update our data structures
-            clearPaths(expandedPaths, path);
-            int cleared = clearPaths(selectedPaths, path);
-            clearPaths(checkedPaths, path);
+            expandedPaths.clearPaths(path);
+            int cleared = selectedPaths.clearPaths(path);
+            checkedPaths.clearPaths(path);
 
             // Notify listeners
             treeViewNodeListeners.nodesCleared(TreeView.this, path);
@@ -448,9 +447,9 @@ public class TreeView extends Component {
                 }
 
                 // Update our data structures
-                clearPaths(expandedPaths, path);
-                int cleared = clearPaths(selectedPaths, path);
-                clearPaths(checkedPaths, path);
+                expandedPaths.clearPaths(path);
+                int cleared = selectedPaths.clearPaths(path);
+                checkedPaths.clearPaths(path);
 
                 // Notify listeners
                 treeViewNodeListeners.nodesSorted(TreeView.this, path);
@@ -465,189 +464,15 @@ public class TreeView extends Component {
                 }
             }
         }
-
-        /**
-         * Updates the paths within the specified sequence in response to a tree
-         * data path insertion. For instance, if {@code paths} is <code>[[3, 0],
-         * [5, 0]]</code>, {@code basePath} is <code>[]</code>, and {@code index} is
-         * <code>4</code>, then {@code paths} will be updated to <code>[[3, 0], [6,
-         * 0]]</code>. No events are fired.
-         *
-         * @param paths Sequence of paths guaranteed to be sorted by
-         * "row order".
-         * @param basePath The path to the parent of the inserted item.
-         * @param index The index of the inserted item within its parent.
-         * @return The number of path elements that were updated.
-         */
-        private int incrementPaths(ArrayList<Path> paths, Path basePath, int index) {
-            // Calculate the child's path
-            Path childPath = new Path(basePath);
-            childPath.add(index);
-
-            // Find the child path's place in our sorted paths sequence
-            int i = ArrayList.binarySearch(paths, childPath, PATH_COMPARATOR);
-            if (i < 0) {
-                i = -(i + 1);
-            }
-
-            // Temporarily clear the comparator while we update the list
-            paths.setComparator(null);
-
-            int n = paths.getLength();
-            try {
-                // Update all affected paths by incrementing the appropriate path element
-                for (int depth = basePath.getLength(); i < n; i++) {
-                    Path affectedPath = paths.get(i);
-
-                    if (!Sequence.Tree.isDescendant(basePath, affectedPath)) {
-                        // All paths from here forward are guaranteed to be unaffected
-                        break;
-                    }
-
-                    Integer[] elements = affectedPath.toArray();
-                    elements[depth]++;
-                    paths.update(i, new ImmutablePath(elements));
-                }
-            } finally {
-                // Restore the comparator
-                paths.setComparator(PATH_COMPARATOR);
-            }
-
-            return (n - i);
-        }
-
-        /**
-         * Updates the paths within the specified sequence in response to items
-         * having been removed from the base path. For instance, if
-         * {@code paths} is <code>[[3, 0], [3, 1], [6, 0]]</code>,
-         * {@code basePath} is <code>[]</code>, {@code index} is <code>3</code>, and
-         * {@code count} is <code>2</code>, then {@code paths} will be updated to
-         * <code>[[4, 0]]</code>. No events are fired.
-         *
-         * @param paths Sequence of paths guaranteed to be sorted by "row order".
-         * @param basePath The path to the parent of the removed items.
-         * @param index The index of the first removed item within the base.
-         * @param count The number of items removed.
-         * @return The number of path elements that were updated.
-         */
-        private int clearAndDecrementPaths(ArrayList<Path> paths, Path basePath, int index,
-            int count) {
-            int depth = basePath.getLength();
-
-            // Find the index of the first path to clear (inclusive)
-            Path testPath = new Path(basePath);
-            testPath.add(index);
-
-            int start = ArrayList.binarySearch(paths, testPath, PATH_COMPARATOR);
-            if (start < 0) {
-                start = -(start + 1);
-            }
-
-            // Find the index of the last path to clear (exclusive)
-            testPath.update(depth, index + count);
-
-            int end = ArrayList.binarySearch(paths, testPath, PATH_COMPARATOR);
-            if (end < 0) {
-                end = -(end + 1);
-            }
-
-            // Clear affected paths
-            if (end > start) {
-                paths.remove(start, end - start);
-            }
-
-            // Decrement paths as necessary
-            int n = paths.getLength();
-            for (int i = start; i < n; i++) {
-                Path affectedPath = paths.get(i);
-
-                if (!Sequence.Tree.isDescendant(basePath, affectedPath)) {
-                    // All paths from here forward are guaranteed to be unaffected
-                    break;
-                }
-
-                Integer[] elements = affectedPath.toArray();
-                elements[depth] -= count;
-                paths.update(i, new ImmutablePath(elements));
-            }
-
-            return (n - start);
-        }
-
-        /**
-         * Removes affected paths from within the specified sequence in response
-         * to an item having been updated in the base path. For instance, if
-         * {@code paths} is <code>[[3], [3, 0], [3, 1], [5, 0]]</code>,
-         * {@code basePath} is <code>[3]</code>, and {@code index} is <code>0</code>,
-         * then {@code paths} will be updated to <code>[[3], [3, 1], [5,
-         * 0]]</code>. No events are fired.
-         *
-         * @param paths Sequence of paths guaranteed to be sorted by "row order".
-         * @param basePath The path to the parent of the updated item.
-         * @param index The index of the updated item within its parent.
-         */
-        private void clearPaths(ArrayList<Path> paths, Path basePath, int index) {
-            // Calculate the child's path
-            Path childPath = new Path(basePath);
-            childPath.add(index);
-
-            // Find the child path's place in our sorted paths sequence
-            int clearIndex = ArrayList.binarySearch(paths, childPath, PATH_COMPARATOR);
-            if (clearIndex < 0) {
-                clearIndex = -(clearIndex + 1);
-            }
-
-            // Remove the child and all descendants from the paths list
-            for (int i = clearIndex, n = paths.getLength(); i < n; i++) {
-                Path affectedPath = paths.get(clearIndex);
-
-                if (!Sequence.Tree.isDescendant(childPath, affectedPath)) {
-                    break;
-                }
-
-                paths.remove(clearIndex, 1);
-            }
-        }
-
-        /**
-         * Removes affected paths from within the specified sequence in response
-         * to a base path having been sorted. For instance, if {@code paths} is
-         * <code>[[3], [3, 0], [3, 1], [5, 0]]</code> and {@code basePath} is
-         * <code>[3]</code>, then {@code paths} will be updated to <code>[[3], [5,
-         * 0]]</code>. No events are fired.
-         *
-         * @param paths Sequence of paths guaranteed to be sorted by "row order".
-         * @param basePath The path whose children were sorted.
-         * @return The number of path elements that were updated.
-         */
-        private int clearPaths(ArrayList<Path> paths, Path basePath) {
-            // Find first descendant in paths list, if it exists
-            int index = ArrayList.binarySearch(paths, basePath, PATH_COMPARATOR);
-            index = (index < 0 ? -(index + 1) : index + 1);
-
-            // Remove all descendants from the paths list
-            int n = paths.getLength();
-            for (int i = index; i < n; i++) {
-                Path affectedPath = paths.get(index);
-
-                if (!Sequence.Tree.isDescendant(basePath, affectedPath)) {
-                    break;
-                }
-
-                paths.remove(index, 1);
-            }
-
-            return (n - index);
-        }
     }
 
     // Core data model
     private List<?> treeData = null;
 
     // Ancillary data models
-    private ArrayList<Path> expandedPaths = new ArrayList<>(PATH_COMPARATOR);
-    private ArrayList<Path> selectedPaths = new ArrayList<>(PATH_COMPARATOR);
-    private ArrayList<Path> checkedPaths = new ArrayList<>(PATH_COMPARATOR);
+    private PathSet expandedPaths = new PathSet();
+    private PathSet selectedPaths = new PathSet();
+    private PathSet checkedPaths = new PathSet();
 
     // Properties
     private SelectMode selectMode = SelectMode.SINGLE;
@@ -677,7 +502,7 @@ public class TreeView extends Component {
 
     private static final NodeRenderer DEFAULT_NODE_RENDERER = new TreeViewNodeRenderer();
 
-    private static final Comparator<Path> PATH_COMPARATOR = new PathComparator();
+    static final Comparator<Path> PATH_COMPARATOR = new PathComparator();
 
     /**
      * Creates a new {@code TreeView} with empty tree data.
@@ -911,20 +736,21 @@ public class TreeView extends Component {
         Sequence<Path> previousSelectedPaths = this.selectedPaths;
         Object previousSelectedNode = (selectMode == SelectMode.SINGLE) ? getSelectedNode() : null;
 
-        // TODO Only add and monitor non-duplicates
-
         if (selectedPaths != previousSelectedPaths) {
-            this.selectedPaths = new ArrayList<>(PATH_COMPARATOR);
+            this.selectedPaths = new PathSet();
 
             for (int i = 0, n = selectedPaths.getLength(); i < n; i++) {
                 Path path = selectedPaths.get(i);
 
-                // Monitor the branch itself, because if showEmptyBranchControls is false
-                // we need repaints as children are added/removed from this branch.
-                monitorBranch(path, true);
+                // Only add and monitor non-duplicates
+                if (!this.selectedPaths.contains(path)) {
+                    // Monitor the branch itself, because if showEmptyBranchControls is false
+                    // we need repaints as children are added/removed from this branch.
+                    monitorBranch(path, true);
 
-                // Update the selection
-                this.selectedPaths.add(new ImmutablePath(path));
+                    // Update the selection
+                    this.selectedPaths.addPath(path);
+                }
             }
 
             // Notify listeners
@@ -1009,20 +835,20 @@ public class TreeView extends Component {
             throw new IllegalStateException("Tree view is not in multi-select mode.");
         }
 
-        int index = selectedPaths.indexOf(path);
-        if (index < 0) {
+        boolean added = !selectedPaths.contains(path);
+        if (added) {
             // Monitor the path's parent
             monitorBranch(path, false);
 
             // Update the selection
-            selectedPaths.add(new ImmutablePath(path));
+            selectedPaths.addPath(path);
 
             // Notify listeners
             treeViewSelectionListeners.selectedPathAdded(this, path);
             treeViewSelectionListeners.selectedPathsChanged(this, null);
         }
 
-        return (index < 0);
+        return added;
     }
 
     /**
@@ -1040,17 +866,14 @@ public class TreeView extends Component {
             throw new IllegalStateException("Tree view is not in multi-select mode.");
         }
 
-        int index = selectedPaths.indexOf(path);
-        if (index >= 0) {
-            // Update the selection
-            selectedPaths.remove(index, 1);
-
+        boolean removed = selectedPaths.removePath(path);
+        if (removed) {
             // Notify listeners
             treeViewSelectionListeners.selectedPathRemoved(this, path);
             treeViewSelectionListeners.selectedPathsChanged(this, null);
         }
 
-        return (index >= 0);
+        return removed;
     }
 
     public String getTreeDataKey() {
@@ -1084,7 +907,7 @@ public class TreeView extends Component {
             Sequence<Path> previousSelectedPaths = selectedPaths;
 
             // Update the selection
-            selectedPaths = new ArrayList<>(PATH_COMPARATOR);
+            selectedPaths = new PathSet();
 
             // Notify listeners
             treeViewSelectionListeners.selectedPathsChanged(this, previousSelectedPaths);
@@ -1098,7 +921,7 @@ public class TreeView extends Component {
     public boolean isNodeSelected(Path path) {
         Utils.checkNull(path, "Path");
 
-        return (selectedPaths.indexOf(path) >= 0);
+        return selectedPaths.contains(path);
     }
 
     /**
@@ -1238,7 +1061,7 @@ public class TreeView extends Component {
     public boolean isNodeChecked(Path path) {
         Utils.checkNull(path, "Path");
 
-        return (checkedPaths.indexOf(path) >= 0);
+        return checkedPaths.contains(path);
     }
 
     /**
@@ -1260,21 +1083,10 @@ public class TreeView extends Component {
         NodeCheckState checkState = NodeCheckState.UNCHECKED;
 
         if (checkmarksEnabled) {
-            int index = ArrayList.binarySearch(checkedPaths, path, PATH_COMPARATOR);
-
-            if (index >= 0) {
+            if (checkedPaths.contains(path)) {
                 checkState = NodeCheckState.CHECKED;
-            } else if (showMixedCheckmarkState) {
-                // Translate to the insertion index
-                index = -(index + 1);
-
-                if (index < checkedPaths.getLength()) {
-                    Path nextCheckedPath = checkedPaths.get(index);
-
-                    if (Sequence.Tree.isDescendant(path, nextCheckedPath)) {
-                        checkState = NodeCheckState.MIXED;
-                    }
-                }
+            } else if (showMixedCheckmarkState && checkedPaths.containsDescendants(path)) {
+                checkState = NodeCheckState.MIXED;
             }
         }
 
@@ -1301,9 +1113,7 @@ public class TreeView extends Component {
             throw new IllegalStateException("Checkmarks are not enabled.");
         }
 
-        int index = checkedPaths.indexOf(path);
-
-        if ((index < 0 && checked) || (index >= 0 && !checked)) {
+        if (checkedPaths.contains(path) != checked) {
             NodeCheckState previousCheckState = getNodeCheckState(path);
 
             Sequence<NodeCheckState> ancestorCheckStates = null;
@@ -1327,10 +1137,10 @@ public class TreeView extends Component {
                 monitorBranch(path, false);
 
                 // Update the checked paths
-                checkedPaths.add(new ImmutablePath(path));
+                checkedPaths.addPath(path);
             } else {
                 // Update the checked paths
-                checkedPaths.remove(index, 1);
+                checkedPaths.removePath(path);
             }
 
             // Notify listeners
@@ -1425,20 +1235,20 @@ public class TreeView extends Component {
         if (vote != Vote.APPROVE) {
             treeViewBranchListeners.branchExpandedChangeVetoed(this, path, vote);
         } else {
-            int index = expandedPaths.indexOf(path);
+            boolean wasExpanded = expandedPaths.contains(path);
 
-            if (expanded && index < 0) {
+            if (expanded && !wasExpanded) {
                 // Monitor the branch itself
                 monitorBranch(path, true);
 
                 // Update the expanded paths
-                expandedPaths.add(new ImmutablePath(path));
+                expandedPaths.addPath(path);
 
                 // Notify listeners
                 treeViewBranchListeners.branchExpanded(this, path);
-            } else if (!expanded && index >= 0) {
+            } else if (!expanded && wasExpanded) {
                 // Update the expanded paths
-                expandedPaths.remove(index, 1);
+                expandedPaths.removePath(path);
 
                 // Notify listeners
                 treeViewBranchListeners.branchCollapsed(this, path);
@@ -1455,7 +1265,7 @@ public class TreeView extends Component {
     public boolean isBranchExpanded(Path path) {
         checkNullOrEmpty(path);
 
-        return (expandedPaths.indexOf(path) >= 0);
+        return expandedPaths.contains(path);
     }
 
     /**
@@ -1484,23 +1294,45 @@ public class TreeView extends Component {
     }
 
     /**
-     * Expands all branches in the tree view.
+     * Expands all branches in the tree view. <p> This is a bulk operation:
+     * the individual expansions are not previewed and do not fire
+     * {@link TreeViewBranchListener#branchExpanded branchExpanded} events;
+     * instead the whole operation is subject to a single
+     * {@link TreeViewBranchListener#previewExpandedBranchesChange previewExpandedBranchesChange}
+     * vote, and a single
+     * {@link TreeViewBranchListener#expandedBranchesChanged expandedBranchesChanged}
+     * event is fired if anything changed.
      */
     @SuppressWarnings("unchecked")
     public final void expandAll() {
+        // Give listeners a chance to veto the operation
+        Vote vote = treeViewBranchListeners.previewExpandedBranchesChange(this, true);
+        if (vote != Vote.APPROVE) {
+            treeViewBranchListeners.expandedBranchesChangeVetoed(this, true, vote);
+            return;
+        }
+
         Sequence.Tree.ItemIterator<Object> itemIterator = Sequence.Tree.depthFirstIterator((List<Object>) treeData);
 
+        boolean changed = false;
+
         while (itemIterator.hasNext()) {
             Object node = itemIterator.next();
 
             if (node instanceof List<?>) {
                 Path path = itemIterator.getPath();
 
-                if (path.getLength() > 0) {
-                    expandBranch(path);
+                if (path.getLength() > 0 && !expandedPaths.contains(path)) {
+                    monitorBranch(path, true);
+                    expandedPaths.addPath(path);
+                    changed = true;
                 }
             }
         }
+
+        if (changed) {
+            treeViewBranchListeners.expandedBranchesChanged(this);
+        }
     }
 
     /**
@@ -1514,22 +1346,25 @@ public class TreeView extends Component {
     }
 
     /**
-     * Collapses all branches in the tree view.
+     * Collapses all branches in the tree view. <p> Like {@link #expandAll},
+     * this is a bulk operation, subject to a single
+     * {@link TreeViewBranchListener#previewExpandedBranchesChange previewExpandedBranchesChange}
+     * vote, that fires a single
+     * {@link TreeViewBranchListener#expandedBranchesChanged expandedBranchesChanged}
+     * event rather than one event per branch.
      */
-    @SuppressWarnings("unchecked")
     public final void collapseAll() {
-        Sequence.Tree.ItemIterator<Object> itemIterator = Sequence.Tree.depthFirstIterator((List<Object>) treeData);
-
-        while (itemIterator.hasNext()) {
-            Object node = itemIterator.next();
+        if (expandedPaths.getLength() > 0) {
+            // Give listeners a chance to veto the operation
+            Vote vote = treeViewBranchListeners.previewExpandedBranchesChange(this, false);
+            if (vote != Vote.APPROVE) {
+                treeViewBranchListeners.expandedBranchesChangeVetoed(this, false, vote);
+                return;
+            }
 
-            if (node instanceof List<?>) {
-                Path path = itemIterator.getPath();
+            expandedPaths.clear();
 
-                if (path.getLength() > 0) {
-                    collapseBranch(path);
-                }
-            }
+            treeViewBranchListeners.expandedBranchesChanged(this);
         }
     }
 
@@ -40,6 +40,11 @@ public interface TreeViewBranchListener {
             forEach(listener -> listener.branchCollapsed(treeView, path));
         }
 
+        @Override
+        public void expandedBranchesChanged(TreeView treeView) {
+            forEach(listener -> listener.expandedBranchesChanged(treeView));
+        }
+
         @Override
         public Vote previewBranchExpandedChange(TreeView treeView, Path path) {
             VoteResult vote = new VoteResult(Vote.APPROVE);
@@ -53,6 +58,20 @@ public interface TreeViewBranchListener {
         public void branchExpandedChangeVetoed(TreeView treeView, Path path, Vote reason) {
             forEach(listener -> listener.branchExpandedChangeVetoed(treeView, path, reason));
         }
+
+        @Override
+        public Vote previewExpandedBranchesChange(TreeView treeView, boolean expanded) {
+            VoteResult vote = new VoteResult(Vote.APPROVE);
+
+            forEach(listener -> vote.tally(listener.previewExpandedBranchesChange(treeView, expanded)));
+
+            return vote.get();
+        }
+
+        @Override
+        public void expandedBranchesChangeVetoed(TreeView treeView, boolean expanded, Vote reason) {
+            forEach(listener -> listener.expandedBranchesChangeVetoed(treeView, expanded, reason));
+        }
     }
 
     /**
@@ -71,6 +90,11 @@ public interface TreeViewBranchListener {
             // empty block
         }
 
+        @Override
+        public void expandedBranchesChanged(TreeView treeView) {
+            // empty block
+        }
+
         @Override
         public Vote previewBranchExpandedChange(TreeView treeView, Path path) {
             return Vote.APPROVE;
@@ -80,6 +104,16 @@ public interface TreeViewBranchListener {
         public void branchExpandedChangeVetoed(TreeView treeView, Path path, Vote reason) {
             // empty block
         }
+
+        @Override
+        public Vote previewExpandedBranchesChange(TreeView treeView, boolean expanded) {
+            return Vote.APPROVE;
+        }
+
+        @Override
+        public void expandedBranchesChangeVetoed(TreeView treeView, boolean expanded, Vote reason) {
+            // empty block
+        }
     }
 
     /**
@@ -101,6 +135,19 @@ public interface TreeViewBranchListener {
     default void branchCollapsed(TreeView treeView, Path path) {
     }
 
+    /**
+     * Called when the expansion state of many branches has been changed at
+     * once, as by {@link TreeView#expandAll} or {@link TreeView#collapseAll}.
+     * This is the only event fired for such a change: there are no
+     * {@link #branchExpanded} or {@link #branchCollapsed} events for the
+     * individual branches, and {@link #previewBranchExpandedChange} is not
+     * called for them (see {@link #previewExpandedBranchesChange} instead).
+     *
+     * @param treeView The source of the event.
+     */
+    default void expandedBranchesChanged(TreeView treeView) {
+    }
+
     /**
      * Called before a tree node is expanded or collapsed to allow the application
      * or the skin to refuse the operation.
@@ -126,4 +173,29 @@ public interface TreeViewBranchListener {
     default void branchExpandedChangeVetoed(TreeView treeView, Path path, Vote reason) {
     }
 
+    /**
+     * Called before the expansion state of many branches is changed at once,
+     * as by {@link TreeView#expandAll} or {@link TreeView#collapseAll}, to
+     * allow the application or the skin to refuse the whole operation.
+     *
+     * @param treeView The source of the event.
+     * @param expanded Whether the branches are about to be expanded or collapsed.
+     * @return The accumulated vote as to whether to allow this change.
+     */
+    default Vote previewExpandedBranchesChange(TreeView treeView, boolean expanded) {
+        return Vote.APPROVE;
+    }
+
+    /**
+     * Called when the {@link #previewExpandedBranchesChange previewExpandedBranchesChange()}
+     * tally produces anything but a {@link Vote#APPROVE} result, in which case
+     * no branch is expanded or collapsed.
+     *
+     * @param treeView The source of the event.
+     * @param expanded Whether the branches were to be expanded or collapsed.
+     * @param reason The tallied vote result that caused the veto.
+     */
+    default void expandedBranchesChangeVetoed(TreeView treeView, boolean expanded, Vote reason) {
+    }
+
 }
@@ -16,6 +16,9 @@
  */
 package org.apache.pivot.wtk;
 
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
 import org.apache.pivot.beans.DefaultProperty;
 import org.apache.pivot.collections.Sequence;
 import org.apache.pivot.util.ListenerList;
@@ -53,6 +56,8 @@ public abstract class Viewport extends Container {
     private boolean consumeRepaint = false;
     /** Whether repainting is optimized, or whether a full repaint is required. */
     private boolean repaintAllViewport = false;
+    /** Copies the viewport's contents when it is scrolled. */
+    private final ViewportBlitter blitter = new ViewportBlitter(this);
 
     /** Current set of listeners for events. */
     private ViewportListener.Listeners viewportListeners = new ViewportListener.Listeners();
@@ -180,10 +185,18 @@ public abstract class Viewport extends Container {
     @Override
     public void repaint(final int x, final int y, final int width, final int height, final boolean immediate) {
         if (!consumeRepaint) {
+            blitter.discardLayers(new Bounds(x, y, width, height));
             super.repaint(x, y, width, height, immediate);
         }
     }
 
+    @Override
+    public void paint(final Graphics2D graphics) {
+        Rectangle clipBounds = graphics.getClipBounds();
+        blitter.discardLayers((clipBounds == null) ? null : new Bounds(clipBounds));
+        super.paint(graphics);
+    }
+
     /**
      * This method should not be called to remove child components from the
      * Viewport because the viewable child(ren) are set by the {@link #setView}
@@ -238,4 +251,12 @@ public abstract class Viewport extends Container {
         repaintAllViewport = newRepaintAllViewport;
     }
 
+    /**
+     * @return The object skins use to scroll this viewport by copying its
+     * contents, which also keeps count of how the viewport has been scrolled.
+     */
+    public ViewportBlitter getBlitter() {
+        return blitter;
+    }
+
 }
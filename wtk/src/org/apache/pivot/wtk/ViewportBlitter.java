@@ -0,0 +1,588 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.util.Utils;
+import org.apache.pivot.wtk.effects.Decorator;
+
+/**
+ * Scrolls the contents of a {@link Viewport} by copying what has already been
+ * painted, so that only the newly exposed strip needs to be painted again.
+ * <p> Viewport skins call {@link #scroll} when the scroll offsets change,
+ * passing the code that moves the view (and any headers) to their new
+ * locations. When the area can't be copied (the display host is not showing,
+ * an ancestor is decorated or another window overlaps the viewport, say) the
+ * components are simply moved and repainted as usual. <p> Copies are made in
+ * device space, so scrolling is optimized at any display scale, as long as
+ * the distance scrolled is a whole number of device pixels. When the
+ * background of the viewport is opaque, the screen itself is copied. Otherwise
+ * the background (which stays put) and the contents (which scroll) are kept in
+ * two offscreen layers; the contents are copied within their layer, and the
+ * two are combined on the screen.
+ */
+public final class ViewportBlitter {
+    private final Viewport viewport;
+    private boolean enabled = true;
+
+    // The offscreen layers, the area they cover (in device space, and in the
+    // viewport's coordinates) and whether they still match what is on the screen
+    private BufferedImage backgroundLayer = null;
+    private BufferedImage contentLayer = null;
+    private Rectangle layerArea = null;
+    private Bounds layerBounds = null;
+    private double layerScale = 1;
+    private boolean layersValid = false;
+
+    private long blittedScrollCount = 0;
+    private long repaintedScrollCount = 0;
+
+    ViewportBlitter(final Viewport viewport) {
+        this.viewport = viewport;
+    }
+
+    /**
+     * @return Whether scrolling is optimized by copying the viewport's contents.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether scrolling is optimized by copying the viewport's contents.
+     *
+     * @param enabledValue {@code false} to repaint the viewport whenever it is
+     * scrolled.
+     */
+    public void setEnabled(final boolean enabledValue) {
+        enabled = enabledValue;
+
+        if (!enabled) {
+            freeLayers();
+        }
+    }
+
+    /**
+     * @return The number of scrolls that were done by copying the contents of
+     * the viewport, and painting only the newly exposed area.
+     */
+    public long getBlittedScrollCount() {
+        return blittedScrollCount;
+    }
+
+    /**
+     * @return The number of scrolls after which the whole viewport had to be
+     * painted again.
+     */
+    public long getRepaintedScrollCount() {
+        return repaintedScrollCount;
+    }
+
+    /**
+     * Resets the scroll counts.
+     */
+    public void resetStatistics() {
+        blittedScrollCount = 0;
+        repaintedScrollCount = 0;
+    }
+
+    /**
+     * Notes that part of the viewport has been painted (or is about to be) by
+     * other means than scrolling. If that part overlaps the offscreen layers,
+     * they no longer match the screen. Repaints elsewhere (of the scroll bars
+     * of a scroll pane, say) leave them be.
+     *
+     * @param bounds The part of the viewport, in its own coordinates, or
+     * {@code null} for all of it.
+     */
+    void discardLayers(final Bounds bounds) {
+        if (layersValid && (bounds == null || bounds.intersects(layerBounds))) {
+            layersValid = false;
+        }
+    }
+
+    private void freeLayers() {
+        backgroundLayer = null;
+        contentLayer = null;
+        layerArea = null;
+        layerBounds = null;
+        layersValid = false;
+    }
+
+    /**
+     * Moves the components of the viewport to their scrolled locations and
+     * updates the screen, copying as much as possible of what was there
+     * before. <p> The distance scrolled is taken from the way the view moves;
+     * other components that move the same way (such as the headers of a scroll
+     * pane) are scrolled with it, while components that stay put (such as
+     * buttons floating above the view) are painted again.
+     *
+     * @param area The part of the viewport, in its own coordinates, whose
+     * contents scroll.
+     * @param relocation The code that moves the components.
+     */
+    public void scroll(final Bounds area, final Runnable relocation) {
+        Utils.checkNull(area, "area");
+        Utils.checkNull(relocation, "relocation");
+
+        ApplicationContext.DisplayHost displayHost = getDisplayHost();
+
+        if (displayHost == null) {
+            relocation.run();
+            repaintedScrollCount++;
+        } else {
+            int count = viewport.getLength();
+            Point[] locations = new Point[count];
+            for (int i = 0; i < count; i++) {
+                locations[i] = viewport.get(i).getLocation();
+            }
+
+            viewport.setConsumeRepaint(true);
+            try {
+                relocation.run();
+            } finally {
+                viewport.setConsumeRepaint(false);
+            }
+
+            if (!blit(displayHost, area, locations)) {
+                viewport.repaint();
+                repaintedScrollCount++;
+            }
+        }
+    }
+
+    /**
+     * @return The host of the viewport's display, or {@code null} if the
+     * viewport can't be blitted.
+     */
+    private ApplicationContext.DisplayHost getDisplayHost() {
+        ApplicationContext.DisplayHost displayHost = null;
+
+        // Due to Sun bug #4033851, we cannot call copyArea if the display
+        // host is obscured. For a full description of why this is the case,
+        // see http://people.apache.org/~tvolkert/tests/scrolling/
+        if (enabled && !viewport.isRepaintAllViewport() && viewport.isShowing()) {
+            displayHost = viewport.getDisplay().getDisplayHost();
+
+            if (!displayHost.isCopyAreaEnabled()) {
+                displayHost = null;
+            }
+        }
+
+        return displayHost;
+    }
+
+    /**
+     * Tests that what is on the screen over the given area was painted by the
+     * viewport and its ancestors, without any transforms.
+     *
+     * @param visibleArea The area, in the viewport's coordinates.
+     * @return Whether the area can be copied on the screen.
+     */
+    private boolean isUnobscured(final Bounds visibleArea) {
+        Bounds bounds = visibleArea;
+        Component component = viewport;
+
+        while (!(component instanceof Display)) {
+            // Decorators paint the component somewhere else than where we
+            // would copy it, and double buffering keeps its own copy of it
+            if (component.getDecorators().getLength() > 0
+                || (component instanceof Container && ((Container) component).isDoubleBuffered())) {
+                return false;
+            }
+
+            Container parent = component.getParent();
+            bounds = bounds.translate(component.getX(), component.getY());
+
+            // Nothing may be painted over the area (a popup, for instance)
+            for (int i = parent.indexOf(component) + 1, n = parent.getLength(); i < n; i++) {
+                Component sibling = parent.get(i);
+
+                if (sibling.isVisible() && sibling.getDecoratedBounds().intersects(bounds)) {
+                    return false;
+                }
+            }
+
+            component = parent;
+        }
+
+        return (component.getDecorators().getLength() == 0);
+    }
+
+    /**
+     * Updates the screen after the viewport's components have been moved.
+     *
+     * @param displayHost The host of the viewport's display.
+     * @param area The part of the viewport whose contents scroll.
+     * @param locations The locations of the viewport's components before they
+     * were moved.
+     * @return {@code false} if the area couldn't be blitted, and needs to be
+     * repainted.
+     */
+    private boolean blit(final ApplicationContext.DisplayHost displayHost, final Bounds area,
+        final Point[] locations) {
+        Component view = viewport.getView();
+        if (view == null) {
+            return false;
+        }
+
+        Point previousLocation = locations[viewport.indexOf(view)];
+        int deltaX = view.getX() - previousLocation.x;
+        int deltaY = view.getY() - previousLocation.y;
+
+        if (deltaX == 0 && deltaY == 0) {
+            // Nothing has scrolled
+            return true;
+        }
+
+        // We can only copy whole pixels
+        double scale = displayHost.getScale();
+        double deviceDeltaX = deltaX * scale;
+        double deviceDeltaY = deltaY * scale;
+        if (deviceDeltaX != Math.rint(deviceDeltaX) || deviceDeltaY != Math.rint(deviceDeltaY)) {
+            return false;
+        }
+
+        // Limit the area to the part that is on the screen
+        Container parent = viewport.getParent();
+        Bounds visibleArea = parent.getVisibleArea(area.translate(viewport.getX(), viewport.getY()));
+        if (visibleArea == null) {
+            return false;
+        }
+
+        visibleArea = visibleArea.translate(-viewport.getX(), -viewport.getY());
+        visibleArea = visibleArea.intersect(0, 0, viewport.getWidth(), viewport.getHeight());
+        if (visibleArea.isEmpty() || !isUnobscured(visibleArea)) {
+            return false;
+        }
+
+        // Sort out which components have scrolled, and which have stayed put
+        ArrayList<Component> scrolledComponents = new ArrayList<>();
+        ArrayList<Component> fixedComponents = new ArrayList<>();
+        int lastScrolledIndex = -1;
+        int firstFixedIndex = Integer.MAX_VALUE;
+
+        for (int i = 0, n = viewport.getLength(); i < n; i++) {
+            Component component = viewport.get(i);
+
+            if (component.isVisible()) {
+                int x = component.getX() - locations[i].x;
+                int y = component.getY() - locations[i].y;
+
+                if (x == deltaX && y == deltaY) {
+                    scrolledComponents.add(component);
+                    lastScrolledIndex = i;
+                } else if (x == 0 && y == 0) {
+                    if (component.getDecoratedBounds().intersects(visibleArea)) {
+                        fixedComponents.add(component);
+                        firstFixedIndex = Math.min(firstFixedIndex, i);
+                    }
+                } else {
+                    return false;
+                }
+            }
+        }
+
+        // Find the area in device space, and the part of it that is still
+        // on the screen (or in the layers) after scrolling
+        Point origin = viewport.mapPointToAncestor(viewport.getDisplay(), 0, 0);
+        double left = (origin.x + visibleArea.x) * scale;
+        double top = (origin.y + visibleArea.y) * scale;
+        double right = (origin.x + visibleArea.x + visibleArea.width) * scale;
+        double bottom = (origin.y + visibleArea.y + visibleArea.height) * scale;
+
+        int deviceX = (int) Math.ceil(left);
+        int deviceY = (int) Math.ceil(top);
+        Rectangle deviceArea = new Rectangle(deviceX, deviceY,
+            (int) Math.floor(right) - deviceX, (int) Math.floor(bottom) - deviceY);
+
+        int dx = (int) deviceDeltaX;
+        int dy = (int) deviceDeltaY;
+        Rectangle copiedArea = deviceArea.intersection(new Rectangle(deviceArea.x + dx,
+            deviceArea.y + dy, deviceArea.width, deviceArea.height));
+        if (copiedArea.isEmpty()) {
+            return false;
+        }
+
+        if (viewport.isOpaque() || (view.isOpaque() && view.getBounds().contains(visibleArea))) {
+            Graphics2D graphics = (Graphics2D) displayHost.getGraphics();
+            if (graphics == null) {
+                return false;
+            }
+
+            try {
+                graphics.copyArea(copiedArea.x - dx, copiedArea.y - dy, copiedArea.width,
+                    copiedArea.height, dx, dy);
+            } finally {
+                graphics.dispose();
+            }
+
+            // Paint what wasn't copied: the newly exposed strip, plus any
+            // pixels at the edges that are only partly covered by the area
+            int copiedLeft = (int) Math.ceil(copiedArea.x / scale) - origin.x;
+            int copiedTop = (int) Math.ceil(copiedArea.y / scale) - origin.y;
+            int copiedRight = (int) Math.floor((copiedArea.x + copiedArea.width) / scale) - origin.x;
+            int copiedBottom = (int) Math.floor((copiedArea.y + copiedArea.height) / scale) - origin.y;
+
+            for (Bounds strip : getMargins(visibleArea, new Bounds(copiedLeft, copiedTop,
+                copiedRight - copiedLeft, copiedBottom - copiedTop))) {
+                viewport.repaint(strip, true);
+            }
+
+            // Components that stay put were copied along with the rest
+            for (Component component : fixedComponents) {
+                Bounds bounds = component.getDecoratedBounds();
+                viewport.repaint(bounds, true);
+                viewport.repaint(bounds.translate(deltaX, deltaY), true);
+            }
+
+            blittedScrollCount++;
+        } else {
+            // The layers must line up with device pixels, and components
+            // that stay put must be painted over the ones that scroll
+            if (left != deviceArea.x || top != deviceArea.y
+                || right != deviceArea.x + deviceArea.width
+                || bottom != deviceArea.y + deviceArea.height
+                || firstFixedIndex < lastScrolledIndex) {
+                return false;
+            }
+
+            Graphics2D graphics = (Graphics2D) displayHost.getGraphics();
+            if (graphics == null) {
+                return false;
+            }
+
+            try {
+                if (layersValid && deviceArea.equals(layerArea) && scale == layerScale) {
+                    Rectangle layerBounds = new Rectangle(0, 0, deviceArea.width, deviceArea.height);
+                    Rectangle copiedBounds = new Rectangle(copiedArea.x - deviceArea.x,
+                        copiedArea.y - deviceArea.y, copiedArea.width, copiedArea.height);
+
+                    // Transparent pixels must be copied as such, not blended
+                    // with what was there before
+                    Graphics2D layerGraphics = contentLayer.createGraphics();
+                    try {
+                        layerGraphics.setComposite(AlphaComposite.Src);
+                        layerGraphics.copyArea(copiedBounds.x - dx, copiedBounds.y - dy,
+                            copiedBounds.width, copiedBounds.height, dx, dy);
+                    } finally {
+                        layerGraphics.dispose();
+                    }
+
+                    for (Bounds strip : getMargins(new Bounds(layerBounds), new Bounds(copiedBounds))) {
+                        paintContent(strip.toRectangle(), scrolledComponents, origin, visibleArea);
+                    }
+
+                    blittedScrollCount++;
+                } else {
+                    createLayers(deviceArea, scale, origin, visibleArea, scrolledComponents);
+                    repaintedScrollCount++;
+                }
+
+                graphics.clipRect(deviceArea.x, deviceArea.y, deviceArea.width, deviceArea.height);
+                graphics.drawImage(backgroundLayer, deviceArea.x, deviceArea.y, null);
+                graphics.drawImage(contentLayer, deviceArea.x, deviceArea.y, null);
+
+                if (fixedComponents.getLength() > 0) {
+                    graphics.scale(scale, scale);
+                    graphics.translate(origin.x, origin.y);
+                    graphics.clipRect(visibleArea.x, visibleArea.y, visibleArea.width,
+                        visibleArea.height);
+
+                    for (Component component : fixedComponents) {
+                        paintComponent(graphics, component);
+                    }
+                }
+            } finally {
+                graphics.dispose();
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Paints both layers from scratch.
+     */
+    private void createLayers(final Rectangle deviceArea, final double scale, final Point origin,
+        final Bounds visibleArea, final ArrayList<Component> scrolledComponents) {
+        if (layerArea == null || layerArea.width != deviceArea.width
+            || layerArea.height != deviceArea.height) {
+            backgroundLayer = new BufferedImage(deviceArea.width, deviceArea.height,
+                BufferedImage.TYPE_INT_ARGB_PRE);
+            contentLayer = new BufferedImage(deviceArea.width, deviceArea.height,
+                BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        layerArea = deviceArea;
+        layerBounds = visibleArea;
+        layerScale = scale;
+
+        // Paint everything beneath the viewport's components, from the
+        // display down: each ancestor, and whatever lies beneath the next one
+        Graphics2D graphics = backgroundLayer.createGraphics();
+        try {
+            graphics.setComposite(AlphaComposite.Clear);
+            graphics.fillRect(0, 0, deviceArea.width, deviceArea.height);
+            graphics.setComposite(AlphaComposite.SrcOver);
+
+            graphics.translate(-deviceArea.x, -deviceArea.y);
+            graphics.scale(scale, scale);
+            graphics.clipRect(origin.x + visibleArea.x, origin.y + visibleArea.y,
+                visibleArea.width, visibleArea.height);
+
+            ArrayList<Component> path = new ArrayList<>();
+            for (Component component = viewport; component != null; component = component.getParent()) {
+                path.insert(component, 0);
+            }
+
+            Component parent = path.get(0);
+            parent.getSkin().paint(graphics);
+
+            for (int i = 1, n = path.getLength(); i < n; i++) {
+                Component component = path.get(i);
+                Container container = (Container) parent;
+
+                for (int j = 0, k = container.indexOf(component); j < k; j++) {
+                    Component sibling = container.get(j);
+
+                    if (sibling.isVisible()) {
+                        paintComponent(graphics, sibling);
+                    }
+                }
+
+                graphics.translate(component.getX(), component.getY());
+                graphics.clipRect(0, 0, component.getWidth(), component.getHeight());
+                component.getSkin().paint(graphics);
+
+                parent = component;
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        paintContent(new Rectangle(0, 0, deviceArea.width, deviceArea.height), scrolledComponents,
+            origin, visibleArea);
+
+        layersValid = true;
+    }
+
+    /**
+     * Paints the scrolling components into part of the content layer.
+     *
+     * @param region The part of the layer to paint, in device space.
+     */
+    private void paintContent(final Rectangle region, final ArrayList<Component> scrolledComponents,
+        final Point origin, final Bounds visibleArea) {
+        Graphics2D graphics = contentLayer.createGraphics();
+        try {
+            graphics.clipRect(region.x, region.y, region.width, region.height);
+            graphics.setComposite(AlphaComposite.Clear);
+            graphics.fillRect(region.x, region.y, region.width, region.height);
+            graphics.setComposite(AlphaComposite.SrcOver);
+
+            graphics.translate(-layerArea.x, -layerArea.y);
+            graphics.scale(layerScale, layerScale);
+            graphics.translate(origin.x, origin.y);
+            graphics.clipRect(visibleArea.x, visibleArea.y, visibleArea.width, visibleArea.height);
+
+            Bounds clipBounds = new Bounds(graphics.getClipBounds());
+            for (Component component : scrolledComponents) {
+                if (component.getDecoratedBounds().intersects(clipBounds)) {
+                    paintComponent(graphics, component);
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    /**
+     * Paints a component (and its decorators) the way its parent would.
+     *
+     * @param graphics The graphics context, in the parent's coordinates.
+     * @param component The component to paint.
+     */
+    private static void paintComponent(final Graphics2D graphics, final Component component) {
+        Bounds componentBounds = component.getBounds();
+
+        Graphics2D decoratedGraphics = (Graphics2D) graphics.create();
+        decoratedGraphics.translate(componentBounds.x, componentBounds.y);
+
+        Component.DecoratorSequence decorators = component.getDecorators();
+        int n = decorators.getLength();
+        for (int j = n - 1; j >= 0; j--) {
+            Decorator decorator = decorators.get(j);
+            decoratedGraphics = decorator.prepare(component, decoratedGraphics);
+        }
+
+        Graphics2D componentGraphics = (Graphics2D) decoratedGraphics.create();
+        componentGraphics.clipRect(0, 0, componentBounds.width, componentBounds.height);
+        component.paint(componentGraphics);
+        componentGraphics.dispose();
+
+        for (int j = 0; j < n; j++) {
+            Decorator decorator = decorators.get(j);
+            decorator.update();
+        }
+    }
+
+    /**
+     * Splits the part of an area outside an inner rectangle into (at most
+     * four) strips.
+     *
+     * @param outer The whole area.
+     * @param inner The part of the area to leave out.
+     * @return The strips that cover the rest of the area.
+     */
+    private static ArrayList<Bounds> getMargins(final Bounds outer, final Bounds inner) {
+        ArrayList<Bounds> margins = new ArrayList<>();
+
+        Bounds bounds = outer.intersect(inner);
+        if (bounds.isEmpty()) {
+            margins.add(outer);
+        } else {
+            int outerBottom = outer.y + outer.height;
+            int outerRight = outer.x + outer.width;
+            int bottom = bounds.y + bounds.height;
+            int right = bounds.x + bounds.width;
+
+            if (bounds.y > outer.y) {
+                margins.add(new Bounds(outer.x, outer.y, outer.width, bounds.y - outer.y));
+            }
+
+            if (bottom < outerBottom) {
+                margins.add(new Bounds(outer.x, bottom, outer.width, outerBottom - bottom));
+            }
+
+            if (bounds.x > outer.x) {
+                margins.add(new Bounds(outer.x, bounds.y, bounds.x - outer.x, bounds.height));
+            }
+
+            if (right < outerRight) {
+                margins.add(new Bounds(right, bounds.y, outerRight - right, bounds.height));
+            }
+        }
+
+        return margins;
+    }
+}
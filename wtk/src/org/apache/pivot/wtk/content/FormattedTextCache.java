@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.content;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the formatted text of recently rendered values, so that renderers
+ * painting the same values over and over (while scrolling, say) don't format
+ * them again every time. <p> Entries are keyed by the value itself, so only
+ * immutable values (or immutable stand-ins for them, such as the time of a
+ * {@link java.util.Date}) may be used as keys; the entry for a value that is
+ * replaced in the underlying data is simply never looked up again, and ages
+ * out of the cache. The cache must be cleared when the format changes.
+ */
+final class FormattedTextCache extends LinkedHashMap<Object, String> {
+    private static final long serialVersionUID = 2906318893412465807L;
+
+    /**
+     * The number of values kept; enough for the cells of a column on a large
+     * screen plus a few pages of scrolling.
+     */
+    private static final int CAPACITY = 256;
+
+    FormattedTextCache() {
+        super(16, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<Object, String> eldest) {
+        return (size() > CAPACITY);
+    }
+}
@@ -49,6 +49,8 @@ public class ListViewItemRenderer extends BoxPane implements ListView.ItemRender
 
         imageView.setPreferredSize(DEFAULT_ICON_WIDTH, DEFAULT_ICON_HEIGHT);
         imageView.setVisible(DEFAULT_SHOW_ICON);
+
+        label.putStyle(Style.glyphCacheSize, 256);
     }
 
     @Override
@@ -16,6 +16,7 @@
  */
 package org.apache.pivot.wtk.content;
 
+import org.apache.pivot.collections.ColumnTable;
 import org.apache.pivot.json.JSON;
 import org.apache.pivot.wtk.Insets;
 import org.apache.pivot.wtk.Label;
@@ -30,6 +31,8 @@ public class TableViewCellRenderer extends Label implements TableView.CellRender
     public TableViewCellRenderer() {
         putStyle(Style.verticalAlignment, VerticalAlignment.CENTER);
         putStyle(Style.padding, new Insets(2));
+
+        putStyle(Style.glyphCacheSize, 256);
     }
 
     @Override
@@ -77,6 +80,22 @@ public class TableViewCellRenderer extends Label implements TableView.CellRender
 
     @Override
     public String toString(Object row, String columnName) {
+        return cellToString(row, columnName);
+    }
+
+    /**
+     * Converts the value of a cell to a string, formatting the values of a
+     * {@link ColumnTable} without boxing them.
+     *
+     * @param row The row of the cell.
+     * @param columnName The name of the cell's column.
+     * @return The value as a string, or {@code null} if the cell is empty.
+     */
+    static String cellToString(final Object row, final String columnName) {
+        if (row instanceof ColumnTable.Row) {
+            return ((ColumnTable.Row) row).getString(columnName);
+        }
+
         Object cellData = JSON.get(row, columnName);
         return (cellData == null) ? null : cellData.toString();
     }
@@ -31,15 +31,28 @@ import org.apache.pivot.util.Utils;
  */
 public class TableViewDateCellRenderer extends TableViewCellRenderer {
     private DateFormat dateFormat = DateFormat.getDateInstance();
+    private FormattedTextCache formattedText = new FormattedTextCache();
 
+    /**
+     * @return The format used to render dates. Formatted text is cached, so
+     * changes made to the returned format take effect only once it is set
+     * again.
+     */
     public DateFormat getDateFormat() {
         return dateFormat;
     }
 
+    /**
+     * Sets the format used to render dates. Formatted text is cached, so
+     * changes made to the format after it is set take effect only once it is
+     * set again.
+     * @param dateFormat The new date format.
+     */
     public void setDateFormat(DateFormat dateFormat) {
         Utils.checkNull(dateFormat, "dateFormat");
 
         this.dateFormat = dateFormat;
+        formattedText.clear();
     }
 
     /**
@@ -55,17 +68,33 @@ public class TableViewDateCellRenderer extends TableViewCellRenderer {
     public String toString(Object row, String columnName) {
         Object cellData = JSON.get(row, columnName);
 
-        String string;
+        // Dates and calendars are mutable, so their text is cached by time
+        Object key;
         if (cellData instanceof Date) {
-            string = dateFormat.format((Date) cellData);
-        } else if (cellData instanceof Long) {
-            string = dateFormat.format(new Date((Long) cellData));
+            key = Long.valueOf(((Date) cellData).getTime());
         } else if (cellData instanceof Calendar) {
-            string = dateFormat.format(((Calendar) cellData).getTime());
-        } else if (cellData instanceof CalendarDate) {
-            string = dateFormat.format(((CalendarDate) cellData).toCalendar().getTime());
+            key = Long.valueOf(((Calendar) cellData).getTimeInMillis());
+        } else if (cellData instanceof Long || cellData instanceof CalendarDate) {
+            key = cellData;
         } else {
+            key = null;
+        }
+
+        String string;
+        if (key == null) {
             string = (cellData == null) ? null : cellData.toString();
+        } else {
+            string = formattedText.get(key);
+
+            if (string == null) {
+                if (key instanceof CalendarDate) {
+                    string = dateFormat.format(((CalendarDate) key).toCalendar().getTime());
+                } else {
+                    string = dateFormat.format(new Date((Long) key));
+                }
+
+                formattedText.put(key, string);
+            }
         }
 
         return string;
@@ -16,6 +16,8 @@
  */
 package org.apache.pivot.wtk.content;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 
@@ -31,6 +33,7 @@ import org.apache.pivot.wtk.Style;
  */
 public class TableViewNumberCellRenderer extends TableViewCellRenderer {
     private NumberFormat numberFormat = DEFAULT_NUMBER_FORMAT;
+    private FormattedTextCache formattedText = new FormattedTextCache();
 
     public static final NumberFormat DEFAULT_NUMBER_FORMAT = NumberFormat.getNumberInstance();
 
@@ -42,14 +45,26 @@ public class TableViewNumberCellRenderer extends TableViewCellRenderer {
         putStyle(Style.padding, new Insets(2, 2, 2, 6));
     }
 
+    /**
+     * @return The format used to render numbers. Formatted text is cached, so
+     * changes made to the returned format take effect only once it is set
+     * again.
+     */
     public NumberFormat getNumberFormat() {
         return numberFormat;
     }
 
+    /**
+     * Sets the format used to render numbers. Formatted text is cached, so
+     * changes made to the format after it is set take effect only once it is
+     * set again.
+     * @param numberFormat The new number format.
+     */
     public void setNumberFormat(NumberFormat numberFormat) {
         Utils.checkNull(numberFormat, "numberFormat");
 
         this.numberFormat = numberFormat;
+        formattedText.clear();
     }
 
     public void setNumberFormat(String numberFormat) {
@@ -64,11 +79,35 @@ public class TableViewNumberCellRenderer extends TableViewCellRenderer {
 
         String string;
         if (cellData instanceof Number) {
-            string = numberFormat.format(cellData);
+            if (isImmutable(cellData)) {
+                string = formattedText.get(cellData);
+                if (string == null) {
+                    string = numberFormat.format(cellData);
+                    formattedText.put(cellData, string);
+                }
+            } else {
+                string = numberFormat.format(cellData);
+            }
         } else {
             string = (cellData == null) ? null : cellData.toString();
         }
 
         return string;
     }
+
+    /**
+     * @return Whether the formatted text of the given number can be cached
+     * (that is, whether the number can't change once it has been formatted).
+     * @param number The number to test.
+     */
+    private static boolean isImmutable(Object number) {
+        return (number instanceof Integer
+            || number instanceof Long
+            || number instanceof Double
+            || number instanceof Float
+            || number instanceof Short
+            || number instanceof Byte
+            || number instanceof BigDecimal
+            || number instanceof BigInteger);
+    }
 }
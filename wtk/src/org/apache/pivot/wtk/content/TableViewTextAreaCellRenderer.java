@@ -16,7 +16,6 @@
  */
 package org.apache.pivot.wtk.content;
 
-import org.apache.pivot.json.JSON;
 import org.apache.pivot.wtk.Insets;
 import org.apache.pivot.wtk.Style;
 import org.apache.pivot.wtk.TableView;
@@ -76,7 +75,6 @@ public class TableViewTextAreaCellRenderer extends TextArea implements TableView
 
     @Override
     public String toString(Object row, String columnName) {
-        Object cellData = JSON.get(row, columnName);
-        return (cellData == null) ? null : cellData.toString();
+        return TableViewCellRenderer.cellToString(row, columnName);
     }
 }
@@ -53,6 +53,8 @@ public class TreeViewNodeRenderer extends BoxPane implements TreeView.NodeRender
 
         imageView.setPreferredSize(DEFAULT_ICON_WIDTH, DEFAULT_ICON_HEIGHT);
         imageView.setVisible(DEFAULT_SHOW_ICON);
+
+        label.putStyle(Style.glyphCacheSize, 256);
     }
 
     @Override
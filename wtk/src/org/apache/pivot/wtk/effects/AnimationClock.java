@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.effects;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.util.Utils;
+import org.apache.pivot.wtk.ApplicationContext;
+
+/**
+ * Drives running animations (transitions, movies, activity indicators and the
+ * like) from a single timer. <p> Once per frame, one callback on the UI thread
+ * advances every animation that is due, so concurrent animations are updated
+ * together (and their repaints coalesced) instead of each one queueing its own
+ * events. Each animation is still advanced at its own interval, rounded to the
+ * nearest frame. <p> Timing is based on {@link System#nanoTime}, which is not
+ * affected by changes to the system clock, and the clock only runs while there
+ * are animations to drive. <p> Like the rest of the toolkit, a clock should
+ * only be used from the UI thread.
+ */
+public final class AnimationClock {
+    /**
+     * An animation scheduled on the clock.
+     */
+    public final class Animation {
+        private final Runnable callback;
+        private final long interval;
+        private long dueTime;
+        private boolean active = true;
+
+        private Animation(final Runnable callback, final long interval, final long dueTime) {
+            this.callback = callback;
+            this.interval = interval;
+            this.dueTime = dueTime;
+        }
+
+        /**
+         * @return Whether the animation is still scheduled.
+         */
+        public boolean isActive() {
+            return active;
+        }
+
+        /**
+         * Removes the animation from the clock; it will not be called again.
+         */
+        public void cancel() {
+            if (active) {
+                active = false;
+                activeCount--;
+
+                if (activeCount == 0) {
+                    stopTimer();
+
+                    if (!advancing) {
+                        animations.clear();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The default number of frames per second.
+     */
+    public static final int DEFAULT_FRAME_RATE = 60;
+
+    private static final AnimationClock DEFAULT_CLOCK = new AnimationClock();
+
+    private int frameRate = DEFAULT_FRAME_RATE;
+
+    private ArrayList<Animation> animations = new ArrayList<>();
+    private int activeCount = 0;
+    private boolean advancing = false;
+
+    private ApplicationContext.ScheduledCallback frameCallback = null;
+
+    // Time of the current (or most recent) frame, and whether there has been
+    // a frame since the timer was last started
+    private long frameTime = 0;
+    private boolean framed = false;
+
+    private long frameCount = 0;
+    private long skippedFrameCount = 0;
+    private long lastFrameDuration = 0;
+    private long totalFrameDuration = 0;
+
+    /**
+     * @return The clock used by the toolkit's own animations.
+     */
+    public static AnimationClock getDefault() {
+        return DEFAULT_CLOCK;
+    }
+
+    /**
+     * @return The number of frames per second the clock aims for.
+     */
+    public int getFrameRate() {
+        return frameRate;
+    }
+
+    /**
+     * Sets the number of frames per second the clock aims for. No animation is
+     * advanced more often than this, whatever its own rate.
+     *
+     * @param frameRateValue The new frame rate.
+     */
+    public void setFrameRate(final int frameRateValue) {
+        Utils.checkPositive(frameRateValue, "frameRate");
+
+        frameRate = frameRateValue;
+
+        if (frameCallback != null) {
+            stopTimer();
+            startTimer();
+        }
+    }
+
+    /**
+     * @return The interval between frames, in nanoseconds.
+     */
+    private long getFrameInterval() {
+        return TimeUnit.SECONDS.toNanos(1) / frameRate;
+    }
+
+    /**
+     * Schedules an animation that is called at the given interval, starting with
+     * the next frame.
+     *
+     * @param callback The code to run for each step of the animation.
+     * @param interval The time between steps, in milliseconds.
+     * @return The scheduled animation, which can be used to cancel it.
+     */
+    public Animation schedule(final Runnable callback, final int interval) {
+        Utils.checkNull(callback, "callback");
+        Utils.checkNonNegative(interval, "interval");
+
+        Animation animation = new Animation(callback, TimeUnit.MILLISECONDS.toNanos(interval),
+            System.nanoTime());
+        animations.add(animation);
+        activeCount++;
+
+        if (frameCallback == null) {
+            startTimer();
+        }
+
+        return animation;
+    }
+
+    /**
+     * @return Whether the clock has any animations to drive.
+     */
+    public boolean isRunning() {
+        return (activeCount > 0);
+    }
+
+    private void startTimer() {
+        framed = false;
+        frameCallback = ApplicationContext.scheduleRecurringCallback(() -> advance(System.nanoTime()),
+            Math.max(TimeUnit.NANOSECONDS.toMillis(getFrameInterval()), 1));
+    }
+
+    private void stopTimer() {
+        if (frameCallback != null) {
+            frameCallback.cancel();
+            frameCallback = null;
+        }
+    }
+
+    /**
+     * @return The time of the current (or most recent) frame, as given by
+     * {@link System#nanoTime}. Animations should use this rather than reading
+     * the time themselves, so that the ones advanced in the same frame agree.
+     */
+    public long getFrameTime() {
+        return frameTime;
+    }
+
+    /**
+     * Advances every animation that is due at the given time. This is normally
+     * called by the clock's own timer, once per frame.
+     *
+     * @param frameTimeValue The time of the frame, as given by {@link System#nanoTime}.
+     */
+    public void advance(final long frameTimeValue) {
+        long start = System.nanoTime();
+        long frameInterval = getFrameInterval();
+
+        if (framed) {
+            // Count the frames we should have had since the previous one
+            long frames = (frameTimeValue - frameTime + frameInterval / 2) / frameInterval;
+            if (frames > 1) {
+                skippedFrameCount += frames - 1;
+            }
+        }
+
+        frameTime = frameTimeValue;
+        framed = true;
+        advancing = true;
+
+        // Animations scheduled from within a callback wait for the next frame;
+        // an animation is also due if it would be late by the next frame
+        for (int i = 0, n = animations.getLength(); i < n; i++) {
+            Animation animation = animations.get(i);
+
+            if (animation.active && frameTime - animation.dueTime >= -frameInterval / 2) {
+                animation.dueTime += animation.interval;
+                if (frameTime - animation.dueTime >= 0) {
+                    animation.dueTime = frameTime + animation.interval;
+                }
+
+                try {
+                    animation.callback.run();
+                } catch (Throwable exception) {
+                    ApplicationContext.handleUncaughtException(exception);
+                }
+            }
+        }
+
+        advancing = false;
+
+        for (int i = animations.getLength() - 1; i >= 0; i--) {
+            if (!animations.get(i).active) {
+                animations.remove(i, 1);
+            }
+        }
+
+        lastFrameDuration = System.nanoTime() - start;
+        totalFrameDuration += lastFrameDuration;
+        frameCount++;
+    }
+
+    /**
+     * @return The number of frames run so far.
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return The number of frames that were missed (because the UI thread was
+     * busy, for instance) while the clock was running.
+     */
+    public long getSkippedFrameCount() {
+        return skippedFrameCount;
+    }
+
+    /**
+     * @return The time taken to advance the animations in the most recent frame,
+     * in nanoseconds.
+     */
+    public long getLastFrameDuration() {
+        return lastFrameDuration;
+    }
+
+    /**
+     * @return The average time taken to advance the animations in a frame, in
+     * nanoseconds.
+     */
+    public long getAverageFrameDuration() {
+        return (frameCount == 0) ? 0 : totalFrameDuration / frameCount;
+    }
+
+    /**
+     * Resets the frame statistics.
+     */
+    public void resetStatistics() {
+        frameCount = 0;
+        skippedFrameCount = 0;
+        lastFrameDuration = 0;
+        totalFrameDuration = 0;
+    }
+}
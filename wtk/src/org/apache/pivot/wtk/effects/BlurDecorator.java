@@ -17,9 +17,8 @@
 package org.apache.pivot.wtk.effects;
 
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.awt.image.ConvolveOp;
-import java.awt.image.Kernel;
 
 import org.apache.pivot.wtk.Component;
 
@@ -27,16 +26,15 @@ import org.apache.pivot.wtk.Component;
  * Decorator that applies a blur to a component. <p> Blurs are given an integer
  * magnitude, which represents the intensity of the blur. This value translates
  * to a grid of pixels (<code>blurMagnitude^2</code>), where each pixel value is
- * calculated by consulting its neighboring pixels according to the grid.
- * Because of this, note that you will get "prettier" blurring if you choose odd
- * values for the blur magnitude; this allows the pixel in question to reside at
- * the center of the grid, thus preventing any arbitrary shifting of pixels.
- * Also note that the greater the intensity of the blur, the greater the
- * intensity of the calculations necessary to accomplish the blur (and the
- * longer it will take to perform the blur). <p> TODO Increase size of buffered
- * image to account for edge conditions of the blur. <p> TODO Use unequal values
- * in the blur kernel to make pixels that are farther away count less towards
- * the blur.
+ * the average of its neighboring pixels in the grid. Note that you will get
+ * "prettier" blurring if you choose odd values for the blur magnitude; this
+ * allows the pixel in question to reside at the center of the grid, thus
+ * preventing any arbitrary shifting of pixels. <p> The blur is done in two
+ * passes, horizontally and then vertically, with a running average, so the
+ * time it takes does not depend on the magnitude. Pixels beyond the edges of
+ * the component are taken to be copies of the edge pixels. <p> TODO Use unequal
+ * values in the blur kernel to make pixels that are farther away count less
+ * towards the blur.
  */
 public class BlurDecorator implements Decorator {
     private int blurMagnitude;
@@ -68,16 +66,19 @@ public class BlurDecorator implements Decorator {
     public Graphics2D prepare(Component component, Graphics2D graphicsValue) {
         this.graphics = graphicsValue;
 
-        int width = component.getWidth();
-        int height = component.getHeight();
+        int width = Math.max(component.getWidth(), 1);
+        int height = Math.max(component.getHeight(), 1);
 
-        if (bufferedImage == null || bufferedImage.getWidth() != width
-            || bufferedImage.getHeight() != height) {
-            bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        }
+        bufferedImage = ScratchImages.acquire(width, height, BufferedImage.TYPE_INT_RGB);
 
+        // Also paint the pixels just outside the clip that are blurred into it,
+        // since the scratch image holds whatever was last drawn there
         bufferedImageGraphics = bufferedImage.createGraphics();
-        bufferedImageGraphics.setClip(graphicsValue.getClip());
+        Rectangle clipBounds = graphicsValue.getClipBounds();
+        if (clipBounds != null) {
+            clipBounds.grow(blurMagnitude, blurMagnitude);
+            bufferedImageGraphics.setClip(clipBounds);
+        }
 
         return bufferedImageGraphics;
     }
@@ -87,19 +88,11 @@ public class BlurDecorator implements Decorator {
         bufferedImageGraphics.dispose();
         bufferedImageGraphics = null;
 
-        bufferedImage.flush();
-
-        float[] kernel = new float[blurMagnitude * blurMagnitude];
-        for (int i = 0, n = kernel.length; i < n; i++) {
-            kernel[i] = 1f / n;
-        }
-
-        ConvolveOp blur = new ConvolveOp(new Kernel(blurMagnitude, blurMagnitude, kernel),
-            ConvolveOp.EDGE_NO_OP, null);
-        bufferedImage = blur.filter(bufferedImage, null);
+        BoxBlur.blur(bufferedImage, blurMagnitude);
 
         graphics.drawImage(bufferedImage, 0, 0, null);
 
+        ScratchImages.release(bufferedImage);
         bufferedImage = null;
         graphics = null;
     }
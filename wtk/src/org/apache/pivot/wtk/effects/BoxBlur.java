@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.effects;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.stream.IntStream;
+
+/**
+ * Blurs images by averaging each pixel with its neighbors in a square
+ * ("box") around it. <p> The box is separable, so the image is blurred
+ * horizontally and then vertically, and running sums (along each row, and then
+ * for each column while moving down the image) make the cost per pixel
+ * independent of the size of the box. Both passes go through the pixels in
+ * order, and for large images they work on several rows (or strips of columns)
+ * in parallel. Pixels beyond the edges of the image are taken to be copies of
+ * the nearest edge pixel.
+ */
+final class BoxBlur {
+    /** The number of pixels above which the image is blurred in parallel. */
+    private static final int PARALLEL_THRESHOLD = 65_536;
+
+    /** The width of the strips of columns blurred in parallel by the vertical pass. */
+    private static final int STRIP_WIDTH = 256;
+
+    private BoxBlur() {
+    }
+
+    /**
+     * Blurs an image in place.
+     *
+     * @param image The image, which must be of type {@link BufferedImage#TYPE_INT_RGB}
+     * or {@link BufferedImage#TYPE_INT_ARGB}.
+     * @param size The width (and height) of the box, in pixels.
+     */
+    static void blur(final BufferedImage image, final int size) {
+        if (size > 1) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            boolean parallel = (width * height >= PARALLEL_THRESHOLD);
+
+            // Averages of every possible sum of one channel over the box
+            int[] averages = new int[256 * size];
+            for (int i = 0; i < averages.length; i++) {
+                averages[i] = (i + size / 2) / size;
+            }
+
+            BufferedImage scratchImage = ScratchImages.acquire(width, height, image.getType());
+            int[] pixels = getPixels(image);
+            int[] scratch = getPixels(scratchImage);
+
+            IntStream rows = IntStream.range(0, height);
+            IntStream strips = IntStream.range(0, (width + STRIP_WIDTH - 1) / STRIP_WIDTH);
+            if (parallel) {
+                rows = rows.parallel();
+                strips = strips.parallel();
+            }
+
+            rows.forEach(y -> blurRow(pixels, scratch, width, size, averages, y));
+            strips.forEach(strip -> blurColumns(scratch, pixels, width, height, size, averages,
+                strip * STRIP_WIDTH, Math.min((strip + 1) * STRIP_WIDTH, width)));
+
+            ScratchImages.release(scratchImage);
+        }
+    }
+
+    private static int[] getPixels(final BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    private static void blurRow(final int[] source, final int[] destination, final int width,
+        final int size, final int[] averages, final int y) {
+        // Same placement of the box as a ConvolveOp kernel of the given size
+        int before = (size - 1) / 2;
+        int after = size / 2;
+
+        int rowOffset = y * width;
+        int last = width - 1;
+
+        int a = 0;
+        int r = 0;
+        int g = 0;
+        int b = 0;
+
+        for (int i = -before; i <= after; i++) {
+            int pixel = source[rowOffset + Math.min(Math.max(i, 0), last)];
+            a += pixel >>> 24;
+            r += (pixel >> 16) & 0xFF;
+            g += (pixel >> 8) & 0xFF;
+            b += pixel & 0xFF;
+        }
+
+        for (int x = 0; x < width; x++) {
+            destination[rowOffset + x] = averages[a] << 24 | averages[r] << 16
+                | averages[g] << 8 | averages[b];
+
+            int added = source[rowOffset + Math.min(x + after + 1, last)];
+            int removed = source[rowOffset + Math.max(x - before, 0)];
+            a += (added >>> 24) - (removed >>> 24);
+            r += ((added >> 16) & 0xFF) - ((removed >> 16) & 0xFF);
+            g += ((added >> 8) & 0xFF) - ((removed >> 8) & 0xFF);
+            b += (added & 0xFF) - (removed & 0xFF);
+        }
+    }
+
+    private static void blurColumns(final int[] source, final int[] destination, final int width,
+        final int height, final int size, final int[] averages, final int start, final int end) {
+        int before = (size - 1) / 2;
+        int after = size / 2;
+
+        int last = height - 1;
+        int count = end - start;
+
+        // Running sums of each channel for each column, interleaved
+        int[] sums = new int[count * 4];
+
+        for (int i = -before; i <= after; i++) {
+            int rowOffset = Math.min(Math.max(i, 0), last) * width + start;
+
+            for (int x = 0, j = 0; x < count; x++) {
+                int pixel = source[rowOffset + x];
+                sums[j++] += pixel >>> 24;
+                sums[j++] += (pixel >> 16) & 0xFF;
+                sums[j++] += (pixel >> 8) & 0xFF;
+                sums[j++] += pixel & 0xFF;
+            }
+        }
+
+        for (int y = 0; y < height; y++) {
+            int rowOffset = y * width + start;
+            int addedOffset = Math.min(y + after + 1, last) * width + start;
+            int removedOffset = Math.max(y - before, 0) * width + start;
+
+            for (int x = 0, j = 0; x < count; x++, j += 4) {
+                destination[rowOffset + x] = averages[sums[j]] << 24 | averages[sums[j + 1]] << 16
+                    | averages[sums[j + 2]] << 8 | averages[sums[j + 3]];
+
+                int added = source[addedOffset + x];
+                int removed = source[removedOffset + x];
+                sums[j] += (added >>> 24) - (removed >>> 24);
+                sums[j + 1] += ((added >> 16) & 0xFF) - ((removed >> 16) & 0xFF);
+                sums[j + 2] += ((added >> 8) & 0xFF) - ((removed >> 8) & 0xFF);
+                sums[j + 3] += (added & 0xFF) - (removed & 0xFF);
+            }
+        }
+    }
+}
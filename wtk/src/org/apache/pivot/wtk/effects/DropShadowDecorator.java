@@ -18,19 +18,76 @@ package org.apache.pivot.wtk.effects;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Transparency;
 import java.awt.image.BufferedImage;
-import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 
 import org.apache.pivot.wtk.Bounds;
 import org.apache.pivot.wtk.Component;
 import org.apache.pivot.wtk.GraphicsUtilities;
 
 /**
- * Decorator that adds a drop shadow to a component.
+ * Decorator that adds a drop shadow to a component. <p> Shadows are shared by
+ * all drop shadow decorators through a cache keyed by the component size and
+ * the shadow properties, so components of the same size (or a component
+ * resized back and forth) don't generate the same shadow again.
  */
 public class DropShadowDecorator implements Decorator {
+    /**
+     * The size and properties of a shadow.
+     */
+    private static final class ShadowKey {
+        private final int width;
+        private final int height;
+        private final int blurRadius;
+        private final int shadowRgb;
+        private final float shadowOpacity;
+
+        ShadowKey(final int width, final int height, final int blurRadius, final int shadowRgb,
+            final float shadowOpacity) {
+            this.width = width;
+            this.height = height;
+            this.blurRadius = blurRadius;
+            this.shadowRgb = shadowRgb;
+            this.shadowOpacity = shadowOpacity;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            boolean equals = false;
+
+            if (object instanceof ShadowKey) {
+                ShadowKey key = (ShadowKey) object;
+                equals = (width == key.width && height == key.height
+                    && blurRadius == key.blurRadius && shadowRgb == key.shadowRgb
+                    && Float.compare(shadowOpacity, key.shadowOpacity) == 0);
+            }
+
+            return equals;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(width, height, blurRadius, shadowRgb, shadowOpacity);
+        }
+    }
+
+    /**
+     * The most shadow pixels kept in the cache (16 MB worth).
+     */
+    private static final int SHADOW_CACHE_PIXELS = 4 * 1024 * 1024;
+
+    /** Recently used shadows, least recently used first. */
+    private static final LinkedHashMap<ShadowKey, BufferedImage> SHADOW_CACHE =
+        new LinkedHashMap<>(16, 0.75f, true);
+
+    private static int shadowCachePixels = 0;
+
     private int blurRadius;
     private int xOffset;
     private int yOffset;
@@ -38,6 +95,7 @@ public class DropShadowDecorator implements Decorator {
     private Color shadowColor = Color.BLACK;
     private float shadowOpacity = DEFAULT_SHADOW_OPACITY;
 
+    private ShadowKey shadowKey = null;
     private BufferedImage shadowImage = null;
 
     public static final float DEFAULT_SHADOW_OPACITY = 0.25f;
@@ -165,17 +223,12 @@ public class DropShadowDecorator implements Decorator {
         int height = component.getHeight();
 
         if (width > 0 && height > 0) {
-            if (shadowImage == null
-                || shadowImage.getWidth() != width + 2 * blurRadius
-                || shadowImage.getHeight() != height + 2 * blurRadius) {
-                // Recreate the shadow
-                BufferedImage rectangleImage = new BufferedImage(width, height,
-                    BufferedImage.TYPE_INT_ARGB);
-                Graphics2D rectangleImageGraphics = rectangleImage.createGraphics();
-                rectangleImageGraphics.setColor(Color.BLACK);
-                rectangleImageGraphics.fillRect(0, 0, width, height);
-                rectangleImageGraphics.dispose();
-                shadowImage = createShadow(rectangleImage);
+            ShadowKey key = new ShadowKey(width, height, blurRadius,
+                shadowColor.getRGB() & 0x00FFFFFF, shadowOpacity);
+
+            if (!key.equals(shadowKey)) {
+                shadowKey = key;
+                shadowImage = getShadow(key, graphics.getDeviceConfiguration());
             }
 
             // Avoid drawing shadow if it will be covered by the component itself:
@@ -185,6 +238,7 @@ public class DropShadowDecorator implements Decorator {
                 graphics.drawImage(shadowImage, xOffset - blurRadius, yOffset - blurRadius, null);
             }
         } else {
+            shadowKey = null;
             shadowImage = null;
         }
 
@@ -201,19 +255,52 @@ public class DropShadowDecorator implements Decorator {
     }
 
     /**
-     * Generates the shadow for a given picture and the current properties of
-     * the decorator. The generated image dimensions are computed as follows:
-     * <pre> width = imageWidth + 2 * blurRadius
-     * height = imageHeight + 2 * blurRadius </pre>
+     * Returns the shadow for the given key from the cache, generating it (and
+     * making room for it) if necessary.
+     *
+     * @param key The size and properties of the shadow.
+     * @param graphicsConfiguration The configuration to create the image for.
+     * @return An image containing the shadow.
+     */
+    private static BufferedImage getShadow(final ShadowKey key,
+        final GraphicsConfiguration graphicsConfiguration) {
+        BufferedImage shadow = SHADOW_CACHE.get(key);
+
+        if (shadow == null) {
+            shadow = createShadow(key, graphicsConfiguration);
+
+            SHADOW_CACHE.put(key, shadow);
+            shadowCachePixels += shadow.getWidth() * shadow.getHeight();
+
+            // Drop the least recently used shadows, but always keep the new one
+            Iterator<BufferedImage> iterator = SHADOW_CACHE.values().iterator();
+            while (shadowCachePixels > SHADOW_CACHE_PIXELS && SHADOW_CACHE.size() > 1) {
+                BufferedImage eldest = iterator.next();
+                shadowCachePixels -= eldest.getWidth() * eldest.getHeight();
+                iterator.remove();
+            }
+        }
+
+        return shadow;
+    }
+
+    /**
+     * Generates the shadow cast by a rectangle of the given size. The generated
+     * image dimensions are computed as follows:
+     * <pre> width = key.width + 2 * key.blurRadius
+     * height = key.height + 2 * key.blurRadius </pre>
      *
-     * @param src The image from which the shadow will be cast.
+     * @param key The size of the rectangle and the properties of the shadow.
+     * @param graphicsConfiguration The configuration to create the image for.
      * @return An image containing the generated shadow.
      */
-    private BufferedImage createShadow(final BufferedImage src) {
+    private static BufferedImage createShadow(final ShadowKey key,
+        final GraphicsConfiguration graphicsConfiguration) {
+        int blurRadius = key.blurRadius;
         int shadowSize = blurRadius * 2;
 
-        int srcWidth = src.getWidth();
-        int srcHeight = src.getHeight();
+        int srcWidth = key.width;
+        int srcHeight = key.height;
 
         int dstWidth = srcWidth + shadowSize;
         int dstHeight = srcHeight + shadowSize;
@@ -223,26 +310,20 @@ public class DropShadowDecorator implements Decorator {
 
         int yStop = dstHeight - right;
 
-        int shadowRgb = shadowColor.getRGB() & 0x00FFFFFF;
+        int shadowRgb = key.shadowRgb;
         int[] aHistory = new int[shadowSize];
         int historyIdx;
 
         int aSum;
 
-        Graphics2D srcGraphics = src.createGraphics();
-        BufferedImage dst = srcGraphics.getDeviceConfiguration().createCompatibleImage(dstWidth,
+        BufferedImage dst = graphicsConfiguration.createCompatibleImage(dstWidth,
             dstHeight, Transparency.TRANSLUCENT);
-        srcGraphics.dispose();
 
         int[] dstBuffer = new int[dstWidth * dstHeight];
-        int[] srcBuffer = new int[srcWidth * srcHeight];
-
-        Raster srcRaster = src.getRaster();
-        srcRaster.getDataElements(0, 0, srcWidth, srcHeight, srcBuffer);
 
         int lastPixelOffset = right * dstWidth;
         float hSumDivider = 1.0f / shadowSize;
-        float vSumDivider = shadowOpacity / shadowSize;
+        float vSumDivider = key.shadowOpacity / shadowSize;
 
         int[] hSumLookup = new int[256 * shadowSize];
         for (int i = 0; i < hSumLookup.length; i++) {
@@ -254,10 +335,8 @@ public class DropShadowDecorator implements Decorator {
             vSumLookup[i] = (int) (i * vSumDivider);
         }
 
-        int srcOffset;
-
-        // Horizontal pass: extract the alpha mask from the source picture and
-        // blur it into the destination picture
+        // Horizontal pass: blur the alpha mask of the (opaque) rectangle into
+        // the destination picture
         for (int srcY = 0, dstOffset = left * dstWidth; srcY < srcHeight; srcY++) {
             // First pixels are empty
             for (historyIdx = 0; historyIdx < shadowSize;) {
@@ -266,7 +345,6 @@ public class DropShadowDecorator implements Decorator {
 
             aSum = 0;
             historyIdx = 0;
-            srcOffset = srcY * srcWidth;
 
             // Compute the blur average with pixels from the source image
             for (int srcX = 0; srcX < srcWidth; srcX++) {
@@ -278,8 +356,8 @@ public class DropShadowDecorator implements Decorator {
                 // Subtract the oldest pixel from the sum
                 aSum -= aHistory[historyIdx];
 
-                // Extract the new pixel and store its value into history...
-                a = srcBuffer[srcOffset + srcX] >>> 24;
+                // The new pixel is fully opaque; store its value into history...
+                a = 0xFF;
                 aHistory[historyIdx] = a;
 
                 // ...and add its value to the sum
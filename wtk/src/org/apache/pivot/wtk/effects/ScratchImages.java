@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.effects;
+
+import java.awt.image.BufferedImage;
+
+import org.apache.pivot.collections.ArrayList;
+
+/**
+ * A small pool of off-screen images that effects draw into and then discard,
+ * so that decorators painting components of the same size (or the same
+ * decorator, frame after frame) don't allocate a new image every time. <p> An
+ * image is taken out of the pool while it is in use, so effects that are nested
+ * (decorated components within decorated components) each get their own. The
+ * contents of an acquired image are undefined. Like the rest of the toolkit, the
+ * pool is only used from the UI thread.
+ */
+final class ScratchImages {
+    /** The number of images kept in the pool. */
+    private static final int CAPACITY = 4;
+
+    /** Released images, most recently released first. */
+    private static final ArrayList<BufferedImage> IMAGES = new ArrayList<>();
+
+    private ScratchImages() {
+    }
+
+    /**
+     * Takes an image of the given size and type from the pool, or creates one if
+     * there is none.
+     *
+     * @param width The image width.
+     * @param height The image height.
+     * @param type The image type (one of the {@code BufferedImage.TYPE_*} values).
+     * @return The image, which should be given back with {@link #release} once
+     * it is no longer needed.
+     */
+    static BufferedImage acquire(final int width, final int height, final int type) {
+        for (int i = 0, n = IMAGES.getLength(); i < n; i++) {
+            BufferedImage image = IMAGES.get(i);
+
+            if (image.getWidth() == width && image.getHeight() == height && image.getType() == type) {
+                IMAGES.remove(i, 1);
+                return image;
+            }
+        }
+
+        return new BufferedImage(width, height, type);
+    }
+
+    /**
+     * Returns an image to the pool.
+     *
+     * @param image An image obtained from {@link #acquire}.
+     */
+    static void release(final BufferedImage image) {
+        IMAGES.insert(image, 0);
+
+        if (IMAGES.getLength() > CAPACITY) {
+            IMAGES.remove(CAPACITY, IMAGES.getLength() - CAPACITY);
+        }
+    }
+}
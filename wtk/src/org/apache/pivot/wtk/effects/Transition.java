@@ -17,14 +17,15 @@
 package org.apache.pivot.wtk.effects;
 
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.pivot.util.Utils;
-import org.apache.pivot.wtk.ApplicationContext;
 import org.apache.pivot.wtk.Theme;
 
 /**
  * Abstract base class for "transitions", which are animated application
- * effects.
+ * effects. <p> Running transitions are advanced by the default
+ * {@link AnimationClock}, so all of them are updated together once per frame.
  */
 public abstract class Transition {
     /**
@@ -58,25 +59,26 @@ public abstract class Transition {
     private Optional<TransitionListener> optionalListener = Optional.empty();
 
     /**
-     * The transition start time (in milliseconds).
+     * The transition start time (in milliseconds, from {@link System#nanoTime}).
      */
     private long startTime = 0;
     /**
-     * The current millisecond timestamp, set on every callback.
+     * The current millisecond timestamp (of the current animation frame), set on
+     * every callback.
      */
     private long currentTime = 0;
     /**
-     * Set during transition operation to be the current callback for updates,
+     * Set during transition operation to be the animation driving the updates,
      * then cleared once the transition is over.
      */
-    private ApplicationContext.ScheduledCallback transitionCallback = null;
+    private AnimationClock.Animation transitionAnimation = null;
 
     /**
      * Callback for every interval to call {@link #update} and then {@link #stop}
      * once the transition interval is over.
      */
     private final Runnable updateCallback = () -> {
-        currentTime = System.currentTimeMillis();
+        currentTime = TimeUnit.NANOSECONDS.toMillis(AnimationClock.getDefault().getFrameTime());
 
         long endTime = startTime + duration;
         if (currentTime >= endTime) {
@@ -219,7 +221,9 @@ public abstract class Transition {
     /**
      * Returns the time at which the transition was started.
      *
-     * @return The transition's start time.
+     * @return The transition's start time, in milliseconds. Only the differences
+     * between this and {@link #getCurrentTime} are meaningful, as the times are
+     * based on {@link System#nanoTime}.
      */
     public long getStartTime() {
         return startTime;
@@ -284,7 +288,7 @@ public abstract class Transition {
      * {@code false} if it is not
      */
     public final boolean isRunning() {
-        return (transitionCallback != null);
+        return (transitionAnimation != null);
     }
 
     /**
@@ -314,11 +318,10 @@ public abstract class Transition {
 
         optionalListener = Optional.ofNullable(listener);
 
-        startTime = System.currentTimeMillis();
+        startTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
         currentTime = startTime;
 
-        transitionCallback = ApplicationContext.scheduleRecurringCallback(updateCallback,
-            getInterval());
+        transitionAnimation = AnimationClock.getDefault().schedule(updateCallback, getInterval());
 
         update();
     }
@@ -329,10 +332,10 @@ public abstract class Transition {
      */
     public void stop() {
         if (isRunning()) {
-            transitionCallback.cancel();
+            transitionAnimation.cancel();
         }
 
-        transitionCallback = null;
+        transitionAnimation = null;
     }
 
     /**
@@ -16,20 +16,33 @@
  */
 package org.apache.pivot.wtk.media;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Iterator;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadUpdateListener;
+import javax.imageio.stream.ImageInputStream;
 
 import org.apache.pivot.serialization.SerializationException;
 import org.apache.pivot.serialization.Serializer;
+import org.apache.pivot.util.ListenerList;
 import org.apache.pivot.util.Utils;
+import org.apache.pivot.wtk.Bounds;
+import org.apache.pivot.wtk.Dimensions;
 
 /**
  * Implementation of the {@link Serializer} interface that reads and writes
- * instances of {@link java.awt.image.BufferedImage}.
+ * instances of {@link java.awt.image.BufferedImage}. <p> When reading, the image
+ * can be restricted to a {@linkplain #setSourceRegion region} and decoded at a
+ * lower resolution to fit a {@linkplain #setTargetSize target size}. Only the
+ * pixels needed are kept, so a thumbnail of a large photo takes little more
+ * memory than the thumbnail itself.
  */
 public class BufferedImageSerializer implements Serializer<BufferedImage> {
     /**
@@ -61,6 +74,11 @@ public class BufferedImageSerializer implements Serializer<BufferedImage> {
 
     private Format outputFormat;
 
+    private Dimensions targetSize = null;
+    private Bounds sourceRegion = null;
+
+    private BufferedImageSerializerListener.Listeners bufferedImageSerializerListeners = null;
+
     /**
      * Construct an image serializer for the default {@link Format#PNG PNG} format.
      */
@@ -95,21 +113,172 @@ public class BufferedImageSerializer implements Serializer<BufferedImage> {
         this.outputFormat = outputFormat;
     }
 
+    /**
+     * @return The size the image is decoded for, or {@code null} to decode it at
+     * full resolution.
+     */
+    public Dimensions getTargetSize() {
+        return targetSize;
+    }
+
+    /**
+     * Sets the size the image is decoded for. The image (or the source region)
+     * is subsampled by the largest whole factor that still leaves it at least
+     * this wide or this high, whichever is reached first; the result may need to
+     * be scaled further to fit exactly.
+     *
+     * @param targetSize The target size, or {@code null} (the default) to decode
+     * the image at full resolution.
+     */
+    public void setTargetSize(final Dimensions targetSize) {
+        if (targetSize != null) {
+            Utils.checkPositive(targetSize.width, "targetSize.width");
+            Utils.checkPositive(targetSize.height, "targetSize.height");
+        }
+
+        this.targetSize = targetSize;
+    }
+
+    /**
+     * @return The region of the image that is decoded, or {@code null} to decode
+     * all of it.
+     */
+    public Bounds getSourceRegion() {
+        return sourceRegion;
+    }
+
+    /**
+     * Sets the region of the image that is decoded; the part of it that lies
+     * within the image is returned. Reading an image that the region does not
+     * overlap fails with a {@link SerializationException}.
+     *
+     * @param sourceRegion The region, or {@code null} (the default) to decode
+     * the whole image.
+     */
+    public void setSourceRegion(final Bounds sourceRegion) {
+        this.sourceRegion = sourceRegion;
+    }
+
     /**
      * Reads a serialized image from an input stream.
      *
      * @param inputStream The stream to read the image from.
-     * @return A {@code BufferedImage} object
+     * @return A {@code BufferedImage} object, or {@code null} if the image format
+     * is not recognized.
      */
     @Override
     public BufferedImage readObject(final InputStream inputStream) throws IOException,
         SerializationException {
         Utils.checkNull(inputStream, "inputStream");
 
-        BufferedImage bufferedImage = ImageIO.read(inputStream);
+        BufferedImage bufferedImage;
+
+        if (targetSize == null && sourceRegion == null && bufferedImageSerializerListeners == null) {
+            bufferedImage = ImageIO.read(inputStream);
+        } else {
+            bufferedImage = null;
+
+            try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+                Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageInputStream);
+
+                if (imageReaders.hasNext()) {
+                    ImageReader imageReader = imageReaders.next();
+
+                    try {
+                        imageReader.setInput(imageInputStream, true, true);
+                        bufferedImage = read(imageReader);
+                    } finally {
+                        imageReader.dispose();
+                    }
+                }
+            }
+        }
+
         return bufferedImage;
     }
 
+    /**
+     * Reads the first image with the given reader, applying the source region
+     * and target size, and notifying the listeners as it is decoded.
+     */
+    private BufferedImage read(final ImageReader imageReader) throws IOException,
+        SerializationException {
+        ImageReadParam imageReadParam = imageReader.getDefaultReadParam();
+
+        int width = imageReader.getWidth(0);
+        int height = imageReader.getHeight(0);
+
+        if (sourceRegion != null) {
+            Rectangle region = new Rectangle(0, 0, width, height).intersection(sourceRegion.toRectangle());
+            if (region.isEmpty()) {
+                throw new SerializationException("Source region " + sourceRegion
+                    + " lies outside of the " + width + "x" + height + " image.");
+            }
+
+            imageReadParam.setSourceRegion(region);
+            width = region.width;
+            height = region.height;
+        }
+
+        if (targetSize != null) {
+            int subsampling = Math.max(Math.min(width / targetSize.width, height / targetSize.height), 1);
+            imageReadParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        }
+
+        if (bufferedImageSerializerListeners != null) {
+            imageReader.addIIOReadUpdateListener(new IIOReadUpdateListener() {
+                private boolean started = false;
+
+                @Override
+                public void passStarted(final ImageReader source, final BufferedImage image,
+                    final int pass, final int minPass, final int maxPass, final int minX,
+                    final int minY, final int periodX, final int periodY, final int[] bands) {
+                    if (!started) {
+                        started = true;
+                        bufferedImageSerializerListeners.imageStarted(BufferedImageSerializer.this,
+                            image);
+                    }
+                }
+
+                @Override
+                public void imageUpdate(final ImageReader source, final BufferedImage image,
+                    final int minX, final int minY, final int updateWidth, final int updateHeight,
+                    final int periodX, final int periodY, final int[] bands) {
+                    bufferedImageSerializerListeners.regionDecoded(BufferedImageSerializer.this,
+                        image, minX, minY, (updateWidth - 1) * periodX + 1,
+                        (updateHeight - 1) * periodY + 1);
+                }
+
+                @Override
+                public void passComplete(final ImageReader source, final BufferedImage image) {
+                    // No-op
+                }
+
+                @Override
+                public void thumbnailPassStarted(final ImageReader source, final BufferedImage thumbnail,
+                    final int pass, final int minPass, final int maxPass, final int minX,
+                    final int minY, final int periodX, final int periodY, final int[] bands) {
+                    // No-op
+                }
+
+                @Override
+                public void thumbnailUpdate(final ImageReader source, final BufferedImage thumbnail,
+                    final int minX, final int minY, final int updateWidth, final int updateHeight,
+                    final int periodX, final int periodY, final int[] bands) {
+                    // No-op
+                }
+
+                @Override
+                public void thumbnailPassComplete(final ImageReader source,
+                    final BufferedImage thumbnail) {
+                    // No-op
+                }
+            });
+        }
+
+        return imageReader.read(0, imageReadParam);
+    }
+
     /**
      * Writes a buffered image to an output stream.
      *
@@ -129,4 +298,17 @@ public class BufferedImageSerializer implements Serializer<BufferedImage> {
     public final String getMIMEType(final BufferedImage bufferedImage) {
         return outputFormat.getMIMEType();
     }
+
+    /**
+     * @return The listeners notified as images are decoded. Adding any makes the
+     * serializer decode through an {@link ImageReader}, so that it can report
+     * progress.
+     */
+    public ListenerList<BufferedImageSerializerListener> getBufferedImageSerializerListeners() {
+        if (bufferedImageSerializerListeners == null) {
+            bufferedImageSerializerListeners = new BufferedImageSerializerListener.Listeners();
+        }
+
+        return bufferedImageSerializerListeners;
+    }
 }
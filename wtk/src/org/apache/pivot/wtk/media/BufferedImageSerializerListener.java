@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.media;
+
+import java.awt.image.BufferedImage;
+
+import org.apache.pivot.util.ListenerList;
+
+/**
+ * Buffered image serializer listener interface. The methods are called on the
+ * thread that is reading the image.
+ */
+public interface BufferedImageSerializerListener {
+    /**
+     * Buffered image serializer listeners.
+     */
+    final class Listeners extends ListenerList<BufferedImageSerializerListener>
+        implements BufferedImageSerializerListener {
+        @Override
+        public void imageStarted(final BufferedImageSerializer serializer,
+            final BufferedImage bufferedImage) {
+            forEach(listener -> listener.imageStarted(serializer, bufferedImage));
+        }
+
+        @Override
+        public void regionDecoded(final BufferedImageSerializer serializer,
+            final BufferedImage bufferedImage, final int x, final int y, final int width,
+            final int height) {
+            forEach(listener -> listener.regionDecoded(serializer, bufferedImage, x, y, width, height));
+        }
+    }
+
+    /**
+     * Called when the serializer has created the image it is decoding into,
+     * before any pixels have been decoded.
+     *
+     * @param serializer The active serializer.
+     * @param bufferedImage The image being decoded, which is also the one that
+     * will eventually be returned.
+     */
+    default void imageStarted(BufferedImageSerializer serializer, BufferedImage bufferedImage) {
+    }
+
+    /**
+     * Called when pixels of the image have been decoded. With progressive or
+     * interlaced images, the same region may be updated several times, with
+     * increasing detail.
+     *
+     * @param serializer The active serializer.
+     * @param bufferedImage The image being decoded.
+     * @param x The x-coordinate of the region.
+     * @param y The y-coordinate of the region.
+     * @param width The width of the region.
+     * @param height The height of the region.
+     */
+    default void regionDecoded(BufferedImageSerializer serializer, BufferedImage bufferedImage,
+        int x, int y, int width, int height) {
+    }
+}
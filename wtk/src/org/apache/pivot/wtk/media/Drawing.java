@@ -17,6 +17,12 @@
 package org.apache.pivot.wtk.media;
 
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import com.kitfox.svg.SVGDiagram;
 import com.kitfox.svg.SVGElementException;
@@ -28,11 +34,97 @@ import org.apache.pivot.util.Utils;
 import org.apache.pivot.wtk.GraphicsUtilities;
 
 /**
- * Image encapsulating an SVG diagram.
+ * Image encapsulating an SVG diagram. <p> Rendering a diagram is expensive, so
+ * when a drawing is painted at the same scale as the last time, it is painted
+ * from square tiles rendered at that scale and kept for later paints. Only the
+ * tiles that are needed are rendered, and only a limited number are kept
+ * (always enough to paint the area last painted, and the tiles around it), for
+ * the few scales most recently painted from tiles; a drawing shown at two
+ * sizes (say, as a thumbnail and in full) keeps the tiles of both. A drawing is
+ * painted directly (without tiles) when it is rotated or sheared, and while the
+ * scale is changing from one paint to the next, as when zooming. <p> If the
+ * diagram is changed directly, call {@link #update} so that the tiles are
+ * rendered again.
  */
 public class Drawing extends Image {
+    /**
+     * Map that keeps a limited number of entries, dropping the least recently
+     * used ones.
+     */
+    private static final class LRUCache<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = -6364478452627389834L;
+
+        private int maximumSize;
+
+        LRUCache(final int maximumSize) {
+            super(16, 0.75f, true);
+
+            this.maximumSize = maximumSize;
+        }
+
+        /**
+         * Raises the number of entries kept to the given size, if it is lower.
+         */
+        void ensureMaximumSize(final int size) {
+            maximumSize = Math.max(maximumSize, size);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+            return (size() > maximumSize);
+        }
+    }
+
+    /**
+     * Identifies a tile by the scale it was rendered at, and its row and column.
+     */
+    private static final class TileKey {
+        private final Point2D scale;
+        private final int row;
+        private final int column;
+
+        TileKey(final Point2D scale, final int row, final int column) {
+            this.scale = scale;
+            this.row = row;
+            this.column = column;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (!(object instanceof TileKey)) {
+                return false;
+            }
+
+            TileKey tileKey = (TileKey) object;
+            return (scale.equals(tileKey.scale) && row == tileKey.row && column == tileKey.column);
+        }
+
+        @Override
+        public int hashCode() {
+            return (scale.hashCode() * 31 + row) * 31 + column;
+        }
+    }
+
+    /** The width and height of a tile, in device pixels. */
+    private static final int TILE_SIZE = 256;
+
+    /**
+     * The number of tiles kept for a drawing, at all scales (16 MB worth), unless
+     * more are needed to paint it.
+     */
+    private static final int MAXIMUM_TILE_COUNT = 64;
+
+    /** The number of scales a drawing is painted from tiles at. */
+    private static final int MAXIMUM_SCALE_COUNT = 4;
+
     private SVGDiagram diagram;
 
+    // The scale the drawing was last painted at, the scales it was recently
+    // painted from tiles at, and the tiles rendered at those scales
+    private Point2D scale = null;
+    private final LRUCache<Point2D, Boolean> tiledScales = new LRUCache<>(MAXIMUM_SCALE_COUNT);
+    private final LRUCache<TileKey, BufferedImage> tiles = new LRUCache<>(MAXIMUM_TILE_COUNT);
+
     public Drawing(SVGDiagram diagram) {
         Utils.checkNull(diagram, "diagram");
 
@@ -71,11 +163,55 @@ public class Drawing extends Image {
             throw new RuntimeException(exception);
         }
 
+        clearTiles();
+
         imageListeners.sizeChanged(this, previousWidth, previousHeight);
     }
 
+    /**
+     * Notifies listeners that a region of the drawing was changed, and drops the
+     * tiles rendered from the previous diagram.
+     */
+    @Override
+    public void update(final int x, final int y, final int width, final int height) {
+        clearTiles();
+
+        super.update(x, y, width, height);
+    }
+
+    private void clearTiles() {
+        scale = null;
+        tiledScales.clear();
+        tiles.clear();
+    }
+
     @Override
     public void paint(Graphics2D graphics) {
+        AffineTransform transform = graphics.getTransform();
+
+        boolean tiled = false;
+
+        // Only plain (positive) scales can be painted from tiles
+        if ((transform.getType() & ~(AffineTransform.TYPE_TRANSLATION
+            | AffineTransform.TYPE_MASK_SCALE)) == 0
+            && transform.getScaleX() > 0 && transform.getScaleY() > 0) {
+            Point2D paintScale = new Point2D.Double(transform.getScaleX(), transform.getScaleY());
+
+            if (tiledScales.get(paintScale) != null || paintScale.equals(scale)) {
+                tiledScales.put(paintScale, Boolean.TRUE);
+                paintTiles(graphics, transform, paintScale);
+                tiled = true;
+            }
+
+            scale = paintScale;
+        }
+
+        if (!tiled) {
+            render(graphics);
+        }
+    }
+
+    private void render(final Graphics2D graphics) {
         try {
             GraphicsUtilities.setAntialiasingOn(graphics);
             diagram.render(graphics);
@@ -83,4 +219,77 @@ public class Drawing extends Image {
             throw new RuntimeException(exception);
         }
     }
+
+    /**
+     * Paints the tiles that intersect the clip, rendering those that are missing.
+     */
+    private void paintTiles(final Graphics2D graphics, final AffineTransform transform,
+        final Point2D paintScale) {
+        double scaleX = paintScale.getX();
+        double scaleY = paintScale.getY();
+
+        // The area to paint, in device pixels relative to the drawing's origin
+        int width = (int) Math.ceil(diagram.getWidth() * scaleX);
+        int height = (int) Math.ceil(diagram.getHeight() * scaleY);
+
+        Rectangle area = new Rectangle(0, 0, width, height);
+        Rectangle clipBounds = graphics.getClipBounds();
+        if (clipBounds != null) {
+            Rectangle deviceClipBounds = new Rectangle(
+                (int) Math.floor(clipBounds.x * scaleX),
+                (int) Math.floor(clipBounds.y * scaleY),
+                (int) Math.ceil(clipBounds.width * scaleX) + 1,
+                (int) Math.ceil(clipBounds.height * scaleY) + 1);
+            area = area.intersection(deviceClipBounds);
+        }
+
+        if (!area.isEmpty()) {
+            Graphics2D deviceGraphics = (Graphics2D) graphics.create();
+            deviceGraphics.setTransform(AffineTransform.getTranslateInstance(
+                Math.round(transform.getTranslateX()), Math.round(transform.getTranslateY())));
+
+            int firstRow = area.y / TILE_SIZE;
+            int lastRow = (area.y + area.height - 1) / TILE_SIZE;
+            int firstColumn = area.x / TILE_SIZE;
+            int lastColumn = (area.x + area.width - 1) / TILE_SIZE;
+
+            // Keep the tiles being painted, and a ring of tiles around them (as
+            // when scrolling), so that painting never evicts its own tiles
+            tiles.ensureMaximumSize((lastRow - firstRow + 3) * (lastColumn - firstColumn + 3));
+
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    TileKey key = new TileKey(paintScale, row, column);
+
+                    BufferedImage tile = tiles.get(key);
+                    if (tile == null) {
+                        tile = renderTile(row, column, width, height, scaleX, scaleY);
+                        tiles.put(key, tile);
+                    }
+
+                    deviceGraphics.drawImage(tile, column * TILE_SIZE, row * TILE_SIZE, null);
+                }
+            }
+
+            deviceGraphics.dispose();
+        }
+    }
+
+    /**
+     * Renders a tile; those along the right and bottom edges are only as large
+     * as needed to reach the edge of the drawing.
+     */
+    private BufferedImage renderTile(final int row, final int column, final int width,
+        final int height, final double scaleX, final double scaleY) {
+        BufferedImage tile = new BufferedImage(Math.min(width - column * TILE_SIZE, TILE_SIZE),
+            Math.min(height - row * TILE_SIZE, TILE_SIZE), BufferedImage.TYPE_INT_ARGB_PRE);
+
+        Graphics2D tileGraphics = tile.createGraphics();
+        tileGraphics.translate(-column * TILE_SIZE, -row * TILE_SIZE);
+        tileGraphics.scale(scaleX, scaleY);
+        render(tileGraphics);
+        tileGraphics.dispose();
+
+        return tile;
+    }
 }
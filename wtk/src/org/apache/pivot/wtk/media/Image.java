@@ -20,6 +20,7 @@ import java.awt.image.BufferedImage;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.concurrent.ExecutorService;
 
@@ -30,6 +31,8 @@ import org.apache.pivot.util.Utils;
 import org.apache.pivot.util.concurrent.TaskExecutionException;
 import org.apache.pivot.util.concurrent.TaskListener;
 import org.apache.pivot.wtk.ApplicationContext;
+import org.apache.pivot.wtk.Bounds;
+import org.apache.pivot.wtk.Dimensions;
 import org.apache.pivot.wtk.Visual;
 
 import com.kitfox.svg.SVGDiagram;
@@ -41,24 +44,116 @@ import com.kitfox.svg.SVGDiagram;
 public abstract class Image implements Visual {
     /**
      * Background {@link org.apache.pivot.util.concurrent.Task} that
-     * executes an image load operation.
+     * executes an image load operation. <p> Bitmapped images can be decoded at
+     * reduced resolution for a target size, and restricted to a region of the
+     * image (see {@link BufferedImageSerializer}); drawings are always loaded
+     * whole, since they scale without loss. <p> While a bitmapped image is being
+     * decoded, the listeners added to {@link #getImageListeners} are notified (on
+     * the UI thread) of the regions decoded so far, with the picture that will
+     * eventually be the result, so that it can be shown as it arrives.
      */
     public static final class LoadTask extends IOTask<Image> {
         private URL location = null;
+        private Dimensions targetSize = null;
+        private Bounds sourceRegion = null;
+
+        private ImageListener.Listeners imageListeners = new ImageListener.Listeners();
+
+        // The picture being decoded, and the region decoded since the listeners
+        // were last notified (null if they are up to date)
+        private Picture picture = null;
+        private Bounds pendingRegion = null;
 
         public LoadTask(final URL location) {
             this(location, DEFAULT_EXECUTOR_SERVICE);
         }
 
         public LoadTask(final URL location, final ExecutorService executorService) {
+            this(location, null, null, executorService);
+        }
+
+        /**
+         * Creates a task that loads a reduced version of an image.
+         *
+         * @param location The URL where the image can be found.
+         * @param targetSize The size the image will be shown at, or {@code null}
+         * to load it at full resolution.
+         */
+        public LoadTask(final URL location, final Dimensions targetSize) {
+            this(location, targetSize, null, DEFAULT_EXECUTOR_SERVICE);
+        }
+
+        /**
+         * Creates a task that loads a reduced version, or part, of an image.
+         *
+         * @param location The URL where the image can be found.
+         * @param targetSize The size the image will be shown at, or {@code null}
+         * to load it at full resolution.
+         * @param sourceRegion The part of the image to load, or {@code null} to
+         * load all of it.
+         * @param executorService The executor to run the task with.
+         */
+        public LoadTask(final URL location, final Dimensions targetSize, final Bounds sourceRegion,
+            final ExecutorService executorService) {
             super(executorService);
             this.location = location;
+            this.targetSize = targetSize;
+            this.sourceRegion = sourceRegion;
         }
 
         public URL getLocation() {
             return location;
         }
 
+        public Dimensions getTargetSize() {
+            return targetSize;
+        }
+
+        public Bounds getSourceRegion() {
+            return sourceRegion;
+        }
+
+        /**
+         * @return The listeners notified of the progress of the decoding.
+         */
+        public ListenerList<ImageListener> getImageListeners() {
+            return imageListeners;
+        }
+
+        /**
+         * Accumulates a decoded region, and queues a notification of the
+         * listeners unless one is already pending.
+         */
+        private synchronized void regionDecoded(final BufferedImage bufferedImage, final int x,
+            final int y, final int width, final int height) {
+            if (picture == null) {
+                picture = new Picture(bufferedImage);
+            }
+
+            Bounds region = new Bounds(x, y, width, height);
+
+            if (pendingRegion == null) {
+                pendingRegion = region;
+                ApplicationContext.queueCallback(this::notifyRegionDecoded);
+            } else {
+                pendingRegion = pendingRegion.union(region);
+            }
+        }
+
+        private void notifyRegionDecoded() {
+            Picture pictureLocal;
+            Bounds region;
+
+            synchronized (this) {
+                pictureLocal = picture;
+                region = pendingRegion;
+                pendingRegion = null;
+            }
+
+            imageListeners.regionUpdated(pictureLocal, region.x, region.y, region.width,
+                region.height);
+        }
+
         @Override
         public Image execute() throws TaskExecutionException {
             Image image = null;
@@ -74,8 +169,27 @@ public abstract class Image implements Visual {
                     image = new Drawing(diagram);
                 } else {
                     BufferedImageSerializer serializer = new BufferedImageSerializer();
+                    serializer.setTargetSize(targetSize);
+                    serializer.setSourceRegion(sourceRegion);
+
+                    if (!imageListeners.isEmpty()) {
+                        serializer.getBufferedImageSerializerListeners().add(
+                            new BufferedImageSerializerListener() {
+                                @Override
+                                public void regionDecoded(final BufferedImageSerializer serializerArgument,
+                                    final BufferedImage bufferedImage, final int x, final int y,
+                                    final int width, final int height) {
+                                    LoadTask.this.regionDecoded(bufferedImage, x, y, width, height);
+                                }
+                            });
+                    }
+
                     BufferedImage bufferedImage = serializer.readObject(inputStream);
-                    image = new Picture(bufferedImage);
+
+                    synchronized (this) {
+                        image = (picture != null && picture.getBufferedImage() == bufferedImage)
+                            ? picture : new Picture(bufferedImage);
+                    }
                 }
             } catch (IOException | SerializationException exception) {
                 throw new TaskExecutionException(exception);
@@ -120,6 +234,23 @@ public abstract class Image implements Visual {
         return loadTask.execute();
     }
 
+    /**
+     * Load a reduced version of an image from the given URL location, for showing at
+     * (or below) the given size. The load will be done synchronously, on the current
+     * thread.
+     *
+     * @param location The URL where the image can be found.
+     * @param targetSize The size the image will be shown at.
+     * @return The loaded image.
+     * @throws TaskExecutionException if there were problems loading the image.
+     * @see LoadTask#LoadTask(URL, Dimensions)
+     */
+    public static Image load(final URL location, final Dimensions targetSize)
+        throws TaskExecutionException {
+        LoadTask loadTask = new LoadTask(location, targetSize);
+        return loadTask.execute();
+    }
+
     /**
      * Load an image from the given URL location, in the background, and return a reference
      * to the background task.
@@ -161,4 +292,41 @@ public abstract class Image implements Visual {
         return image;
     }
 
+    /**
+     * Load a reduced version of an image, for showing at (or below) the given size.
+     * First try to find it in the resource cache kept by the {@link ApplicationContext},
+     * where each size is kept separately. If not found, load it in the foreground and
+     * cache the result.
+     *
+     * @param location The URL where the image can be found.
+     * @param targetSize The size the image will be shown at.
+     * @return The loaded image.
+     * @throws IllegalArgumentException wrapping the TaskExecutionException, which
+     * in turn will wrap the underlying problem.
+     */
+    public static Image loadFromCache(final URL location, final Dimensions targetSize) {
+        Utils.checkNull(location, "image location");
+        Utils.checkNull(targetSize, "targetSize");
+
+        // Each size is cached under the location with the size as its reference
+        URL key;
+        try {
+            key = new URL(location, "#" + targetSize.width + "x" + targetSize.height);
+        } catch (MalformedURLException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+
+        Image image = (Image) ApplicationContext.getResourceCache().get(key);
+        if (image == null) {
+            try {
+                image = Image.load(location, targetSize);
+                ApplicationContext.getResourceCache().put(key, image);
+            } catch (TaskExecutionException exception) {
+                throw new IllegalArgumentException(exception);
+            }
+        }
+
+        return image;
+    }
+
 }
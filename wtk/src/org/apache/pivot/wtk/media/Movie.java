@@ -17,9 +17,9 @@
 package org.apache.pivot.wtk.media;
 
 import org.apache.pivot.util.ListenerList;
-import org.apache.pivot.wtk.ApplicationContext;
 import org.apache.pivot.wtk.Dimensions;
 import org.apache.pivot.wtk.Visual;
+import org.apache.pivot.wtk.effects.AnimationClock;
 
 /**
  * Abstract base class for movies. A movie is either a bitmapped "video" or a
@@ -30,7 +30,7 @@ public abstract class Movie implements Visual {
     private int frameRate = 26;
     private boolean looping = false;
 
-    private ApplicationContext.ScheduledCallback scheduledCallback = null;
+    private AnimationClock.Animation animation = null;
 
     protected MovieListener.Listeners movieListeners = new MovieListener.Listeners();
 
@@ -93,28 +93,28 @@ public abstract class Movie implements Visual {
     }
 
     public void play() {
-        if (scheduledCallback != null) {
+        if (animation != null) {
             throw new IllegalStateException("Movie is already playing.");
         }
 
-        scheduledCallback = ApplicationContext.scheduleRecurringCallback(nextFrameCallback,
+        animation = AnimationClock.getDefault().schedule(nextFrameCallback,
             (int) ((1 / (double) frameRate) * 1000));
 
         movieListeners.movieStarted(this);
     }
 
     public void stop() {
-        if (scheduledCallback != null) {
-            scheduledCallback.cancel();
+        if (animation != null) {
+            animation.cancel();
         }
 
-        scheduledCallback = null;
+        animation = null;
 
         movieListeners.movieStopped(this);
     }
 
     public boolean isPlaying() {
-        return (scheduledCallback != null);
+        return (animation != null);
     }
 
     public ListenerList<MovieListener> getMovieListeners() {
@@ -20,14 +20,66 @@ import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
 
 import org.apache.pivot.util.Utils;
+import org.apache.pivot.util.concurrent.AbortException;
+import org.apache.pivot.util.concurrent.Task;
+import org.apache.pivot.util.concurrent.TaskListener;
 
 /**
- * Image representing a bitmapped picture.
+ * Image representing a bitmapped picture. <p> When a picture is painted at less
+ * than half its size, it is drawn from a "mip level": a copy of it reduced by a
+ * power of two, the nearest one at least as large as needed. The levels are
+ * built (each from the previous one) when first needed, and give both faster and
+ * smoother results than scaling the full picture every time. Painting never
+ * waits for a level to be built: it uses the nearest level built so far, and
+ * leaves the missing ones to be built in the background. Scaled copies made
+ * by {@link #getScaledImage} and {@link #resample} also start from the nearest
+ * level. <p> If the pixels of the buffered image are changed directly, call
+ * {@link #update} so that the levels are rebuilt.
  */
 public class Picture extends Image {
+    /**
+     * Background task that builds the mip levels down to a given size.
+     */
+    private final class MipLevelTask extends Task<Void> implements TaskListener<Void> {
+        private final int width;
+        private final int height;
+
+        MipLevelTask(final int width, final int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public Void execute() {
+            getMipLevel(width, height, () -> abort);
+            return null;
+        }
+
+        @Override
+        public void taskExecuted(final Task<Void> task) {
+            done();
+        }
+
+        @Override
+        public void executeFailed(final Task<Void> task) {
+            done();
+        }
+
+        private void done() {
+            synchronized (mipLevelTaskLock) {
+                if (mipLevelTask == this) {
+                    mipLevelTask = null;
+                }
+            }
+        }
+    }
+
     /**
      * Enum defining the algorithms to apply when resizing a picture.
      */
@@ -41,6 +93,29 @@ public class Picture extends Image {
 
     private int baseline = -1;
 
+    private static final BufferedImage[] NO_MIP_LEVELS = new BufferedImage[0];
+
+    /**
+     * The picture reduced by successive powers of two; level 0 is the picture
+     * itself. Since scaled copies may be made in the background, the levels are
+     * only replaced while holding the lock on this picture; painting reads them
+     * without it.
+     */
+    private volatile BufferedImage[] mipLevels = NO_MIP_LEVELS;
+
+    /**
+     * Counts the changes to the pixels of the picture (guarded by the lock on
+     * this picture), so that levels scaled from the previous pixels are not kept.
+     */
+    private int mipLevelGeneration = 0;
+
+    /**
+     * The task building the levels needed by {@link #paint}, if any; guarded by
+     * its own lock, which painting can take while the levels are being built.
+     */
+    private MipLevelTask mipLevelTask = null;
+    private final Object mipLevelTaskLock = new Object();
+
     public Picture(final BufferedImage bufferedImage) {
         Utils.checkNull(bufferedImage, "bufferedImage");
 
@@ -92,52 +167,251 @@ public class Picture extends Image {
         int previousHeight = getHeight();
 
         if (previousWidth != width || previousHeight != height) {
-            int type = bufferedImage.getType();
+            // Set the scaled image as the new instance
+            BufferedImage bufferedImageLocal = getScaledImage(width, height, interpolation);
+
+            abortMipLevelTask();
 
-            float scaleX = ((float) width / (float) previousWidth);
-            float scaleY = ((float) height / (float) previousHeight);
+            synchronized (this) {
+                this.bufferedImage = bufferedImageLocal;
+                mipLevels = NO_MIP_LEVELS;
+                mipLevelGeneration++;
+            }
+
+            imageListeners.sizeChanged(this, previousWidth, previousHeight);
+        }
+    }
+
+    /**
+     * Makes a copy of the picture at the given size. A large reduction is done in
+     * steps of at most a half (starting from the nearest mip level), unless the
+     * interpolation is {@link Interpolation#NEAREST_NEIGHBOR}. This may be called
+     * from a background thread.
+     *
+     * @param width The width of the copy.
+     * @param height The height of the copy.
+     * @param interpolation How to compute the scaled pixels.
+     * @return A new image with the scaled picture.
+     */
+    public BufferedImage getScaledImage(final int width, final int height,
+        final Interpolation interpolation) {
+        return getScaledImage(width, height, interpolation, () -> false);
+    }
 
-            java.awt.image.BufferedImage bufferedImageLocal = new BufferedImage(width, height, type);
-            Graphics2D bufferedImageGraphics = (Graphics2D) bufferedImageLocal.getGraphics();
+    /**
+     * Makes a copy of the picture at the given size, like
+     * {@link #getScaledImage(int, int, Interpolation)}, giving up between
+     * steps once the given condition is met (typically, when the task making
+     * the copy has been aborted).
+     *
+     * @param width The width of the copy.
+     * @param height The height of the copy.
+     * @param interpolation How to compute the scaled pixels.
+     * @param aborted Tells whether to give up.
+     * @return A new image with the scaled picture.
+     * @throws AbortException if the copy was given up.
+     */
+    public BufferedImage getScaledImage(final int width, final int height,
+        final Interpolation interpolation, final BooleanSupplier aborted) {
+        Utils.checkNull(interpolation, "interpolation");
+        Utils.checkNull(aborted, "aborted");
+        Utils.checkPositive(width, "width");
+        Utils.checkPositive(height, "height");
 
-            // Clear the background
-            if (this.bufferedImage.getTransparency() != Transparency.OPAQUE) {
-                bufferedImageGraphics.setComposite(AlphaComposite.Clear);
-                bufferedImageGraphics.fillRect(0, 0, width, height);
+        BufferedImage image;
 
-                bufferedImageGraphics.setComposite(AlphaComposite.SrcOver);
+        if (interpolation == Interpolation.NEAREST_NEIGHBOR) {
+            synchronized (this) {
+                image = bufferedImage;
             }
+        } else {
+            image = getMipLevel(width, height, aborted);
 
-            // Set the interpolation
-            Object interpolationHint = 0;
-            switch (interpolation) {
-                case NEAREST_NEIGHBOR:
-                    interpolationHint = RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
-                    break;
-                case BILINEAR:
-                    interpolationHint = RenderingHints.VALUE_INTERPOLATION_BILINEAR;
-                    break;
-                case BICUBIC:
-                    interpolationHint = RenderingHints.VALUE_INTERPOLATION_BICUBIC;
-                    break;
-                default:
-                    break;
+            while (image.getWidth() / 2 >= width && image.getHeight() / 2 >= height) {
+                checkAborted(aborted);
+                image = scale(image, image.getWidth() / 2, image.getHeight() / 2, interpolation);
             }
+        }
 
-            bufferedImageGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-                interpolationHint);
+        checkAborted(aborted);
+        return scale(image, width, height, interpolation);
+    }
 
-            // Draw the image
-            bufferedImageGraphics.scale(scaleX, scaleY);
-            paint(bufferedImageGraphics);
+    private static void checkAborted(final BooleanSupplier aborted) {
+        if (aborted.getAsBoolean()) {
+            throw new AbortException();
+        }
+    }
 
-            bufferedImageGraphics.dispose();
+    /**
+     * @return The smallest mip level that is at least the given size, building
+     * it (and the ones before it) if necessary. The levels are scaled without
+     * holding the lock on this picture, and are only kept if the picture was
+     * not changed in the meantime.
+     * @param width The width needed.
+     * @param height The height needed.
+     * @param aborted Tells whether to stop building levels.
+     * @throws AbortException if the levels were not all built.
+     */
+    private BufferedImage getMipLevel(final int width, final int height,
+        final BooleanSupplier aborted) {
+        BufferedImage[] levels;
+        int generation;
+
+        synchronized (this) {
+            levels = mipLevels;
+            generation = mipLevelGeneration;
+
+            if (levels.length == 0) {
+                levels = new BufferedImage[] {bufferedImage};
+                mipLevels = levels;
+            }
+        }
 
-            // Set the scaled image as the new instance
-            this.bufferedImage = bufferedImageLocal;
+        int level = 0;
+        BufferedImage image = levels[0];
 
-            imageListeners.sizeChanged(this, previousWidth, previousHeight);
+        while (image.getWidth() / 2 >= width && image.getHeight() / 2 >= height) {
+            level++;
+
+            if (level == levels.length) {
+                checkAborted(aborted);
+
+                levels = Arrays.copyOf(levels, level + 1);
+                levels[level] = scale(image, image.getWidth() / 2, image.getHeight() / 2,
+                    Interpolation.BILINEAR);
+                setMipLevels(levels, generation);
+            }
+
+            image = levels[level];
         }
+
+        return image;
+    }
+
+    /**
+     * Keeps newly built mip levels, unless the picture has changed since the
+     * levels were started or more levels have been built in the meantime.
+     */
+    private synchronized void setMipLevels(final BufferedImage[] levels, final int generation) {
+        if (generation == mipLevelGeneration && levels.length > mipLevels.length) {
+            mipLevels = levels;
+        }
+    }
+
+    /**
+     * @return The smallest mip level built so far that is at least the given
+     * size; if it is not the one that would be used at that size, the missing
+     * levels are built in the background. This never waits for the lock on
+     * this picture.
+     * @param width The width needed.
+     * @param height The height needed.
+     */
+    private BufferedImage getBuiltMipLevel(final int width, final int height) {
+        BufferedImage[] levels = mipLevels;
+        BufferedImage image = (levels.length == 0) ? bufferedImage : levels[0];
+
+        for (int level = 1; image.getWidth() / 2 >= width && image.getHeight() / 2 >= height;
+            level++) {
+            if (level >= levels.length) {
+                buildMipLevels(width, height);
+                break;
+            }
+
+            image = levels[level];
+        }
+
+        return image;
+    }
+
+    /**
+     * Starts building the mip levels down to the given size in the background,
+     * unless that is already being done.
+     */
+    private void buildMipLevels(final int width, final int height) {
+        synchronized (mipLevelTaskLock) {
+            if (mipLevelTask == null || mipLevelTask.width > width || mipLevelTask.height > height) {
+                mipLevelTask = new MipLevelTask(width, height);
+                mipLevelTask.execute(mipLevelTask);
+            }
+        }
+    }
+
+    /**
+     * Stops building mip levels in the background, since they would be
+     * dropped anyway once the picture has changed.
+     */
+    private void abortMipLevelTask() {
+        synchronized (mipLevelTaskLock) {
+            if (mipLevelTask != null) {
+                mipLevelTask.abort();
+                mipLevelTask = null;
+            }
+        }
+    }
+
+    /**
+     * Scales an image in one step.
+     */
+    private static BufferedImage scale(final BufferedImage image, final int width, final int height,
+        final Interpolation interpolation) {
+        int type = image.getType();
+        if (type == BufferedImage.TYPE_CUSTOM) {
+            type = (image.getTransparency() == Transparency.OPAQUE)
+                ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        }
+
+        BufferedImage scaledImage = new BufferedImage(width, height, type);
+        Graphics2D scaledImageGraphics = scaledImage.createGraphics();
+
+        // Clear the background
+        if (image.getTransparency() != Transparency.OPAQUE) {
+            scaledImageGraphics.setComposite(AlphaComposite.Clear);
+            scaledImageGraphics.fillRect(0, 0, width, height);
+
+            scaledImageGraphics.setComposite(AlphaComposite.SrcOver);
+        }
+
+        // Set the interpolation
+        Object interpolationHint = 0;
+        switch (interpolation) {
+            case NEAREST_NEIGHBOR:
+                interpolationHint = RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+                break;
+            case BILINEAR:
+                interpolationHint = RenderingHints.VALUE_INTERPOLATION_BILINEAR;
+                break;
+            case BICUBIC:
+                interpolationHint = RenderingHints.VALUE_INTERPOLATION_BICUBIC;
+                break;
+            default:
+                break;
+        }
+
+        scaledImageGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+            interpolationHint);
+
+        // Draw the image
+        scaledImageGraphics.drawImage(image, 0, 0, width, height, null);
+        scaledImageGraphics.dispose();
+
+        return scaledImage;
+    }
+
+    /**
+     * Notifies listeners that a region of the picture was changed, and drops the
+     * mip levels built from the previous pixels.
+     */
+    @Override
+    public void update(final int x, final int y, final int width, final int height) {
+        abortMipLevelTask();
+
+        synchronized (this) {
+            mipLevels = NO_MIP_LEVELS;
+            mipLevelGeneration++;
+        }
+
+        super.update(x, y, width, height);
     }
 
     @Override
@@ -156,6 +430,21 @@ public class Picture extends Image {
 
     @Override
     public void paint(final Graphics2D graphics) {
-        graphics.drawImage(bufferedImage, 0, 0, null);
+        AffineTransform transform = graphics.getTransform();
+        int width = getWidth();
+        int height = getHeight();
+
+        // Only plain (positive) scales are worth drawing from a smaller level
+        int scaledWidth = (int) Math.ceil(width * transform.getScaleX());
+        int scaledHeight = (int) Math.ceil(height * transform.getScaleY());
+
+        if ((transform.getType() & ~(AffineTransform.TYPE_TRANSLATION
+            | AffineTransform.TYPE_MASK_SCALE)) == 0
+            && scaledWidth > 0 && scaledHeight > 0
+            && scaledWidth <= width / 2 && scaledHeight <= height / 2) {
+            graphics.drawImage(getBuiltMipLevel(scaledWidth, scaledHeight), 0, 0, width, height, null);
+        } else {
+            graphics.drawImage(bufferedImage, 0, 0, null);
+        }
     }
 }
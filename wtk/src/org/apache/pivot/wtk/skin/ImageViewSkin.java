@@ -21,8 +21,11 @@ import java.awt.Color;
 import java.awt.Composite;
 import java.awt.Graphics2D;
 import java.awt.Transparency;
+import java.awt.image.BufferedImage;
 
 import org.apache.pivot.util.Utils;
+import org.apache.pivot.util.concurrent.Task;
+import org.apache.pivot.util.concurrent.TaskListener;
 import org.apache.pivot.wtk.Bounds;
 import org.apache.pivot.wtk.Component;
 import org.apache.pivot.wtk.Dimensions;
@@ -30,14 +33,63 @@ import org.apache.pivot.wtk.GraphicsUtilities;
 import org.apache.pivot.wtk.HorizontalAlignment;
 import org.apache.pivot.wtk.ImageView;
 import org.apache.pivot.wtk.ImageViewListener;
+import org.apache.pivot.wtk.TaskAdapter;
 import org.apache.pivot.wtk.VerticalAlignment;
 import org.apache.pivot.wtk.media.Image;
 import org.apache.pivot.wtk.media.ImageListener;
+import org.apache.pivot.wtk.media.Picture;
 
 /**
- * Image view skin. <p> TODO Add a rotation (float) style.
+ * Image view skin. <p> When a picture is shown smaller than its actual size, a
+ * copy of it at that size is kept for painting, until the size or the picture
+ * changes. Copies of large pictures are made in the background; until then, the
+ * picture is painted scaled on the fly. <p> TODO Add a rotation (float) style.
  */
 public class ImageViewSkin extends ComponentSkin implements ImageViewListener {
+    /**
+     * Background task that makes a scaled copy of a picture.
+     */
+    private class ScaleTask extends Task<BufferedImage> implements TaskListener<BufferedImage> {
+        private final Picture picture;
+        private final int width;
+        private final int height;
+
+        ScaleTask(final Picture picture, final int width, final int height) {
+            this.picture = picture;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public BufferedImage execute() {
+            // Give up as soon as the copy is no longer wanted
+            return picture.getScaledImage(width, height, Picture.Interpolation.BILINEAR,
+                () -> abort);
+        }
+
+        @Override
+        public void taskExecuted(final Task<BufferedImage> task) {
+            if (scaleTask == this) {
+                scaleTask = null;
+                scaledImage = getResult();
+                repaintComponent();
+            }
+        }
+
+        @Override
+        public void executeFailed(final Task<BufferedImage> task) {
+            if (scaleTask == this) {
+                scaleTask = null;
+            }
+        }
+    }
+
+    /**
+     * The number of pixels in a picture above which scaled copies of it are made
+     * in the background.
+     */
+    private static final int BACKGROUND_SCALE_THRESHOLD = 512 * 512;
+
     private Color backgroundColor = null;
     private float opacity = 1.0f;
     private HorizontalAlignment horizontalAlignment = HorizontalAlignment.CENTER;
@@ -51,9 +103,13 @@ public class ImageViewSkin extends ComponentSkin implements ImageViewListener {
     private float scaleX = 1;
     private float scaleY = 1;
 
+    private BufferedImage scaledImage = null;
+    private ScaleTask scaleTask = null;
+
     private ImageListener imageListener = new ImageListener() {
         @Override
         public void sizeChanged(final Image image, final int previousWidth, final int previousHeight) {
+            clearScaledImage();
             invalidateComponent();
         }
 
@@ -64,6 +120,9 @@ public class ImageViewSkin extends ComponentSkin implements ImageViewListener {
 
         @Override
         public void regionUpdated(final Image image, final int x, final int y, final int width, final int height) {
+            clearScaledImage();
+            updateScaledImage(image);
+
             // TODO A rounding error is causing an off-by-one error; we're
             // accounting for it here by adding 1 to width and height
             Bounds bounds = new Bounds(
@@ -214,6 +273,59 @@ public class ImageViewSkin extends ComponentSkin implements ImageViewListener {
                 scaleY = 1.0f;
             }
         }
+
+        updateScaledImage(image);
+    }
+
+    /**
+     * Makes (or starts making) a scaled copy of the image for painting if it is
+     * a picture shown smaller than its actual size, and the current copy (if
+     * any) is not the right size.
+     *
+     * @param image The image being shown.
+     */
+    private void updateScaledImage(final Image image) {
+        int scaledWidth = 0;
+        int scaledHeight = 0;
+
+        if (image instanceof Picture && scaleX < 1 && scaleY < 1) {
+            scaledWidth = Math.round(image.getWidth() * scaleX);
+            scaledHeight = Math.round(image.getHeight() * scaleY);
+        }
+
+        if (scaledWidth > 0 && scaledHeight > 0) {
+            boolean current = (scaleTask != null)
+                ? (scaleTask.width == scaledWidth && scaleTask.height == scaledHeight)
+                : (scaledImage != null && scaledImage.getWidth() == scaledWidth
+                    && scaledImage.getHeight() == scaledHeight);
+
+            if (!current) {
+                clearScaledImage();
+
+                Picture picture = (Picture) image;
+                if (picture.getWidth() * picture.getHeight() <= BACKGROUND_SCALE_THRESHOLD) {
+                    scaledImage = picture.getScaledImage(scaledWidth, scaledHeight,
+                        Picture.Interpolation.BILINEAR);
+                } else {
+                    scaleTask = new ScaleTask(picture, scaledWidth, scaledHeight);
+                    scaleTask.execute(new TaskAdapter<>(scaleTask));
+                }
+            }
+        } else {
+            clearScaledImage();
+        }
+    }
+
+    /**
+     * Drops the scaled copy of the image, and abandons making one.
+     */
+    private void clearScaledImage() {
+        if (scaleTask != null) {
+            scaleTask.abort();
+            scaleTask = null;
+        }
+
+        scaledImage = null;
     }
 
     @Override
@@ -232,7 +344,9 @@ public class ImageViewSkin extends ComponentSkin implements ImageViewListener {
         if (image != null) {
             Graphics2D imageGraphics = (Graphics2D) graphics.create();
             imageGraphics.translate(imageX, imageY);
-            imageGraphics.scale(scaleX, scaleY);
+            if (scaledImage == null) {
+                imageGraphics.scale(scaleX, scaleY);
+            }
 
             // Apply an alpha composite if the opacity value is less than the current alpha
             float alpha = 1.0f;
@@ -248,7 +362,12 @@ public class ImageViewSkin extends ComponentSkin implements ImageViewListener {
                     opacity));
             }
 
-            image.paint(imageGraphics);
+            if (scaledImage != null) {
+                imageGraphics.drawImage(scaledImage, 0, 0, null);
+            } else {
+                image.paint(imageGraphics);
+            }
+
             imageGraphics.dispose();
         }
     }
@@ -423,6 +542,7 @@ public class ImageViewSkin extends ComponentSkin implements ImageViewListener {
             image.getImageListeners().add(imageListener);
         }
 
+        clearScaledImage();
         invalidateComponent();
     }
 
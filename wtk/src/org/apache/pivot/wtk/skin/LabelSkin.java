@@ -28,6 +28,8 @@ import java.awt.font.LineMetrics;
 import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
 import java.text.StringCharacterIterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.pivot.collections.ArrayList;
 import org.apache.pivot.util.Utils;
@@ -45,6 +47,28 @@ import org.apache.pivot.wtk.VerticalAlignment;
  * Label skin.
  */
 public class LabelSkin extends ComponentSkin implements LabelListener {
+    /**
+     * Glyph vectors of recently laid out text, in least-recently-used order.
+     */
+    private static final class GlyphCache extends LinkedHashMap<String, GlyphVector> {
+        private static final long serialVersionUID = -6105719473326930178L;
+
+        private final int capacity;
+        private final FontRenderContext fontRenderContext;
+
+        GlyphCache(final int capacity, final FontRenderContext fontRenderContext) {
+            super(16, 0.75f, true);
+
+            this.capacity = capacity;
+            this.fontRenderContext = fontRenderContext;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, GlyphVector> eldest) {
+            return (size() > capacity);
+        }
+    }
+
     private Font font;
     private Color color;
     private Color disabledColor;
@@ -54,8 +78,10 @@ public class LabelSkin extends ComponentSkin implements LabelListener {
     private VerticalAlignment verticalAlignment;
     private Insets padding;
     private boolean wrapText;
+    private int glyphCacheSize = 0;
 
     private ArrayList<GlyphVector> glyphVectors = null;
+    private GlyphCache glyphCache = null;
     private float textHeight = 0;
 
     /**
@@ -328,6 +354,8 @@ public class LabelSkin extends ComponentSkin implements LabelListener {
                     }
 
                     appendLine(text, start, i, fontRenderContext);
+                } else if (glyphCacheSize > 0) {
+                    appendCachedLine(text, fontRenderContext);
                 } else {
                     appendLine(text, 0, text.length(), fontRenderContext);
                 }
@@ -335,6 +363,29 @@ public class LabelSkin extends ComponentSkin implements LabelListener {
         }
     }
 
+    /**
+     * Internal method used by {@link #layout} to set up a single line of
+     * unwrapped text, reusing the glyph vector from an earlier layout of the
+     * same text if there is one.
+     *
+     * @param text The complete text of the label.
+     * @param fontRenderContext The context used for font measurement.
+     */
+    private void appendCachedLine(final String text, final FontRenderContext fontRenderContext) {
+        if (glyphCache == null || !glyphCache.fontRenderContext.equals(fontRenderContext)) {
+            glyphCache = new GlyphCache(glyphCacheSize, fontRenderContext);
+        }
+
+        GlyphVector glyphVector = glyphCache.get(text);
+        if (glyphVector == null) {
+            glyphVector = font.createGlyphVector(fontRenderContext, text);
+            glyphCache.put(text, glyphVector);
+        }
+
+        glyphVectors.add(glyphVector);
+        textHeight += glyphVector.getLogicalBounds().getHeight();
+    }
+
     @Override
     public void paint(final Graphics2D graphics) {
         Label label = getLabel();
@@ -462,8 +513,15 @@ public class LabelSkin extends ComponentSkin implements LabelListener {
      * by {@link fontFromObject(Object)}.
      */
     public void setFont(final Object fontValue) {
-        font = fontFromObject(fontValue);
-        invalidateComponent();
+        Font newFont = fontFromObject(fontValue);
+
+        // Renderers set their font before every paint; don't throw away
+        // their layout (or cached glyphs) when it hasn't actually changed
+        if (!newFont.equals(font)) {
+            font = newFont;
+            glyphCache = null;
+            invalidateComponent();
+        }
     }
 
     /**
@@ -621,6 +679,32 @@ public class LabelSkin extends ComponentSkin implements LabelListener {
         invalidateComponent();
     }
 
+    /**
+     * @return The number of laid out lines of text whose glyphs are kept for
+     * reuse, or zero if glyphs are not cached.
+     */
+    public int getGlyphCacheSize() {
+        return glyphCacheSize;
+    }
+
+    /**
+     * Sets the number of laid out lines of text whose glyphs are kept for
+     * reuse. <p> Laying out text is relatively expensive, and renderers, which
+     * lay out the text of each item they paint in turn, would otherwise repeat
+     * the work for every item on every paint, and paint the same items over and
+     * over while their view is scrolled. Cached glyphs are only used for
+     * text that is not wrapped, and are discarded when the font changes.
+     *
+     * @param glyphCacheSizeValue The number of lines to keep, or zero (the
+     * default) to disable the cache.
+     */
+    public void setGlyphCacheSize(final int glyphCacheSizeValue) {
+        Utils.checkNonNegative(glyphCacheSizeValue, "glyphCacheSize");
+
+        glyphCacheSize = glyphCacheSizeValue;
+        glyphCache = null;
+    }
+
     // Label events
     @Override
     public void textChanged(final Label label, final String previousText) {
@@ -17,14 +17,9 @@
 package org.apache.pivot.wtk.skin;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Paint;
-import java.awt.Transparency;
 
-import org.apache.pivot.wtk.ApplicationContext;
 import org.apache.pivot.wtk.Bounds;
 import org.apache.pivot.wtk.Component;
-import org.apache.pivot.wtk.DesktopApplicationContext;
 import org.apache.pivot.wtk.Dimensions;
 import org.apache.pivot.wtk.Keyboard;
 import org.apache.pivot.wtk.Keyboard.KeyCode;
@@ -62,8 +57,6 @@ public class ScrollPaneSkin extends ContainerSkin implements Viewport.Skin, Scro
     private int cachedHorizontalScrollBarHeight = 0;
     private int cachedVerticalScrollBarWidth = 0;
 
-    private boolean optimizeScrolling = true;
-
     private static final int DEFAULT_HORIZONTAL_INCREMENT = 10;
     private static final int DEFAULT_VERTICAL_INCREMENT = 10;
 
@@ -825,13 +818,6 @@ public class ScrollPaneSkin extends ContainerSkin implements Viewport.Skin, Scro
         verticalScrollBar.setBlockIncrement(Math.max(1, viewportHeight - verticalReveal));
     }
 
-    @Override
-    public void setBackgroundPaint(final Paint backgroundPaint) {
-        super.setBackgroundPaint(backgroundPaint);
-
-        optimizeScrolling = (backgroundPaint != null && backgroundPaint.getTransparency() == Transparency.OPAQUE);
-    }
-
     public int getHorizontalIncrement() {
         return horizontalScrollBar.getUnitIncrement();
     }
@@ -864,27 +850,6 @@ public class ScrollPaneSkin extends ContainerSkin implements Viewport.Skin, Scro
         this.verticalReveal = verticalReveal;
     }
 
-    private boolean isOptimizeScrolling() {
-        boolean optimizeScrollingLocal = this.optimizeScrolling;
-
-        if (optimizeScrollingLocal) {
-            // Due to Sun bug #6293145, we cannot call copyArea if scaling is
-            // applied to the graphics context.
-
-            // Due to Sun bug #4033851, we cannot call copyArea if the display
-            // host is obscured. For a full description of why this is the case,
-            // see http://people.apache.org/~tvolkert/tests/scrolling/
-
-            ScrollPane scrollPane = (ScrollPane) getComponent();
-            ApplicationContext.DisplayHost displayHost = scrollPane.getDisplay().getDisplayHost();
-
-            optimizeScrollingLocal = (displayHost.getScale() == 1
-                && (DesktopApplicationContext.isActive() && displayHost.isDisplayable()));
-        }
-
-        return optimizeScrollingLocal;
-    }
-
     // Viewport.Skin methods
 
     @Override
@@ -971,60 +936,23 @@ public class ScrollPaneSkin extends ContainerSkin implements Viewport.Skin, Scro
         }
 
         int scrollTop = scrollPane.getScrollTop();
+        int viewTop = columnHeaderHeight - scrollTop;
 
-        if (view != null && view.isShowing() && isOptimizeScrolling()) {
-            Bounds blitArea = view.getVisibleArea();
-
-            int blitX = blitArea.x + view.getX();
-            int blitY = blitArea.y + view.getY();
-            int blitWidth = blitArea.width;
-            int blitHeight = blitArea.height;
-
-            if (rowHeader != null) {
-                // Blit the row header as well
-                int rowHeaderWidth = rowHeader.getWidth();
-                blitX -= rowHeaderWidth;
-                blitWidth += rowHeaderWidth;
-            }
-
-            int deltaScrollTop = scrollTop - previousScrollTop;
-            blitY += Math.max(deltaScrollTop, 0);
-            blitHeight -= Math.abs(deltaScrollTop);
-
-            Graphics2D graphics = scrollPane.getGraphics();
-            graphics.copyArea(blitX, blitY, blitWidth, blitHeight, 0, -deltaScrollTop);
-
-            scrollPane.setConsumeRepaint(true);
-
-            try {
-                view.setLocation(view.getX(), columnHeaderHeight - scrollTop);
-
-                if (rowHeader != null) {
-                    rowHeader.setLocation(0, columnHeaderHeight - scrollTop);
-                }
-            } finally {
-                scrollPane.setConsumeRepaint(false);
-            }
-
-            boolean repaintAllViewport = scrollPane.isRepaintAllViewport();
-            if (!repaintAllViewport) {
-                scrollPane.repaint(blitX, (columnHeaderHeight + (deltaScrollTop > 0 ? blitHeight
-                    : 0)), blitWidth, Math.abs(deltaScrollTop), true);
-            } else {
-                Bounds viewportBounds = getViewportBounds();
-                scrollPane.repaint(viewportBounds.x, viewportBounds.y, viewportBounds.width,
-                    viewportBounds.height, true);
-            }
+        // Scroll the row header along with the view
+        Bounds scrollArea = getViewportBounds();
+        if (rowHeader != null) {
+            scrollArea = scrollArea.union(0, scrollArea.y, rowHeader.getWidth(), scrollArea.height);
+        }
 
-        } else {
+        scrollPane.getBlitter().scroll(scrollArea, () -> {
             if (view != null) {
-                view.setLocation(view.getX(), columnHeaderHeight - scrollTop);
+                view.setLocation(view.getX(), viewTop);
             }
 
             if (rowHeader != null) {
-                rowHeader.setLocation(0, columnHeaderHeight - scrollTop);
+                rowHeader.setLocation(0, viewTop);
             }
-        }
+        });
 
         if (scrollTop >= 0 && scrollTop <= getMaxScrollTop()) {
             verticalScrollBar.setValue(scrollTop);
@@ -1048,58 +976,23 @@ public class ScrollPaneSkin extends ContainerSkin implements Viewport.Skin, Scro
         }
 
         int scrollLeft = scrollPane.getScrollLeft();
+        int viewLeft = rowHeaderWidth - scrollLeft;
 
-        if (view != null && view.isShowing() && isOptimizeScrolling()) {
-            Bounds blitArea = view.getVisibleArea();
-
-            int blitX = blitArea.x + view.getX();
-            int blitY = blitArea.y + view.getY();
-            int blitWidth = blitArea.width;
-            int blitHeight = blitArea.height;
-
-            if (columnHeader != null) {
-                // Blit the column header as well
-                int columnHeaderHeight = columnHeader.getHeight();
-                blitY -= columnHeaderHeight;
-                blitHeight += columnHeaderHeight;
-            }
-
-            int deltaScrollLeft = scrollLeft - previousScrollLeft;
-            blitX += Math.max(deltaScrollLeft, 0);
-            blitWidth -= Math.abs(deltaScrollLeft);
-
-            Graphics2D graphics = scrollPane.getGraphics();
-            graphics.copyArea(blitX, blitY, blitWidth, blitHeight, -deltaScrollLeft, 0);
-
-            scrollPane.setConsumeRepaint(true);
-            try {
-                view.setLocation(rowHeaderWidth - scrollLeft, view.getY());
-
-                if (columnHeader != null) {
-                    columnHeader.setLocation(rowHeaderWidth - scrollLeft, 0);
-                }
-            } finally {
-                scrollPane.setConsumeRepaint(false);
-            }
+        // Scroll the column header along with the view
+        Bounds scrollArea = getViewportBounds();
+        if (columnHeader != null) {
+            scrollArea = scrollArea.union(scrollArea.x, 0, scrollArea.width, columnHeader.getHeight());
+        }
 
-            boolean repaintAllViewport = scrollPane.isRepaintAllViewport();
-            if (!repaintAllViewport) {
-                scrollPane.repaint(rowHeaderWidth + (deltaScrollLeft > 0 ? blitWidth : 0), blitY,
-                    Math.abs(deltaScrollLeft), blitHeight, true);
-            } else {
-                Bounds viewportBounds = getViewportBounds();
-                scrollPane.repaint(viewportBounds.x, viewportBounds.y, viewportBounds.width,
-                    viewportBounds.height, true);
-            }
-        } else {
+        scrollPane.getBlitter().scroll(scrollArea, () -> {
             if (view != null) {
-                view.setLocation(rowHeaderWidth - scrollLeft, view.getY());
+                view.setLocation(viewLeft, view.getY());
             }
 
             if (columnHeader != null) {
-                columnHeader.setLocation(rowHeaderWidth - scrollLeft, 0);
+                columnHeader.setLocation(viewLeft, 0);
             }
-        }
+        });
 
         if (scrollLeft >= 0 && scrollLeft <= getMaxScrollLeft()) {
             horizontalScrollBar.setValue(scrollLeft);
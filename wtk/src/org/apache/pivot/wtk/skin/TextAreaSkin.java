@@ -34,6 +34,9 @@ import org.apache.pivot.collections.Sequence;
 import org.apache.pivot.text.CharSpan;
 import org.apache.pivot.util.CharUtils;
 import org.apache.pivot.util.Utils;
+import org.apache.pivot.util.concurrent.Task;
+import org.apache.pivot.util.concurrent.TaskGroup;
+import org.apache.pivot.util.concurrent.TaskListener;
 import org.apache.pivot.wtk.ApplicationContext;
 import org.apache.pivot.wtk.Bounds;
 import org.apache.pivot.wtk.Component;
@@ -45,6 +48,7 @@ import org.apache.pivot.wtk.Keyboard;
 import org.apache.pivot.wtk.Mouse;
 import org.apache.pivot.wtk.Platform;
 import org.apache.pivot.wtk.SelectDirection;
+import org.apache.pivot.wtk.TaskAdapter;
 import org.apache.pivot.wtk.TextArea;
 import org.apache.pivot.wtk.TextAreaContentListener;
 import org.apache.pivot.wtk.TextAreaListener;
@@ -118,6 +122,116 @@ public class TextAreaSkin extends ComponentSkin implements TextArea.Skin, TextAr
         }
     }
 
+    /**
+     * Re-wraps paragraphs at a new break width on background threads, in
+     * parallel batches. The results are applied on the UI thread all at once,
+     * unless the re-wrap has been cancelled in the meantime.
+     */
+    private final class Rewrap implements TaskListener<Void> {
+        /**
+         * Wraps a contiguous batch of paragraphs.
+         */
+        private final class BatchTask extends Task<Void> {
+            private final TextAreaSkinParagraphView[] views;
+            private final String[] texts;
+            private final int[] modificationCounts;
+            private final TextAreaSkinParagraphView.Wrapping[] wrappings;
+
+            BatchTask(final Sequence<TextAreaSkinParagraphView> paragraphViewsArgument,
+                final int start, final int end) {
+                int count = end - start;
+                views = new TextAreaSkinParagraphView[count];
+                texts = new String[count];
+                modificationCounts = new int[count];
+                wrappings = new TextAreaSkinParagraphView.Wrapping[count];
+
+                // Take a snapshot of the text, since it may change while we work
+                for (int i = 0; i < count; i++) {
+                    TextAreaSkinParagraphView paragraphView = paragraphViewsArgument.get(start + i);
+                    views[i] = paragraphView;
+                    texts[i] = paragraphView.getParagraph().getCharacters().toString();
+                    modificationCounts[i] = paragraphView.getModificationCount();
+                }
+            }
+
+            @Override
+            public Void execute() {
+                for (int i = 0; i < views.length && !abort; i++) {
+                    wrappings[i] = TextAreaSkinParagraphView.wrap(texts[i], rewrapFont,
+                        fontRenderContext, breakWidth);
+                }
+
+                return null;
+            }
+
+            void apply() {
+                for (int i = 0; i < views.length; i++) {
+                    TextAreaSkinParagraphView paragraphView = views[i];
+
+                    if (wrappings[i] != null && paragraphView.isValid()
+                        && paragraphView.getBreakWidth() != breakWidth
+                        && paragraphView.getModificationCount() == modificationCounts[i]) {
+                        paragraphView.setWrapping(breakWidth, wrappings[i]);
+                    }
+                }
+            }
+        }
+
+        private final int breakWidth;
+        private final Font rewrapFont;
+        private final FontRenderContext fontRenderContext;
+        private final ArrayList<BatchTask> batchTasks = new ArrayList<>();
+        private final TaskGroup taskGroup = new TaskGroup();
+
+        Rewrap(final Sequence<TextAreaSkinParagraphView> paragraphViewsArgument,
+            final int breakWidthValue) {
+            breakWidth = breakWidthValue;
+            rewrapFont = font;
+            fontRenderContext = Platform.getFontRenderContext();
+
+            int n = paragraphViewsArgument.getLength();
+            int batchCount = Math.max(Math.min(Runtime.getRuntime().availableProcessors(),
+                n / MINIMUM_REWRAP_BATCH_SIZE), 1);
+
+            for (int i = 0; i < batchCount; i++) {
+                BatchTask batchTask = new BatchTask(paragraphViewsArgument, i * n / batchCount,
+                    (i + 1) * n / batchCount);
+                batchTasks.add(batchTask);
+                taskGroup.add(batchTask);
+            }
+        }
+
+        void start() {
+            taskGroup.execute(new TaskAdapter<>(this));
+        }
+
+        void cancel() {
+            taskGroup.abort();
+        }
+
+        @Override
+        public void taskExecuted(final Task<Void> task) {
+            if (rewrap == this) {
+                rewrap = null;
+
+                if (font == rewrapFont) {
+                    for (BatchTask batchTask : batchTasks) {
+                        batchTask.apply();
+                    }
+
+                    invalidateComponent();
+                }
+            }
+        }
+
+        @Override
+        public void executeFailed(final Task<Void> task) {
+            if (rewrap == this) {
+                rewrap = null;
+            }
+        }
+    }
+
     /** X-position of the caret/input cursor. */
     private int caretX = 0;
     /** The current caret area. */
@@ -200,6 +314,17 @@ public class TextAreaSkin extends ComponentSkin implements TextArea.Skin, TextAr
     /** Constant milliseconds between scroll intervals. */
     private static final int SCROLL_RATE = 30;
 
+    /**
+     * Number of paragraphs above which only the visible ones are re-wrapped right
+     * away when the break width changes; the rest are re-wrapped in the background.
+     */
+    private static final int DEFERRED_REWRAP_THRESHOLD = 100;
+    /** The smallest number of paragraphs re-wrapped by one background batch. */
+    private static final int MINIMUM_REWRAP_BATCH_SIZE = 64;
+
+    /** The background re-wrap currently in progress, if any. */
+    private Rewrap rewrap = null;
+
 
     /**
      * Default constructor that sets the default colors, fonts, etc.
@@ -268,8 +393,9 @@ public class TextAreaSkin extends ComponentSkin implements TextArea.Skin, TextAr
         int breakWidth = (wrapText && width != -1)
             ? Math.max(width - margin.getWidth(), 0) : Integer.MAX_VALUE;
 
+        wrapParagraphs(breakWidth);
+
         for (TextAreaSkinParagraphView paragraphView : paragraphViews) {
-            paragraphView.setBreakWidth(breakWidth);
             preferredHeight += paragraphView.getHeight();
         }
 
@@ -308,10 +434,11 @@ public class TextAreaSkin extends ComponentSkin implements TextArea.Skin, TextAr
         int lastY = 0;
         int lastHeight = 0;
 
+        wrapParagraphs(breakWidth);
+
         int rowOffset = 0;
         int index = 0;
         for (TextAreaSkinParagraphView paragraphView : paragraphViews) {
-            paragraphView.setBreakWidth(breakWidth);
             paragraphView.setX(margin.left);
             paragraphView.setY(y);
             lastY = y;
@@ -368,22 +495,78 @@ public class TextAreaSkin extends ComponentSkin implements TextArea.Skin, TextAr
 
         // Draw the text
         graphics.setFont(font);
-        graphics.translate(0, margin.top);
 
         int breakWidth = (wrapText) ? Math.max(width - margin.getWidth(), 0)
             : Integer.MAX_VALUE;
 
+        Rectangle clipBounds = graphics.getClipBounds();
+        int clipTop = (clipBounds == null) ? 0 : clipBounds.y;
+        int clipBottom = (clipBounds == null) ? height : clipBounds.y + clipBounds.height;
+
         for (int i = 0, n = paragraphViews.getLength(); i < n; i++) {
             TextAreaSkinParagraphView paragraphView = paragraphViews.get(i);
-            paragraphView.setBreakWidth(breakWidth);
-            paragraphView.validate();
+            int y = paragraphView.getY();
 
-            int x = paragraphView.getX();
-            graphics.translate(x, 0);
-            paragraphView.paint(graphics);
-            graphics.translate(-x, 0);
+            if (y >= clipBottom) {
+                break;
+            }
+
+            if (y + paragraphView.getHeight() > clipTop) {
+                // A visible paragraph that is still waiting to be re-wrapped in the
+                // background is re-wrapped now
+                if (paragraphView.getBreakWidth() != breakWidth) {
+                    int previousHeight = paragraphView.getHeight();
+                    paragraphView.setBreakWidth(breakWidth);
+
+                    if (paragraphView.getHeight() != previousHeight) {
+                        invalidateComponent();
+                    }
+                }
+
+                int x = paragraphView.getX();
+                graphics.translate(x, y);
+                paragraphView.paint(graphics);
+                graphics.translate(-x, -y);
+            }
+        }
+    }
+
+    /**
+     * Wraps the paragraphs at the given width. When the text area is showing and
+     * has many paragraphs, only the paragraphs that are visible (or have never
+     * been wrapped) are wrapped right away; the others keep their current rows
+     * and are re-wrapped in the background.
+     *
+     * @param breakWidth The width at which the rows should break.
+     */
+    private void wrapParagraphs(final int breakWidth) {
+        Bounds visibleArea = null;
+        if (paragraphViews.getLength() > DEFERRED_REWRAP_THRESHOLD) {
+            visibleArea = getTextArea().getVisibleArea();
+        }
+
+        ArrayList<TextAreaSkinParagraphView> pendingViews = new ArrayList<>();
+
+        for (TextAreaSkinParagraphView paragraphView : paragraphViews) {
+            if (paragraphView.getBreakWidth() != breakWidth) {
+                if (visibleArea == null || !paragraphView.isValid()
+                    || (paragraphView.getY() < visibleArea.y + visibleArea.height
+                        && paragraphView.getY() + paragraphView.getHeight() > visibleArea.y)) {
+                    paragraphView.setBreakWidth(breakWidth);
+                } else {
+                    pendingViews.add(paragraphView);
+                }
+            }
+        }
+
+        if (rewrap != null && (pendingViews.isEmpty() || rewrap.breakWidth != breakWidth)) {
+            rewrap.cancel();
+            rewrap = null;
+        }
 
-            graphics.translate(0, paragraphView.getHeight());
+        if (rewrap == null && !pendingViews.isEmpty()) {
+            rewrap = new Rewrap(pendingViews, breakWidth);
+            rewrap.start();
         }
     }
 
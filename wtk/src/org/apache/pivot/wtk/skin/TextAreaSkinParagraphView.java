@@ -51,6 +51,27 @@ class TextAreaSkinParagraphView implements TextArea.ParagraphListener {
         }
     }
 
+    /**
+     * The rows and size of a paragraph broken at a given width.
+     */
+    static final class Wrapping {
+        private final ArrayList<Row> rows = new ArrayList<>();
+        private float width = 0;
+        private float height = 0;
+
+        private void appendLine(final CharSequence characters, final int start, final int end,
+            final Font font, final FontRenderContext fontRenderContext) {
+            CharSequenceCharacterIterator line = new CharSequenceCharacterIterator(characters, start,
+                end, start);
+            GlyphVector glyphVector = font.createGlyphVector(fontRenderContext, line);
+            rows.add(new Row(glyphVector, start));
+
+            Rectangle2D textBounds = glyphVector.getLogicalBounds();
+            width = Math.max(width, (float) textBounds.getWidth());
+            height += textBounds.getHeight();
+        }
+    }
+
     private TextAreaSkin textAreaSkin;
     private TextArea.Paragraph paragraph;
 
@@ -64,6 +85,7 @@ class TextAreaSkinParagraphView implements TextArea.ParagraphListener {
     private int rowOffset = 0;
 
     private boolean valid = false;
+    private int modificationCount = 0;
     private ArrayList<Row> rows = new ArrayList<>();
 
     private static final int PARAGRAPH_TERMINATOR_WIDTH = 2;
@@ -201,77 +223,99 @@ class TextAreaSkinParagraphView implements TextArea.ParagraphListener {
         // TODO Validate from known invalid offset rather than 0, so we don't need to
         // recalculate all glyph vectors
         if (!valid) {
-            rows = new ArrayList<>();
-            width = 0;
-            height = 0;
-
-            // Re-layout glyphs and recalculate size
-            Font font = textAreaSkin.getFont();
-            FontRenderContext fontRenderContext = Platform.getFontRenderContext();
-
-            CharSequence characters = paragraph.getCharacters();
-            int n = characters.length();
-
-            int i = 0;
-            int start = 0;
-            float rowWidth = 0;
-            int lastWhitespaceIndex = -1;
-
-            // NOTE We use a character iterator here only because it is the most
-            // efficient way to measure the character bounds (as of Java 6, the version
-            // of Font#getStringBounds() that takes a String performs a string copy,
-            // whereas the version that takes a character iterator does not)
-            CharSequenceCharacterIterator ci = new CharSequenceCharacterIterator(characters);
-            while (i < n) {
-                char c = characters.charAt(i);
-                if (Character.isWhitespace(c)) {
-                    lastWhitespaceIndex = i;
-                }
+            setWrapping(breakWidth, wrap(paragraph.getCharacters(), textAreaSkin.getFont(),
+                Platform.getFontRenderContext(), breakWidth));
+        }
+    }
 
-                Rectangle2D characterBounds = font.getStringBounds(ci, i, i + 1, fontRenderContext);
-                rowWidth += characterBounds.getWidth();
-
-                if (rowWidth > breakWidth) {
-                    if (lastWhitespaceIndex == -1) {
-                        if (start == i) {
-                            appendLine(characters, start, start + 1, font, fontRenderContext);
-                        } else {
-                            appendLine(characters, start, i, font, fontRenderContext);
-                            i--;
-                        }
-                    } else {
-                        appendLine(characters, start, lastWhitespaceIndex + 1, font,
-                            fontRenderContext);
-                        i = lastWhitespaceIndex;
-                    }
+    public boolean isValid() {
+        return valid;
+    }
 
-                    start = i + 1;
+    /**
+     * @return The number of times the text of the paragraph has changed, used
+     * to tell whether a wrapping computed in the background is still current.
+     */
+    int getModificationCount() {
+        return modificationCount;
+    }
 
-                    rowWidth = 0;
-                    lastWhitespaceIndex = -1;
-                }
+    /**
+     * Installs rows computed by {@link #wrap} and marks this view as valid.
+     *
+     * @param breakWidthValue The width at which the rows were wrapped.
+     * @param wrapping The wrapped rows.
+     */
+    void setWrapping(final int breakWidthValue, final Wrapping wrapping) {
+        breakWidth = breakWidthValue;
+        rows = wrapping.rows;
+        width = wrapping.width;
+        height = wrapping.height;
+        valid = true;
+    }
 
-                i++;
+    /**
+     * Breaks the characters of a paragraph into rows. This does not touch any
+     * view or skin state, so it may be called on a background thread.
+     *
+     * @param characters The text of the paragraph.
+     * @param font The font to lay the text out in.
+     * @param fontRenderContext The font render context to use.
+     * @param breakWidth The width at which the rows should break.
+     * @return The rows and size of the paragraph.
+     */
+    static Wrapping wrap(final CharSequence characters, final Font font,
+        final FontRenderContext fontRenderContext, final int breakWidth) {
+        Wrapping wrapping = new Wrapping();
+        int n = characters.length();
+
+        int i = 0;
+        int start = 0;
+        float rowWidth = 0;
+        int lastWhitespaceIndex = -1;
+
+        // NOTE We use a character iterator here only because it is the most
+        // efficient way to measure the character bounds (as of Java 6, the version
+        // of Font#getStringBounds() that takes a String performs a string copy,
+        // whereas the version that takes a character iterator does not)
+        CharSequenceCharacterIterator ci = new CharSequenceCharacterIterator(characters);
+        while (i < n) {
+            char c = characters.charAt(i);
+            if (Character.isWhitespace(c)) {
+                lastWhitespaceIndex = i;
             }
 
-            appendLine(characters, start, i, font, fontRenderContext);
+            Rectangle2D characterBounds = font.getStringBounds(ci, i, i + 1, fontRenderContext);
+            rowWidth += characterBounds.getWidth();
+
+            if (rowWidth > breakWidth) {
+                if (lastWhitespaceIndex == -1) {
+                    if (start == i) {
+                        wrapping.appendLine(characters, start, start + 1, font, fontRenderContext);
+                    } else {
+                        wrapping.appendLine(characters, start, i, font, fontRenderContext);
+                        i--;
+                    }
+                } else {
+                    wrapping.appendLine(characters, start, lastWhitespaceIndex + 1, font,
+                        fontRenderContext);
+                    i = lastWhitespaceIndex;
+                }
+
+                start = i + 1;
+
+                rowWidth = 0;
+                lastWhitespaceIndex = -1;
+            }
 
-            width = Math.max(width, PARAGRAPH_TERMINATOR_WIDTH);
+            i++;
         }
 
-        valid = true;
-    }
+        wrapping.appendLine(characters, start, i, font, fontRenderContext);
 
-    private void appendLine(final CharSequence characters, final int start, final int end, final Font font,
-        final FontRenderContext fontRenderContext) {
-        CharSequenceCharacterIterator line = new CharSequenceCharacterIterator(characters, start,
-            end, start);
-        GlyphVector glyphVector = font.createGlyphVector(fontRenderContext, line);
-        rows.add(new Row(glyphVector, start));
+        wrapping.width = Math.max(wrapping.width, PARAGRAPH_TERMINATOR_WIDTH);
 
-        Rectangle2D textBounds = glyphVector.getLogicalBounds();
-        width = Math.max(width, (float) textBounds.getWidth());
-        height += textBounds.getHeight();
+        return wrapping;
     }
 
     public int getInsertionPoint(final int xArgument, final int yArgument) {
@@ -413,12 +457,14 @@ class TextAreaSkinParagraphView implements TextArea.ParagraphListener {
 
     @Override
     public void textInserted(TextArea.Paragraph paragraphArgument, int index, int count) {
+        modificationCount++;
         invalidate();
         textAreaSkin.invalidateComponent();
     }
 
     @Override
     public void textRemoved(TextArea.Paragraph paragraphArgument, int index, int count) {
+        modificationCount++;
         invalidate();
         textAreaSkin.invalidateComponent();
     }
@@ -44,6 +44,7 @@ import org.apache.pivot.wtk.Keyboard;
 import org.apache.pivot.wtk.Mouse;
 import org.apache.pivot.wtk.Platform;
 import org.apache.pivot.wtk.SelectDirection;
+import org.apache.pivot.wtk.Span;
 import org.apache.pivot.wtk.TextInputMethodListener;
 import org.apache.pivot.wtk.TextPane;
 import org.apache.pivot.wtk.TextPaneListener;
@@ -305,6 +306,9 @@ org.apache.pivot.util.Console.getDefault().logMethod("****",
 
     private static final int SCROLL_RATE = 30;
 
+    // Number of top-level blocks above which only the visible ones are laid out
+    private static final int DEFERRED_LAYOUT_THRESHOLD = 100;
+
     public TextPaneSkin() {
         font = getThemeFont();
 
@@ -1509,6 +1513,26 @@ org.apache.pivot.util.Console.getDefault().logMethod("****",
         return selection;
     }
 
+    /**
+     * @return The vertical band of the document view (as top and bottom
+     * y-coordinates) that is currently visible, or {@code null} if the whole
+     * document should be laid out, because it is short or not showing.
+     */
+    Span getVisibleBand() {
+        Span band = null;
+
+        if (documentView != null && documentView.getLength() > DEFERRED_LAYOUT_THRESHOLD) {
+            Bounds visibleArea = getTextPane().getVisibleArea();
+
+            if (visibleArea != null) {
+                int top = visibleArea.y - margin.top;
+                band = new Span(top, top + Math.max(visibleArea.height, 1) - 1);
+            }
+        }
+
+        return band;
+    }
+
     void invalidateNodeViewTree() {
         this.documentView.invalidateDownTree();
         invalidateComponent();
@@ -16,6 +16,7 @@
  */
 package org.apache.pivot.wtk.skin;
 
+import org.apache.pivot.wtk.Span;
 import org.apache.pivot.wtk.text.Document;
 
 /**
@@ -27,6 +28,11 @@ class TextPaneSkinDocumentView extends TextPaneSkinVerticalElementView {
         super(textPaneSkin, document);
     }
 
+    @Override
+    protected Span getLayoutBand() {
+        return textPaneSkin.getVisibleBand();
+    }
+
     @Override
     public void repaint(int x, int y, int width, int height) {
         super.repaint(x, y, width, height);
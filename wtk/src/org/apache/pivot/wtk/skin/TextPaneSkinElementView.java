@@ -80,6 +80,14 @@ abstract class TextPaneSkinElementView extends TextPaneSkinNodeView implements
         }
     }
 
+    @Override
+    protected void releaseLayout() {
+        for (TextPaneSkinNodeView child : this) {
+            child.releaseLayout();
+        }
+        super.releaseLayout();
+    }
+
     @Override
     public int add(TextPaneSkinNodeView nodeView) {
         int index = getLength();
@@ -140,6 +140,24 @@ abstract class TextPaneSkinNodeView implements NodeListener {
         repaint();
     }
 
+    /**
+     * Sets the location and size of this view without repainting it; used by
+     * parent views that repaint their whole area once their children have been
+     * placed.
+     *
+     * @param xValue The new x-coordinate.
+     * @param yValue The new y-coordinate.
+     * @param widthValue The new width.
+     * @param heightValue The new height.
+     */
+    final void setBoundsQuietly(final int xValue, final int yValue, final int widthValue,
+        final int heightValue) {
+        this.x = xValue;
+        this.y = yValue;
+        this.width = widthValue;
+        this.height = heightValue;
+    }
+
     public Bounds getBounds() {
         return new Bounds(x, y, width, height);
     }
@@ -173,6 +191,31 @@ abstract class TextPaneSkinNodeView implements NodeListener {
         valid = false;
     }
 
+    /**
+     * Discards whatever this view keeps from its last layout (text layouts,
+     * rows, etc.) to save memory. The size of the view is kept, and the view
+     * will be laid out again before it is next painted or queried.
+     */
+    protected void releaseLayout() {
+        valid = false;
+    }
+
+    /**
+     * @return The break width of the last layout of this view, or <tt>-1</tt>
+     * if it has never been laid out.
+     */
+    final int getPreviousBreakWidth() {
+        return previousBreakWidth;
+    }
+
+    /**
+     * @return Whether this view is valid and was laid out at the given width.
+     * @param breakWidth The width at which lines should break.
+     */
+    final boolean isLaidOut(final int breakWidth) {
+        return valid && previousBreakWidth == breakWidth;
+    }
+
     /**
      * Layout our children given the width to use for line breaks.
      *
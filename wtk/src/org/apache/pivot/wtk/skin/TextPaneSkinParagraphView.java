@@ -63,6 +63,27 @@ class TextPaneSkinParagraphView extends TextPaneSkinBlockView {
         terminatorBounds = null;
     }
 
+    @Override
+    protected void releaseLayout() {
+        rows = null;
+        super.releaseLayout();
+    }
+
+    /**
+     * @return Whether this paragraph contains only text, so that its layout can
+     * be estimated from its character count and deferred until it is visible.
+     */
+    boolean isTextOnly() {
+        for (TextPaneSkinNodeView nodeView : this) {
+            if (!(nodeView instanceof TextPaneSkinTextNodeView
+                || nodeView instanceof TextPaneSkinSpanView)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     protected void childLayout(final int breakWidth) {
         // Break the views into multiple rows
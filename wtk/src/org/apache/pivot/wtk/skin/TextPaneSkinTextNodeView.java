@@ -87,6 +87,15 @@ class TextPaneSkinTextNodeView extends TextPaneSkinNodeView implements TextNodeL
         super.invalidateUpTree();
     }
 
+    @Override
+    protected void releaseLayout() {
+        length = 0;
+        next = null;
+        textLayout = null;
+
+        super.releaseLayout();
+    }
+
     /**
      * Do the heavy lifting to figure out the size of the text that is
      * being displayed.  This could be a combination of composed and committed
@@ -16,57 +16,278 @@
  */
 package org.apache.pivot.wtk.skin;
 
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.wtk.ApplicationContext;
 import org.apache.pivot.wtk.Bounds;
 import org.apache.pivot.wtk.Dimensions;
+import org.apache.pivot.wtk.Platform;
+import org.apache.pivot.wtk.Span;
 import org.apache.pivot.wtk.TextPane;
 import org.apache.pivot.wtk.text.Element;
 
 /**
  * Some of the classes in the text hierarchy are very similar in layout ie. they
  * lay their children out vertically. This class groups that functionality.
+ * <p> When a {@link #getLayoutBand layout band} is given, only the children
+ * within it are laid out; paragraphs of plain text outside of it are given an
+ * estimated size and are laid out when they are first painted or queried.
+ * Paragraphs that scroll far out of view give up their layout again.
  */
 abstract class TextPaneSkinVerticalElementView extends TextPaneSkinElementView {
+    // Number of deferred views whose layout is kept before the ones far from
+    // the layout band are released
+    private static final int MAXIMUM_RESIDENT_VIEWS = 256;
+
+    // Sample used to estimate the average width of a character
+    private static final String SAMPLE_TEXT = "abcdefghijklmnopqrstuvwxyz";
+
+    private int skinX = 0;
+    private int skinY = 0;
+
+    // Deferred views that are currently laid out
+    private ArrayList<TextPaneSkinNodeView> residentViews = new ArrayList<>();
+
+    // Metrics used to estimate the size of deferred views
+    private float averageCharacterWidth = 0;
+    private int lineHeight = 0;
 
     public TextPaneSkinVerticalElementView(TextPaneSkin textPaneSkin, Element element) {
         super(textPaneSkin, element);
     }
 
+    /**
+     * @return The vertical band of this view (as top and bottom y-coordinates)
+     * that needs to be laid out, or {@code null} to lay out all of the children.
+     */
+    protected Span getLayoutBand() {
+        return null;
+    }
+
+    /**
+     * @return Whether the layout of the given child may be deferred until it
+     * is visible.
+     */
+    private static boolean isDeferrable(TextPaneSkinNodeView nodeView) {
+        return (nodeView instanceof TextPaneSkinParagraphView
+            && ((TextPaneSkinParagraphView) nodeView).isTextOnly());
+    }
+
+    private void updateMetrics() {
+        Font font = getTextPaneSkin().getFont();
+        FontRenderContext fontRenderContext = Platform.getFontRenderContext();
+        LineMetrics lm = font.getLineMetrics("", 0, 0, fontRenderContext);
+
+        lineHeight = (int) Math.ceil(lm.getHeight());
+        averageCharacterWidth = (float) font.getStringBounds(SAMPLE_TEXT, fontRenderContext).getWidth()
+            / SAMPLE_TEXT.length();
+    }
+
+    /**
+     * @return The estimated size of a deferred child, based on its character
+     * count.
+     */
+    private Dimensions getEstimatedSize(TextPaneSkinNodeView nodeView, int breakWidth) {
+        int textWidth = (int) Math.ceil(Math.max(nodeView.getCharacterCount() - 1, 0)
+            * averageCharacterWidth);
+
+        int rowCount = 1;
+        if (breakWidth > 0 && textWidth > breakWidth) {
+            rowCount = (textWidth + breakWidth - 1) / breakWidth;
+        }
+
+        return new Dimensions(Math.min(textWidth, breakWidth), rowCount * lineHeight);
+    }
+
+    /**
+     * Gives a deferred child that is not laid out at the given width an
+     * estimated size; the size of a child that was laid out at this width
+     * before is kept as it is.
+     */
+    private void estimateSize(TextPaneSkinNodeView nodeView, int breakWidth) {
+        if (nodeView.getPreviousBreakWidth() != breakWidth) {
+            Dimensions size = getEstimatedSize(nodeView, breakWidth);
+            nodeView.setBoundsQuietly(nodeView.getX(), nodeView.getY(), size.width, size.height);
+        }
+    }
+
+    private void layoutDeferred(TextPaneSkinNodeView nodeView, int breakWidth) {
+        nodeView.layout(breakWidth);
+
+        if (residentViews.indexOf(nodeView) == -1) {
+            residentViews.add(nodeView);
+        }
+    }
+
+    /**
+     * Releases the layout of deferred views that are far from the given band,
+     * once there are too many of them.
+     */
+    private void releaseViews(Span band) {
+        if (residentViews.getLength() > MAXIMUM_RESIDENT_VIEWS) {
+            long margin = 2 * band.getLength();
+            long top = band.start - margin;
+            long bottom = band.end + margin;
+
+            for (int i = residentViews.getLength() - 1; i >= 0; i--) {
+                TextPaneSkinNodeView nodeView = residentViews.get(i);
+
+                if (nodeView.getParent() != this) {
+                    residentViews.remove(i, 1);
+                } else if (nodeView.getY() + nodeView.getHeight() < top || nodeView.getY() > bottom) {
+                    nodeView.releaseLayout();
+                    residentViews.remove(i, 1);
+                }
+            }
+        }
+    }
+
     @Override
     protected void childLayout(int breakWidth) {
-        // TODO At some point, we may want to optimize this method by deferring layout of
-        // non-visible views. If so, we should not recycle views but rather recreate them
-        // (as is done in ParagraphView). This way, we avoid thread contention over the
-        // existing views (e.g. trying to paint one while modifying its size/location, etc.).
-        // Any invalid node views are simply replaced (in the queued callback, when the
-        // thread has finished processing the new ones). This allows the definition of
-        // validate() to remain as-is. Of course, if we redefine NodeView to implement
-        // ConstrainedVisual, this may no longer be an issue.
-        // Note that, if anything happens to invalidate the existence of the new views before
-        // they are added to the document view, we need to make sure they are disposed (i.e.
-        // detached).
+        Span band = getLayoutBand();
+        if (band == null) {
+            residentViews.clear();
+        } else {
+            updateMetrics();
+        }
 
         int width = 0;
         int height = 0;
+        boolean estimateChanged = false;
 
         for (TextPaneSkinNodeView nodeView : this) {
-            nodeView.layout(breakWidth);
+            if (band != null && isDeferrable(nodeView) && !nodeView.isLaidOut(breakWidth)) {
+                estimateSize(nodeView, breakWidth);
+
+                if (height + nodeView.getHeight() > band.start && height <= band.end) {
+                    int estimatedHeight = nodeView.getHeight();
+                    layoutDeferred(nodeView, breakWidth);
+                    estimateChanged |= (nodeView.getHeight() != estimatedHeight);
+                }
+            } else {
+                nodeView.layout(breakWidth);
+            }
 
-            nodeView.setLocation(0, height);
+            // The whole view is repainted when its size is set below
+            nodeView.setBoundsQuietly(0, height, nodeView.getWidth(), nodeView.getHeight());
 
             width = Math.max(width, nodeView.getWidth());
             height += nodeView.getHeight();
         }
 
         setSize(width, height);
+
+        if (band != null) {
+            releaseViews(band);
+        }
+
+        // The text pane was sized with the estimates, so its preferred height
+        // has changed; it is being laid out, so it can't be invalidated until
+        // the layout is done
+        if (estimateChanged) {
+            ApplicationContext.queueCallback(getTextPaneSkin()::invalidateComponent);
+        }
+    }
+
+    /**
+     * Returns the child at the given index, laying it out first if its layout
+     * was deferred. If its height turns out to differ from the estimate, the
+     * children that follow it are moved and the text pane is invalidated.
+     */
+    private TextPaneSkinNodeView getLaidOutView(int index) {
+        TextPaneSkinNodeView nodeView = get(index);
+        int breakWidth = getPreviousBreakWidth();
+
+        if (breakWidth != -1 && !nodeView.isLaidOut(breakWidth) && isDeferrable(nodeView)) {
+            int previousHeight = nodeView.getHeight();
+
+            layoutDeferred(nodeView, breakWidth);
+            nodeView.setSkinLocation(skinX, skinY + nodeView.getY());
+
+            int delta = nodeView.getHeight() - previousHeight;
+            if (delta != 0) {
+                for (int i = index + 1, n = getLength(); i < n; i++) {
+                    TextPaneSkinNodeView sibling = get(i);
+                    sibling.setBoundsQuietly(sibling.getX(), sibling.getY() + delta,
+                        sibling.getWidth(), sibling.getHeight());
+                }
+            }
+
+            if (delta != 0 || nodeView.getWidth() > getWidth()) {
+                setSize(Math.max(getWidth(), nodeView.getWidth()), getHeight() + delta);
+                invalidateUpTree();
+            }
+        }
+
+        return nodeView;
+    }
+
+    /**
+     * @return The index of the child at the given y-coordinate, or <tt>-1</tt>
+     * if there is none.
+     */
+    private int getChildIndexAt(int y) {
+        int low = 0;
+        int high = getLength() - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            TextPaneSkinNodeView nodeView = get(mid);
+
+            if (y < nodeView.getY()) {
+                high = mid - 1;
+            } else if (y >= nodeView.getY() + nodeView.getHeight()) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return The index of the child containing the given offset, or
+     * <tt>-1</tt> if there is none.
+     */
+    private int getChildIndexAtOffset(int offset) {
+        Element element = (Element) getNode();
+
+        int index = -1;
+        if (offset >= 0 && offset < element.getCharacterCount()) {
+            index = element.getNodeAt(offset);
+        }
+
+        return (index < getLength()) ? index : -1;
     }
 
     @Override
     public Dimensions getPreferredSize(int breakWidth) {
+        boolean deferred = (getLayoutBand() != null);
+        if (deferred) {
+            updateMetrics();
+        }
+
         int width = 0;
         int height = 0;
 
         for (TextPaneSkinNodeView nodeView : this) {
-            Dimensions childDimensions = nodeView.getPreferredSize(breakWidth);
+            Dimensions childDimensions;
+
+            if (nodeView.isLaidOut(breakWidth) && nodeView instanceof TextPaneSkinParagraphView) {
+                // A paragraph's preferred size is the size of its layout
+                childDimensions = nodeView.getSize();
+            } else if (deferred && isDeferrable(nodeView)) {
+                childDimensions = (nodeView.getPreviousBreakWidth() == breakWidth)
+                    ? nodeView.getSize() : getEstimatedSize(nodeView, breakWidth);
+            } else {
+                childDimensions = nodeView.getPreferredSize(breakWidth);
+            }
 
             width = Math.max(width, childDimensions.width);
             height += childDimensions.height;
@@ -76,25 +297,72 @@ abstract class TextPaneSkinVerticalElementView extends TextPaneSkinElementView {
     }
 
     @Override
-    protected void setSkinLocation(int skinX, int skinY) {
-        super.setSkinLocation(skinX, skinY);
+    protected void setSkinLocation(int skinXValue, int skinYValue) {
+        super.setSkinLocation(skinXValue, skinYValue);
+        this.skinX = skinXValue;
+        this.skinY = skinYValue;
+
         for (TextPaneSkinNodeView nodeView : this) {
-            nodeView.setSkinLocation(skinX, skinY + nodeView.getY());
+            if (nodeView.isValid()) {
+                nodeView.setSkinLocation(skinXValue, skinYValue + nodeView.getY());
+            }
+        }
+    }
+
+    @Override
+    public void paint(Graphics2D graphics) {
+        // Determine the paint bounds
+        Bounds paintBounds = new Bounds(0, 0, getWidth(), getHeight());
+        Rectangle clipBounds = graphics.getClipBounds();
+        if (clipBounds != null) {
+            paintBounds = paintBounds.intersect(clipBounds);
+        }
+
+        // Paint only the children that intersect the paint bounds; they are
+        // laid out as needed
+        int i = Math.max(getChildIndexAt(paintBounds.y), 0);
+        for (int n = getLength(); i < n && get(i).getY() < paintBounds.y + paintBounds.height; i++) {
+            paintChild(graphics, paintBounds, getLaidOutView(i));
+        }
+
+        Span band = getLayoutBand();
+        if (band != null) {
+            releaseViews(band);
         }
     }
 
+    @Override
+    public Bounds getCharacterBounds(int offset) {
+        Bounds characterBounds = null;
+
+        int i = getChildIndexAtOffset(offset);
+        if (i != -1) {
+            TextPaneSkinNodeView nodeView = getLaidOutView(i);
+            characterBounds = nodeView.getCharacterBounds(offset - nodeView.getOffset());
+
+            if (characterBounds != null) {
+                characterBounds = characterBounds.translate(nodeView.getX(), nodeView.getY())
+                    .intersect(0, 0, getWidth(), getHeight());
+            }
+        }
+
+        return characterBounds;
+    }
+
     @Override
     public int getInsertionPoint(int x, int y) {
         int offset = -1;
 
-        for (int i = 0, n = getLength(); i < n; i++) {
-            TextPaneSkinNodeView nodeView = get(i);
-            Bounds nodeViewBounds = nodeView.getBounds();
+        int i = getChildIndexAt(y);
+        if (i != -1) {
+            TextPaneSkinNodeView nodeView = getLaidOutView(i);
 
-            if (y >= nodeViewBounds.y && y < nodeViewBounds.y + nodeViewBounds.height) {
+            // Laying the view out may have changed its height
+            if (y < nodeView.getY() + nodeView.getHeight()) {
                 offset = nodeView.getInsertionPoint(x - nodeView.getX(), y - nodeView.getY())
                     + nodeView.getOffset();
-                break;
+            } else {
+                offset = getInsertionPoint(x, y);
             }
         }
 
@@ -105,10 +373,11 @@ abstract class TextPaneSkinVerticalElementView extends TextPaneSkinElementView {
     public int getNextInsertionPoint(int x, int from, TextPane.ScrollDirection direction) {
         int offset = -1;
 
-        if (getLength() > 0) {
+        int n = getLength();
+        if (n > 0) {
             if (from == -1) {
-                int i = (direction == TextPane.ScrollDirection.DOWN) ? 0 : getLength() - 1;
-                TextPaneSkinNodeView nodeView = get(i);
+                int i = (direction == TextPane.ScrollDirection.DOWN) ? 0 : n - 1;
+                TextPaneSkinNodeView nodeView = getLaidOutView(i);
                 offset = nodeView.getNextInsertionPoint(x - nodeView.getX(), -1, direction);
 
                 if (offset != -1) {
@@ -116,32 +385,19 @@ abstract class TextPaneSkinVerticalElementView extends TextPaneSkinElementView {
                 }
             } else {
                 // Find the node view that contains the offset
-                int n = getLength();
-                int i = 0;
-
-                while (i < n) {
-                    TextPaneSkinNodeView nodeView = get(i);
-                    int nodeViewOffset = nodeView.getOffset();
-                    int characterCount = nodeView.getCharacterCount();
-
-                    if (from >= nodeViewOffset && from < nodeViewOffset + characterCount) {
-                        break;
-                    }
-
-                    i++;
-                }
+                int i = getChildIndexAtOffset(from);
 
-                if (i < n) {
-                    TextPaneSkinNodeView nodeView = get(i);
+                if (i != -1) {
+                    TextPaneSkinNodeView nodeView = getLaidOutView(i);
                     offset = nodeView.getNextInsertionPoint(x - nodeView.getX(),
                         from - nodeView.getOffset(), direction);
 
                     if (offset == -1) {
                         // Move to the next or previous node view
                         if (direction == TextPane.ScrollDirection.DOWN) {
-                            nodeView = (i < n - 1) ? get(i + 1) : null;
+                            nodeView = (i < n - 1) ? getLaidOutView(i + 1) : null;
                         } else {
-                            nodeView = (i > 0) ? get(i - 1) : null;
+                            nodeView = (i > 0) ? getLaidOutView(i - 1) : null;
                         }
 
                         if (nodeView != null) {
@@ -160,20 +416,37 @@ abstract class TextPaneSkinVerticalElementView extends TextPaneSkinElementView {
         return offset;
     }
 
+    /**
+     * @return The number of rows in the given child; for a child whose layout
+     * is deferred, this is estimated from its height.
+     */
+    private int getRowCount(TextPaneSkinNodeView nodeView) {
+        int rowCount;
+        if (nodeView.isValid() || !isDeferrable(nodeView)) {
+            rowCount = nodeView.getRowCount();
+        } else {
+            if (lineHeight == 0) {
+                updateMetrics();
+            }
+
+            rowCount = Math.max(nodeView.getHeight() / lineHeight, 1);
+        }
+
+        return rowCount;
+    }
+
     @Override
     public int getRowAt(int offset) {
         int rowIndex = 0;
 
-        for (TextPaneSkinNodeView nodeView : this) {
-            int nodeViewOffset = nodeView.getOffset();
-            int characterCount = nodeView.getCharacterCount();
-
-            if (offset >= nodeViewOffset && offset < nodeViewOffset + characterCount) {
-                rowIndex += nodeView.getRowAt(offset - nodeView.getOffset());
-                break;
-            }
+        int index = getChildIndexAtOffset(offset);
+        for (int i = 0, n = (index == -1) ? getLength() : index; i < n; i++) {
+            rowIndex += getRowCount(get(i));
+        }
 
-            rowIndex += nodeView.getRowCount();
+        if (index != -1) {
+            TextPaneSkinNodeView nodeView = getLaidOutView(index);
+            rowIndex += nodeView.getRowAt(offset - nodeView.getOffset());
         }
 
         return rowIndex;
@@ -184,7 +457,7 @@ abstract class TextPaneSkinVerticalElementView extends TextPaneSkinElementView {
         int rowCount = 0;
 
         for (TextPaneSkinNodeView nodeView : this) {
-            rowCount += nodeView.getRowCount();
+            rowCount += getRowCount(nodeView);
         }
 
         return rowCount;
@@ -19,6 +19,7 @@ package org.apache.pivot.wtk.text;
 import java.awt.Color;
 import java.awt.Font;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import org.apache.pivot.annotations.UnsupportedOperation;
@@ -31,12 +32,118 @@ import org.apache.pivot.wtk.FontUtilities;
 import org.apache.pivot.wtk.GraphicsUtilities;
 
 /**
- * Abstract base class for elements. <p> TODO Add style properties. <p> TODO Add
- * style class property.
+ * Abstract base class for elements. <p> The offsets of the child nodes are
+ * kept in a binary indexed tree over their character counts, so finding the
+ * child at an offset (or the offset of a child) takes logarithmic time, and a
+ * change to the length of one child does not require the offsets of its later
+ * siblings to be updated. The tree is rebuilt on demand when children are
+ * inserted or removed (other than at the end). <p> TODO Add style properties.
+ * <p> TODO Add style class property.
  */
 public abstract class Element extends Node implements Sequence<Node>, Iterable<Node> {
+    /**
+     * A read-only view of a range of the characters of this element. Characters
+     * are looked up in the element's nodes as they are needed, rather than
+     * copied; the text node (or other leaf) most recently used is remembered,
+     * so sequential access is fast.
+     */
+    private final class ElementCharacters implements CharSequence {
+        private final int start;
+        private final int end;
+
+        // The leaf most recently used, and the range of characters (relative
+        // to this element) it was used for
+        private Node leaf = null;
+        private int leafOffset;
+        private int leafStart;
+        private int leafEnd;
+        private int leafModificationCount;
+
+        ElementCharacters(final int start, final int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            Utils.checkZeroBasedIndex(index, end - start);
+
+            int offset = start + index;
+            if (leaf == null || leafModificationCount != modificationCount
+                || offset < leafStart || offset >= leafEnd) {
+                findLeaf(offset);
+            }
+
+            return leaf.getCharacterAt(offset - leafOffset);
+        }
+
+        private void findLeaf(final int offset) {
+            Node node = Element.this;
+            int nodeOffset = 0;
+
+            while (node instanceof Element) {
+                Element element = (Element) node;
+                int relativeOffset = offset - nodeOffset;
+
+                if (relativeOffset >= element.characterCount) {
+                    // The trailing newline of a paragraph
+                    break;
+                }
+
+                Node child = element.nodes.get(element.getNodeAt(relativeOffset));
+                nodeOffset += child.getOffset();
+                node = child;
+            }
+
+            leaf = node;
+            leafOffset = nodeOffset;
+            leafModificationCount = modificationCount;
+
+            if (node instanceof Element) {
+                leafStart = offset;
+                leafEnd = offset + 1;
+            } else {
+                leafStart = nodeOffset;
+                leafEnd = nodeOffset + node.getCharacterCount();
+            }
+        }
+
+        @Override
+        public CharSequence subSequence(final int startIndex, final int endIndex) {
+            Utils.checkIndexBounds(startIndex, endIndex - startIndex, 0, end - start);
+
+            return new ElementCharacters(start + startIndex, start + endIndex);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder buf = new StringBuilder(end - start);
+            for (int i = 0, n = end - start; i < n; i++) {
+                buf.append(charAt(i));
+            }
+
+            return buf.toString();
+        }
+    }
+
     private int characterCount = 0;
     private ArrayList<Node> nodes = new ArrayList<>();
+
+    // The character counts of the child nodes as last seen, and a one-based
+    // binary indexed tree over them; both have room for the children counted
+    // in treeLength, and the tree is null if it needs to be rebuilt
+    private int[] counts = null;
+    private int[] offsetTree = null;
+    private int treeLength = 0;
+
+    // Changed whenever this element or any of its descendants is modified
+    private int modificationCount = 0;
+
     private Font font;
     private Color foregroundColor;
     private Color backgroundColor;
@@ -302,13 +409,23 @@ public abstract class Element extends Node implements Sequence<Node>, Iterable<N
     }
 
     public String getText() {
-        return getCharacters().toString();
+        StringBuilder buf = new StringBuilder(characterCount);
+        addCharacters(buf, this);
+        return buf.toString();
     }
 
+    /**
+     * Returns the characters of this element, as a view onto its nodes rather
+     * than a copy. Unlike {@link #getText}, the sequence lines up with the
+     * offsets in the element, one character per offset, as returned by
+     * {@link #getCharacterAt}. The view should not be used once the element
+     * has been modified.
+     *
+     * @return The characters of this element.
+     */
+    @Override
     public CharSequence getCharacters() {
-        StringBuilder buf = new StringBuilder(characterCount);
-        addCharacters(buf, this);
-        return buf;
+        return new ElementCharacters(0, getCharacterCount());
     }
 
     @Override
@@ -337,26 +454,25 @@ public abstract class Element extends Node implements Sequence<Node>, Iterable<N
 
         // Add the node
         nodes.insert(node, index);
+        modificationCount++;
 
-        // Update the character count and node offsets
-        int nodeCharacterCount = node.getCharacterCount();
-        characterCount += nodeCharacterCount;
-
-        if (index == 0) {
-            node.setOffset(0);
+        if (offsetTree != null && index == treeLength) {
+            appendToOffsetTree(node);
         } else {
-            Node previousNode = nodes.get(index - 1);
-            node.setOffset(previousNode.getOffset() + previousNode.getCharacterCount());
+            offsetTree = null;
         }
 
-        for (int i = index + 1, n = nodes.getLength(); i < n; i++) {
-            Node nextNode = nodes.get(i);
-            nextNode.setOffset(nextNode.getOffset() + nodeCharacterCount);
-        }
+        // Update the character count; the offsets of the following nodes
+        // are computed from the tree
+        int nodeCharacterCount = node.getCharacterCount();
+        characterCount += nodeCharacterCount;
+
+        int nodeOffset = node.getOffset();
+        node.setOffset(nodeOffset);
 
         // Notify parent
-        super.rangeInserted(node.getOffset(), nodeCharacterCount);
-        super.nodeInserted(node.getOffset());
+        super.rangeInserted(nodeOffset, nodeCharacterCount);
+        super.nodeInserted(nodeOffset);
 
         // Fire event
         elementListeners.nodeInserted(this, index);
@@ -382,16 +498,25 @@ public abstract class Element extends Node implements Sequence<Node>, Iterable<N
     public Sequence<Node> remove(final int index, final int count) {
         Utils.checkIndexBounds(index, count, 0, nodes.getLength());
 
+        // Let the nodes keep their offsets once they are removed
+        for (int i = index, n = index + count; i < n; i++) {
+            nodes.get(i).keepOffset();
+        }
+
         // Remove the nodes
         Sequence<Node> removed = nodes.remove(index, count);
         int len = removed.getLength();
         StringBuilder removedChars = new StringBuilder();
 
         if (len > 0) {
+            modificationCount++;
+            offsetTree = null;
+
             int removedCharacterCount = 0;
             for (int i = 0; i < len; i++) {
                 Node node = removed.get(i);
                 node.setParent(null);
+                node.index = -1;
                 removedCharacterCount += node.getCharacterCount();
                 if (node instanceof Element) {
                     removedChars.append(((Element) node).getText());
@@ -403,21 +528,9 @@ public abstract class Element extends Node implements Sequence<Node>, Iterable<N
             // Update the character count
             characterCount -= removedCharacterCount;
 
-            // Update the offsets of consecutive nodes
-            int n = nodes.getLength();
-            for (int i = index; i < n; i++) {
-                Node nextNode = nodes.get(i);
-                nextNode.setOffset(nextNode.getOffset() - removedCharacterCount);
-            }
-
-            // Determine the affected offset within this element
-            int offset;
-            if (index < n) {
-                Node node = get(index);
-                offset = node.getOffset();
-            } else {
-                offset = characterCount;
-            }
+            // The affected offset within this element is where the first
+            // removed node was
+            int offset = removed.get(0).getOffset();
 
             // Notify parent
             super.rangeRemoved(this, offset, removedCharacterCount, removedChars);
@@ -441,7 +554,13 @@ public abstract class Element extends Node implements Sequence<Node>, Iterable<N
     public int indexOf(final Node node) {
         Utils.checkNull(node, "node");
 
-        return nodes.indexOf(node);
+        if (node.getParent() != this) {
+            return -1;
+        }
+
+        buildOffsetTree();
+
+        return node.index;
     }
 
     @Override
@@ -458,14 +577,105 @@ public abstract class Element extends Node implements Sequence<Node>, Iterable<N
     public int getNodeAt(final int offset) {
         Utils.checkZeroBasedIndex(offset, characterCount);
 
-        int i = nodes.getLength() - 1;
-        Node node = nodes.get(i);
+        buildOffsetTree();
+
+        // Find the last node that starts at or before the offset
+        int index = 0;
+        int remaining = offset;
+
+        for (int bit = Integer.highestOneBit(treeLength); bit != 0; bit >>= 1) {
+            int i = index + bit;
+            if (i <= treeLength && offsetTree[i] <= remaining) {
+                index = i;
+                remaining -= offsetTree[i];
+            }
+        }
+
+        return Math.min(index, treeLength - 1);
+    }
+
+    /**
+     * Rebuilds the offset tree (and the indexes of the child nodes) if it is
+     * out of date.
+     */
+    private void buildOffsetTree() {
+        if (offsetTree == null) {
+            treeLength = nodes.getLength();
+            counts = new int[Math.max(treeLength, 16)];
+            offsetTree = new int[counts.length + 1];
+
+            for (int i = 0; i < treeLength; i++) {
+                Node node = nodes.get(i);
+                node.index = i;
+                counts[i] = node.getCharacterCount();
+
+                offsetTree[i + 1] += counts[i];
+
+                int parentIndex = (i + 1) + ((i + 1) & -(i + 1));
+                if (parentIndex <= treeLength) {
+                    offsetTree[parentIndex] += offsetTree[i + 1];
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a node that was appended to the children to the offset tree.
+     */
+    private void appendToOffsetTree(final Node node) {
+        if (treeLength == counts.length) {
+            counts = Arrays.copyOf(counts, counts.length * 2);
+            offsetTree = Arrays.copyOf(offsetTree, counts.length + 1);
+        }
+
+        node.index = treeLength;
+        counts[treeLength] = node.getCharacterCount();
 
-        while (node.getOffset() > offset) {
-            node = nodes.get(--i);
+        // The new entry covers the range of nodes ending at the new node,
+        // whose length is given by the lowest bit of its (one-based) index
+        int i = treeLength + 1;
+        int sum = counts[treeLength];
+        for (int j = i - 1, stop = i - (i & -i); j > stop; j -= j & -j) {
+            sum += offsetTree[j];
         }
 
-        return i;
+        offsetTree[i] = sum;
+        treeLength++;
+    }
+
+    /**
+     * @return The offset of one of our child nodes.
+     * @param node The child node.
+     */
+    int getChildOffset(final Node node) {
+        buildOffsetTree();
+
+        int offset = 0;
+        for (int i = node.index; i > 0; i -= i & -i) {
+            offset += offsetTree[i];
+        }
+
+        return offset;
+    }
+
+    /**
+     * Updates the offset tree after the character count of a child node has
+     * changed.
+     *
+     * @param node The child node.
+     */
+    void childCharacterCountChanged(final Node node) {
+        if (offsetTree != null) {
+            int delta = node.getCharacterCount() - counts[node.index];
+
+            if (delta != 0) {
+                counts[node.index] += delta;
+
+                for (int i = node.index + 1; i <= treeLength; i += i & -i) {
+                    offsetTree[i] += delta;
+                }
+            }
+        }
     }
 
     /**
@@ -511,15 +721,10 @@ public abstract class Element extends Node implements Sequence<Node>, Iterable<N
 
     @Override
     protected void rangeInserted(final int offset, final int charCount) {
+        // The offsets of the following nodes have been taken care of by
+        // childCharacterCountChanged()
         this.characterCount += charCount;
-
-        // Update the offsets of consecutive nodes
-        int index = getNodeAt(offset);
-
-        for (int i = index + 1, n = nodes.getLength(); i < n; i++) {
-            Node node = nodes.get(i);
-            node.setOffset(node.getOffset() + charCount);
-        }
+        modificationCount++;
 
         super.rangeInserted(offset, charCount);
     }
@@ -527,17 +732,8 @@ public abstract class Element extends Node implements Sequence<Node>, Iterable<N
     @Override
     protected void rangeRemoved(final Node originalNode, final int offset, final int charCount,
         final CharSequence removedChars) {
-        // Update the offsets of consecutive nodes, if any
-        if (offset < this.characterCount) {
-            int index = getNodeAt(offset);
-
-            for (int i = index + 1, n = nodes.getLength(); i < n; i++) {
-                Node node = nodes.get(i);
-                node.setOffset(node.getOffset() - charCount);
-            }
-        }
-        // Adjust our count last, so we make sure to get all our children updated
         this.characterCount -= charCount;
+        modificationCount++;
 
         super.rangeRemoved(originalNode, offset, charCount, removedChars);
     }
@@ -28,6 +28,9 @@ public abstract class Node {
     private int offset = 0;
     private Object userData = null;
 
+    // Index of this node within its parent, maintained by the parent
+    int index = -1;
+
     private NodeListener.Listeners nodeListeners = new NodeListener.Listeners();
 
     /**
@@ -50,17 +53,20 @@ public abstract class Node {
     }
 
     /**
-     * Returns the node's offset relative to its parent.
+     * Returns the node's offset relative to its parent. <p> The offset of a
+     * node that has a parent is looked up in the parent (in logarithmic time);
+     * a node that has been removed from its parent keeps the offset it had.
      *
      * @return The integer offset of the node's first character within its
      * parent element.
      */
     public int getOffset() {
-        return offset;
+        return (parent == null) ? offset : parent.getChildOffset(this);
     }
 
     /**
-     * Set the offset of this node relative to its parent.
+     * Set the offset of this node relative to its parent. The stored offset is
+     * only used once the node has no parent; see {@link #getOffset}.
      *
      * @param offset The new offset for this node.
      */
@@ -73,12 +79,19 @@ public abstract class Node {
         }
     }
 
+    /**
+     * Records the node's current offset before it is removed from its parent.
+     */
+    void keepOffset() {
+        offset = getOffset();
+    }
+
     /**
      * @return The node's offset within the document, which will be the
      * offset of our parent (if any) added to our own offset.
      */
     public int getDocumentOffset() {
-        return ((parent == null) ? 0 : parent.getDocumentOffset()) + offset;
+        return ((parent == null) ? 0 : parent.getDocumentOffset()) + getOffset();
     }
 
     /**
@@ -190,7 +203,8 @@ public abstract class Node {
      */
     protected void rangeInserted(final int offsetArgument, final int characterCount) {
         if (parent != null) {
-            parent.rangeInserted(offsetArgument + this.offset, characterCount);
+            parent.childCharacterCountChanged(this);
+            parent.rangeInserted(offsetArgument + getOffset(), characterCount);
         }
 
         nodeListeners.rangeInserted(this, offsetArgument, characterCount);
@@ -214,7 +228,8 @@ public abstract class Node {
     protected void rangeRemoved(final Node node, final int offsetArgument, final int characterCount,
         CharSequence removedChars) {
         if (parent != null) {
-            parent.rangeRemoved(node, offsetArgument + this.offset, characterCount, removedChars);
+            parent.childCharacterCountChanged(this);
+            parent.rangeRemoved(node, offsetArgument + getOffset(), characterCount, removedChars);
         }
 
         nodeListeners.rangeRemoved(node, offsetArgument, characterCount, removedChars);
@@ -235,7 +250,7 @@ public abstract class Node {
      */
     protected void nodesRemoved(final Node node, final Sequence<Node> removed, final int offsetArgument) {
         if (parent != null) {
-            parent.nodesRemoved(node, removed, offsetArgument + this.offset);
+            parent.nodesRemoved(node, removed, offsetArgument + getOffset());
         }
 
         nodeListeners.nodesRemoved(node, removed, offsetArgument);
@@ -253,7 +268,7 @@ public abstract class Node {
      */
     protected void nodeInserted(final int offsetArgument) {
         if (parent != null) {
-            parent.nodeInserted(offsetArgument + this.offset);
+            parent.nodeInserted(offsetArgument + getOffset());
         }
 
         nodeListeners.nodeInserted(this, offsetArgument);
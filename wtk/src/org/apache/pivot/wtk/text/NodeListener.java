@@ -120,6 +120,11 @@ public interface NodeListener {
 
     /**
      * Called when a node's offset has changed within its parent element.
+     * <p> This is called when a node is inserted at a different offset than
+     * it had before. Offsets of later siblings are computed on demand when
+     * characters or nodes are inserted or removed before them, so no event is
+     * fired for them; listen for range and node changes on the parent
+     * instead.
      *
      * @param node           The node that has been updated.
      * @param previousOffset The previous offset of this node.
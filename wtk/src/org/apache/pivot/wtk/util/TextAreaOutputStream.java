@@ -16,12 +16,20 @@
  */
 package org.apache.pivot.wtk.util;
 
+import java.awt.EventQueue;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.util.Utils;
 import org.apache.pivot.wtk.ApplicationContext;
 import org.apache.pivot.wtk.Bounds;
 import org.apache.pivot.wtk.TextArea;
@@ -31,6 +39,18 @@ import org.apache.pivot.wtk.TextArea;
  * (in the EDT thread, using callbacks) for display.
  * <p> Can be used with the {@link org.apache.pivot.util.Console} class for output (using the
  * {@link #toPrintStream} method).
+ * <p> Completed lines are put into a lock-free ring buffer by the writing thread
+ * and are added to the text area in bulk: only one flush is queued on the EDT at
+ * a time, so everything written while the EDT is busy is inserted at once.
+ * <p> With a {@link #setMaximumLineCount maximum line count}, the oldest lines are
+ * removed from the text area as new ones arrive, so it can be used as a console
+ * for long-running output; the number of lines dropped is available from
+ * {@link #getDroppedLineCount}. If the writer gets more than {@value #RING_CAPACITY}
+ * lines ahead of the EDT, it then overwrites the oldest lines in the buffer
+ * (which would be trimmed anyway); without a maximum (or with one larger than the
+ * buffer), it waits for the EDT to catch up instead.
+ * <p> As with other streams, this one should be written to by only one thread
+ * at a time (a {@link PrintStream} takes care of that).
  */
 public final class TextAreaOutputStream extends OutputStream {
     /** The TextArea we are going to stream to. */
@@ -48,6 +68,33 @@ public final class TextAreaOutputStream extends OutputStream {
     /** The buffered line for this stream. */
     private ByteArrayOutputStream lineBuffer;
 
+    /** Number of pieces of text the ring buffer holds (a power of two). */
+    private static final int RING_CAPACITY = 8_192;
+
+    /**
+     * Text written but not yet added to the text area: mostly whole lines
+     * (ending in a newline), but also partial lines written out by {@link #flush}.
+     */
+    private final AtomicReferenceArray<String> ring = new AtomicReferenceArray<>(RING_CAPACITY);
+
+    /** Sequence number of the next piece of text to go into the ring (writing thread only). */
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    /** Sequence number of the next piece of text to come out of the ring (written by the EDT only). */
+    private volatile long readSequence = 0;
+
+    /** How long the writing thread waits at a time for room in the ring. */
+    private static final long WAIT_NANOS = 100_000L;
+
+    /** Whether a flush to the text area is queued on the EDT. */
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    /** The most lines to keep in the text area, or 0 for no limit. */
+    private volatile int maximumLineCount = 0;
+
+    /** The number of lines dropped so far. */
+    private final AtomicLong droppedLineCount = new AtomicLong();
+
     /**
      * Simple constructor given the {@link TextArea} to stream to; uses the system
      * default charset for conversion, and the default buffer size.
@@ -107,12 +154,42 @@ public final class TextAreaOutputStream extends OutputStream {
         }
     }
 
+    /**
+     * @return The maximum number of lines kept in the text area, or 0 if there is
+     * no limit.
+     */
+    public int getMaximumLineCount() {
+        return maximumLineCount;
+    }
+
+    /**
+     * Sets the maximum number of lines kept in the text area; once there are more,
+     * the oldest lines are removed as new ones are added.
+     *
+     * @param maximumLineCountValue The maximum number of lines, or 0 (the default)
+     * for no limit.
+     */
+    public void setMaximumLineCount(final int maximumLineCountValue) {
+        Utils.checkNonNegative(maximumLineCountValue, "maximumLineCount");
+
+        maximumLineCount = maximumLineCountValue;
+    }
+
+    /**
+     * @return The number of lines that have been dropped to keep the text area
+     * within the maximum line count (including any that were overwritten in the
+     * buffer before they could be shown).
+     */
+    public long getDroppedLineCount() {
+        return droppedLineCount.get();
+    }
+
     /**
      * Flush the (byte) line buffer if there is anything cached.
      * @param addNewLine Add a newline ('\n') character after any buffered text.
      */
     private void flushLineBuffer(final boolean addNewLine) {
-        final String text;
+        String text;
 
         if (lineBuffer.size() > 0) {
             byte[] bytes = lineBuffer.toByteArray();
@@ -122,29 +199,120 @@ public final class TextAreaOutputStream extends OutputStream {
             text = "";
         }
 
-        // Do the actual text manipulation (including scrolling) on the event thread
-        if (!text.isEmpty() || addNewLine) {
-            ApplicationContext.queueCallback(() -> {
-                int length    = textArea.getCharacterCount();
-                int newLength = length;
+        if (addNewLine) {
+            text += "\n";
+        }
+
+        if (!text.isEmpty()) {
+            long sequence = writeSequence.get();
 
-                if (!text.isEmpty()) {
-                    textArea.insertText(text, length);
-                    newLength += text.length();
+            int maximum = maximumLineCount;
+            if (maximum == 0 || maximum > RING_CAPACITY) {
+                // Nothing may be lost, so wait for the EDT to make room
+                while (sequence - readSequence >= RING_CAPACITY) {
+                    if (EventQueue.isDispatchThread()) {
+                        flushRing(textArea);
+                    } else {
+                        LockSupport.parkNanos(WAIT_NANOS);
+                    }
                 }
+            }
 
-                if (addNewLine) {
-                    textArea.insertText("\n", newLength++);
+            ring.set((int) sequence & (RING_CAPACITY - 1), text);
+            writeSequence.set(sequence + 1);
+
+            // Do the actual text manipulation (including scrolling) on the event thread
+            if (flushQueued.compareAndSet(false, true)) {
+                final TextArea textAreaLocal = textArea;
+                ApplicationContext.queueCallback(() -> flushRing(textAreaLocal));
+            }
+        }
+    }
+
+    /**
+     * Moves everything in the ring buffer to the text area, on the EDT.
+     *
+     * @param textAreaLocal The text area to add the text to.
+     */
+    private void flushRing(final TextArea textAreaLocal) {
+        // Clear the flag first, so that text written from here on queues another flush
+        flushQueued.set(false);
+
+        long end = writeSequence.get();
+        long start = Math.max(readSequence, end - RING_CAPACITY);
+
+        ArrayList<String> pieces = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            pieces.add(ring.get((int) sequence & (RING_CAPACITY - 1)));
+        }
+
+        // Unless it waits for us, the writer may have lapped us while we were
+        // reading; anything that might have been overwritten in the meantime is dropped
+        int maximum = maximumLineCount;
+        if (maximum > 0 && maximum <= RING_CAPACITY) {
+            long overwritten = Math.min(writeSequence.get() - RING_CAPACITY + 1, end) - start;
+            if (overwritten > 0) {
+                pieces.remove(0, (int) overwritten);
+            }
+        }
+
+        long dropped = (end - readSequence) - pieces.getLength();
+        readSequence = end;
+
+        // Trim the oldest lines, from the new text if it alone is too long, and
+        // otherwise from the head of the text area
+        int newLineCount = 0;
+        for (String piece : pieces) {
+            if (piece.endsWith("\n")) {
+                newLineCount++;
+            }
+        }
+
+        TextArea.ParagraphSequence paragraphs = textAreaLocal.getParagraphs();
+
+        if (maximum > 0) {
+            if (newLineCount > maximum) {
+                int skipped = 0;
+                int i = 0;
+                while (skipped < newLineCount - maximum) {
+                    if (pieces.get(i++).endsWith("\n")) {
+                        skipped++;
+                    }
+                }
+
+                pieces.remove(0, i);
+                dropped += skipped + paragraphs.getLength() - 1;
+                newLineCount = maximum;
+                textAreaLocal.setText("");
+            } else {
+                int excess = paragraphs.getLength() - 1 + newLineCount - maximum;
+
+                if (excess > 0) {
+                    paragraphs.remove(0, excess);
+                    dropped += excess;
                 }
+            }
+        }
+
+        if (dropped > 0) {
+            droppedLineCount.addAndGet(dropped);
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (String piece : pieces) {
+            text.append(piece);
+        }
 
-                final int lastCharPos = newLength;
+        if (text.length() > 0) {
+            textAreaLocal.insertText(text, textAreaLocal.getCharacterCount());
 
-                // In order to allow time for the skin to render the latest additions,
-                // queue the actual scrolling until that is done
-                ApplicationContext.queueCallback(() -> {
-                    Bounds lastCharBounds = textArea.getCharacterBounds(lastCharPos);
-                    textArea.scrollAreaToVisible(lastCharBounds);
-                });
+            // In order to allow time for the skin to render the latest additions,
+            // queue the actual scrolling until that is done
+            ApplicationContext.queueCallback(() -> {
+                Bounds lastCharBounds = textAreaLocal.getCharacterBounds(textAreaLocal.getCharacterCount());
+                if (lastCharBounds != null) {
+                    textAreaLocal.scrollAreaToVisible(lastCharBounds);
+                }
             });
         }
     }
@@ -172,6 +340,24 @@ public final class TextAreaOutputStream extends OutputStream {
         }
     }
 
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        Utils.checkNull(b, "bytes");
+        Utils.checkIndexBounds(off, len, 0, b.length);
+
+        // Copy runs of ordinary bytes to the line buffer in one go
+        int start = off;
+        for (int i = off, end = off + len; i < end; i++) {
+            if (b[i] == '\n' || b[i] == '\r') {
+                lineBuffer.write(b, start, i - start);
+                write(b[i]);
+                start = i + 1;
+            }
+        }
+
+        lineBuffer.write(b, start, off + len - start);
+    }
+
     /**
      * @return A new {@link PrintStream} using this object as the basis (and the
      * same charset specified by one of the constructors).
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.apache.pivot.wtk.ThemeNotFoundException;
+import org.apache.pivot.wtk.effects.AnimationClock;
+import org.apache.pivot.wtk.effects.Transition;
+
+public final class AnimationClockTest {
+    private static final long FRAME = TimeUnit.SECONDS.toNanos(1) / AnimationClock.DEFAULT_FRAME_RATE;
+
+    private int fastCount = 0;
+    private int slowCount = 0;
+    private int updateCount = 0;
+    private boolean completed = false;
+
+    @Test
+    public void testIntervals() {
+        AnimationClock clock = new AnimationClock();
+
+        AnimationClock.Animation fast = clock.schedule(() -> fastCount++, 0);
+        AnimationClock.Animation slow = clock.schedule(() -> slowCount++, 50);
+        assertTrue(clock.isRunning());
+
+        // Frames start once both animations are due
+        long time = System.nanoTime();
+
+        // Every frame for the fast animation, every third for the slow one
+        for (int i = 0; i < 30; i++) {
+            clock.advance(time + i * FRAME);
+        }
+
+        assertEquals(30, fastCount);
+        assertEquals(10, slowCount);
+        assertEquals(30, clock.getFrameCount());
+        assertEquals(0, clock.getSkippedFrameCount());
+
+        // A late frame counts the ones missed; the slow animation catches up
+        // with a single step rather than a burst
+        clock.advance(time + 40 * FRAME);
+        assertEquals(10, clock.getSkippedFrameCount());
+        assertEquals(11, slowCount);
+
+        fast.cancel();
+        clock.advance(time + 41 * FRAME);
+        assertEquals(31, fastCount);
+        assertFalse(fast.isActive());
+
+        slow.cancel();
+        assertFalse(clock.isRunning());
+    }
+
+    @Test
+    public void testTransition() {
+        try {
+            Transition transition = new Transition(100, 30) {
+                @Override
+                protected void update() {
+                    updateCount++;
+                }
+            };
+
+            AnimationClock clock = AnimationClock.getDefault();
+            long time = System.nanoTime();
+
+            transition.start(transitionArgument -> completed = true);
+            assertTrue(transition.isRunning());
+            assertEquals(1, updateCount);
+
+            for (int i = 1; !completed && i < 100; i++) {
+                clock.advance(time + i * FRAME);
+            }
+
+            assertTrue(completed);
+            assertFalse(transition.isRunning());
+            assertFalse(clock.isRunning());
+            assertEquals(1.0f, transition.getPercentComplete(), 0.0f);
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on Transition skipped because: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ConvolveOp;
+import java.awt.image.Kernel;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.apache.pivot.wtk.Label;
+import org.apache.pivot.wtk.ThemeNotFoundException;
+import org.apache.pivot.wtk.effects.BlurDecorator;
+
+public final class BlurDecoratorTest {
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 40;
+    private static final int MAGNITUDE = 5;
+
+    private static void paintPattern(final Graphics2D graphics) {
+        Random random = new Random(42);
+        for (int i = 0; i < 50; i++) {
+            graphics.setColor(new Color(random.nextInt(0x1000000)));
+            graphics.fillRect(random.nextInt(WIDTH), random.nextInt(HEIGHT), random.nextInt(20) + 1,
+                random.nextInt(20) + 1);
+        }
+    }
+
+    @Test
+    public void testBlur() {
+        try {
+            Label label = new Label();
+            label.setSize(WIDTH, HEIGHT);
+
+            BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+
+            BlurDecorator decorator = new BlurDecorator(MAGNITUDE);
+            Graphics2D decoratedGraphics = decorator.prepare(label, graphics);
+            paintPattern(decoratedGraphics);
+            decorator.update();
+            graphics.dispose();
+
+            BufferedImage expected = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+            Graphics2D expectedGraphics = expected.createGraphics();
+            paintPattern(expectedGraphics);
+            expectedGraphics.dispose();
+
+            float[] kernel = new float[MAGNITUDE * MAGNITUDE];
+            Arrays.fill(kernel, 1f / kernel.length);
+            expected = new ConvolveOp(new Kernel(MAGNITUDE, MAGNITUDE, kernel),
+                ConvolveOp.EDGE_NO_OP, null).filter(expected, null);
+
+            // Away from the edges, the result is a plain average of the neighbors
+            int margin = MAGNITUDE / 2;
+            for (int y = margin; y < HEIGHT - margin; y++) {
+                for (int x = margin; x < WIDTH - margin; x++) {
+                    int actualRgb = image.getRGB(x, y);
+                    int expectedRgb = expected.getRGB(x, y);
+
+                    for (int shift = 0; shift < 24; shift += 8) {
+                        int difference = ((actualRgb >> shift) & 0xFF) - ((expectedRgb >> shift) & 0xFF);
+                        assertTrue(Math.abs(difference) <= 1);
+                    }
+                }
+            }
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on BlurDecorator skipped because: " + e.getMessage());
+        }
+    }
+}
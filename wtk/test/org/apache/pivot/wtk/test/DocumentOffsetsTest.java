@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.apache.pivot.wtk.text.Document;
+import org.apache.pivot.wtk.text.Element;
+import org.apache.pivot.wtk.text.Node;
+import org.apache.pivot.wtk.text.Paragraph;
+import org.apache.pivot.wtk.text.TextNode;
+
+public final class DocumentOffsetsTest {
+    /**
+     * Checks the offsets of the children of an element (recursively) against
+     * their character counts, and the node lookup for every offset.
+     */
+    private static void assertOffsets(final Element element) {
+        int offset = 0;
+        for (int i = 0, n = element.getLength(); i < n; i++) {
+            Node node = element.get(i);
+            assertEquals(offset, node.getOffset());
+            assertEquals(i, element.indexOf(node));
+
+            for (int j = 0, count = node.getCharacterCount(); j < count; j++) {
+                if (offset + j < element.getCharacterCount()
+                    && !(element instanceof Paragraph && offset + j == element.getCharacterCount() - 1)) {
+                    assertEquals(i, element.getNodeAt(offset + j));
+                }
+            }
+
+            if (node instanceof Element) {
+                assertOffsets((Element) node);
+            }
+
+            offset += node.getCharacterCount();
+        }
+    }
+
+    private static String expectedText(final Document document) {
+        StringBuilder buf = new StringBuilder();
+        for (Node node : document) {
+            buf.append(((Paragraph) node).getText());
+        }
+
+        return buf.toString();
+    }
+
+    @Test
+    public void testOffsets() {
+        Document document = new Document();
+        for (int i = 0; i < 100; i++) {
+            document.add(new Paragraph("Paragraph " + i));
+        }
+
+        assertOffsets(document);
+        assertEquals(expectedText(document), document.getCharacters().toString());
+
+        Random random = new Random(1234);
+        for (int i = 0; i < 500; i++) {
+            int index = random.nextInt(document.getLength());
+            Paragraph paragraph = (Paragraph) document.get(index);
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    document.insert(new Paragraph("New " + i), index);
+                    break;
+                case 1:
+                    if (document.getLength() > 1) {
+                        document.remove(index, 1);
+                    }
+                    break;
+                case 2:
+                    ((TextNode) paragraph.get(0)).insertText("xyz", random.nextInt(3));
+                    break;
+                default:
+                    paragraph.add(new TextNode("+" + i));
+                    break;
+            }
+
+            // Text nodes are found at their own document offsets
+            Node node = document.getDescendantAt(random.nextInt(document.getCharacterCount()));
+            if (node instanceof TextNode && node.getCharacterCount() > 0) {
+                assertEquals(node, document.getDescendantAt(node.getDocumentOffset()));
+            }
+        }
+
+        assertOffsets(document);
+
+        String text = expectedText(document);
+        CharSequence characters = document.getCharacters();
+        assertEquals(text.length(), characters.length());
+        assertEquals(text, characters.toString());
+        assertEquals(text.substring(10, 50), characters.subSequence(10, 50).toString());
+
+        for (int i = 0, n = characters.length(); i < n; i += 7) {
+            assertEquals(text.charAt(i), document.getCharacterAt(i));
+        }
+    }
+
+    @Test
+    public void testRemovedNodeKeepsOffset() {
+        Document document = new Document();
+        document.add(new Paragraph("abc"));
+        document.add(new Paragraph("defg"));
+        document.add(new Paragraph("hi"));
+
+        Node removed = document.get(1);
+        document.remove(1, 1);
+
+        assertEquals(4, removed.getOffset());
+        assertEquals(4, document.get(1).getOffset());
+        assertEquals(-1, document.indexOf(removed));
+    }
+}
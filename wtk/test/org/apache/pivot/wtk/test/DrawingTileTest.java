@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.kitfox.svg.SVGElement;
+import com.kitfox.svg.animation.AnimationElement;
+
+import org.apache.pivot.wtk.media.Drawing;
+import org.apache.pivot.wtk.media.SVGDiagramSerializer;
+
+public final class DrawingTileTest {
+    private static final String SVG = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"300\" height=\"300\">"
+        + "<rect id=\"r\" x=\"0\" y=\"0\" width=\"300\" height=\"300\" fill=\"#ff0000\"/>"
+        + "<circle cx=\"150\" cy=\"150\" r=\"100\" fill=\"#0000ff\"/></svg>";
+
+    private static BufferedImage paint(final Drawing drawing, final double scale) {
+        BufferedImage image = new BufferedImage(600, 600, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.translate(10, 20);
+        graphics.scale(scale, scale);
+        drawing.paint(graphics);
+        graphics.dispose();
+
+        return image;
+    }
+
+    /**
+     * Checks that two images match, allowing for rounding where antialiased
+     * edges are blended (directly, or into a tile that is then composited).
+     */
+    private static void assertSameImage(final BufferedImage expected, final BufferedImage actual) {
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int expectedRgb = expected.getRGB(x, y);
+                int actualRgb = actual.getRGB(x, y);
+
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int difference = ((expectedRgb >>> shift) & 0xFF) - ((actualRgb >>> shift) & 0xFF);
+                    assertTrue("Pixel " + x + "," + y, Math.abs(difference) <= 16);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTiles() throws Exception {
+        SVGDiagramSerializer serializer = new SVGDiagramSerializer();
+        Drawing drawing = new Drawing(serializer.readObject(
+            new ByteArrayInputStream(SVG.getBytes(StandardCharsets.UTF_8))));
+
+        // The first paint at a scale is rendered directly, and later ones from
+        // tiles (spanning several of them at this scale)
+        BufferedImage rendered = paint(drawing, 1.5);
+        BufferedImage tiled = paint(drawing, 1.5);
+        assertSameImage(rendered, tiled);
+        assertEquals(0xFF0000FF, tiled.getRGB(10 + 225, 20 + 225));
+
+        // Changes to the diagram show up once the drawing is told about them
+        SVGElement rect = drawing.getDiagram().getElement("r");
+        rect.setAttribute("fill", AnimationElement.AT_XML, "#00ff00");
+        drawing.getDiagram().updateTime(0.0);
+        assertEquals(0xFFFF0000, paint(drawing, 1.5).getRGB(15, 25));
+
+        drawing.update(0, 0, 300, 300);
+        assertEquals(0xFF00FF00, paint(drawing, 1.5).getRGB(15, 25));
+    }
+
+    @Test
+    public void testScales() throws Exception {
+        SVGDiagramSerializer serializer = new SVGDiagramSerializer();
+        Drawing drawing = new Drawing(serializer.readObject(
+            new ByteArrayInputStream(SVG.getBytes(StandardCharsets.UTF_8))));
+
+        // Painted from tiles at two scales, in turn
+        paint(drawing, 1.5);
+        paint(drawing, 1.5);
+        paint(drawing, 0.5);
+        paint(drawing, 0.5);
+
+        // Zooming through other scales renders directly, and keeps the tiles
+        for (int i = 1; i < 10; i++) {
+            paint(drawing, 1 + i / 10.0);
+        }
+
+        // The tiles at both scales are still used (so show the stale diagram)
+        SVGElement rect = drawing.getDiagram().getElement("r");
+        rect.setAttribute("fill", AnimationElement.AT_XML, "#00ff00");
+        drawing.getDiagram().updateTime(0.0);
+
+        assertEquals(0xFFFF0000, paint(drawing, 1.5).getRGB(15, 25));
+        assertEquals(0xFFFF0000, paint(drawing, 0.5).getRGB(15, 25));
+        assertEquals(0xFF00FF00, paint(drawing, 2.0).getRGB(15, 25));
+    }
+
+    @Test
+    public void testManyTiles() throws Exception {
+        SVGDiagramSerializer serializer = new SVGDiagramSerializer();
+        Drawing drawing = new Drawing(serializer.readObject(
+            new ByteArrayInputStream(SVG.getBytes(StandardCharsets.UTF_8))));
+
+        // A paint at this scale spans more tiles than a drawing usually keeps
+        paint(drawing, 10);
+        paint(drawing, 10);
+
+        // All of them are kept (so show the stale diagram)
+        SVGElement rect = drawing.getDiagram().getElement("r");
+        rect.setAttribute("fill", AnimationElement.AT_XML, "#00ff00");
+        drawing.getDiagram().updateTime(0.0);
+
+        assertEquals(0xFFFF0000, paint(drawing, 10).getRGB(15, 25));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.EventQueue;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.pivot.serialization.SerializationException;
+import org.apache.pivot.util.concurrent.TaskExecutionException;
+import org.apache.pivot.wtk.Bounds;
+import org.apache.pivot.wtk.Dimensions;
+import org.apache.pivot.wtk.media.Image;
+import org.apache.pivot.wtk.media.ImageListener;
+import org.apache.pivot.wtk.media.Picture;
+
+public final class ImageLoadTest {
+    private static File file;
+    private static URL location;
+
+    private Image updatedImage = null;
+    private int updateCount = 0;
+
+    /**
+     * Writes a 400x300 interlaced PNG, so that it is decoded in several passes.
+     */
+    @BeforeClass
+    public static void createImage() throws IOException {
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 300; y++) {
+            for (int x = 0; x < 400; x++) {
+                image.setRGB(x, y, (x * 255 / 400) << 16 | (y * 255 / 300));
+            }
+        }
+
+        file = File.createTempFile("ImageLoadTest", ".png");
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+        try (ImageOutputStream outputStream = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(outputStream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+
+        location = file.toURI().toURL();
+    }
+
+    @AfterClass
+    public static void deleteImage() {
+        file.delete();
+    }
+
+    @Test
+    public void testTargetSize() throws Exception {
+        Image full = Image.load(location);
+        assertEquals(400, full.getWidth());
+
+        // Subsampled by 3, the most that still covers 100x100
+        Image reduced = Image.load(location, new Dimensions(100, 100));
+        assertEquals(134, reduced.getWidth());
+        assertEquals(100, reduced.getHeight());
+
+        BufferedImage fullImage = ((Picture) full).getBufferedImage();
+        BufferedImage reducedImage = ((Picture) reduced).getBufferedImage();
+        assertEquals(fullImage.getRGB(30, 60), reducedImage.getRGB(10, 20));
+    }
+
+    @Test
+    public void testSourceRegion() throws Exception {
+        Image.LoadTask loadTask = new Image.LoadTask(location, null, new Bounds(100, 50, 400, 100),
+            Image.LoadTask.DEFAULT_EXECUTOR_SERVICE);
+        Image part = loadTask.execute();
+
+        // Clipped to the image
+        assertEquals(300, part.getWidth());
+        assertEquals(100, part.getHeight());
+        assertEquals(((Picture) Image.load(location)).getBufferedImage().getRGB(100, 50),
+            ((Picture) part).getBufferedImage().getRGB(0, 0));
+    }
+
+    @Test
+    public void testSourceRegionOutside() {
+        Image.LoadTask loadTask = new Image.LoadTask(location, null, new Bounds(500, 50, 100, 100),
+            Image.LoadTask.DEFAULT_EXECUTOR_SERVICE);
+
+        try {
+            loadTask.execute();
+            fail("Expected a SerializationException.");
+        } catch (TaskExecutionException exception) {
+            assertTrue(exception.getCause() instanceof SerializationException);
+        }
+    }
+
+    @Test
+    public void testProgressiveUpdates() throws Exception {
+        Image.LoadTask loadTask = new Image.LoadTask(location);
+        loadTask.getImageListeners().add(new ImageListener() {
+            @Override
+            public void sizeChanged(final Image image, final int previousWidth, final int previousHeight) {
+                // No-op
+            }
+
+            @Override
+            public void baselineChanged(final Image image, final int previousBaseline) {
+                // No-op
+            }
+
+            @Override
+            public void regionUpdated(final Image image, final int x, final int y, final int width,
+                final int height) {
+                updatedImage = image;
+                updateCount++;
+            }
+        });
+
+        Image image = loadTask.execute();
+        EventQueue.invokeAndWait(() -> { });
+
+        assertTrue(updateCount > 0);
+        assertSame(image, updatedImage);
+    }
+
+    @Test
+    public void testCache() {
+        Dimensions size = new Dimensions(50, 50);
+
+        Image image = Image.loadFromCache(location, size);
+        assertSame(image, Image.loadFromCache(location, size));
+        assertNotSame(image, Image.loadFromCache(location, new Dimensions(200, 150)));
+        assertEquals(400, Image.loadFromCache(location).getWidth());
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.apache.pivot.util.concurrent.AbortException;
+import org.apache.pivot.wtk.ImageView;
+import org.apache.pivot.wtk.ThemeNotFoundException;
+import org.apache.pivot.wtk.media.Picture;
+
+public final class PictureScalingTest {
+    private static final long TIMEOUT = 10000;
+
+    /**
+     * @return A picture of alternating black and white vertical stripes, four
+     * pixels wide.
+     * @param size The width and height of the picture.
+     */
+    private static Picture createStripes(final int size) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                image.setRGB(x, y, ((x / 4) % 2 == 0) ? 0xFFFFFF : 0);
+            }
+        }
+
+        return new Picture(image);
+    }
+
+    /**
+     * Checks that the stripes were averaged out rather than sampled.
+     */
+    private static void assertGray(final BufferedImage image, final int width, final int height) {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int blue = image.getRGB(x, y) & 0xFF;
+                assertTrue("Pixel " + x + "," + y + " is " + blue, blue > 96 && blue < 160);
+            }
+        }
+    }
+
+    @Test
+    public void testScaledImage() {
+        Picture picture = createStripes(512);
+
+        BufferedImage scaled = picture.getScaledImage(32, 32, Picture.Interpolation.BILINEAR);
+        assertEquals(32, scaled.getWidth());
+        assertGray(scaled, 32, 32);
+
+        picture.resample(64, 64, Picture.Interpolation.BICUBIC);
+        assertEquals(64, picture.getWidth());
+        assertGray(picture.getBufferedImage(), 64, 64);
+    }
+
+    @Test
+    public void testScaledImageAborted() {
+        Picture picture = createStripes(512);
+
+        try {
+            picture.getScaledImage(32, 32, Picture.Interpolation.BILINEAR, () -> true);
+            fail("The copy should have been given up");
+        } catch (AbortException exception) {
+            // Expected
+        }
+
+        // Give up after the first level
+        int[] count = new int[1];
+        try {
+            picture.getScaledImage(32, 32, Picture.Interpolation.BILINEAR, () -> ++count[0] > 1);
+            fail("The copy should have been given up");
+        } catch (AbortException exception) {
+            assertEquals(2, count[0]);
+        }
+
+        // The levels built so far are kept
+        assertGray(picture.getScaledImage(32, 32, Picture.Interpolation.BILINEAR), 32, 32);
+    }
+
+    /**
+     * Paints a picture at an eighth of its size until it is painted from its
+     * mip levels, which are built in the background.
+     */
+    private static void assertPaintedGray(final Picture picture) throws InterruptedException {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        long start = System.currentTimeMillis();
+
+        while (true) {
+            Graphics2D graphics = image.createGraphics();
+            graphics.scale(0.125, 0.125);
+            picture.paint(graphics);
+            graphics.dispose();
+
+            try {
+                assertGray(image, 64, 64);
+                break;
+            } catch (AssertionError error) {
+                if (System.currentTimeMillis() - start > TIMEOUT) {
+                    throw error;
+                }
+            }
+
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testPaintScaled() throws Exception {
+        Picture picture = createStripes(512);
+
+        // Painting doesn't wait for a copy being made in the background
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch painted = new CountDownLatch(1);
+        boolean[] paintedWhileLocked = new boolean[1];
+        Thread thread = new Thread(() -> {
+            synchronized (picture) {
+                locked.countDown();
+
+                try {
+                    paintedWhileLocked[0] = painted.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException exception) {
+                    // No-op
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        locked.await();
+
+        try {
+            BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.scale(0.125, 0.125);
+            picture.paint(graphics);
+            graphics.dispose();
+        } finally {
+            painted.countDown();
+        }
+
+        thread.join();
+        assertTrue(paintedWhileLocked[0]);
+
+        assertPaintedGray(picture);
+
+        // Changing the pixels drops the levels, which are built again
+        picture.update(0, 0, 512, 512);
+        assertPaintedGray(picture);
+    }
+
+    @Test
+    public void testImageView() throws Exception {
+        try {
+            // Large enough to be scaled in the background
+            ImageView imageView = new ImageView(createStripes(1024));
+            imageView.getStyles().put("fill", true);
+            imageView.setSize(100, 100);
+            imageView.validate();
+
+            // The scaled copy replaces the picture once it is ready
+            BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+            long start = System.currentTimeMillis();
+
+            while (true) {
+                Graphics2D graphics = image.createGraphics();
+                imageView.paint(graphics);
+                graphics.dispose();
+
+                try {
+                    assertGray(image, 100, 100);
+                    break;
+                } catch (AssertionError error) {
+                    if (System.currentTimeMillis() - start > TIMEOUT) {
+                        throw error;
+                    }
+                }
+
+                Thread.sleep(10);
+                EventQueue.invokeAndWait(() -> { });
+            }
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on ImageView skipped because: " + e.getMessage());
+        }
+    }
+}
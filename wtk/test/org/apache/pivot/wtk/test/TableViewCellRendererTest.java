@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.text.CharacterIterator;
+import java.util.Date;
+
+import org.junit.Test;
+
+import org.apache.pivot.collections.HashMap;
+import org.apache.pivot.wtk.Style;
+import org.apache.pivot.wtk.TableView;
+import org.apache.pivot.wtk.ThemeNotFoundException;
+import org.apache.pivot.wtk.content.TableViewCellRenderer;
+import org.apache.pivot.wtk.content.TableViewDateCellRenderer;
+import org.apache.pivot.wtk.content.TableViewNumberCellRenderer;
+
+public final class TableViewCellRendererTest {
+    /**
+     * A font that counts the glyph vectors that are created for it.
+     */
+    private static final class CountingFont extends Font {
+        private static final long serialVersionUID = 1L;
+
+        private int count = 0;
+
+        CountingFont(final int size) {
+            super(Font.DIALOG, Font.PLAIN, size);
+        }
+
+        @Override
+        public GlyphVector createGlyphVector(final FontRenderContext frc, final String str) {
+            count++;
+            return super.createGlyphVector(frc, str);
+        }
+
+        @Override
+        public GlyphVector createGlyphVector(final FontRenderContext frc, final CharacterIterator ci) {
+            count++;
+            return super.createGlyphVector(frc, ci);
+        }
+    }
+
+    private static void paintCell(final TableViewCellRenderer renderer, final TableView tableView,
+        final Object row) {
+        renderer.render(row, 0, 0, tableView, "a", false, false, false);
+        renderer.setSize(100, 20);
+    }
+
+    @Test
+    public void testGlyphCache() {
+        try {
+            TableView tableView = new TableView();
+            tableView.getColumns().add(new TableView.Column("a", 100));
+            CountingFont font = new CountingFont(13);
+            tableView.putStyle(Style.font, font);
+
+            TableViewCellRenderer renderer = new TableViewCellRenderer();
+            HashMap<String, Object> row1 = new HashMap<>();
+            row1.put("a", "First");
+            HashMap<String, Object> row2 = new HashMap<>();
+            row2.put("a", "Second");
+
+            paintCell(renderer, tableView, row1);
+            paintCell(renderer, tableView, row2);
+            int count = font.count;
+            assertTrue(count > 0);
+
+            // Painting the same cells again reuses their glyphs
+            for (int i = 0; i < 100; i++) {
+                paintCell(renderer, tableView, row1);
+                paintCell(renderer, tableView, row2);
+            }
+            assertEquals(count, font.count);
+
+            // New text is laid out
+            row1.put("a", "Changed");
+            paintCell(renderer, tableView, row1);
+            assertTrue(font.count > count);
+            count = font.count;
+            paintCell(renderer, tableView, row2);
+            paintCell(renderer, tableView, row1);
+            assertEquals(count, font.count);
+
+            // A new font discards the cached glyphs
+            CountingFont largerFont = new CountingFont(15);
+            tableView.putStyle(Style.font, largerFont);
+            paintCell(renderer, tableView, row2);
+            assertTrue(largerFont.count > 0);
+            count = largerFont.count;
+            paintCell(renderer, tableView, row1);
+            paintCell(renderer, tableView, row2);
+            assertTrue(largerFont.count > count);
+            count = largerFont.count;
+            paintCell(renderer, tableView, row1);
+            paintCell(renderer, tableView, row2);
+            assertEquals(count, largerFont.count);
+
+            // Without the cache, every paint lays the text out again
+            renderer.putStyle(Style.glyphCacheSize, 0);
+            paintCell(renderer, tableView, row1);
+            paintCell(renderer, tableView, row2);
+            assertTrue(largerFont.count > count);
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TableViewCellRenderer skipped because: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testNumberText() {
+        try {
+            TableViewNumberCellRenderer renderer = new TableViewNumberCellRenderer();
+            HashMap<String, Object> row = new HashMap<>();
+            row.put("a", 1234.5);
+
+            // The same value gives the same text, without formatting it again
+            String text = renderer.toString(row, "a");
+            assertEquals("1,234.5", text.replace(' ', ','));
+            assertSame(text, renderer.toString(row, "a"));
+
+            row.put("a", 42);
+            assertEquals("42", renderer.toString(row, "a"));
+
+            renderer.setNumberFormat("0.00");
+            assertEquals("42.00", renderer.toString(row, "a"));
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TableViewNumberCellRenderer skipped because: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testDateText() {
+        try {
+            TableViewDateCellRenderer renderer = new TableViewDateCellRenderer();
+            renderer.setDateFormat("yyyy-MM-dd HH:mm");
+            HashMap<String, Object> row = new HashMap<>();
+            Date date = new Date(0);
+            row.put("a", date);
+
+            String text = renderer.toString(row, "a");
+
+            // Dates can change in place; the text follows them
+            date.setTime(date.getTime() + 60000);
+            assertEquals(text.substring(0, 14), renderer.toString(row, "a").substring(0, 14));
+            assertFalse(text.equals(renderer.toString(row, "a")));
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TableViewDateCellRenderer skipped because: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.EventQueue;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import org.apache.pivot.wtk.TextArea;
+import org.apache.pivot.wtk.ThemeNotFoundException;
+import org.apache.pivot.wtk.util.TextAreaOutputStream;
+
+public final class TextAreaOutputStreamTest {
+    /**
+     * Waits for the flushes queued on the EDT to be done.
+     */
+    private static void waitForFlush() throws Exception {
+        EventQueue.invokeAndWait(() -> { });
+        EventQueue.invokeAndWait(() -> { });
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        try {
+            TextArea textArea = new TextArea();
+            TextAreaOutputStream outputStream = new TextAreaOutputStream(textArea);
+            PrintStream printStream = outputStream.toPrintStream();
+
+            for (int i = 0; i < 1000; i++) {
+                printStream.println("Line " + i);
+            }
+            printStream.print("Partial");
+            printStream.flush();
+            waitForFlush();
+
+            assertEquals(1001, textArea.getParagraphs().getLength());
+            assertEquals("Line 999", textArea.getParagraphs().get(999).getCharacters().toString());
+            assertEquals("Partial", textArea.getParagraphs().get(1000).getCharacters().toString());
+            assertEquals(0, outputStream.getDroppedLineCount());
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TextArea skipped because: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMaximumLineCount() throws Exception {
+        try {
+            TextArea textArea = new TextArea();
+            TextAreaOutputStream outputStream = new TextAreaOutputStream(textArea);
+            outputStream.setMaximumLineCount(100);
+            PrintStream printStream = outputStream.toPrintStream();
+
+            for (int i = 0; i < 50; i++) {
+                printStream.println("Line " + i);
+            }
+            waitForFlush();
+            assertEquals(51, textArea.getParagraphs().getLength());
+
+            // Trimmed from the head of the text area
+            for (int i = 50; i < 120; i++) {
+                printStream.println("Line " + i);
+            }
+            waitForFlush();
+            assertEquals(101, textArea.getParagraphs().getLength());
+            assertEquals("Line 20", textArea.getParagraphs().get(0).getCharacters().toString());
+
+            // Trimmed from the new text, since it is over the limit on its own
+            for (int i = 120; i < 1000; i++) {
+                printStream.println("Line " + i);
+            }
+            waitForFlush();
+            assertEquals(101, textArea.getParagraphs().getLength());
+            assertEquals("Line 900", textArea.getParagraphs().get(0).getCharacters().toString());
+            assertEquals(900, outputStream.getDroppedLineCount());
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TextArea skipped because: " + e.getMessage());
+        }
+    }
+}
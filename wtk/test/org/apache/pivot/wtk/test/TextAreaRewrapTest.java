@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.EventQueue;
+
+import org.junit.Test;
+
+import org.apache.pivot.wtk.ApplicationContext;
+import org.apache.pivot.wtk.Bounds;
+import org.apache.pivot.wtk.Display;
+import org.apache.pivot.wtk.ScrollPane;
+import org.apache.pivot.wtk.TextArea;
+import org.apache.pivot.wtk.ThemeNotFoundException;
+import org.apache.pivot.wtk.Window;
+
+public final class TextAreaRewrapTest {
+    private static final int COUNT = 2000;
+    private static final long TIMEOUT = 30000;
+
+    private static String createText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < COUNT; i++) {
+            if (i > 0) {
+                text.append('\n');
+            }
+
+            text.append("Paragraph ").append(i);
+            for (int j = 0; j < i % 7; j++) {
+                text.append(" has a few more words that need to be wrapped");
+            }
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * @return A text area that isn't showing (and so wraps all of its
+     * paragraphs right away), laid out at the given width.
+     */
+    private static TextArea createReference(final int width) {
+        TextArea textArea = new TextArea();
+        textArea.setText(createText());
+        textArea.setSize(width, textArea.getPreferredHeight(width));
+        textArea.validate();
+
+        return textArea;
+    }
+
+    private static void assertSameLayout(final TextArea expected, final TextArea actual,
+        final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            int offset = actual.getParagraphs().get(i).getOffset();
+            assertEquals("paragraph " + i, expected.getCharacterBounds(offset),
+                actual.getCharacterBounds(offset));
+        }
+    }
+
+    @Test
+    public void testRewrap() throws Exception {
+        try {
+            TextArea textArea = new TextArea();
+            textArea.setText(createText());
+            ScrollPane scrollPane = new ScrollPane(ScrollPane.ScrollBarPolicy.FILL,
+                ScrollPane.ScrollBarPolicy.AUTO);
+            scrollPane.setView(textArea);
+
+            Display display = new ApplicationContext.DisplayHost().getDisplay();
+            display.setSize(800, 300);
+            Window window = new Window(scrollPane);
+            window.setPreferredSize(600, 300);
+            window.open(display);
+            EventQueue.invokeAndWait(display::validate);
+
+            TextArea wideReference = createReference(textArea.getWidth());
+            assertEquals(wideReference.getHeight(), textArea.getHeight());
+
+            // Narrow the text area; the background re-wrap can only finish
+            // once the event dispatch thread is free again, so everything is
+            // checked before that
+            int[] widths = new int[1];
+            int[] heights = new int[1];
+            int[] visibleCounts = new int[1];
+            TextArea[] references = new TextArea[1];
+
+            EventQueue.invokeAndWait(() -> {
+                window.setPreferredSize(300, 300);
+                display.validate();
+
+                widths[0] = textArea.getWidth();
+                heights[0] = textArea.getHeight();
+
+                // The paragraphs in view are wrapped right away
+                TextArea reference = createReference(widths[0]);
+                Bounds viewportBounds = scrollPane.getViewportBounds();
+                int offset = reference.getInsertionPoint(0, viewportBounds.height - 1);
+                visibleCounts[0] = reference.getParagraphAt(offset) + 1;
+                assertSameLayout(reference, textArea, 0, visibleCounts[0]);
+                references[0] = reference;
+            });
+
+            // The others keep their rows for now, which are fewer than they
+            // need at this width
+            TextArea reference = references[0];
+            assertTrue(widths[0] < wideReference.getWidth());
+            assertTrue(visibleCounts[0] > 1 && visibleCounts[0] < COUNT / 10);
+            assertTrue(heights[0] < reference.getHeight());
+
+            // Once the background re-wrap is done, all of the paragraphs are
+            // wrapped as if they had been wrapped right away
+            long start = System.currentTimeMillis();
+            int[] height = new int[1];
+            do {
+                Thread.sleep(10);
+                EventQueue.invokeAndWait(() -> {
+                    display.validate();
+                    height[0] = textArea.getHeight();
+                });
+            } while (height[0] != reference.getHeight()
+                && System.currentTimeMillis() - start < TIMEOUT);
+
+            assertEquals(reference.getHeight(), height[0]);
+            EventQueue.invokeAndWait(() -> assertSameLayout(reference, textArea, 0, COUNT));
+
+            EventQueue.invokeAndWait(window::close);
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TextArea skipped because: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import org.apache.pivot.wtk.ApplicationContext;
+import org.apache.pivot.wtk.Bounds;
+import org.apache.pivot.wtk.Display;
+import org.apache.pivot.wtk.ScrollPane;
+import org.apache.pivot.wtk.TextPane;
+import org.apache.pivot.wtk.ThemeNotFoundException;
+import org.apache.pivot.wtk.Window;
+import org.apache.pivot.wtk.text.Document;
+import org.apache.pivot.wtk.text.Paragraph;
+
+public final class TextPaneLayoutTest {
+    private static final int COUNT = 300;
+    private static final int LONG_COUNT = 3000;
+
+    /**
+     * @return A document of many paragraphs made of narrow characters, whose
+     * size is overestimated until they are laid out.
+     */
+    private static Document createLongDocument() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            text.append('i');
+        }
+
+        Document document = new Document();
+        for (int i = 0; i < LONG_COUNT; i++) {
+            document.add(new Paragraph((i % 10 == 0) ? "Paragraph " + i : text.toString()));
+        }
+
+        return document;
+    }
+
+    /**
+     * Validates the display on the event dispatch thread, along with any
+     * components that invalidate themselves once their layout is done.
+     */
+    private static void validate(final Display display) throws Exception {
+        EventQueue.invokeAndWait(display::validate);
+        EventQueue.invokeAndWait(display::validate);
+    }
+
+    /**
+     * Paints the whole display (which lays out whatever comes into view),
+     * and validates it again.
+     */
+    private static void paint(final Display display) throws Exception {
+        validate(display);
+
+        EventQueue.invokeAndWait(() -> {
+            BufferedImage image = new BufferedImage(display.getWidth(), display.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = image.createGraphics();
+            try {
+                display.paint(graphics);
+            } finally {
+                graphics.dispose();
+            }
+        });
+
+        validate(display);
+    }
+
+    @Test
+    public void testParagraphPositions() {
+        try {
+            Document document = new Document();
+            for (int i = 0; i < COUNT; i++) {
+                document.add(new Paragraph((i % 10 == 0)
+                    ? "Paragraph " + i + " is long enough that it has to be wrapped onto more than one row"
+                    : "Paragraph " + i));
+            }
+
+            TextPane textPane = new TextPane();
+            textPane.setDocument(document);
+            textPane.setSize(200, textPane.getPreferredHeight(200));
+            textPane.validate();
+
+            // Each paragraph starts below the previous one, and the insertion
+            // point at the start of each paragraph maps back to it
+            int y = -1;
+            for (int i = 0; i < COUNT; i++) {
+                int offset = document.get(i).getDocumentOffset();
+                Bounds bounds = textPane.getCharacterBounds(offset);
+
+                assertTrue(bounds.y > y);
+                assertEquals(offset, textPane.getInsertionPoint(bounds.x, bounds.y));
+                y = bounds.y;
+            }
+
+            assertTrue(textPane.getRowCount() > COUNT);
+            assertEquals(textPane.getRowCount() - 1, textPane.getRowAt(document.getCharacterCount() - 1));
+            assertEquals(textPane.getPreferredHeight(200), textPane.getHeight());
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TextPane skipped because: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testDeferredLayout() throws Exception {
+        try {
+            TextPane textPane = new TextPane();
+            textPane.setDocument(createLongDocument());
+            ScrollPane scrollPane = new ScrollPane(ScrollPane.ScrollBarPolicy.FILL,
+                ScrollPane.ScrollBarPolicy.AUTO);
+            scrollPane.setView(textPane);
+
+            Display display = new ApplicationContext.DisplayHost().getDisplay();
+            display.setSize(400, 300);
+            Window window = new Window(scrollPane);
+            window.setPreferredSize(200, 300);
+            window.open(display);
+
+            // Laying out the paragraphs in view changes the height
+            validate(display);
+
+            // A text pane that isn't showing lays out all of its paragraphs
+            int width = textPane.getWidth();
+            TextPane referencePane = new TextPane();
+            referencePane.setDocument(createLongDocument());
+            int height = referencePane.getPreferredHeight(width);
+            referencePane.setSize(width, height);
+            referencePane.validate();
+
+            // Only the paragraphs in view are laid out; the others are
+            // overestimated
+            int viewportHeight = scrollPane.getViewportBounds().height;
+            assertTrue(textPane.getHeight() > height);
+            assertEquals(textPane.getHeight(), textPane.getPreferredHeight(width));
+
+            Document document = textPane.getDocument();
+            int inView = referencePane.getInsertionPoint(0, viewportHeight - 1);
+            for (int i = 0, offset = 0; offset <= inView; offset = document.get(++i).getDocumentOffset()) {
+                assertEquals(referencePane.getCharacterBounds(offset), textPane.getCharacterBounds(offset));
+            }
+
+            // Paragraphs are laid out as they are scrolled into view, which
+            // brings the height down towards the real one
+            int previousHeight = textPane.getHeight();
+            for (int scrollTop = 0; scrollTop < textPane.getHeight() - viewportHeight;
+                scrollTop += viewportHeight) {
+                int top = scrollTop;
+                EventQueue.invokeAndWait(() -> scrollPane.setScrollTop(top));
+                paint(display);
+
+                assertTrue(textPane.getHeight() <= previousHeight);
+                assertEquals(textPane.getHeight(), textPane.getPreferredHeight(width));
+                previousHeight = textPane.getHeight();
+
+                if (scrollTop == 2 * viewportHeight) {
+                    assertTrue(textPane.getHeight() > height);
+                }
+            }
+
+            // Once everything has been in view, the layout matches the one
+            // done up front, even though the paragraphs far out of view have
+            // given their layouts up again
+            assertEquals(height, textPane.getHeight());
+            assertEquals(height, textPane.getPreferredHeight(width));
+
+            int lastOffset = document.get(LONG_COUNT - 1).getDocumentOffset();
+            assertEquals(referencePane.getCharacterBounds(lastOffset), textPane.getCharacterBounds(lastOffset));
+            assertEquals(referencePane.getCharacterBounds(0), textPane.getCharacterBounds(0));
+            assertEquals(height, textPane.getHeight());
+
+            window.close();
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TextPane skipped because: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Sequence;
+import org.apache.pivot.collections.Sequence.Tree.Path;
+import org.apache.pivot.util.Vote;
+import org.apache.pivot.wtk.ThemeNotFoundException;
+import org.apache.pivot.wtk.TreeView;
+import org.apache.pivot.wtk.TreeViewBranchListener;
+
+public final class TreeViewPathsTest {
+    private static final TreeView.PathComparator COMPARATOR = new TreeView.PathComparator();
+
+    private int expandedCount = 0;
+    private int collapsedCount = 0;
+    private int vetoedCount = 0;
+    private int bulkCount = 0;
+
+    /**
+     * @return A tree of three branches, each with three leaves.
+     */
+    private static ArrayList<Object> createTreeData() {
+        ArrayList<Object> treeData = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            ArrayList<Object> branch = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                branch.add("Node " + i + "." + j);
+            }
+
+            treeData.add(branch);
+        }
+
+        return treeData;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testShiftOnInsertAndRemove() {
+        try {
+            ArrayList<Object> treeData = createTreeData();
+            TreeView treeView = new TreeView(treeData);
+            treeView.setSelectMode(TreeView.SelectMode.MULTI);
+
+            treeView.expandBranch(new Path(1));
+            treeView.addSelectedPath(new Path(1, 2));
+            treeView.addSelectedPath(new Path(2, 0));
+
+            Sequence<Path> selectedPaths = treeView.getSelectedPaths();
+            assertEquals(2, selectedPaths.getLength());
+            assertEquals(0, COMPARATOR.compare(new Path(1, 2), selectedPaths.get(0)));
+            assertEquals(0, COMPARATOR.compare(new Path(2, 0), selectedPaths.get(1)));
+
+            // Insert a new branch ahead of the others
+            treeData.insert(new ArrayList<Object>(), 0);
+
+            assertTrue(treeView.isBranchExpanded(new Path(2)));
+            assertFalse(treeView.isBranchExpanded(new Path(1)));
+            assertTrue(treeView.isNodeSelected(new Path(2, 2)));
+            assertTrue(treeView.isNodeSelected(new Path(3, 0)));
+            assertFalse(treeView.isNodeSelected(new Path(1, 2)));
+
+            // Remove a child of an expanded branch
+            ((List<Object>) treeData.get(2)).remove(0, 1);
+            assertTrue(treeView.isNodeSelected(new Path(2, 1)));
+
+            // Remove the whole branch; its state goes with it
+            treeData.remove(2, 1);
+            assertEquals(1, treeView.getSelectedPaths().getLength());
+            assertTrue(treeView.isNodeSelected(new Path(2, 0)));
+            assertFalse(treeView.isBranchExpanded(new Path(2)));
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TreeView skipped because: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCheckState() {
+        try {
+            TreeView treeView = new TreeView(createTreeData());
+            treeView.setCheckmarksEnabled(true);
+            treeView.setShowMixedCheckmarkState(true);
+
+            treeView.setNodeChecked(new Path(0, 1), true);
+            assertEquals(TreeView.NodeCheckState.MIXED, treeView.getNodeCheckState(new Path(0)));
+            assertEquals(TreeView.NodeCheckState.CHECKED, treeView.getNodeCheckState(new Path(0, 1)));
+            assertEquals(TreeView.NodeCheckState.UNCHECKED, treeView.getNodeCheckState(new Path(1)));
+
+            treeView.setNodeChecked(new Path(0, 1), false);
+            assertEquals(TreeView.NodeCheckState.UNCHECKED, treeView.getNodeCheckState(new Path(0)));
+            assertEquals(0, treeView.getCheckedPaths().getLength());
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TreeView skipped because: " + e.getMessage());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRowIndexes() {
+        try {
+            ArrayList<Object> treeData = createTreeData();
+            TreeView treeView = new TreeView(treeData);
+
+            assertEquals(2, treeView.getRowIndex(new Path(2)));
+            assertEquals(-1, treeView.getRowIndex(new Path(0, 0)));
+
+            treeView.expandBranch(new Path(0));
+            treeView.expandBranch(new Path(2));
+            assertEquals(4, treeView.getRowIndex(new Path(1)));
+            assertEquals(5, treeView.getRowIndex(new Path(2)));
+            assertEquals(8, treeView.getRowIndex(new Path(2, 2)));
+
+            // A large branch only shifts the rows that follow it
+            ArrayList<Object> branch = (ArrayList<Object>) treeData.get(1);
+            for (int i = 0; i < 100000; i++) {
+                branch.add("Leaf " + i);
+            }
+
+            treeView.expandBranch(new Path(1));
+            assertEquals(5 + 100003, treeView.getRowIndex(new Path(2)));
+            assertEquals(5 + 100002, treeView.getRowIndex(new Path(1, 100002)));
+
+            // Rows map back to the same paths
+            Path path = new Path(1, 50000);
+            int y = treeView.getNodeBounds(path).y;
+            assertEquals(0, COMPARATOR.compare(path, treeView.getNodeAt(y)));
+
+            // Nodes inserted into and removed from visible branches move the
+            // rows below them
+            ((List<Object>) treeData.get(0)).insert("New", 0);
+            assertEquals(6 + 100003, treeView.getRowIndex(new Path(2)));
+            branch.remove(0, 100000);
+            assertEquals(10, treeView.getRowIndex(new Path(2, 0)));
+
+            treeView.collapseBranch(new Path(0));
+            assertEquals(1, treeView.getRowIndex(new Path(1)));
+            assertEquals(5, treeView.getRowIndex(new Path(2)));
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TreeView skipped because: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testBulkExpansion() {
+        try {
+            TreeView treeView = new TreeView(createTreeData());
+            treeView.getTreeViewBranchListeners().add(new TreeViewBranchListener() {
+                @Override
+                public Vote previewBranchExpandedChange(final TreeView treeViewArgument, final Path path) {
+                    vetoedCount++;
+                    return Vote.APPROVE;
+                }
+
+                @Override
+                public void branchExpanded(final TreeView treeViewArgument, final Path path) {
+                    expandedCount++;
+                }
+
+                @Override
+                public void branchCollapsed(final TreeView treeViewArgument, final Path path) {
+                    collapsedCount++;
+                }
+
+                @Override
+                public void expandedBranchesChanged(final TreeView treeViewArgument) {
+                    bulkCount++;
+                }
+            });
+
+            treeView.expandAll();
+            assertTrue(treeView.isBranchExpanded(new Path(0)));
+            assertTrue(treeView.isBranchExpanded(new Path(2)));
+
+            treeView.collapseAll();
+            assertFalse(treeView.isBranchExpanded(new Path(1)));
+
+            // Only the bulk events are fired
+            assertEquals(2, bulkCount);
+            assertEquals(0, expandedCount + collapsedCount + vetoedCount);
+
+            // Nothing changes, so nothing is fired
+            treeView.collapseAll();
+            assertEquals(2, bulkCount);
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TreeView skipped because: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testBulkExpansionVeto() {
+        try {
+            TreeView treeView = new TreeView(createTreeData());
+            treeView.expandBranch(new Path(2));
+
+            treeView.getTreeViewBranchListeners().add(new TreeViewBranchListener() {
+                @Override
+                public Vote previewExpandedBranchesChange(final TreeView treeViewArgument,
+                    final boolean expanded) {
+                    // Branches may be expanded, but not collapsed
+                    return expanded ? Vote.APPROVE : Vote.DENY;
+                }
+
+                @Override
+                public void expandedBranchesChangeVetoed(final TreeView treeViewArgument,
+                    final boolean expanded, final Vote reason) {
+                    assertFalse(expanded);
+                    vetoedCount++;
+                }
+
+                @Override
+                public void expandedBranchesChanged(final TreeView treeViewArgument) {
+                    bulkCount++;
+                }
+            });
+
+            treeView.collapseAll();
+            assertTrue(treeView.isBranchExpanded(new Path(2)));
+            assertEquals(1, vetoedCount);
+            assertEquals(0, bulkCount);
+
+            treeView.expandAll();
+            assertTrue(treeView.isBranchExpanded(new Path(0)));
+            assertTrue(treeView.isBranchExpanded(new Path(1)));
+            assertEquals(1, bulkCount);
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TreeView skipped because: " + e.getMessage());
+        }
+    }
+}
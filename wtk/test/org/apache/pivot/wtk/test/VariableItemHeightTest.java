@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.Test;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.HashMap;
+import org.apache.pivot.wtk.Bounds;
+import org.apache.pivot.wtk.Button;
+import org.apache.pivot.wtk.Component;
+import org.apache.pivot.wtk.ListView;
+import org.apache.pivot.wtk.TableView;
+import org.apache.pivot.wtk.Style;
+import org.apache.pivot.wtk.ThemeNotFoundException;
+import org.apache.pivot.wtk.content.ListViewItemRenderer;
+import org.apache.pivot.wtk.content.TableViewTextAreaCellRenderer;
+
+public final class VariableItemHeightTest {
+    private static final int COUNT = 1000;
+
+    /**
+     * Paints the given area of a component, which is what makes the skins
+     * measure the rows in it, and lays the component out again until the
+     * measured heights have been taken into account.
+     */
+    private static void paint(final Component component, final int y, final int height) {
+        BufferedImage image = new BufferedImage(component.getWidth(), 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.clipRect(0, y, component.getWidth(), height);
+            component.validate();
+            component.paint(graphics);
+        } finally {
+            graphics.dispose();
+        }
+
+        component.setSize(component.getWidth(), component.getPreferredHeight(component.getWidth()));
+        component.validate();
+    }
+
+    /**
+     * Checks that consecutive rows are laid out one after another and that
+     * each row is found at its own y-coordinates.
+     */
+    private static void assertConsistent(final int count, final int gap,
+        final IntFunction<Bounds> boundsFunction,
+        final IntUnaryOperator rowAtFunction) {
+        int y = 0;
+        for (int i = 0; i < count; i++) {
+            Bounds bounds = boundsFunction.apply(i);
+            assertEquals(y, bounds.y);
+            assertTrue(bounds.height > 0);
+            assertEquals(i, rowAtFunction.applyAsInt(bounds.y));
+            assertEquals(i, rowAtFunction.applyAsInt(bounds.y + bounds.height - 1));
+
+            y += bounds.height + gap;
+        }
+
+        assertEquals(-1, rowAtFunction.applyAsInt(y));
+    }
+
+    /**
+     * Checks the row positions against the sum of the heights of the rows
+     * above them; rows in [{@code measuredStart}, {@code measuredEnd}) must
+     * have their measured heights and the others the estimated height.
+     */
+    private static void assertHeights(final int count, final int gap,
+        final IntFunction<Bounds> boundsFunction, final IntUnaryOperator heightFunction,
+        final int measuredStart, final int measuredEnd, final int estimatedHeight) {
+        int y = 0;
+        for (int i = 0; i < count; i++) {
+            Bounds bounds = boundsFunction.apply(i);
+            int height = (i >= measuredStart && i < measuredEnd) ? heightFunction.applyAsInt(i)
+                : estimatedHeight;
+
+            assertEquals("y of row " + i, y, bounds.y);
+            assertEquals("height of row " + i, height, bounds.height);
+
+            y += height + gap;
+        }
+    }
+
+    private static String getItem(final int index) {
+        return (index % 10 == 0) ? "Item " + index + "\nsecond line" : "Item " + index;
+    }
+
+    @Test
+    public void testListView() {
+        try {
+            ArrayList<String> listData = new ArrayList<>();
+            for (int i = 0; i < COUNT; i++) {
+                listData.add(getItem(i));
+            }
+
+            ListView listView = new ListView(listData);
+            listView.setItemRenderer(new ListViewItemRenderer() {
+                {
+                    label.putStyle(Style.wrapText, true);
+                }
+
+                @Override
+                public int getPreferredHeight(final int width) {
+                    // As if the items wrapped onto two lines when narrow
+                    int preferredHeight = super.getPreferredHeight(width);
+                    return (width != -1 && width < 100) ? preferredHeight * 2 : preferredHeight;
+                }
+            });
+            listView.getStyles().put("variableItemHeight", true);
+            listView.setSize(200, listView.getPreferredHeight(200));
+            listView.validate();
+
+            assertConsistent(COUNT, 0, listView::getItemBounds, listView::getItemAt);
+
+            ListView.ItemRenderer itemRenderer = listView.getItemRenderer();
+            IntUnaryOperator itemHeight = (index) -> {
+                itemRenderer.render(listData.get(index), index, listView, false,
+                    Button.State.UNSELECTED, false, false);
+                return itemRenderer.getPreferredHeight(200);
+            };
+
+            int estimatedHeight = listView.getItemBounds(COUNT - 1).height;
+            assertTrue(itemHeight.applyAsInt(0) > estimatedHeight);
+            assertEquals(estimatedHeight, itemHeight.applyAsInt(1));
+
+            // Only the painted items are measured
+            paint(listView, 0, estimatedHeight * 100);
+            int measuredEnd = listView.getItemAt(estimatedHeight * 100 - 1) + 1;
+            assertTrue(measuredEnd > 90 && measuredEnd < 100);
+            assertHeights(COUNT, 0, listView::getItemBounds, itemHeight, 0, measuredEnd, estimatedHeight);
+            assertConsistent(COUNT, 0, listView::getItemBounds, listView::getItemAt);
+
+            // Only the inserted item is added; the positions of the others shift
+            int y = listView.getItemBounds(500).y;
+            listData.insert("New\nsecond line\nthird line", 0);
+            paint(listView, 0, 1);
+            assertTrue(listView.getItemBounds(0).height > itemHeight.applyAsInt(1));
+            assertEquals(y + listView.getItemBounds(0).height, listView.getItemBounds(501).y);
+            assertHeights(COUNT + 1, 0, listView::getItemBounds, itemHeight, 0, measuredEnd + 1,
+                estimatedHeight);
+
+            listData.remove(0, 1);
+            listView.validate();
+            assertEquals(y, listView.getItemBounds(500).y);
+
+            // A re-inserted item is estimated until it is painted again
+            listData.remove(10, 1);
+            listData.insert(getItem(10), 10);
+            listView.validate();
+            assertEquals(y - itemHeight.applyAsInt(10) + estimatedHeight, listView.getItemBounds(500).y);
+            paint(listView, listView.getItemBounds(10).y, 1);
+            assertEquals(y, listView.getItemBounds(500).y);
+            assertConsistent(COUNT, 0, listView::getItemBounds, listView::getItemAt);
+
+            // Once every item has been painted, the list is as tall as all of them
+            paint(listView, 0, listView.getHeight());
+            paint(listView, 0, listView.getHeight());
+            assertHeights(COUNT, 0, listView::getItemBounds, itemHeight, 0, COUNT, estimatedHeight);
+
+            int sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += itemHeight.applyAsInt(i);
+            }
+            Bounds lastBounds = listView.getItemBounds(COUNT - 1);
+            assertEquals(sum, lastBounds.y + lastBounds.height);
+            assertConsistent(COUNT, 0, listView::getItemBounds, listView::getItemAt);
+
+            // The items are measured at any other width asked for, without
+            // losing the measurements made at the current one
+            int narrowSum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                itemRenderer.render(listData.get(i), i, listView, false, Button.State.UNSELECTED, false, false);
+                narrowSum += itemRenderer.getPreferredHeight(40);
+            }
+            assertTrue(narrowSum > sum);
+            assertEquals(narrowSum, listView.getPreferredHeight(40));
+            assertEquals(lastBounds, listView.getItemBounds(COUNT - 1));
+            assertEquals(sum, listView.getPreferredHeight(200));
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on ListView skipped because: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTableView() {
+        try {
+            ArrayList<HashMap<String, String>> tableData = new ArrayList<>();
+            for (int i = 0; i < COUNT; i++) {
+                HashMap<String, String> row = new HashMap<>();
+                row.put("a", getItem(i));
+                tableData.add(row);
+            }
+
+            TableView tableView = new TableView(tableData);
+            TableView.Column column = new TableView.Column("a", 100);
+            column.setCellRenderer(new TableViewTextAreaCellRenderer());
+            tableView.getColumns().add(column);
+            tableView.getStyles().put("variableRowHeight", true);
+            tableView.setSize(100, tableView.getPreferredHeight(100));
+            tableView.validate();
+
+            assertConsistent(COUNT, 1, tableView::getRowBounds, tableView::getRowAt);
+
+            TableView.CellRenderer cellRenderer = column.getCellRenderer();
+            IntUnaryOperator rowHeight = (index) -> {
+                cellRenderer.render(tableData.get(index), index, 0, tableView, "a", false, false, false);
+                return cellRenderer.getPreferredHeight(100);
+            };
+
+            int estimatedHeight = tableView.getRowBounds(COUNT - 1).height;
+            assertTrue(rowHeight.applyAsInt(0) > rowHeight.applyAsInt(1));
+
+            paint(tableView, 0, (estimatedHeight + 1) * 50);
+            int measuredEnd = tableView.getRowAt((estimatedHeight + 1) * 50 - 1) + 1;
+            assertTrue(measuredEnd > 0 && measuredEnd < 50);
+            assertHeights(COUNT, 1, tableView::getRowBounds, rowHeight, 0, measuredEnd, estimatedHeight);
+
+            tableData.remove(10, 10);
+            tableView.validate();
+            assertConsistent(COUNT - 10, 1, tableView::getRowBounds, tableView::getRowAt);
+
+            paint(tableView, 0, tableView.getHeight());
+            paint(tableView, 0, tableView.getHeight());
+            assertHeights(COUNT - 10, 1, tableView::getRowBounds, rowHeight, 0, COUNT - 10,
+                estimatedHeight);
+
+            int sum = COUNT - 11;
+            for (int i = 0; i < COUNT - 10; i++) {
+                sum += rowHeight.applyAsInt(i);
+            }
+            Bounds lastBounds = tableView.getRowBounds(COUNT - 11);
+            assertEquals(sum, lastBounds.y + lastBounds.height);
+            assertConsistent(COUNT - 10, 1, tableView::getRowBounds, tableView::getRowAt);
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on TableView skipped because: " + e.getMessage());
+        }
+    }
+}
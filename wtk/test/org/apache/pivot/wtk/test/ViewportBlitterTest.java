@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pivot.wtk.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.awt.EventQueue;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import org.apache.pivot.wtk.ApplicationContext;
+import org.apache.pivot.wtk.Display;
+import org.apache.pivot.wtk.Label;
+import org.apache.pivot.wtk.ScrollPane;
+import org.apache.pivot.wtk.Style;
+import org.apache.pivot.wtk.ThemeNotFoundException;
+import org.apache.pivot.wtk.ViewportBlitter;
+import org.apache.pivot.wtk.Window;
+
+public final class ViewportBlitterTest {
+    /**
+     * Display host whose "screen" is an image, which can be copied.
+     */
+    private static final class ImageDisplayHost extends ApplicationContext.DisplayHost {
+        private static final long serialVersionUID = 0;
+
+        private final BufferedImage screen;
+
+        ImageDisplayHost(final int width, final int height) {
+            screen = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            getDisplay().setSize(width, height);
+        }
+
+        @Override
+        protected boolean isCopyAreaEnabled() {
+            return true;
+        }
+
+        @Override
+        public Graphics getGraphics() {
+            return screen.createGraphics();
+        }
+
+        /**
+         * Paints the whole display onto the screen, as a repaint would.
+         */
+        void paintScreen() {
+            Graphics2D graphics = screen.createGraphics();
+            graphics.clipRect(0, 0, screen.getWidth(), screen.getHeight());
+            getDisplay().paint(graphics);
+            graphics.dispose();
+        }
+
+        BufferedImage getScreen() {
+            return screen;
+        }
+    }
+
+    private static BufferedImage paint(final Display display) {
+        BufferedImage image = new BufferedImage(display.getWidth(), display.getHeight(),
+            BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.clipRect(0, 0, display.getWidth(), display.getHeight());
+        display.paint(graphics);
+        graphics.dispose();
+
+        return image;
+    }
+
+    /**
+     * Without a display to copy from, scrolling falls back on moving the
+     * components and repainting them, and is counted as such.
+     */
+    @Test
+    public void testScrollWithoutDisplay() {
+        try {
+            Label view = new Label();
+            view.setPreferredSize(1000, 1000);
+            Label rowHeader = new Label();
+            rowHeader.setPreferredSize(20, 1000);
+            Label columnHeader = new Label();
+            columnHeader.setPreferredSize(1000, 20);
+
+            ScrollPane scrollPane = new ScrollPane();
+            scrollPane.setView(view);
+            scrollPane.setRowHeader(rowHeader);
+            scrollPane.setColumnHeader(columnHeader);
+            scrollPane.setSize(200, 200);
+            scrollPane.validate();
+
+            ViewportBlitter blitter = scrollPane.getBlitter();
+
+            scrollPane.setScrollTop(100);
+            assertEquals(20 - 100, view.getY());
+            assertEquals(20 - 100, rowHeader.getY());
+            assertEquals(0, columnHeader.getY());
+
+            scrollPane.setScrollLeft(50);
+            assertEquals(20 - 50, view.getX());
+            assertEquals(20 - 50, columnHeader.getX());
+            assertEquals(0, rowHeader.getX());
+
+            assertEquals(0, blitter.getBlittedScrollCount());
+            assertEquals(2, blitter.getRepaintedScrollCount());
+
+            blitter.resetStatistics();
+            assertEquals(0, blitter.getRepaintedScrollCount());
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on ScrollPane skipped because: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A view that is not opaque is scrolled within offscreen layers, which
+     * survive the repaints of the scroll bars that go with each scroll.
+     */
+    @Test
+    public void testScrollTransparentView() throws Exception {
+        try {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 200; i++) {
+                text.append("Word").append(i).append(' ');
+            }
+
+            Label view = new Label(text.toString());
+            view.putStyle(Style.wrapText, true);
+
+            ScrollPane scrollPane = new ScrollPane(ScrollPane.ScrollBarPolicy.FILL,
+                ScrollPane.ScrollBarPolicy.AUTO);
+            scrollPane.setView(view);
+            scrollPane.putStyle(Style.backgroundColor, null);
+
+            ImageDisplayHost displayHost = new ImageDisplayHost(300, 300);
+            Display display = displayHost.getDisplay();
+            Window window = new Window(scrollPane);
+            window.setPreferredSize(200, 100);
+            window.open(display);
+
+            EventQueue.invokeAndWait(() -> {
+                display.validate();
+                displayHost.paintScreen();
+
+                assertFalse(scrollPane.isOpaque());
+                assertFalse(view.isOpaque());
+
+                ViewportBlitter blitter = scrollPane.getBlitter();
+                for (int i = 1; i <= 5; i++) {
+                    scrollPane.setScrollTop(i * 10);
+
+                    // The scroll bar is painted, as a repaint would
+                    Graphics2D graphics = displayHost.getScreen().createGraphics();
+                    int viewportWidth = scrollPane.getViewportBounds().width;
+                    graphics.clipRect(viewportWidth, 0, scrollPane.getWidth() - viewportWidth,
+                        scrollPane.getHeight());
+                    display.paint(graphics);
+                    graphics.dispose();
+                }
+
+                // The layers are painted on the first scroll, and copied after that
+                assertEquals(1, blitter.getRepaintedScrollCount());
+                assertEquals(4, blitter.getBlittedScrollCount());
+
+                BufferedImage expected = paint(display);
+                BufferedImage actual = displayHost.getScreen();
+                for (int y = 0; y < 100; y++) {
+                    for (int x = 0; x < 200; x++) {
+                        assertEquals("Pixel " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+                    }
+                }
+            });
+
+            window.close();
+        } catch (ThemeNotFoundException e) {
+            System.out.println("Tests on ScrollPane skipped because: " + e.getMessage());
+        }
+    }
+}